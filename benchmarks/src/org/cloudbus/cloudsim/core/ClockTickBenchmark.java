@@ -0,0 +1,106 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.fog.utils.SimulationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CloudSim#runClockTick()} on a synthetic fan-in tree of the given
+ * fan-out and depth, as the topologies of the fog simulations: every leaf
+ * emits a message each time unit, which is forwarded up to the root, a tenth
+ * of time unit for each hop. The leaves start at different times, so that
+ * ticks process batches of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ClockTickBenchmark {
+
+	private static final int EMIT = 1, FORWARD = 2;
+
+	@Param({ "4", "16" })
+	public int fanOut;
+
+	@Param({ "2", "3" })
+	public int depth;
+
+	@Param({ "TREE_SET", "BINARY_HEAP", "CALENDAR" })
+	public EventQueueType queueType;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		new SimulationContext().bind();
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false, queueType);
+		Node root = new Node("node", -1);
+		addChildren(root, depth);
+		CloudSim.runStart();
+	}
+
+	private void addChildren(Node parent, int levels) {
+		for (int i = 0; i < fanOut; i++) {
+			Node child = new Node(parent.getName() + "-" + i, parent.getId());
+			if (levels > 1)
+				addChildren(child, levels - 1);
+			else
+				child.leaf = true;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationContext.unbind();
+	}
+
+	@Benchmark
+	public boolean runClockTick() {
+		return CloudSim.runClockTick();
+	}
+
+	private static class Node extends SimEntity {
+
+		private final int parentId;
+		private boolean leaf;
+
+		Node(String name, int parentId) {
+			super(name);
+			this.parentId = parentId;
+		}
+
+		@Override
+		public void startEntity() {
+			if (leaf)
+				schedule(getId(), (getId() % 10) / 10.0, EMIT);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == EMIT)
+				schedule(getId(), 1, EMIT);
+			if (parentId >= 0)
+				schedule(parentId, 0.1, FORWARD);
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+}
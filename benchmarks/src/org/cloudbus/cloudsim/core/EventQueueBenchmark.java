@@ -0,0 +1,89 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The classic hold model on the future event queues: the queue keeps the given
+ * amount of events, and each operation polls the first one and adds a new one,
+ * later than it by an increment drawn from the given distribution:
+ * <ul>
+ * <li>exponential: mean 1, as for the arrivals of a Poisson process;</li>
+ * <li>uniform: between 0 and 2;</li>
+ * <li>ties: an integer between 1 and 4, as for the fixed periods and latencies
+ * of most simulations, so that many events happen at the same time;</li>
+ * <li>bimodal: mean 0.1 nine times out of ten, mean 100 otherwise, as for the
+ * transmissions of the tuples among periodic management events.</li>
+ * </ul>
+ * The increments are drawn beforehand, so that only the queue is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EventQueueBenchmark {
+
+	private static final int INCREMENTS = 1 << 16;
+
+	@Param({ "TREE_SET", "BINARY_HEAP", "QUATERNARY_HEAP", "CALENDAR" })
+	public EventQueueType queueType;
+
+	@Param({ "100", "10000", "1000000" })
+	public int size;
+
+	@Param({ "exponential", "uniform", "ties", "bimodal" })
+	public String increments;
+
+	private EventQueue queue;
+	private final double[] increment = new double[INCREMENTS];
+	private int next;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		Random random = new Random(42);
+		for (int i = 0; i < INCREMENTS; i++)
+			increment[i] = draw(random);
+		queue = queueType.newQueue();
+		for (int i = 0; i < size; i++)
+			queue.addEvent(new SimEvent(SimEvent.SEND, increment[i & (INCREMENTS - 1)], 0, 0, 0, null));
+		next = size;
+	}
+
+	private double draw(Random random) {
+		switch (increments) {
+		case "exponential":
+			return -Math.log(1 - random.nextDouble());
+		case "uniform":
+			return 2 * random.nextDouble();
+		case "ties":
+			return 1 + random.nextInt(4);
+		case "bimodal":
+			return -Math.log(1 - random.nextDouble()) * (random.nextInt(10) == 0 ? 100 : 0.1);
+		default:
+			throw new IllegalArgumentException("Unknown distribution: " + increments);
+		}
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent first = queue.poll();
+		queue.addEvent(new SimEvent(SimEvent.SEND, first.eventTime() + increment[next++ & (INCREMENTS - 1)], 0, 0, 0,
+				null));
+		return first;
+	}
+}
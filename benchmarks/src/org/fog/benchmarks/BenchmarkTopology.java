@@ -0,0 +1,274 @@
+package org.fog.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.AppModule;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDevice.DeviceNodeType;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog.DeviceNodeTypesLatencyMap;
+import org.fog.placement.ModuleMapping;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * Synthetic topology of the benchmarks, shaped as the one of
+ * {@link org.fog.test.perfeval.DCNSFog_5}: a cloud, a neighbouring proxy
+ * server and some gateways (fog controller nodes), each one with its own fog
+ * nodes, running applications made of a chain of modules.
+ * <p>
+ * It must be built after {@link #init()}, from the thread that runs the
+ * benchmark, since the devices are entities of the simulation bound to it.
+ */
+public class BenchmarkTopology {
+
+	/** Modules of each application of {@link #addApplications(int)}. */
+	public static final int MODULES_PER_APPLICATION = 10;
+
+	protected final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	protected final List<Sensor> sensors = new ArrayList<Sensor>();
+	protected final List<Actuator> actuators = new ArrayList<Actuator>();
+	protected final List<Application> applications = new ArrayList<Application>();
+	protected final List<FogDevice> leaves = new ArrayList<FogDevice>();
+	protected FogDevice cloud;
+	protected int userId;
+
+	/**
+	 * Initializes a new, silent, simulation on the current thread, with a broker
+	 * for the users of the applications.
+	 */
+	public static void init() throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+	}
+
+	/**
+	 * Creates the cloud, the neighbouring proxy server, and the given amount of
+	 * gateways, each one with the given amount of fog nodes.
+	 */
+	public BenchmarkTopology build(int gateways, int nodesPerGateway) throws Exception {
+		userId = new FogBroker("broker").getId();
+		cloud = createFogDevice("cloud", DeviceNodeType.CloudNode, 10000, 40000, 100, 10000, 0, 0.01, 170.62,
+				110.82);
+		cloud.setParentId(-1);
+		cloud.setUplinkLatency(5000);
+		FogDevice neighbour = createFogDevice("proxy-server_NB", DeviceNodeType.NeighboringFogControllerNode, 1000,
+				2000, 10000, 10000, 1, 0.0, 109.33, 85.47);
+		neighbour.setParentId(cloud.getId());
+		neighbour.setUplinkLatency(500);
+		for (int g = 0; g < gateways; g++) {
+			FogDevice gateway = createFogDevice("gateway-" + g, DeviceNodeType.FogControllerNode, 1000, 2000, 10000,
+					10000, 1, 0.0, 109.33, 85.47);
+			gateway.setParentId(cloud.getId());
+			gateway.setUplinkLatency(100);
+			for (int n = 0; n < nodesPerGateway; n++) {
+				FogDevice node = createFogDevice("m-" + g + "-" + n, DeviceNodeType.FogNode, 100, 500, 10000,
+						10000, 2, 0, 88.57, 80.24);
+				node.setParentId(gateway.getId());
+				node.setUplinkLatency(2);
+				leaves.add(node);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Adds as many applications as needed to deploy the given amount of modules,
+	 * in chains of {@value #MODULES_PER_APPLICATION}, and makes every device aware
+	 * of them.
+	 */
+	public List<Application> addApplications(int modules) {
+		List<Application> added = new ArrayList<Application>();
+		for (int a = 0; modules > 0; a++, modules -= MODULES_PER_APPLICATION)
+			added.add(addApplication("app" + a, Math.min(modules, MODULES_PER_APPLICATION)));
+		return added;
+	}
+
+	/**
+	 * Adds an application whose sensor feeds a chain of the given amount of
+	 * modules, the last one driving an actuator, and makes every device aware of
+	 * it.
+	 */
+	public Application addApplication(final String appId, int modules) {
+		Application application = Application.createApplication(appId, userId);
+		application.setUserId(userId);
+		for (int m = 0; m < modules; m++)
+			application.addAppModule(moduleName(appId, m), 10 + 10 * (m % 3), 50 + 25 * (m % 3), 30);
+
+		application.addAppEdge("SENSOR" + appId, moduleName(appId, 0), 200, 2000, "SENSOR" + appId, Tuple.UP,
+				AppEdge.SENSOR);
+		for (int m = 1; m < modules; m++)
+			application.addAppEdge(moduleName(appId, m - 1), moduleName(appId, m), 100, 500, "DATA" + m + appId,
+					Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge(moduleName(appId, modules - 1), "DISPLAY" + appId, 100, 28, "RESULT" + appId,
+				Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping(moduleName(appId, 0), "SENSOR" + appId, modules > 1 ? "DATA1" + appId
+				: "RESULT" + appId, new FractionalSelectivity(1.0));
+		for (int m = 1; m < modules; m++)
+			application.addTupleMapping(moduleName(appId, m), "DATA" + m + appId,
+					m + 1 < modules ? "DATA" + (m + 1) + appId : "RESULT" + appId, new FractionalSelectivity(1.0));
+
+		List<String> loop = new ArrayList<String>();
+		loop.add("SENSOR" + appId);
+		for (int m = 0; m < modules; m++)
+			loop.add(moduleName(appId, m));
+		loop.add("DISPLAY" + appId);
+		List<AppLoop> loops = new ArrayList<AppLoop>();
+		loops.add(new AppLoop(loop));
+		application.setLoops(loops);
+
+		application.setDeadlineMilliseconds(120);
+		application.setDeploymentTimeMilliseconds(60);
+		for (FogDevice device : fogDevices)
+			device.getApplicationMap().put(appId, application);
+		applications.add(application);
+		return application;
+	}
+
+	public static String moduleName(String appId, int module) {
+		return appId + "__module" + module;
+	}
+
+	/**
+	 * Adds a sensor, emitting with the given period, and an actuator of the given
+	 * application to every fog node.
+	 */
+	public void addSensors(Application application, double sensingInterval) {
+		String appId = application.getAppId();
+		for (FogDevice node : leaves) {
+			Sensor sensor = new Sensor("sensor-" + appId + "-" + node.getName(), "SENSOR" + appId, userId, appId,
+					new DeterministicDistribution(sensingInterval));
+			sensor.setGatewayDeviceId(node.getId());
+			sensor.setLatency(1.0);
+			sensors.add(sensor);
+			Actuator display = new Actuator("display-" + appId + "-" + node.getName(), userId, appId,
+					"DISPLAY" + appId);
+			display.setGatewayDeviceId(node.getId());
+			display.setLatency(1.0);
+			actuators.add(display);
+		}
+	}
+
+	/**
+	 * Returns the information the heuristics place the modules of all the
+	 * applications with, without constraints on the devices of the modules.
+	 */
+	public ModulePlacementAdditionalInformationFog getAdditionalInformation() {
+		Map<String, AppModule> modulesByName = new HashMap<String, AppModule>();
+		Map<String, Application> applicationsById = new HashMap<String, Application>();
+		List<AppModule> modules = new ArrayList<AppModule>();
+		for (Application application : applications) {
+			applicationsById.put(application.getAppId(), application);
+			for (AppModule module : application.getModules()) {
+				modulesByName.put(module.getName(), module);
+				modules.add(module);
+			}
+		}
+		return new ModulePlacementAdditionalInformationFog(ModuleMapping.createModuleMapping(), modulesByName,
+				applicationsById, modules, fogDevices, getLatencies());
+	}
+
+	/**
+	 * Returns the latencies between the types of devices of
+	 * {@link org.fog.test.perfeval.DCNSFog_5}.
+	 */
+	public static DeviceNodeTypesLatencyMap getLatencies() {
+		DeviceNodeTypesLatencyMap latencies = new DeviceNodeTypesLatencyMap();
+		latencies.addPair(DeviceNodeType.FogNode, DeviceNodeType.FogControllerNode, 50);
+		latencies.addPair(DeviceNodeType.NeighboringFogControllerNode, DeviceNodeType.FogControllerNode, 0);
+		latencies.addPair(DeviceNodeType.FogControllerNode, DeviceNodeType.NeighboringFogControllerNode, 0);
+		latencies.addPair(DeviceNodeType.NeighboringFogControllerNode, DeviceNodeType.CloudNode, 5000);
+		latencies.addPair(DeviceNodeType.FogControllerNode, DeviceNodeType.CloudNode, 5000);
+		return latencies;
+	}
+
+	public List<FogDevice> getFogDevices() {
+		return fogDevices;
+	}
+
+	public List<Sensor> getSensors() {
+		return sensors;
+	}
+
+	public List<Actuator> getActuators() {
+		return actuators;
+	}
+
+	public List<Application> getApplications() {
+		return applications;
+	}
+
+	/**
+	 * Returns the fog nodes, at the bottom of the topology.
+	 */
+	public List<FogDevice> getLeaves() {
+		return leaves;
+	}
+
+	public FogDevice getCloud() {
+		return cloud;
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	protected FogDevice createFogDevice(String nodeName, DeviceNodeType nodeType, long mips, int ram, long upBw,
+			long downBw, int level, double ratePerMips, double busyPower, double idlePower) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>(1);
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(FogUtils.generateEntityId(), new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000), 1000000, peList, new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower));
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics("x86", "Linux", "Xen", host, 10.0,
+				3.0, 0.05, 0.001, 0.0);
+		FogDevice device = newFogDevice(nodeName, nodeType, characteristics, new AppModuleAllocationPolicy(hostList),
+				upBw, downBw, ratePerMips);
+		device.setLevel(level);
+		fogDevices.add(device);
+		return device;
+	}
+
+	/**
+	 * Creates a device of the topology: overridden to benchmark a subclass of
+	 * {@link FogDevice}.
+	 */
+	protected FogDevice newFogDevice(String nodeName, DeviceNodeType nodeType,
+			FogDeviceCharacteristics characteristics, VmAllocationPolicy allocationPolicy, long upBw, long downBw,
+			double ratePerMips) throws Exception {
+		return new FogDevice(nodeName, nodeType, characteristics, allocationPolicy, new LinkedList<Storage>(), 10,
+				upBw, downBw, 0, ratePerMips);
+	}
+}
@@ -0,0 +1,39 @@
+package org.fog.benchmarks;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options given as arguments
+ * (for instance {@code HeuristicsBenchmark -p modules=100}), by default all of
+ * them, and writes the results as JSON to
+ * benchmarks/results/jmh-&lt;date&gt;.json, unless other options are given
+ * for the results ({@code -rf} and {@code -rff}).
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!commandLine.getResult().hasValue()) {
+			File result = new File("benchmarks/results",
+					"jmh-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+			result.getParentFile().mkdirs();
+			options.result(result.getPath());
+		}
+		new Runner(options.build()).run();
+	}
+}
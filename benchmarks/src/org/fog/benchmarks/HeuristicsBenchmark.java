@@ -0,0 +1,112 @@
+package org.fog.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.fog.heuristics.SolutionsProducerEvaluator;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+import org.fog.heuristics.fogImplementations.SolutionMutatorFog;
+import org.fog.heuristics.fogImplementations.ga.ChromosomeFog;
+import org.fog.heuristics.fogImplementations.ga.GeneticAlgorithmFog;
+import org.fog.heuristics.fogImplementations.sa.ParallelSimulatedAnnealingFog;
+import org.fog.heuristics.fogImplementations.sa.ParallelTemperingFog;
+import org.fog.heuristics.fogImplementations.sa.SASolutionFog;
+import org.fog.heuristics.fogImplementations.sa.SimulatedAnnealingFog;
+import org.fog.utils.SimulationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The placement heuristics of {@link org.fog.placement.ModulePlacementWithHeuristics}
+ * on a {@link BenchmarkTopology} deploying the given amount of modules: the
+ * evaluation and the random generation of a solution, and the optimization by
+ * a genetic algorithm and a simulated annealing (sequential, with a parallel
+ * neighbourhood, and as a parallel tempering), for {@value #ITERATIONS}
+ * iterations from a random solution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HeuristicsBenchmark {
+
+	public static final int ITERATIONS = 10;
+
+	@Param({ "10", "100", "1000" })
+	public int modules;
+
+	private SimulationContext context;
+	private ModulePlacementAdditionalInformationFog information;
+	private SolutionModulesDeployed solution;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = new SimulationContext();
+		context.setSeed(42);
+		context.bind();
+		BenchmarkTopology.init();
+		BenchmarkTopology topology = new BenchmarkTopology().build(Math.max(1, modules / 50), 10);
+		topology.addApplications(modules);
+		information = topology.getAdditionalInformation();
+		random = context.newRandom();
+		solution = SolutionsProducerEvaluator.newRandomSolution(information, random, SASolutionFog::new).getFirst();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationContext.unbind();
+	}
+
+	@Benchmark
+	public double evaluateSolution() {
+		return SolutionsProducerEvaluator.evaluateSolution(solution, information);
+	}
+
+	@Benchmark
+	public SolutionModulesDeployed newRandomSolution() {
+		return SolutionsProducerEvaluator.newRandomSolution(information, random, SASolutionFog::new).getFirst();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SolutionModulesDeployed geneticAlgorithm() {
+		SolutionMutatorFog<ChromosomeFog> mutator = new SolutionMutatorFog<ChromosomeFog>();
+		mutator.setModPlacementAdditionalInfo(information);
+		return new GeneticAlgorithmFog(information, mutator).optimize(null, ITERATIONS, random);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SolutionModulesDeployed simulatedAnnealing() {
+		SolutionMutatorFog<SASolutionFog> mutator = new SolutionMutatorFog<SASolutionFog>();
+		mutator.setModPlacementAdditionalInfo(information);
+		return new SimulatedAnnealingFog(information, mutator).optimize(null, ITERATIONS, random);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SolutionModulesDeployed parallelSimulatedAnnealing() {
+		return new ParallelSimulatedAnnealingFog(information).optimize(null, ITERATIONS, random);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SolutionModulesDeployed parallelTempering() {
+		return new ParallelTemperingFog(information).optimize(null, ITERATIONS, random);
+	}
+}
@@ -0,0 +1,80 @@
+package org.fog.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fog.entities.FogDevice;
+import org.fog.utils.ShortestPathRoutingGenerator;
+import org.fog.utils.SimulationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ShortestPathRoutingGenerator} on a {@link BenchmarkTopology} of about
+ * the given amount of devices, 20 fog nodes for each gateway.
+ * <p>
+ * The routing table is printed by the generator: the standard output is
+ * discarded while benchmarking it, so that the printing is measured but not
+ * the console.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoutingBenchmark {
+
+	@Param({ "100", "1000" })
+	public int devices;
+
+	private List<FogDevice> fogDevices;
+	private PrintStream out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		new SimulationContext().bind();
+		BenchmarkTopology.init();
+		fogDevices = new BenchmarkTopology().build(Math.max(1, devices / 21), 20).getFogDevices();
+		out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(out);
+		SimulationContext.unbind();
+	}
+
+	@Benchmark
+	public int[][] generateNextHops() {
+		return ShortestPathRoutingGenerator.generateNextHops(fogDevices);
+	}
+
+	@Benchmark
+	public Map<Integer, Map<Integer, Integer>> generateRoutingTable() {
+		return ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+	}
+}
@@ -0,0 +1,120 @@
+package org.fog.benchmarks;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDevice.DeviceNodeType;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.TuplePool;
+import org.fog.placement.Controller;
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacementEdgewards;
+import org.fog.utils.SimulationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the tuple path, in tuples received by the devices
+ * ({@link FogDevice#processTupleArrival(SimEvent)}) per millisecond, including
+ * the events and the executions they cause: a {@link BenchmarkTopology} of the
+ * given amount of fog nodes, each one with a sensor, runs an application of
+ * three modules placed edgewards, the first one on every fog node, for ever,
+ * with or without recycling the tuples (see {@link TuplePool}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TupleArrivalBenchmark {
+
+	private static final int ARRIVALS = 1000;
+
+	@Param({ "10", "100" })
+	public int nodes;
+
+	@Param({ "false", "true" })
+	public boolean tuplePooling;
+
+	private long arrivals;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		SimulationContext context = new SimulationContext();
+		context.setSeed(42);
+		context.setMaxSimulationTime(Integer.MAX_VALUE);
+		context.getTuplePool().setEnabled(tuplePooling);
+		context.bind();
+		BenchmarkTopology.init();
+		BenchmarkTopology topology = new BenchmarkTopology() {
+			@Override
+			protected FogDevice newFogDevice(String nodeName, DeviceNodeType nodeType,
+					FogDeviceCharacteristics characteristics, VmAllocationPolicy allocationPolicy, long upBw,
+					long downBw, double ratePerMips) throws Exception {
+				return new CountingFogDevice(nodeName, nodeType, characteristics, allocationPolicy, upBw, downBw,
+						ratePerMips);
+			}
+		}.build(Math.max(1, nodes / 10), Math.min(nodes, 10));
+		Application application = topology.addApplication("app", 3);
+		topology.addSensors(application, 10);
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+		for (FogDevice node : topology.getLeaves())
+			moduleMapping.addModuleToDevice(BenchmarkTopology.moduleName("app", 0), node.getName());
+		Controller controller = new Controller("master-controller", topology.getFogDevices(), topology.getSensors(),
+				topology.getActuators());
+		controller.submitApplication(application, new ModulePlacementEdgewards(topology.getFogDevices(),
+				topology.getSensors(), topology.getActuators(), application, moduleMapping));
+		CloudSim.runStart();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationContext.unbind();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ARRIVALS)
+	public double processTupleArrivals() {
+		long target = arrivals + ARRIVALS;
+		while (arrivals < target) {
+			if (CloudSim.runClockTick())
+				throw new IllegalStateException("The simulation ended");
+		}
+		return CloudSim.clock();
+	}
+
+	private class CountingFogDevice extends FogDevice {
+
+		CountingFogDevice(String name, DeviceNodeType nodeType, FogDeviceCharacteristics characteristics,
+				VmAllocationPolicy allocationPolicy, long upBw, long downBw, double ratePerMips) throws Exception {
+			super(name, nodeType, characteristics, allocationPolicy, new LinkedList<Storage>(), 10, upBw,
+					downBw, 0, ratePerMips);
+		}
+
+		@Override
+		protected void processTupleArrival(SimEvent ev) {
+			arrivals++;
+			super.processTupleArrival(ev);
+		}
+	}
+}
@@ -10,6 +10,7 @@ package org.cloudbus.cloudsim;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -40,16 +41,16 @@ public class Cloudlet {
 	 * The input file size of this Cloudlet before execution (unit: in byte). in byte = program +
 	 * input data size
 	 */
-	private final long cloudletFileSize;
+	private long cloudletFileSize;
 
 	/** The output file size of this Cloudlet after execution (unit: in byte). */
-	private final long cloudletOutputSize;
+	private long cloudletOutputSize;
 
 	/** The num of Pe required to execute this job. */
 	private int numberOfPes;
 
 	/** The cloudlet ID. */
-	private final int cloudletId;
+	private int cloudletId;
 
 	/** The status of this Cloudlet. */
 	private int status;
@@ -79,8 +80,8 @@ public class Cloudlet {
 	/** The history. */
 	private StringBuffer history;
 
-	/** The res list. */
-	private final List<Resource> resList;
+	/** The res list, created when the Cloudlet is first submitted to a CloudResource. */
+	private List<Resource> resList;
 
 	/** The index. */
 	private int index;
@@ -146,7 +147,7 @@ public class Cloudlet {
 	private UtilizationModel utilizationModelBw;
 
 	// Data cloudlet
-	/** The required files. */
+	/** The required files, {@code null} until a file is required. */
 	private List<String> requiredFiles = null;   // list of required filenames
 
 	/**
@@ -189,11 +190,6 @@ public class Cloudlet {
 				utilizationModelRam,
 				utilizationModelBw,
 				false);
-		vmId = -1;
-		accumulatedBwCost = 0.0;
-		costPerBw = 0.0;
-
-		requiredFiles = new LinkedList<String>();
 	}
 
 	/**
@@ -342,10 +338,9 @@ public class Cloudlet {
 		this.cloudletFileSize = Math.max(1, cloudletFileSize);
 		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
 
-		// Normally, a Cloudlet is only executed on a resource without being
-		// migrated to others. Hence, to reduce memory consumption, set the
-		// size of this ArrayList to be less than the default one.
-		resList = new ArrayList<Resource>(2);
+		// The list of resources and the list of required files are created when
+		// needed, since most Cloudlets are executed on a single resource and
+		// require no file.
 		index = -1;
 		this.record = record;
 
@@ -353,7 +348,62 @@ public class Cloudlet {
 		accumulatedBwCost = 0.0;
 		costPerBw = 0.0;
 
-		requiredFiles = new LinkedList<String>();
+		setUtilizationModelCpu(utilizationModelCpu);
+		setUtilizationModelRam(utilizationModelRam);
+		setUtilizationModelBw(utilizationModelBw);
+	}
+
+	/**
+	 * Reinitialises this Cloudlet as if it had just been created, so that a Cloudlet which has
+	 * finished and is not referenced anymore can be reused instead of allocating a new one. The
+	 * recording of the history is kept.
+	 * 
+	 * @param cloudletId the unique ID of this Cloudlet
+	 * @param cloudletLength the length or size (in MI) of this cloudlet to be executed in a
+	 *            PowerDatacenter
+	 * @param pesNumber the pes number
+	 * @param cloudletFileSize the file size (in byte) of this cloudlet <tt>BEFORE</tt> submitting
+	 *            to a PowerDatacenter
+	 * @param cloudletOutputSize the file size (in byte) of this cloudlet <tt>AFTER</tt> finish
+	 *            executing by a PowerDatacenter
+	 * @param utilizationModelCpu the utilization model cpu
+	 * @param utilizationModelRam the utilization model ram
+	 * @param utilizationModelBw the utilization model bw
+	 */
+	protected void reset(
+			final int cloudletId,
+			final long cloudletLength,
+			final int pesNumber,
+			final long cloudletFileSize,
+			final long cloudletOutputSize,
+			final UtilizationModel utilizationModelCpu,
+			final UtilizationModel utilizationModelRam,
+			final UtilizationModel utilizationModelBw) {
+		userId = -1;
+		status = CREATED;
+		this.cloudletId = cloudletId;
+		numberOfPes = pesNumber;
+		execStartTime = 0.0;
+		finishTime = -1.0;
+		reservationId = -1;
+		classType = 0;
+		netToS = 0;
+
+		this.cloudletLength = Math.max(1, cloudletLength);
+		this.cloudletFileSize = Math.max(1, cloudletFileSize);
+		this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
+
+		resList = null;
+		index = -1;
+		num = null;
+		newline = null;
+		history = null;
+
+		vmId = -1;
+		accumulatedBwCost = 0.0;
+		costPerBw = 0.0;
+
+		requiredFiles = null;
 
 		setUtilizationModelCpu(utilizationModelCpu);
 		setUtilizationModelRam(utilizationModelRam);
@@ -728,6 +778,12 @@ public class Cloudlet {
 		res.resourceName = CloudSim.getEntityName(resourceID);
 
 		// add into a list if moving to a new grid resource
+		if (resList == null) {
+			// Normally, a Cloudlet is only executed on a resource without being
+			// migrated to others. Hence, to reduce memory consumption, set the
+			// size of this ArrayList to be less than the default one.
+			resList = new ArrayList<Resource>(2);
+		}
 		resList.add(res);
 
 		if (index == -1 && record) {
@@ -1002,7 +1058,7 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public String[] getAllResourceName() {
-		final int size = resList.size();
+		final int size = resList == null ? 0 : resList.size();
 		String[] data = null;
 
 		if (size > 0) {
@@ -1023,7 +1079,7 @@ public class Cloudlet {
 	 * @post $none
 	 */
 	public int[] getAllResourceId() {
-		final int size = resList.size();
+		final int size = resList == null ? 0 : resList.size();
 		int[] data = null;
 
 		if (size > 0) {
@@ -1144,6 +1200,9 @@ public class Cloudlet {
 	 * @return the resource by id
 	 */
 	public Resource getResourceById(final int resourceId) {
+		if (resList == null) {
+			return null;
+		}
 		for (Resource resource : resList) {
 			if (resource.resourceId == resourceId) {
 				return resource;
@@ -1295,9 +1354,12 @@ public class Cloudlet {
 	/**
 	 * Gets the required files.
 	 * 
-	 * @return the required files
+	 * @return the required files, an empty list if none is required
 	 */
 	public List<String> getRequiredFiles() {
+		if (requiredFiles == null) {
+			return Collections.emptyList();
+		}
 		return requiredFiles;
 	}
 
@@ -1318,14 +1380,14 @@ public class Cloudlet {
 	 */
 	public boolean addRequiredFile(final String fileName) {
 		// if the list is empty
-		if (getRequiredFiles() == null) {
+		if (requiredFiles == null) {
 			setRequiredFiles(new LinkedList<String>());
 		}
 
 		// then check whether filename already exists or not
 		boolean result = false;
-		for (int i = 0; i < getRequiredFiles().size(); i++) {
-			final String temp = getRequiredFiles().get(i);
+		for (int i = 0; i < requiredFiles.size(); i++) {
+			final String temp = requiredFiles.get(i);
 			if (temp.equals(fileName)) {
 				result = true;
 				break;
@@ -1333,7 +1395,7 @@ public class Cloudlet {
 		}
 
 		if (!result) {
-			getRequiredFiles().add(fileName);
+			requiredFiles.add(fileName);
 		}
 
 		return result;
@@ -1347,15 +1409,15 @@ public class Cloudlet {
 	 */
 	public boolean deleteRequiredFile(final String filename) {
 		boolean result = false;
-		if (getRequiredFiles() == null) {
+		if (requiredFiles == null) {
 			return result;
 		}
 
-		for (int i = 0; i < getRequiredFiles().size(); i++) {
-			final String temp = getRequiredFiles().get(i);
+		for (int i = 0; i < requiredFiles.size(); i++) {
+			final String temp = requiredFiles.get(i);
 
 			if (temp.equals(filename)) {
-				getRequiredFiles().remove(i);
+				requiredFiles.remove(i);
 				result = true;
 
 				break;
@@ -1372,7 +1434,7 @@ public class Cloudlet {
 	 */
 	public boolean requiresFiles() {
 		boolean result = false;
-		if (getRequiredFiles() != null && getRequiredFiles().size() > 0) {
+		if (requiredFiles != null && requiredFiles.size() > 0) {
 			result = true;
 		}
 
@@ -17,6 +17,12 @@ package org.cloudbus.cloudsim;
  */
 public class UtilizationModelFull implements UtilizationModel {
 
+	/**
+	 * A shared instance: the model having no state, the Cloudlets created in large numbers (such
+	 * as the tuples of the fog simulations) use it instead of allocating their own.
+	 */
+	public static final UtilizationModelFull INSTANCE = new UtilizationModelFull();
+
 	/*
 	 * (non-Javadoc)
 	 * @see cloudsim.power.UtilizationModel#getUtilization(double)
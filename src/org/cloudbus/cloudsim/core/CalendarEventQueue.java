@@ -0,0 +1,330 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Future event queue implemented as a calendar queue (R. Brown, 1988). Events are hashed by time
+ * into an array of buckets ("days") of fixed width; each bucket keeps its events sorted. As long as
+ * the bucket width matches the average distance between event times, adding and polling an event
+ * cost O(1) on average. The number of buckets and their width are adjusted when the size of the
+ * queue doubles or halves.
+ * <p>
+ * Since events with the same time always fall in the same bucket, one after the other,
+ * {@link #pollBatch(List)} removes all of them in one go.
+ *
+ * @see EventQueue
+ * @see EventQueueType
+ */
+public class CalendarEventQueue implements EventQueue {
+
+	/** The minimum (and initial) number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of events sampled to estimate the bucket width on resize. */
+	private static final int WIDTH_SAMPLE_SIZE = 64;
+
+	/** The buckets. */
+	private Bucket[] buckets;
+
+	/** Mask used to map a "virtual" bucket (time / width) to a bucket index. */
+	private int mask;
+
+	/** The time span covered by each bucket. */
+	private double width = 1.0;
+
+	/** The virtual bucket the next event is searched from. */
+	private long currentVirtual = 0;
+
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The insertion sequence, used to break ties between events with the same serial. */
+	private long sequence = 0;
+
+	/**
+	 * Creates a new, empty, calendar queue.
+	 */
+	public CalendarEventQueue() {
+		initBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return buckets[locateFirst()].first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = buckets[locateFirst()].pollFirst();
+		size--;
+		shrinkIfNeeded();
+		return first;
+	}
+
+	@Override
+	public int pollBatch(List<SimEvent> batch) {
+		if (size == 0) {
+			return 0;
+		}
+		Bucket bucket = buckets[locateFirst()];
+		SimEvent first = bucket.pollFirst();
+		batch.add(first);
+		int count = 1;
+		double time = first.eventTime();
+		while (!bucket.isEmpty() && bucket.first().eventTime() == time) {
+			batch.add(bucket.pollFirst());
+			count++;
+		}
+		size -= count;
+		shrinkIfNeeded();
+		return count;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] sorted = sortedEvents();
+		return new Iterator<SimEvent>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < sorted.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= sorted.length) {
+					throw new NoSuchElementException();
+				}
+				return sorted[next++];
+			}
+
+			@Override
+			public void remove() {
+				if (next == 0) {
+					throw new IllegalStateException();
+				}
+				CalendarEventQueue.this.remove(sorted[next - 1]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (size == 0) {
+			return false;
+		}
+		if (buckets[(int) (virtualBucket(event.eventTime()) & mask)].remove(event)) {
+			size--;
+			shrinkIfNeeded();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		initBuckets(MIN_BUCKETS);
+		size = 0;
+		currentVirtual = 0;
+	}
+
+	private void insert(SimEvent newEvent) {
+		newEvent.setSequence(sequence++);
+		long virtual = virtualBucket(newEvent.eventTime());
+		if (size == 0 || virtual < currentVirtual) {
+			currentVirtual = virtual;
+		}
+		buckets[(int) (virtual & mask)].add(newEvent);
+		size++;
+		if (size > (buckets.length << 1)) {
+			resize(buckets.length << 1);
+		}
+	}
+
+	/**
+	 * Finds the bucket holding the first event, moving the current virtual bucket forward. The queue
+	 * must not be empty.
+	 *
+	 * @return the index of the bucket
+	 */
+	private int locateFirst() {
+		long virtual = currentVirtual;
+		for (int i = 0; i < buckets.length; i++, virtual++) {
+			Bucket bucket = buckets[(int) (virtual & mask)];
+			if (!bucket.isEmpty() && virtualBucket(bucket.first().eventTime()) <= virtual) {
+				currentVirtual = virtual;
+				return (int) (virtual & mask);
+			}
+		}
+
+		// a whole "year" went by without finding anything: look for the minimum directly
+		SimEvent min = null;
+		for (Bucket bucket : buckets) {
+			if (!bucket.isEmpty() && (min == null || bucket.first().precedes(min))) {
+				min = bucket.first();
+			}
+		}
+		currentVirtual = virtualBucket(min.eventTime());
+		return (int) (currentVirtual & mask);
+	}
+
+	private long virtualBucket(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	private void shrinkIfNeeded() {
+		if (buckets.length > MIN_BUCKETS && size < (buckets.length >> 1)) {
+			resize(buckets.length >> 1);
+		}
+	}
+
+	private void resize(int newBucketsAmount) {
+		SimEvent[] sorted = sortedEvents();
+
+		// the new width is three times the average separation of the first distinct times
+		double separations = 0;
+		int distinct = 0;
+		int sampled = Math.min(sorted.length, WIDTH_SAMPLE_SIZE);
+		for (int i = 1; i < sampled; i++) {
+			double delta = sorted[i].eventTime() - sorted[i - 1].eventTime();
+			if (delta > 0) {
+				separations += delta;
+				distinct++;
+			}
+		}
+		if (distinct > 0) {
+			width = 3.0 * separations / distinct;
+		}
+
+		initBuckets(newBucketsAmount);
+		for (SimEvent event : sorted) {
+			buckets[(int) (virtualBucket(event.eventTime()) & mask)].add(event);
+		}
+		if (sorted.length > 0) {
+			currentVirtual = virtualBucket(sorted[0].eventTime());
+		}
+	}
+
+	private void initBuckets(int bucketsAmount) {
+		buckets = new Bucket[bucketsAmount];
+		for (int i = 0; i < bucketsAmount; i++) {
+			buckets[i] = new Bucket();
+		}
+		mask = bucketsAmount - 1;
+	}
+
+	private SimEvent[] sortedEvents() {
+		SimEvent[] all = new SimEvent[size];
+		int n = 0;
+		for (Bucket bucket : buckets) {
+			for (int i = bucket.head; i < bucket.tail; i++) {
+				all[n++] = bucket.events[i];
+			}
+		}
+		Arrays.sort(all, (e1, e2) -> e1.precedes(e2) ? -1 : (e2.precedes(e1) ? 1 : 0));
+		return all;
+	}
+
+	/**
+	 * A "day" of the calendar: an array-backed list of events sorted in queue order.
+	 */
+	private static final class Bucket {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		private int head = 0;
+
+		private int tail = 0;
+
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		SimEvent first() {
+			return events[head];
+		}
+
+		void add(SimEvent event) {
+			if (tail == events.length) {
+				if (head > 0) {
+					System.arraycopy(events, head, events, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+					tail -= head;
+					head = 0;
+				} else {
+					events = Arrays.copyOf(events, events.length << 1);
+				}
+			}
+			// events usually arrive in order, so the search starts from the tail
+			int pos = tail;
+			while (pos > head && event.precedes(events[pos - 1])) {
+				events[pos] = events[pos - 1];
+				pos--;
+			}
+			events[pos] = event;
+			tail++;
+		}
+
+		SimEvent pollFirst() {
+			SimEvent first = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = tail = 0;
+			}
+			return first;
+		}
+
+		boolean remove(SimEvent event) {
+			for (int i = head; i < tail; i++) {
+				if (events[i] == event) {
+					System.arraycopy(events, i + 1, events, i, tail - i - 1);
+					events[--tail] = null;
+					if (head == tail) {
+						head = tail = 0;
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
@@ -40,34 +40,65 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
 
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
+	/** The kernel of the threads not bound to another one. */
+	private static final SimulationKernel DEFAULT_KERNEL = new SimulationKernel();
 
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
+	/** The kernel bound to each thread, see {@link #bindKernel(SimulationKernel)}. */
+	private static final InheritableThreadLocal<SimulationKernel> BOUND_KERNEL = new InheritableThreadLocal<SimulationKernel>();
 
-	/** The Constant NOT_FOUND. */
-	private static final int NOT_FOUND = -1;
+	/** Whether a kernel has ever been bound: until then, the thread-local is not looked up. */
+	private static volatile boolean kernelsBound = false;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
+	/**
+	 * Binds the given kernel to the current thread, and to the threads it will start (such as the
+	 * workers of the parallel execution), until {@link #unbindKernel()} is called: all the methods of
+	 * this class called by these threads act on that kernel, so that several simulations can run
+	 * concurrently, each on its own thread. The threads not bound to a kernel share a default one.
+	 * 
+	 * @param kernel the kernel
+	 */
+	public static void bindKernel(SimulationKernel kernel) {
+		if (kernel == null) {
+			throw new IllegalArgumentException("The kernel cannot be null");
+		}
+		kernelsBound = true;
+		BOUND_KERNEL.set(kernel);
+	}
 
-	/** The calendar. */
-	private static Calendar calendar = null;
+	/**
+	 * Unbinds the current thread from its kernel, see {@link #bindKernel(SimulationKernel)}.
+	 */
+	public static void unbindKernel() {
+		BOUND_KERNEL.remove();
+	}
 
-	/** The termination time. */
-	private static double terminateAt = -1;
+	/**
+	 * Returns the kernel of the threads not bound to another one, see
+	 * {@link #bindKernel(SimulationKernel)}.
+	 * 
+	 * @return the default kernel
+	 */
+	public static SimulationKernel getDefaultKernel() {
+		return DEFAULT_KERNEL;
+	}
 
 	/**
-	 * The minimal time between events. Events within shorter periods after the last
-	 * event are discarded.
+	 * Returns the kernel of the current thread.
+	 * 
+	 * @return the kernel
 	 */
-	private static double minTimeBetweenEvents = 0.1;
+	static SimulationKernel kernel() {
+		if (kernelsBound) {
+			SimulationKernel kernel = BOUND_KERNEL.get();
+			if (kernel != null) {
+				return kernel;
+			}
+		}
+		return DEFAULT_KERNEL;
+	}
 
 	/**
 	 * Initialises all the common attributes.
@@ -82,21 +113,22 @@ public class CloudSim {
 	 * @post $none
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser) throws Exception {
+		SimulationKernel sim = kernel();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		sim.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			sim.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			sim.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		sim.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -124,14 +156,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationKernel sim = kernel();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			sim.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			sim.cisId = sim.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -176,7 +209,140 @@ public class CloudSim {
 		}
 
 		init(numUser, cal, traceFlag);
-		minTimeBetweenEvents = periodBetweenEvents;
+		kernel().minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters, selecting the implementation of the future
+	 * event queue. This method should be called before creating any entities.
+	 * 
+	 * @param numUser        the number of User Entities created
+	 * @param cal            starting time for this simulation. If it is
+	 *                       <tt>null</tt>, then the time will be taken from
+	 *                       <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag      <tt>true</tt> if CloudSim trace need to be written
+	 * @param eventQueueType the future event queue to be used
+	 * @see #init(int, Calendar, boolean)
+	 * @see EventQueueType
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, EventQueueType eventQueueType) {
+		if (eventQueueType == null) {
+			throw new IllegalArgumentException("The event queue type cannot be null");
+		}
+
+		kernel().eventQueueType = eventQueueType;
+		init(numUser, cal, traceFlag);
+	}
+
+	/**
+	 * Returns the implementation of the future event queue in use.
+	 * 
+	 * @return the event queue type
+	 */
+	public static EventQueueType getEventQueueType() {
+		return kernel().eventQueueType;
+	}
+
+	/**
+	 * Runs the next simulation with the conservative parallel kernel: the entities are split by the
+	 * partitioner and each partition advances in parallel with the others as long as the lookahead
+	 * allows it. Each entity receives its events in the same order and at the same times as in a
+	 * sequential run, provided that the partitions do not share mutable state other than through
+	 * events or through the {@link PartitionedState} registered in the kernel. This method should be
+	 * called after {@link #init(int, Calendar, boolean)}.
+	 * <p>
+	 * The results are deterministic: for a given partitioning, they do not depend on the number of
+	 * threads nor on how the partitions interleave, since each partition draws its own ids and random
+	 * numbers and the statistics are merged in partition order (see {@link PartitionedState}). They
+	 * are not those of a sequential run, though, which draws them all from the same sequences and
+	 * updates the statistics in event order.
+	 * <p>
+	 * Entities cannot be added while the simulation is running, and pausing it is not supported.
+	 * Canceling an event is only possible while it is held by the partition of its sender.
+	 * 
+	 * @param partitioner the partitioner, <tt>null</tt> to go back to the sequential execution
+	 * @param threads     the number of worker threads
+	 * @see EntityPartitioner
+	 * @pre threads >= 1
+	 */
+	public static void setParallelExecution(EntityPartitioner partitioner, int threads) {
+		SimulationKernel sim = kernel();
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads should be at least 1, but is: " + threads);
+		}
+		if (sim.running) {
+			throw new IllegalStateException("The execution mode cannot be changed while the simulation is running");
+		}
+
+		sim.partitioner = partitioner;
+		sim.parallelThreads = threads;
+	}
+
+	/**
+	 * Checks if two entities run in the same partition of the parallel simulation, so that they are
+	 * never run concurrently. It is always true in a sequential simulation.
+	 * 
+	 * @param id1 the first entity
+	 * @param id2 the second entity
+	 * @return true if the entities are in the same partition
+	 */
+	public static boolean inSamePartition(int id1, int id2) {
+		SimulationKernel sim = kernel();
+		return sim.parallelKernel == null || sim.parallelKernel.processOf(id1) == sim.parallelKernel.processOf(id2);
+	}
+
+	/**
+	 * Returns the partition of the entity running on the current thread, whose updates of the
+	 * {@link PartitionedState} are kept apart from those of the other partitions.
+	 * 
+	 * @return the partition, from 1 to the number of partitions, or 0 for the synchronizing entities,
+	 *         the sinks and a sequential simulation
+	 */
+	public static int getCurrentPartition() {
+		ParallelKernel parallel = kernel().parallelKernel;
+		return parallel == null ? 0 : parallel.currentPartition();
+	}
+
+	/**
+	 * Checks if the next, or current, simulation runs with the parallel kernel.
+	 * 
+	 * @return true if the execution is parallel
+	 * @see #setParallelExecution(EntityPartitioner, int)
+	 */
+	public static boolean isParallelExecution() {
+		return kernel().partitioner != null;
+	}
+
+	/**
+	 * Enables the recycling of the events for the next simulation: once an entity has processed an
+	 * event, the event is given back to a pool and reused for the next events sent, instead of
+	 * allocating a new one. Entities keeping references to the events they process have to opt out,
+	 * see {@link SimEntity#recyclesProcessedEvents()}. The pool is bypassed by the parallel
+	 * execution mode. This method should be called after {@link #init(int, Calendar, boolean)}.
+	 * 
+	 * @param pooling true to recycle the events
+	 * @see #getEventPool()
+	 */
+	public static void setEventPooling(boolean pooling) {
+		SimulationKernel sim = kernel();
+		if (sim.running) {
+			throw new IllegalStateException("The event pooling cannot be changed while the simulation is running");
+		}
+
+		sim.eventPool.setEnabled(pooling);
+	}
+
+	/**
+	 * Returns the event pool, holding the counters of the events allocated, reused and recycled
+	 * since CloudSim has been initialised: they can be read after the end of the simulation.
+	 * 
+	 * @return the event pool
+	 * @see #setEventPooling(boolean)
+	 */
+	public static EventPool getEventPool() {
+		return kernel().eventPool;
 	}
 
 	/**
@@ -196,16 +362,21 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationKernel sim = kernel();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
 			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			sim.cisId = -1;
+			sim.shutdownId = -1;
+			sim.cis = null;
+			sim.calendar = null;
+			sim.traceFlag = false;
+			sim.eventQueueType = EventQueueType.TREE_SET;
+			sim.partitioner = null;
+			sim.parallelThreads = 1;
+			sim.eventPool.setEnabled(false);
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -243,7 +414,7 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		kernel().running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -256,10 +427,10 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		if (time <= clock()) {
 			return false;
 		} else {
-			terminateAt = time;
+			kernel().terminateAt = time;
 		}
 		return true;
 	}
@@ -271,7 +442,7 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-		return minTimeBetweenEvents;
+		return kernel().minTimeBetweenEvents;
 	}
 
 	/**
@@ -285,10 +456,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationKernel sim = kernel();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = sim.calendar;
+		if (sim.calendar != null) {
+			clone = (Calendar) sim.calendar.clone();
 		}
 
 		return clone;
@@ -302,7 +474,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return kernel().cisId;
 	}
 
 	/**
@@ -315,59 +487,31 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationKernel sim = kernel();
+		if (sim.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return sim.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should
 	 * be called at the start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationKernel sim = kernel();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		sim.entities = new ArrayList<SimEntity>();
+		sim.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		sim.future = sim.eventQueueType.newQueue();
+		sim.deferred = new IndexedDeferredQueue();
+		sim.waitPredicates = new HashMap<Integer, Predicate>();
+		sim.eventPool.resetCounters();
+		sim.clock = 0;
+		sim.running = false;
 	}
 
 	// The two standard predicates
@@ -386,7 +530,11 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			return sim.parallelKernel.clock();
+		}
+		return sim.clock;
 	}
 
 	/**
@@ -395,7 +543,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return kernel().entities.size();
 	}
 
 	/**
@@ -405,7 +553,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return kernel().entities.get(id);
 	}
 
 	/**
@@ -415,7 +563,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return kernel().entitiesByName.get(name);
 	}
 
 	/**
@@ -425,7 +573,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimEntity obj = kernel().entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -475,7 +623,7 @@ public class CloudSim {
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(kernel().entities);
 		return list;
 	}
 
@@ -489,20 +637,24 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationKernel sim = kernel();
 		SimEvent evt;
-		if (running) {
+		if (sim.running && sim.parallelKernel != null) {
+			throw new IllegalStateException("Entities cannot be added during a parallel simulation");
+		}
+		if (sim.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = sim.eventPool.acquire(SimEvent.CREATE, sim.clock, 1, 0, 0, e);
+			sim.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
 
 			// System.out.println("From CloudSim.addEntity(): Adding SimEntity
 			// "+e.getName());
-			int id = entities.size();
+			int id = sim.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			sim.entities.add(e);
+			sim.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -528,47 +680,34 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationKernel sim = kernel();
 		SimEntity ent;
 		boolean queue_empty;
 
-		int entities_size = entities.size();
+		int entities_size = sim.entities.size();
 
 		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
+			ent = sim.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
 			}
 		}
 
-		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		// If there are more future events then deal with them: the first one
+		// and all the next events at the same time
+		if (sim.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
+			sim.future.pollBatch(sim.tickEvents);
+			try {
+				for (int i = 0, n = sim.tickEvents.size(); i < n; i++) {
+					processEvent(sim.tickEvents.get(i));
 				}
+			} finally {
+				sim.tickEvents.clear();
 			}
-
-			future.removeAll(toRemove);
-
 		} else {
 			queue_empty = true;
-			running = false;
+			sim.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
@@ -590,9 +729,14 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			sim.parallelKernel.pause(src, delay);
+			return;
+		}
+		SimEvent e = sim.eventPool.acquire(SimEvent.HOLD_DONE, sim.clock + delay, src, -1, -1, null);
+		sim.future.addEvent(e);
+		sim.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -602,9 +746,14 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			sim.parallelKernel.pause(src, delay);
+			return;
+		}
+		SimEvent e = sim.eventPool.acquire(SimEvent.HOLD_DONE, sim.clock + delay, src, -1, -1, null);
+		sim.future.addEvent(e);
+		sim.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -617,12 +766,18 @@ public class CloudSim {
 	 * @param data  the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationKernel sim = kernel();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		if (sim.parallelKernel != null) {
+			sim.parallelKernel.send(new SimEvent(SimEvent.SEND, sim.parallelKernel.clock() + delay, src, dest, tag, data), false);
+			return;
+		}
+
+		SimEvent e = sim.eventPool.acquire(SimEvent.SEND, sim.clock + delay, src, dest, tag, data);
+		sim.future.addEvent(e);
 	}
 
 	/**
@@ -635,12 +790,31 @@ public class CloudSim {
 	 * @param data  the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationKernel sim = kernel();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		if (sim.parallelKernel != null) {
+			sim.parallelKernel.send(new SimEvent(SimEvent.SEND, sim.parallelKernel.clock() + delay, src, dest, tag, data), true);
+			return;
+		}
+
+		SimEvent e = sim.eventPool.acquire(SimEvent.SEND, sim.clock + delay, src, dest, tag, data);
+		sim.future.addEventFirst(e);
+	}
+
+	/**
+	 * Gives an event back to the pool, if pooling is enabled, once it has been processed. The event
+	 * must not be referenced anymore.
+	 * 
+	 * @param e the processed event
+	 */
+	static void releaseEvent(SimEvent e) {
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel == null) {
+			sim.eventPool.release(e);
+		}
 	}
 
 	/**
@@ -652,10 +826,15 @@ public class CloudSim {
 	 * @param p   the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			sim.parallelKernel.wait(src, p);
+			return;
+		}
+		sim.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			sim.waitPredicates.put(src, p);
 		}
 	}
 
@@ -668,16 +847,7 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return deferredOf(d).waiting(d, p);
 	}
 
 	/**
@@ -688,16 +858,7 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return deferredOf(src).select(src, p);
 	}
 
 	/**
@@ -708,15 +869,18 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return deferredOf(src).findFirst(src, p);
+	}
+
+	/**
+	 * Gets the deferred queue holding the events of an entity.
+	 * 
+	 * @param src the entity
+	 * @return the deferred queue
+	 */
+	private static DeferredQueue deferredOf(int src) {
+		SimulationKernel sim = kernel();
+		return sim.parallelKernel != null ? sim.parallelKernel.deferredOf(src) : sim.deferred;
 	}
 
 	/**
@@ -727,8 +891,12 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			return sim.parallelKernel.cancel(src, p);
+		}
 		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
+		Iterator<SimEvent> iter = sim.future.iterator();
 		while (iter.hasNext()) {
 			ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
@@ -749,16 +917,20 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
+		SimulationKernel sim = kernel();
+		if (sim.parallelKernel != null) {
+			return sim.parallelKernel.cancelAll(src, p);
+		}
 		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
+		int previousSize = sim.future.size();
+		Iterator<SimEvent> iter = sim.future.iterator();
 		while (iter.hasNext()) {
 			ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
 				iter.remove();
 			}
 		}
-		return previousSize < future.size();
+		return previousSize < sim.future.size();
 	}
 
 	//
@@ -771,13 +943,14 @@ public class CloudSim {
 	 * @param e the e
 	 */
 	private static void processEvent(SimEvent e) {
+		SimulationKernel sim = kernel();
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < sim.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		sim.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -787,6 +960,7 @@ public class CloudSim {
 		case SimEvent.CREATE:
 			SimEntity newe = (SimEntity) e.getData();
 			addEntityDynamically(newe);
+			sim.eventPool.release(e);
 			break;
 
 		case SimEvent.SEND:
@@ -796,19 +970,21 @@ public class CloudSim {
 				throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 			} else {
 				int tag = e.getTag();
-				dest_ent = entities.get(dest);
+				dest_ent = sim.entities.get(dest);
 				if (dest_ent.getState() == SimEntity.WAITING) {
 					Integer destObj = Integer.valueOf(dest);
-					Predicate p = waitPredicates.get(destObj);
+					Predicate p = sim.waitPredicates.get(destObj);
 					if ((p == null) || (tag == 9999) || (p.match(e))) {
-						dest_ent.setEventBuffer((SimEvent) e.clone());
+						// the event leaves the queues here, so it is handed over without a copy
+						dest_ent.setEventBuffer(e);
+						sim.eventPool.avoidedClone();
 						dest_ent.setState(SimEntity.RUNNABLE);
-						waitPredicates.remove(destObj);
+						sim.waitPredicates.remove(destObj);
 					} else {
-						deferred.addEvent(e);
+						sim.deferred.addEvent(e);
 					}
 				} else {
-					deferred.addEvent(e);
+					sim.deferred.addEvent(e);
 				}
 			}
 			break;
@@ -818,8 +994,9 @@ public class CloudSim {
 			if (src < 0) {
 				throw new IllegalArgumentException("Null entity holding.");
 			} else {
-				entities.get(src).setState(SimEntity.RUNNABLE);
+				sim.entities.get(src).setState(SimEntity.RUNNABLE);
 			}
+			sim.eventPool.release(e);
 			break;
 
 		default:
@@ -832,9 +1009,10 @@ public class CloudSim {
 	 * be used by user simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationKernel sim = kernel();
+		sim.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : sim.entities) {
 			// System.out.println("From CloudSim.runStart(): Starting SimEntity
 			// "+ent.getName());
 			ent.startEntity();
@@ -850,7 +1028,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return kernel().running;
 	}
 
 	/**
@@ -859,8 +1037,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationKernel sim = kernel();
+		sim.paused = true;
+		return sim.paused;
 	}
 
 	/**
@@ -870,10 +1049,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationKernel sim = kernel();
+		if (time <= sim.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			sim.pauseAt = time;
 		}
 		return true;
 	}
@@ -885,13 +1065,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationKernel sim = kernel();
+		sim.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (sim.pauseAt <= sim.clock) {
+			sim.pauseAt = -1;
 		}
 
-		return !paused;
+		return !sim.paused;
 	}
 
 	/**
@@ -901,29 +1082,33 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationKernel sim = kernel();
+		if (sim.partitioner != null) {
+			return runParallel();
+		}
+		if (!sim.running) {
 			runStart();
 		}
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || sim.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (sim.terminateAt > 0.0 && sim.clock >= sim.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				sim.clock = sim.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next().eventTime())
-							|| future.size() == 0 && pauseAt <= clock)) {
+			if (sim.pauseAt != -1
+					&& ((sim.future.size() > 0 && sim.clock <= sim.pauseAt && sim.pauseAt <= sim.future.peek().eventTime())
+							|| sim.future.size() == 0 && sim.pauseAt <= sim.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				sim.clock = sim.pauseAt;
 			}
 
-			while (paused) {
+			while (sim.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -940,44 +1125,101 @@ public class CloudSim {
 		return clock;
 	}
 
+	/**
+	 * Runs the simulation with the parallel kernel, see
+	 * {@link #setParallelExecution(EntityPartitioner, int)}.
+	 * 
+	 * @return the last clock value
+	 */
+	private static double runParallel() {
+		SimulationKernel sim = kernel();
+		ParallelKernel kernel = new ParallelKernel(sim.entities, sim.partitioner, sim.parallelThreads,
+				sim.partitionedStates);
+		sim.parallelKernel = kernel;
+		try {
+			kernel.start(sim.future);
+			if (!sim.running) {
+				sim.running = true;
+				kernel.startEntities();
+				printMessage("Entities started.");
+			}
+			kernel.runEntities();
+
+			double limit = sim.terminateAt > 0.0 ? sim.terminateAt : Double.POSITIVE_INFINITY;
+			while (!sim.abruptTerminate) {
+				double next = kernel.nextEventTime();
+				if (next == Double.POSITIVE_INFINITY) {
+					sim.running = false;
+					printMessage("Simulation: No more future events");
+					break;
+				}
+
+				// this block allows termination of simulation at a specific time
+				if (next >= limit) {
+					terminateSimulation();
+					sim.clock = sim.terminateAt;
+					kernel.stop(sim.terminateAt);
+					break;
+				}
+
+				sim.clock = kernel.step(next, limit);
+			}
+			kernel.join();
+
+			printMessage("Parallel simulation: " + kernel.getPartitionsCount() + " partitions, " + kernel.getWindows()
+					+ " parallel windows, " + kernel.getLockstepTicks() + " clock ticks in lockstep.");
+
+			double clock = clock();
+
+			finishSimulation();
+			runStop();
+
+			return clock;
+		} finally {
+			kernel.shutdown();
+			sim.parallelKernel = null;
+		}
+	}
+
 	/**
 	 * Internal method that allows the entities to terminate. This method should
 	 * <b>not</b> be used in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationKernel sim = kernel();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!sim.abruptTerminate) {
+			for (SimEntity ent : sim.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : sim.entities) {
 			ent.shutdownEntity();
 		}
 
 		// reset all static variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		sim.entities = null;
+		sim.entitiesByName = null;
+		sim.future = null;
+		sim.deferred = null;
+		sim.clock = 0L;
+		sim.running = false;
+
+		sim.waitPredicates = null;
+		sim.paused = false;
+		sim.pauseAt = -1;
+		sim.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		kernel().abruptTerminate = true;
 	}
 
 	/**
@@ -995,7 +1237,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return kernel().paused;
 	}
 
 }
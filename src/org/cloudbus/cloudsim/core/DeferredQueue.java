@@ -13,6 +13,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
 /**
  * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
  * linked list to store the events.
@@ -60,6 +62,67 @@ public class DeferredQueue {
 		list.add(newEvent);
 	}
 
+	/**
+	 * Counts the events in the queue sent to the given entity and matching a predicate.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int waiting(int dest, Predicate p) {
+		int count = 0;
+		SimEvent event;
+		Iterator<SimEvent> iterator = list.iterator();
+		while (iterator.hasNext()) {
+			event = iterator.next();
+			if ((event.getDestination() == dest) && (p.match(event))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes and returns the first event in the queue sent to the given entity and matching a
+	 * predicate. If no event matches, the last event of the queue is returned (but not removed).
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the selected event, or <code>null</code> if the queue is empty
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		SimEvent ev = null;
+		Iterator<SimEvent> iterator = list.iterator();
+		while (iterator.hasNext()) {
+			ev = iterator.next();
+			if (ev.getDestination() == dest && p.match(ev)) {
+				iterator.remove();
+				break;
+			}
+		}
+		return ev;
+	}
+
+	/**
+	 * Returns, without removing it, the first event in the queue sent to the given entity and
+	 * matching a predicate. If no event matches, the last event of the queue is returned.
+	 * 
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <code>null</code> if the queue is empty
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		SimEvent ev = null;
+		Iterator<SimEvent> iterator = list.iterator();
+		while (iterator.hasNext()) {
+			ev = iterator.next();
+			if (ev.getDestination() == dest && p.match(ev)) {
+				break;
+			}
+		}
+		return ev;
+	}
+
 	/**
 	 * Returns an iterator to the events in the queue.
 	 * 
@@ -0,0 +1,58 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.List;
+
+/**
+ * Splits the entities of a simulation among the logical processes of the parallel execution mode,
+ * see {@link CloudSim#setParallelExecution(EntityPartitioner, int)}.
+ * <p>
+ * Each partition owns its events and advances on its own, in parallel with the others, as long as
+ * no event can arrive from another partition: this is why entities of different partitions may
+ * only exchange events whose delay is at least the lookahead. Entities that do not respect it,
+ * such as a controller reacting at once to the whole topology, have to be marked as
+ * {@link #SYNCHRONIZING}: their events are processed in lockstep with all the partitions, exactly as
+ * the sequential simulation does, and they may send events to any entity with any delay.
+ *
+ * @see ParallelKernel
+ */
+public interface EntityPartitioner {
+
+	/** The partition of the entities processed in lockstep with all the others. */
+	public static final int SYNCHRONIZING = -1;
+
+	/**
+	 * The partition of the entities that only receive events: they never send events and their
+	 * state does not depend on when their events are processed, as for a broker ignoring the
+	 * returned cloudlets. Events sent to them do not have to respect the lookahead: they are
+	 * processed, in time order, at the end of each window.
+	 */
+	public static final int SINK = -2;
+
+	/**
+	 * Assigns the entities to the partitions. Partitions are identified by any non negative integer.
+	 *
+	 * @param entities the entities of the simulation, indexed by id
+	 * @return the partition of each entity, indexed by entity id, {@link #SYNCHRONIZING} or
+	 *         {@link #SINK}
+	 */
+	public int[] partition(List<SimEntity> entities);
+
+	/**
+	 * Returns the minimum delay of the events an entity sends to an entity of another partition,
+	 * synchronizing entities and sinks excluded.
+	 *
+	 * @param entities   the entities of the simulation, indexed by id
+	 * @param partitions the partitions returned by {@link #partition(List)}
+	 * @return the lookahead, zero to run the whole simulation in lockstep
+	 */
+	public double getLookahead(List<SimEntity> entities, int[] partitions);
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+
+/**
+ * Recycles the {@link SimEvent}s created by the simulation kernel, and counts the events it
+ * allocates. When pooling is enabled through {@link CloudSim#setEventPooling(boolean)}, an event is
+ * given back to the pool once the entity it was sent to has processed it, unless the entity keeps
+ * references to its events (see {@link SimEntity#recyclesProcessedEvents()}); the next events are
+ * then taken from the pool instead of being allocated.
+ * <p>
+ * The counters are reset when CloudSim is initialised and can be read after the simulation, see
+ * {@link CloudSim#getEventPool()}. The pool is not thread safe: it is bypassed by the parallel
+ * execution mode, whose events are always allocated and are not counted.
+ *
+ * @see CloudSim#setEventPooling(boolean)
+ */
+public final class EventPool {
+
+	/** The maximum number of free events kept by the pool. */
+	private static final int MAX_FREE_EVENTS = 1 << 16;
+
+	/** The free events. */
+	private SimEvent[] free = new SimEvent[64];
+
+	/** The number of free events. */
+	private int freeCount = 0;
+
+	/** Whether the events are recycled. */
+	private boolean enabled = false;
+
+	/** The number of events allocated. */
+	private long allocatedEvents = 0;
+
+	/** The number of events taken from the pool instead of being allocated. */
+	private long reusedEvents = 0;
+
+	/** The number of events given back to the pool. */
+	private long recycledEvents = 0;
+
+	/** The number of events handed to a waiting entity without being cloned. */
+	private long avoidedClones = 0;
+
+	EventPool() {
+	}
+
+	/**
+	 * Enables or disables the recycling of the events, emptying the pool when disabled.
+	 *
+	 * @param enabled true to recycle the events
+	 */
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			Arrays.fill(free, 0, freeCount, null);
+			freeCount = 0;
+		}
+	}
+
+	/**
+	 * Checks if the events are recycled.
+	 *
+	 * @return true if the pool is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Resets the counters, keeping the free events.
+	 */
+	void resetCounters() {
+		allocatedEvents = 0;
+		reusedEvents = 0;
+		recycledEvents = 0;
+		avoidedClones = 0;
+	}
+
+	/**
+	 * Gets an event, from the pool if possible.
+	 *
+	 * @return the event
+	 */
+	SimEvent acquire(int evtype, double time, int src, int dest, int tag, Object edata) {
+		if (freeCount == 0) {
+			allocatedEvents++;
+			SimEvent e = new SimEvent(evtype, time, src, dest, tag, edata);
+			e.setPooled(enabled);
+			return e;
+		}
+		reusedEvents++;
+		SimEvent e = free[--freeCount];
+		free[freeCount] = null;
+		e.reset(evtype, time, src, dest, tag, edata);
+		e.setPooled(true);
+		return e;
+	}
+
+	/**
+	 * Gives an event back to the pool. Events not taken from the pool, or already given back, are
+	 * ignored.
+	 *
+	 * @param e the event, which must not be referenced anymore
+	 */
+	void release(SimEvent e) {
+		if (!enabled || !e.isPooled()) {
+			return;
+		}
+		e.setPooled(false);
+		e.reset(SimEvent.ENULL, -1, -1, -1, -1, null);
+		recycledEvents++;
+		if (freeCount == MAX_FREE_EVENTS) {
+			return;
+		}
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, free.length << 1);
+		}
+		free[freeCount++] = e;
+	}
+
+	/**
+	 * Counts an event handed to a waiting entity without cloning it.
+	 */
+	void avoidedClone() {
+		avoidedClones++;
+	}
+
+	/**
+	 * Gets the number of events allocated since CloudSim has been initialised.
+	 *
+	 * @return the allocated events
+	 */
+	public long getAllocatedEvents() {
+		return allocatedEvents;
+	}
+
+	/**
+	 * Gets the number of events taken from the pool instead of being allocated.
+	 *
+	 * @return the reused events
+	 */
+	public long getReusedEvents() {
+		return reusedEvents;
+	}
+
+	/**
+	 * Gets the number of events given back to the pool once processed.
+	 *
+	 * @return the recycled events
+	 */
+	public long getRecycledEvents() {
+		return recycledEvents;
+	}
+
+	/**
+	 * Gets the number of events handed to a waiting entity without being cloned, each one being an
+	 * allocation the previous versions of the kernel made.
+	 *
+	 * @return the avoided clones
+	 */
+	public long getAvoidedClones() {
+		return avoidedClones;
+	}
+
+	@Override
+	public String toString() {
+		return "Events: " + allocatedEvents + " allocated, " + reusedEvents + " reused, " + recycledEvents
+				+ " recycled, " + avoidedClones + " clones avoided";
+	}
+}
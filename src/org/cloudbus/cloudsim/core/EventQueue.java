@@ -0,0 +1,123 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The future event queue used by {@link CloudSim}. Events are kept ordered by time; events with the
+ * same time are ordered by their serial, which reflects the insertion order (events added through
+ * {@link #addEventFirst(SimEvent)} come before the others).
+ * <p>
+ * The implementation to be used is chosen through
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, EventQueueType)}.
+ *
+ * @see FutureQueue
+ * @see HeapEventQueue
+ * @see CalendarEventQueue
+ */
+public interface EventQueue {
+
+	/**
+	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	public void addEvent(SimEvent newEvent);
+
+	/**
+	 * Add a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	public void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <code>null</code> if the queue is empty
+	 */
+	public SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <code>null</code> if the queue is empty
+	 */
+	public SimEvent poll();
+
+	/**
+	 * Removes the first event of the queue and all the following events having its same time,
+	 * appending them to the given list in queue order.
+	 *
+	 * @param batch the list the events are appended to
+	 * @return the number of removed events
+	 */
+	public default int pollBatch(List<SimEvent> batch) {
+		SimEvent first = poll();
+		if (first == null) {
+			return 0;
+		}
+		int count = 1;
+		batch.add(first);
+		SimEvent next = peek();
+		while (next != null && next.eventTime() == first.eventTime()) {
+			batch.add(poll());
+			count++;
+			next = peek();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns an iterator to the queue. The events are returned in queue order and
+	 * {@link Iterator#remove()} is supported.
+	 *
+	 * @return the iterator
+	 */
+	public Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	public int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	public boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	public default boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	/**
+	 * Clears the queue.
+	 */
+	public void clear();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * The implementations of the future event queue that can be selected through
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, EventQueueType)}. All of them produce the
+ * same event order.
+ */
+public enum EventQueueType {
+
+	/** The original {@link java.util.TreeSet} based {@link FutureQueue}. */
+	TREE_SET,
+
+	/** A binary {@link HeapEventQueue}. */
+	BINARY_HEAP,
+
+	/** A 4-ary {@link HeapEventQueue}. */
+	QUATERNARY_HEAP,
+
+	/** A {@link CalendarEventQueue}. */
+	CALENDAR;
+
+	/**
+	 * Creates a new, empty, queue of this type.
+	 *
+	 * @return the queue
+	 */
+	public EventQueue newQueue() {
+		switch (this) {
+		case BINARY_HEAP:
+			return new HeapEventQueue(2);
+		case QUATERNARY_HEAP:
+			return new HeapEventQueue(4);
+		case CALENDAR:
+			return new CalendarEventQueue();
+		default:
+			return new FutureQueue();
+		}
+	}
+
+}
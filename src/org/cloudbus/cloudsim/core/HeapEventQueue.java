@@ -0,0 +1,204 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Future event queue backed by an array-based d-ary heap. Adding and polling an event cost
+ * O(log n) without allocating tree nodes, which makes this queue much cheaper than the
+ * {@link FutureQueue} when many events are pending. A 4-ary heap is shallower than a binary one and
+ * usually performs better on large queues.
+ * <p>
+ * Removing an arbitrary event and iterating are O(n) and O(n log n) respectively: they are only used
+ * when an entity cancels its events, which is rare.
+ *
+ * @see EventQueue
+ * @see EventQueueType
+ */
+public class HeapEventQueue implements EventQueue {
+
+	/** The default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The number of children of each node. */
+	private final int arity;
+
+	/** The heap. */
+	private SimEvent[] heap;
+
+	/** The number of events in the heap. */
+	private int size = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The insertion sequence, used to break ties between events with the same serial. */
+	private long sequence = 0;
+
+	/**
+	 * Creates a new heap queue.
+	 *
+	 * @param arity the number of children of each node of the heap, at least 2
+	 */
+	public HeapEventQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The heap arity should be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[DEFAULT_CAPACITY];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		return removeAt(0);
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] sorted = Arrays.copyOf(heap, size);
+		Arrays.sort(sorted, (e1, e2) -> e1.precedes(e2) ? -1 : (e2.precedes(e1) ? 1 : 0));
+		return new Iterator<SimEvent>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < sorted.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= sorted.length) {
+					throw new NoSuchElementException();
+				}
+				return sorted[next++];
+			}
+
+			@Override
+			public void remove() {
+				if (next == 0) {
+					throw new IllegalStateException();
+				}
+				HeapEventQueue.this.remove(sorted[next - 1]);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (heap[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Adds an event whose serial and sequence have already been set, keeping them. The
+	 * {@link ParallelKernel} uses it to order the events of each partition as the sequential
+	 * simulation would.
+	 *
+	 * @param newEvent the event
+	 */
+	void addKeyedEvent(SimEvent newEvent) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length << 1);
+		}
+		siftUp(size++, newEvent);
+	}
+
+	private void insert(SimEvent newEvent) {
+		newEvent.setSequence(sequence++);
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length << 1);
+		}
+		siftUp(size++, newEvent);
+	}
+
+	private SimEvent removeAt(int index) {
+		SimEvent removed = heap[index];
+		SimEvent last = heap[--size];
+		heap[size] = null;
+		if (index < size) {
+			siftDown(index, last);
+			if (heap[index] == last) {
+				siftUp(index, last);
+			}
+		}
+		return removed;
+	}
+
+	private void siftUp(int index, SimEvent event) {
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			SimEvent parentEvent = heap[parent];
+			if (!event.precedes(parentEvent)) {
+				break;
+			}
+			heap[index] = parentEvent;
+			index = parent;
+		}
+		heap[index] = event;
+	}
+
+	private void siftDown(int index, SimEvent event) {
+		int child;
+		while ((child = index * arity + 1) < size) {
+			int smallest = child;
+			int lastChild = Math.min(child + arity, size);
+			for (int c = child + 1; c < lastChild; c++) {
+				if (heap[c].precedes(heap[smallest])) {
+					smallest = c;
+				}
+			}
+			if (!heap[smallest].precedes(event)) {
+				break;
+			}
+			heap[index] = heap[smallest];
+			index = smallest;
+		}
+		heap[index] = event;
+	}
+
+}
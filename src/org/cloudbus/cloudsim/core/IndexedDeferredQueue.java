@@ -0,0 +1,362 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * A {@link DeferredQueue} indexed by destination entity. Each entity owns a bucket holding, in
+ * temporal order, only the events sent to it, so {@link #waiting(int, Predicate)},
+ * {@link #select(int, Predicate)} and {@link #findFirst(int, Predicate)} never look at the events of
+ * other entities. Since a bucket is the restriction of the deferred queue to one destination, the
+ * selected events are exactly the ones the plain {@link DeferredQueue} would select.
+ * <p>
+ * The predicates mostly used by entities have fast paths: a {@link PredicateAny} is answered in
+ * constant time and a {@link PredicateType} is answered through the number of events per tag kept
+ * by each bucket.
+ *
+ * @see DeferredQueue
+ * @see CloudSim
+ */
+public class IndexedDeferredQueue extends DeferredQueue {
+
+	/** The buckets, indexed by destination entity id. */
+	private Bucket[] buckets = new Bucket[16];
+
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The insertion sequence, used to rebuild the overall order of the events. */
+	private long sequence = 0;
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		int dest = newEvent.getDestination();
+		if (dest >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, Math.max(buckets.length << 1, dest + 1));
+		}
+		Bucket bucket = buckets[dest];
+		if (bucket == null) {
+			bucket = new Bucket();
+			buckets[dest] = bucket;
+		}
+		bucket.add(newEvent, sequence++);
+		size++;
+	}
+
+	@Override
+	public int waiting(int dest, Predicate p) {
+		Bucket bucket = bucketOf(dest);
+		if (bucket == null || bucket.isEmpty()) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return bucket.size();
+		}
+		if (p instanceof PredicateType) {
+			return bucket.tagsCount((PredicateType) p);
+		}
+		int count = 0;
+		for (int i = bucket.head; i < bucket.tail; i++) {
+			if (p.match(bucket.events[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public SimEvent select(int dest, Predicate p) {
+		Bucket bucket = bucketOf(dest);
+		int index = bucket == null ? -1 : bucket.indexOf(p);
+		if (index < 0) {
+			return last();
+		}
+		size--;
+		return bucket.removeAt(index);
+	}
+
+	@Override
+	public SimEvent findFirst(int dest, Predicate p) {
+		Bucket bucket = bucketOf(dest);
+		int index = bucket == null ? -1 : bucket.indexOf(p);
+		if (index < 0) {
+			return last();
+		}
+		return bucket.events[index];
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue, in temporal order. Since the events are spread
+	 * among the buckets, this method copies and sorts them.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] events = new SimEvent[size];
+		final long[] order = new long[size];
+		int n = 0;
+		for (Bucket bucket : buckets) {
+			if (bucket != null) {
+				for (int i = bucket.head; i < bucket.tail; i++, n++) {
+					events[n] = bucket.events[i];
+					order[n] = bucket.sequences[i];
+				}
+			}
+		}
+		final Integer[] indexes = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, (i1, i2) -> {
+			int c = Double.compare(events[i1].eventTime(), events[i2].eventTime());
+			return c != 0 ? c : Long.compare(order[i1], order[i2]);
+		});
+		return new Iterator<SimEvent>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < indexes.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= indexes.length) {
+					throw new NoSuchElementException();
+				}
+				return events[indexes[next++]];
+			}
+
+			@Override
+			public void remove() {
+				if (next == 0) {
+					throw new IllegalStateException();
+				}
+				SimEvent event = events[indexes[next - 1]];
+				Bucket bucket = bucketOf(event.getDestination());
+				for (int i = bucket.head; i < bucket.tail; i++) {
+					if (bucket.events[i] == event) {
+						bucket.removeAt(i);
+						size--;
+						return;
+					}
+				}
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(buckets, null);
+		size = 0;
+	}
+
+	private Bucket bucketOf(int dest) {
+		return (dest >= 0 && dest < buckets.length) ? buckets[dest] : null;
+	}
+
+	/**
+	 * Returns the last event of the whole queue, which is what the linear scan of the
+	 * {@link DeferredQueue} ends on when no event matches.
+	 *
+	 * @return the last event, or <code>null</code> if the queue is empty
+	 */
+	private SimEvent last() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent last = null;
+		long lastSequence = -1;
+		for (Bucket bucket : buckets) {
+			if (bucket != null && !bucket.isEmpty()) {
+				SimEvent candidate = bucket.events[bucket.tail - 1];
+				long candidateSequence = bucket.sequences[bucket.tail - 1];
+				if (last == null || candidate.eventTime() > last.eventTime()
+						|| (candidate.eventTime() == last.eventTime() && candidateSequence > lastSequence)) {
+					last = candidate;
+					lastSequence = candidateSequence;
+				}
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * The events sent to one entity, sorted by time and, for the same time, by insertion order.
+	 */
+	private static final class Bucket {
+
+		/** Marks an empty slot of the tag table. */
+		private static final int NO_TAG = Integer.MIN_VALUE;
+
+		private SimEvent[] events = new SimEvent[8];
+
+		private long[] sequences = new long[8];
+
+		private int head = 0;
+
+		private int tail = 0;
+
+		/** Open addressing table from tag to the number of events having it. */
+		private int[] tags = newTagTable(8);
+
+		private int[] tagCounts = new int[8];
+
+		private int distinctTags = 0;
+
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		int size() {
+			return tail - head;
+		}
+
+		void add(SimEvent event, long sequence) {
+			if (tail == events.length) {
+				if (head > 0) {
+					System.arraycopy(events, head, events, 0, tail - head);
+					System.arraycopy(sequences, head, sequences, 0, tail - head);
+					Arrays.fill(events, tail - head, tail, null);
+					tail -= head;
+					head = 0;
+				} else {
+					events = Arrays.copyOf(events, events.length << 1);
+					sequences = Arrays.copyOf(sequences, sequences.length << 1);
+				}
+			}
+			// as in DeferredQueue, the event goes after all the events with the same time;
+			// events are deferred at the current clock, so they are almost always appended
+			double time = event.eventTime();
+			int pos = tail;
+			while (pos > head && events[pos - 1].eventTime() > time) {
+				events[pos] = events[pos - 1];
+				sequences[pos] = sequences[pos - 1];
+				pos--;
+			}
+			events[pos] = event;
+			sequences[pos] = sequence;
+			tail++;
+			addToTag(event.getTag(), 1);
+		}
+
+		int indexOf(Predicate p) {
+			if (isEmpty()) {
+				return -1;
+			}
+			if (p instanceof PredicateAny) {
+				return head;
+			}
+			if (p instanceof PredicateType && tagsCount((PredicateType) p) == 0) {
+				return -1;
+			}
+			for (int i = head; i < tail; i++) {
+				if (p.match(events[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		SimEvent removeAt(int index) {
+			SimEvent event = events[index];
+			if (index == head) {
+				events[head++] = null;
+			} else {
+				System.arraycopy(events, index + 1, events, index, tail - index - 1);
+				System.arraycopy(sequences, index + 1, sequences, index, tail - index - 1);
+				events[--tail] = null;
+			}
+			if (head == tail) {
+				head = tail = 0;
+			}
+			addToTag(event.getTag(), -1);
+			return event;
+		}
+
+		/**
+		 * Counts the events having any of the tags of the predicate.
+		 */
+		int tagsCount(PredicateType p) {
+			int count = 0;
+			for (int i = 0, n = p.getTagsCount(); i < n; i++) {
+				int tag = p.getTag(i);
+				boolean repeated = false;
+				for (int j = 0; j < i && !repeated; j++) {
+					repeated = p.getTag(j) == tag;
+				}
+				if (!repeated) {
+					count += tagCount(tag);
+				}
+			}
+			return count;
+		}
+
+		int tagCount(int tag) {
+			int slot = findTagSlot(tags, tag);
+			return tags[slot] == tag ? tagCounts[slot] : 0;
+		}
+
+		private void addToTag(int tag, int delta) {
+			int slot = findTagSlot(tags, tag);
+			if (tags[slot] != tag) {
+				if ((distinctTags + 1) << 1 > tags.length) {
+					rehashTags();
+					slot = findTagSlot(tags, tag);
+				}
+				tags[slot] = tag;
+				distinctTags++;
+			}
+			tagCounts[slot] += delta;
+		}
+
+		private void rehashTags() {
+			int[] oldTags = tags;
+			int[] oldCounts = tagCounts;
+			tags = newTagTable(oldTags.length << 1);
+			tagCounts = new int[tags.length];
+			for (int i = 0; i < oldTags.length; i++) {
+				if (oldTags[i] != NO_TAG) {
+					int slot = findTagSlot(tags, oldTags[i]);
+					tags[slot] = oldTags[i];
+					tagCounts[slot] = oldCounts[i];
+				}
+			}
+		}
+
+		private static int findTagSlot(int[] table, int tag) {
+			int mask = table.length - 1;
+			int slot = (tag * 0x9E3779B9) >>> 16 & mask;
+			while (table[slot] != NO_TAG && table[slot] != tag) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private static int[] newTagTable(int capacity) {
+			int[] table = new int[capacity];
+			Arrays.fill(table, NO_TAG);
+			return table;
+		}
+	}
+
+}
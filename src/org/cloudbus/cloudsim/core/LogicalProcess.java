@@ -0,0 +1,384 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A partition of the entities of a parallel simulation, with its own clock, future and deferred
+ * queues. It is also the context the entities run in: the events they send are keyed as the
+ * sequential simulation would order them (time, sending time, clock tick, sender, sending order),
+ * so that each partition processes its events in the sequential order.
+ * <p>
+ * The {@link ParallelKernel} also uses an instance without entities as the context of the
+ * coordinator, when the entities are started and when all the partitions run in lockstep.
+ *
+ * @see ParallelKernel
+ */
+final class LogicalProcess {
+
+	/** The serial of the events sent with priority. */
+	private static final long FIRST_SERIAL = -1;
+
+	/** The serial of the events sent before the simulation starts. */
+	private static final long PENDING_SERIAL = Long.MIN_VALUE;
+
+	/** The depth of the context the entities are started in. */
+	static final int START_DEPTH = -2;
+
+	/** The bits of the event sequence holding the clock tick, the sender and the sending order. */
+	static final int DEPTH_BITS = 15, ENTITY_BITS = 24, ORDER_BITS = 24;
+
+	/** The kernel. */
+	private final ParallelKernel kernel;
+
+	/** The index of the process of the sinks. */
+	static final int SINKS = -2;
+
+	/** The index of the coordinator. */
+	static final int COORDINATOR = -1;
+
+	/** The index of the process, 0 for the synchronizing one, or {@link #SINKS} or {@link #COORDINATOR}. */
+	private final int index;
+
+	/** The entities of the partition, sorted by id. */
+	private final List<SimEntity> entities = new ArrayList<SimEntity>();
+
+	/** The future event queue. */
+	private final HeapEventQueue future = new HeapEventQueue(4);
+
+	/** The deferred event queue. */
+	private final DeferredQueue deferred = new IndexedDeferredQueue();
+
+	/** The wait predicates. */
+	private final Map<Integer, Predicate> waitPredicates = new HashMap<Integer, Predicate>();
+
+	/** The events sent to other partitions during the current window. */
+	private final List<SimEvent> outbox = new ArrayList<SimEvent>();
+
+	/** The events processed in the current clock tick, reused across ticks. */
+	private final List<SimEvent> tickEvents = new ArrayList<SimEvent>();
+
+	/** The clock. */
+	private double clock = 0;
+
+	/** The number of clock ticks already run at the current time. */
+	private int depth = START_DEPTH;
+
+	/** The end (excluded) of the window being run, infinite when not in a window. */
+	private double windowEnd = Double.POSITIVE_INFINITY;
+
+	/** The entity running, or being started. */
+	private int runningEntity = 0;
+
+	/** The number of events sent by the running entity in this clock tick. */
+	private int sentEvents = 0;
+
+	/** The number of processed events. */
+	private long processedEvents = 0;
+
+	LogicalProcess(ParallelKernel kernel, int index) {
+		this.kernel = kernel;
+		this.index = index;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	List<SimEntity> getEntities() {
+		return entities;
+	}
+
+	DeferredQueue getDeferred() {
+		return deferred;
+	}
+
+	double clock() {
+		return clock;
+	}
+
+	int getDepth() {
+		return depth;
+	}
+
+	int getRunningEntity() {
+		return runningEntity;
+	}
+
+	long getProcessedEvents() {
+		return processedEvents;
+	}
+
+	/**
+	 * Sets the clock and the clock tick, aligning this process to the coordinator.
+	 */
+	void setTime(double clock, int depth) {
+		this.clock = clock;
+		this.depth = depth;
+	}
+
+	/**
+	 * Moves to the next clock tick at the given time.
+	 */
+	void advance(double time) {
+		if (time == clock) {
+			depth++;
+		} else {
+			clock = time;
+			depth = 0;
+		}
+	}
+
+	/**
+	 * Returns the time of the next event of the partition.
+	 *
+	 * @return the time, infinite if there are no events
+	 */
+	double nextEventTime() {
+		SimEvent next = future.peek();
+		return next == null ? Double.POSITIVE_INFINITY : next.eventTime();
+	}
+
+	// ======== EVENTS SENT BY THE ENTITIES RUNNING IN THIS CONTEXT ===============//
+
+	/**
+	 * Sets the entity whose events are going to be sent.
+	 */
+	void enter(SimEntity entity) {
+		runningEntity = entity.getId();
+		sentEvents = 0;
+	}
+
+	/**
+	 * Sends an event, keying it as the sequential simulation would order it.
+	 *
+	 * @param e     the event
+	 * @param first whether the event has priority over the others with the same time
+	 */
+	void schedule(SimEvent e, boolean first) {
+		if (index == SINKS) {
+			throw new IllegalStateException("The entity " + CloudSim.getEntityName(e.getSource())
+					+ " is a sink of the parallel simulation and cannot send events");
+		}
+		if (depth - START_DEPTH >= (1 << DEPTH_BITS) || sentEvents >= (1 << ORDER_BITS)) {
+			throw new IllegalStateException("Too many events at the simulation time " + clock);
+		}
+		e.setSerial(first ? FIRST_SERIAL : Double.doubleToLongBits(clock));
+		e.setSequence(((long) (depth - START_DEPTH) << (ENTITY_BITS + ORDER_BITS))
+				| ((long) runningEntity << ORDER_BITS) | sentEvents++);
+
+		LogicalProcess target = kernel.processOf(e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination());
+		if (target == this || windowEnd == Double.POSITIVE_INFINITY) {
+			target.enqueue(e);
+		} else if (e.eventTime() < windowEnd && target.index != SINKS) {
+			throw new IllegalStateException("The event sent by " + CloudSim.getEntityName(e.getSource()) + " to "
+					+ CloudSim.getEntityName(e.getDestination()) + " at time " + e.eventTime()
+					+ " violates the lookahead of the parallel simulation");
+		} else {
+			outbox.add(e);
+		}
+	}
+
+	/**
+	 * Adds an event sent before the start of the simulation.
+	 *
+	 * @param e     the event
+	 * @param order its position in the original future queue
+	 */
+	void schedulePending(SimEvent e, long order) {
+		e.setSerial(PENDING_SERIAL);
+		e.setSequence(order);
+		enqueue(e);
+	}
+
+	void enqueue(SimEvent e) {
+		future.addKeyedEvent(e);
+	}
+
+	/**
+	 * Delivers the events sent to other partitions during the last window.
+	 */
+	void flushOutbox() {
+		for (int i = 0, n = outbox.size(); i < n; i++) {
+			SimEvent e = outbox.get(i);
+			kernel.processOf(e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination()).enqueue(e);
+		}
+		outbox.clear();
+	}
+
+	/**
+	 * Removes the first event matching the predicate sent by the entity, among the ones of this
+	 * partition not yet processed and the ones sent to other partitions in the current window.
+	 *
+	 * @return the removed event, or <code>null</code>
+	 */
+	SimEvent cancel(int src, Predicate p) {
+		SimEvent found = null;
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				found = ev;
+				break;
+			}
+		}
+		for (SimEvent ev : outbox) {
+			if (ev.getSource() == src && p.match(ev) && (found == null || ev.precedes(found))) {
+				found = ev;
+			}
+		}
+		if (found != null && !future.remove(found)) {
+			outbox.remove(found);
+		}
+		return found;
+	}
+
+	/**
+	 * Removes all the events matching the predicate sent by the entity, see
+	 * {@link #cancel(int, Predicate)}.
+	 *
+	 * @return true if at least one event has been removed
+	 */
+	boolean cancelAll(int src, Predicate p) {
+		boolean removed = false;
+		Iterator<SimEvent> iter = future.iterator();
+		while (iter.hasNext()) {
+			SimEvent ev = iter.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				iter.remove();
+				removed = true;
+			}
+		}
+		for (Iterator<SimEvent> out = outbox.iterator(); out.hasNext();) {
+			SimEvent ev = out.next();
+			if (ev.getSource() == src && p.match(ev)) {
+				out.remove();
+				removed = true;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Makes an entity of this partition wait for an event.
+	 */
+	void wait(int src, Predicate p) {
+		kernel.getEntity(src).setState(SimEntity.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			waitPredicates.put(src, p);
+		}
+	}
+
+	// ======== EXECUTION ===============//
+
+	/**
+	 * Runs the partition up to the given time (excluded). Events sent to other partitions are kept
+	 * until {@link #flushOutbox()}.
+	 *
+	 * @param end the end of the window
+	 */
+	void runWindow(double end) {
+		windowEnd = end;
+		try {
+			SimEvent next;
+			while ((next = future.peek()) != null && next.eventTime() < end) {
+				advance(next.eventTime());
+				processEvents();
+				runEntities(entities);
+			}
+		} finally {
+			windowEnd = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Processes all the events of the partition, at the time they have been sent for, as soon as
+	 * they are delivered: only used for the sinks.
+	 */
+	void drain() {
+		SimEvent next;
+		while ((next = future.peek()) != null) {
+			advance(next.eventTime());
+			processEvents();
+			runEntities(entities);
+		}
+	}
+
+	/**
+	 * Processes all the events at the current clock, as {@link CloudSim#runClockTick()} does.
+	 */
+	void processEvents() {
+		SimEvent next = future.peek();
+		if (next == null || next.eventTime() != clock) {
+			return;
+		}
+		future.pollBatch(tickEvents);
+		try {
+			for (int i = 0, n = tickEvents.size(); i < n; i++) {
+				processEvent(tickEvents.get(i));
+			}
+			processedEvents += tickEvents.size();
+		} finally {
+			tickEvents.clear();
+		}
+	}
+
+	/**
+	 * Runs the runnable entities, in id order, in this context.
+	 */
+	void runEntities(List<SimEntity> toRun) {
+		for (int i = 0, n = toRun.size(); i < n; i++) {
+			SimEntity ent = toRun.get(i);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				enter(ent);
+				ent.run();
+			}
+		}
+	}
+
+	private void processEvent(SimEvent e) {
+		switch (e.getType()) {
+		case SimEvent.ENULL:
+			throw new IllegalArgumentException("Event has a null type.");
+
+		case SimEvent.SEND:
+			int dest = e.getDestination();
+			SimEntity dest_ent = kernel.getEntity(dest);
+			if (dest_ent.getState() == SimEntity.WAITING) {
+				Integer destObj = Integer.valueOf(dest);
+				Predicate p = waitPredicates.get(destObj);
+				if ((p == null) || (e.getTag() == 9999) || (p.match(e))) {
+					dest_ent.setEventBuffer(e);
+					dest_ent.setState(SimEntity.RUNNABLE);
+					waitPredicates.remove(destObj);
+				} else {
+					deferred.addEvent(e);
+				}
+			} else {
+				deferred.addEvent(e);
+			}
+			break;
+
+		case SimEvent.HOLD_DONE:
+			kernel.getEntity(e.getSource()).setState(SimEntity.RUNNABLE);
+			break;
+
+		default:
+			break;
+		}
+	}
+
+}
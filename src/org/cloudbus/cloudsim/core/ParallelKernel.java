@@ -0,0 +1,456 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Conservative parallel execution of a simulation. The entities are split by an
+ * {@link EntityPartitioner} into {@link LogicalProcess}es, each one with its own clock and event
+ * queues, plus a process for the synchronizing entities.
+ * <p>
+ * The simulation advances in steps. If the next event belongs to a partition and comes before the
+ * next event of the synchronizing entities, all the partitions run in parallel up to the end of a
+ * window as long as the lookahead (and never beyond the next synchronizing event): since the events
+ * between partitions are delayed at least by the lookahead, no partition can receive an event
+ * inside the window, and the events sent to other partitions are delivered at the barrier ending
+ * it. Otherwise, all the partitions run one clock tick in lockstep, as {@link CloudSim#runClockTick()}
+ * does.
+ * <p>
+ * Since the events are keyed as the sequential simulation orders them, each entity receives its
+ * events in the same order and at the same times as in a sequential run. The state the entities share
+ * otherwise is split among the partitions while the simulation runs, and merged at each
+ * synchronization, see {@link PartitionedState}.
+ *
+ * @see EntityPartitioner
+ * @see CloudSim#setParallelExecution(EntityPartitioner, int)
+ */
+final class ParallelKernel {
+
+	/** The process whose entities are running on the current thread. */
+	private static final ThreadLocal<LogicalProcess> CURRENT = new ThreadLocal<LogicalProcess>();
+
+	/** The entities, indexed by id. */
+	private final List<SimEntity> entities;
+
+	/** The process of each entity, indexed by entity id. */
+	private final LogicalProcess[] processOf;
+
+	/** The processes: the synchronizing one first, then one per partition. */
+	private final LogicalProcess[] processes;
+
+	/** The context of the coordinator. */
+	private final LogicalProcess coordinator;
+
+	/** The process of the sinks. */
+	private final LogicalProcess sinks;
+
+	/** The lookahead. */
+	private final double lookahead;
+
+	/** The state split among the partitions. */
+	private final List<PartitionedState> partitionedStates;
+
+	/** Whether the state is split among the partitions. */
+	private boolean split = false;
+
+	/** The workers running the windows, <code>null</code> to run them on the calling thread. */
+	private final ExecutorService executor;
+
+	/** The tasks running the partitions in the current window. */
+	private final List<Callable<Void>> windowTasks = new ArrayList<Callable<Void>>();
+
+	/** The end of the current window. */
+	private double windowEnd;
+
+	/** The number of windows run in parallel. */
+	private long windows = 0;
+
+	/** The number of clock ticks run in lockstep. */
+	private long lockstepTicks = 0;
+
+	/**
+	 * Partitions the entities.
+	 *
+	 * @param entities    the entities of the simulation, indexed by id
+	 * @param partitioner the partitioner
+	 * @param threads     the number of worker threads
+	 * @param states      the state shared by the entities, see {@link PartitionedState}
+	 */
+	ParallelKernel(List<SimEntity> entities, EntityPartitioner partitioner, int threads,
+			List<PartitionedState> states) {
+		if (entities.size() >= (1 << LogicalProcess.ENTITY_BITS)) {
+			throw new IllegalArgumentException("Too many entities for a parallel simulation: " + entities.size());
+		}
+		int[] partitions = partitioner.partition(entities);
+		if (partitions == null || partitions.length != entities.size()) {
+			throw new IllegalArgumentException("The partitioner has to assign a partition to each entity");
+		}
+		double lookahead = partitioner.getLookahead(entities, partitions);
+		if (!(lookahead >= 0)) {
+			throw new IllegalArgumentException("The lookahead cannot be negative, but is: " + lookahead);
+		}
+		this.entities = entities;
+		this.lookahead = lookahead;
+		synchronized (states) {
+			this.partitionedStates = new ArrayList<PartitionedState>(states);
+		}
+
+		sinks = new LogicalProcess(this, LogicalProcess.SINKS);
+		List<LogicalProcess> created = new ArrayList<LogicalProcess>();
+		created.add(new LogicalProcess(this, 0));
+		Map<Integer, LogicalProcess> byPartition = new HashMap<Integer, LogicalProcess>();
+		processOf = new LogicalProcess[entities.size()];
+		for (int id = 0; id < partitions.length; id++) {
+			LogicalProcess process;
+			if (partitions[id] == EntityPartitioner.SYNCHRONIZING) {
+				process = created.get(0);
+			} else if (partitions[id] == EntityPartitioner.SINK) {
+				process = sinks;
+			} else if (partitions[id] < 0) {
+				throw new IllegalArgumentException("Invalid partition " + partitions[id] + " of entity " + id);
+			} else {
+				process = byPartition.get(partitions[id]);
+				if (process == null) {
+					process = new LogicalProcess(this, created.size());
+					created.add(process);
+					byPartition.put(partitions[id], process);
+				}
+			}
+			process.getEntities().add(entities.get(id));
+			processOf[id] = process;
+		}
+		processes = created.toArray(new LogicalProcess[created.size()]);
+		coordinator = new LogicalProcess(this, LogicalProcess.COORDINATOR);
+
+		for (int i = 1; i < processes.length; i++) {
+			final LogicalProcess process = processes[i];
+			windowTasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					CURRENT.set(process);
+					try {
+						process.runWindow(windowEnd);
+					} finally {
+						CURRENT.remove();
+					}
+					return null;
+				}
+			});
+		}
+
+		if (threads > 1 && processes.length > 2) {
+			final AtomicInteger workers = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(Math.min(threads, processes.length - 1), r -> {
+				Thread thread = new Thread(r, "CloudSim-partition-" + workers.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Returns the context of the current thread, that is the process running on it or, if none,
+	 * the coordinator.
+	 */
+	LogicalProcess current() {
+		LogicalProcess process = CURRENT.get();
+		return process != null ? process : coordinator;
+	}
+
+	LogicalProcess processOf(int id) {
+		if (id < 0 || id >= processOf.length) {
+			throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+		}
+		return processOf[id];
+	}
+
+	SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	int getPartitionsCount() {
+		return processes.length - 1;
+	}
+
+	/**
+	 * Returns the partition of the entity running on the current thread.
+	 *
+	 * @return the partition, 0 for the synchronizing entities and the sinks
+	 */
+	int currentPartition() {
+		return Math.max(processOf[current().getRunningEntity()].getIndex(), 0);
+	}
+
+	long getWindows() {
+		return windows;
+	}
+
+	long getLockstepTicks() {
+		return lockstepTicks;
+	}
+
+	/**
+	 * Binds the coordinator to the calling thread, splits the shared state and moves to the
+	 * partitions the events sent before the simulation starts.
+	 *
+	 * @param pending the future event queue of the sequential simulation
+	 */
+	void start(EventQueue pending) {
+		CURRENT.set(coordinator);
+		for (PartitionedState state : partitionedStates) {
+			state.split(getPartitionsCount());
+		}
+		split = true;
+		long order = 0;
+		SimEvent e;
+		while ((e = pending.poll()) != null) {
+			if (e.getType() == SimEvent.CREATE) {
+				throw new IllegalStateException("Entities cannot be created during a parallel simulation");
+			}
+			processOf(e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination()).schedulePending(e, order++);
+		}
+	}
+
+	/**
+	 * Starts the entities, in id order, in the context of the coordinator.
+	 */
+	void startEntities() {
+		for (SimEntity ent : entities) {
+			coordinator.enter(ent);
+			ent.startEntity();
+		}
+	}
+
+	/**
+	 * Runs the entities once before the first clock tick, as the first {@link CloudSim#runClockTick()}
+	 * does.
+	 */
+	void runEntities() {
+		for (LogicalProcess process : processes) {
+			process.setTime(0, LogicalProcess.START_DEPTH + 1);
+		}
+		coordinator.setTime(0, LogicalProcess.START_DEPTH + 1);
+		coordinator.runEntities(entities);
+	}
+
+	/**
+	 * Returns the time of the next event.
+	 *
+	 * @return the time, infinite if there are no more events
+	 */
+	double nextEventTime() {
+		double next = Double.POSITIVE_INFINITY;
+		for (LogicalProcess process : processes) {
+			next = Math.min(next, process.nextEventTime());
+		}
+		return next;
+	}
+
+	/**
+	 * Processes the events at the given time, which has to be the time of the next event, and
+	 * possibly the following ones.
+	 *
+	 * @param next  the time of the next event
+	 * @param limit the time the simulation ends at
+	 * @return the time reached
+	 */
+	double step(double next, double limit) {
+		double synchronizing = processes[0].nextEventTime();
+		if (lookahead > 0 && next < synchronizing) {
+			runWindow(Math.min(Math.min(next + lookahead, synchronizing), limit));
+		} else {
+			runLockstep(next);
+		}
+		for (PartitionedState state : partitionedStates) {
+			state.synchronize();
+		}
+		return coordinator.clock();
+	}
+
+	/**
+	 * Merges the shared state for good, once the simulation is over.
+	 */
+	void join() {
+		if (split) {
+			split = false;
+			for (PartitionedState state : partitionedStates) {
+				state.join();
+			}
+		}
+	}
+
+	private void runLockstep(double time) {
+		coordinator.advance(time);
+		for (LogicalProcess process : processes) {
+			process.setTime(time, coordinator.getDepth());
+			process.processEvents();
+		}
+		coordinator.runEntities(entities);
+		drainSinks();
+		lockstepTicks++;
+	}
+
+	/**
+	 * Lets the sinks process the events delivered to them.
+	 */
+	private void drainSinks() {
+		CURRENT.set(sinks);
+		try {
+			sinks.drain();
+		} finally {
+			CURRENT.set(coordinator);
+		}
+	}
+
+	private void runWindow(double end) {
+		windowEnd = end;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 1; i < processes.length; i++) {
+			if (processes[i].nextEventTime() < end) {
+				tasks.add(windowTasks.get(i - 1));
+			}
+		}
+
+		if (executor == null || tasks.size() == 1) {
+			try {
+				for (Callable<Void> task : tasks) {
+					task.call();
+				}
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			} finally {
+				CURRENT.set(coordinator);
+			}
+		} else {
+			try {
+				for (Future<Void> result : executor.invokeAll(tasks)) {
+					result.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Parallel simulation interrupted", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+
+		double reached = coordinator.clock();
+		for (int i = 1; i < processes.length; i++) {
+			processes[i].flushOutbox();
+			reached = Math.max(reached, processes[i].clock());
+		}
+		coordinator.setTime(reached, reached == coordinator.clock() ? coordinator.getDepth() : 0);
+		drainSinks();
+		windows++;
+	}
+
+	/**
+	 * Sets the clock of the coordinator when the simulation is terminated at a given time.
+	 *
+	 * @param time the termination time
+	 */
+	void stop(double time) {
+		coordinator.setTime(time, 0);
+	}
+
+	// ======== SIMULATION METHODS ROUTED BY CloudSim ===============//
+
+	double clock() {
+		return current().clock();
+	}
+
+	void send(SimEvent e, boolean first) {
+		current().schedule(e, first);
+	}
+
+	void pause(int src, double delay) {
+		LogicalProcess context = current();
+		context.schedule(new SimEvent(SimEvent.HOLD_DONE, context.clock() + delay, src), false);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	void wait(int src, Predicate p) {
+		processOf(src).wait(src, p);
+	}
+
+	DeferredQueue deferredOf(int src) {
+		return processOf(src).getDeferred();
+	}
+
+	SimEvent cancel(int src, Predicate p) {
+		LogicalProcess context = current();
+		if (context != coordinator) {
+			return context.cancel(src, p);
+		}
+		SimEvent found = null;
+		for (LogicalProcess process : processes) {
+			SimEvent candidate = process.cancel(src, p);
+			if (candidate != null) {
+				if (found == null || candidate.precedes(found)) {
+					if (found != null) {
+						processOf(found.getType() == SimEvent.HOLD_DONE ? found.getSource() : found.getDestination())
+								.enqueue(found);
+					}
+					found = candidate;
+				} else {
+					process.enqueue(candidate);
+				}
+			}
+		}
+		return found;
+	}
+
+	boolean cancelAll(int src, Predicate p) {
+		LogicalProcess context = current();
+		if (context != coordinator) {
+			return context.cancelAll(src, p);
+		}
+		boolean removed = false;
+		for (LogicalProcess process : processes) {
+			removed |= process.cancelAll(src, p);
+		}
+		return removed;
+	}
+
+	/**
+	 * Merges the shared state, if the simulation did not, stops the worker threads and unbinds the
+	 * coordinator from the calling thread.
+	 */
+	void shutdown() {
+		join();
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		CURRENT.remove();
+	}
+
+}
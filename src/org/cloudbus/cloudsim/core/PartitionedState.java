@@ -0,0 +1,45 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * State shared by the entities of a simulation, such as id generators, random numbers or
+ * statistics, that the parallel execution mode splits among the partitions (see
+ * {@link CloudSim#setParallelExecution(EntityPartitioner, int)}).
+ * <p>
+ * While split, the state is updated by each partition on its own, as {@link CloudSim#getCurrentPartition()}
+ * tells: the updates of a partition only depend on its events, and they are merged in partition order,
+ * so that the results of a parallel run do not depend on the number of threads nor on how the
+ * partitions interleave. The merges happen while no partition is running, on the thread running the
+ * simulation.
+ *
+ * @see SimulationKernel#addPartitionedState(PartitionedState)
+ */
+public interface PartitionedState {
+
+	/**
+	 * Splits the state when a parallel simulation starts, before the entities do.
+	 *
+	 * @param partitions the number of partitions: the state is updated by the partitions 1 to
+	 *                   <tt>partitions</tt>, and by the partition 0 of the synchronizing entities
+	 */
+	public void split(int partitions);
+
+	/**
+	 * Merges the updates of the partitions at a synchronization of the parallel simulation, that is
+	 * after each window or clock tick in lockstep.
+	 */
+	public void synchronize();
+
+	/**
+	 * Merges the updates of the partitions for good when the parallel simulation ends.
+	 */
+	public void join();
+
+}
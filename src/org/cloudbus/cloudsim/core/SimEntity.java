@@ -404,6 +404,9 @@ public abstract class SimEntity implements Cloneable {
 
 		while (ev != null) {
 			processEvent(ev);
+			if (recyclesProcessedEvents()) {
+				CloudSim.releaseEvent(ev);
+			}
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -414,6 +417,18 @@ public abstract class SimEntity implements Cloneable {
 		evbuf = null;
 	}
 
+	/**
+	 * Tells whether the events processed by this entity can be recycled once
+	 * {@link #processEvent(SimEvent)} returns, when the event pooling is enabled (see
+	 * {@link CloudSim#setEventPooling(boolean)}). Entities keeping a reference to an event, rather
+	 * than to its data, after having processed it must override this method and return false.
+	 * 
+	 * @return true if the processed events can be recycled
+	 */
+	protected boolean recyclesProcessedEvents() {
+		return true;
+	}
+
 	/**
 	 * Get a clone of the entity. This is used when independent replications have been specified as
 	 * an output analysis method. Clones or backups of the entities are made in the beginning of the
@@ -18,10 +18,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +33,22 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
 
 	private long serial = -1;
 
+	/**
+	 * insertion order assigned by heap-based event queues, used to break ties between events with
+	 * the same time and serial (i.e. events added with {@link EventQueue#addEventFirst(SimEvent)})
+	 **/
+	private long sequence = -1;
+
+	/** whether the event has been taken from the {@link EventPool} and not yet given back **/
+	private boolean pooled = false;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -82,10 +91,55 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises an event taken from, or given back to, the {@link EventPool}.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = 0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+		sequence = -1;
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Tells whether this event has to be processed before the given one. Events are ordered by
+	 * time, then by serial and finally by insertion sequence, which is the same order a
+	 * {@link FutureQueue} produces.
+	 * 
+	 * @param event the other event
+	 * @return true if this event comes first
+	 */
+	boolean precedes(SimEvent event) {
+		if (time != event.time) {
+			return time < event.time;
+		}
+		if (serial != event.serial) {
+			return serial < event.serial;
+		}
+		return sequence < event.sequence;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
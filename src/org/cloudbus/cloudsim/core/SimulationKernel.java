@@ -0,0 +1,119 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of a simulation run by {@link CloudSim}: its entities, its event queues, its clock and
+ * its settings. The static methods of {@link CloudSim} act on the kernel bound to the calling thread
+ * (see {@link CloudSim#bindKernel(SimulationKernel)}), or on a default one shared by the threads not
+ * bound to any: several simulations can run concurrently in the same JVM, each on its own thread
+ * bound to its own kernel.
+ * <p>
+ * A kernel is not thread safe: it must be bound to a single simulation at a time.
+ *
+ * @see CloudSim#bindKernel(SimulationKernel)
+ */
+public final class SimulationKernel {
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/**
+	 * The minimal time between events. Events within shorter periods after the last event are
+	 * discarded.
+	 */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The implementation of the future event queue used by the next simulation. */
+	EventQueueType eventQueueType = EventQueueType.TREE_SET;
+
+	/** The partitioner of the parallel execution, <tt>null</tt> for a sequential one. */
+	EntityPartitioner partitioner = null;
+
+	/** The number of worker threads of the parallel execution. */
+	int parallelThreads = 1;
+
+	/** The pool of the events, which also counts their allocations. */
+	final EventPool eventPool = new EventPool();
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	EventQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	// The predicates used in entity wait methods
+	/** The wait predicates. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	volatile boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	volatile boolean abruptTerminate = false;
+
+	/** The events processed in the current clock tick, reused across ticks. */
+	final List<SimEvent> tickEvents = new ArrayList<SimEvent>();
+
+	/** The kernel running the current parallel simulation, if any. */
+	ParallelKernel parallelKernel = null;
+
+	/** The state split among the partitions of the parallel simulations. */
+	final List<PartitionedState> partitionedStates = new ArrayList<PartitionedState>();
+
+	/**
+	 * Registers state shared by the entities, to be split among the partitions of the parallel
+	 * simulations run by this kernel.
+	 *
+	 * @param state the state
+	 * @see CloudSim#setParallelExecution(EntityPartitioner, int)
+	 */
+	public void addPartitionedState(PartitionedState state) {
+		synchronized (partitionedStates) {
+			partitionedStates.add(state);
+		}
+	}
+}
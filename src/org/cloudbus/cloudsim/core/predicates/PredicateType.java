@@ -58,4 +58,23 @@ public class PredicateType extends Predicate {
 		return false;
 	}
 
+	/**
+	 * Returns the number of tags this predicate matches.
+	 * 
+	 * @return the number of tags
+	 */
+	public int getTagsCount() {
+		return tags.length;
+	}
+
+	/**
+	 * Returns one of the tags this predicate matches.
+	 * 
+	 * @param index the index of the tag, between 0 and {@link #getTagsCount()} (excluded)
+	 * @return the tag
+	 */
+	public int getTag(int index) {
+		return tags[index];
+	}
+
 }
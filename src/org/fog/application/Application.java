@@ -9,6 +9,7 @@ import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.fog.application.selectivity.SelectivityModel;
 import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
 import org.fog.scheduler.TupleScheduler;
 import org.fog.utils.FogUtils;
 import org.fog.utils.GeoCoverage;
@@ -30,6 +31,13 @@ public class Application {
 	 */
 	private List<AppModule> modules;
 
+	/**
+	 * Index of {@link #modules} by name, rebuilt lazily when the list changes size
+	 * (see {@link #getModuleByName(String)})
+	 */
+	private Map<String, AppModule> modulesByName;
+	private int modulesIndexedCount;
+
 	/**
 	 * List of application edges in the application
 	 */
@@ -222,11 +230,25 @@ public class Application {
 	 * @return
 	 */
 	public AppModule getModuleByName(String name) {
+		AppModule module;
+		if (modulesByName == null || modulesIndexedCount != modules.size()) {
+			indexModulesByName();
+		}
+		module = modulesByName.get(name);
+		if (module == null || module.getName().equals(name))
+			return module;
+		// the module has been renamed since the index was built
+		indexModulesByName();
+		return modulesByName.get(name);
+	}
+
+	private void indexModulesByName() {
+		modulesByName = new HashMap<String, AppModule>();
 		for (AppModule module : modules) {
-			if (module.getName().equals(name))
-				return module;
+			if (!modulesByName.containsKey(module.getName()))
+				modulesByName.put(module.getName(), module);
 		}
-		return null;
+		modulesIndexedCount = modules.size();
 	}
 
 	/**
@@ -255,8 +277,8 @@ public class Application {
 					if (edge.getEdgeType() == AppEdge.ACTUATOR) {
 						// for(Integer actuatorId :
 						// module.getActuatorSubscriptions().get(edge.getTupleType())){
-						Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),
-								(long) (edge.getTupleCpuLength()), inputTuple.getNumberOfPes(),
+						Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(),
+								edge.getDirection(), (long) (edge.getTupleCpuLength()), inputTuple.getNumberOfPes(),
 								(long) (edge.getTupleNwLength()), inputTuple.getCloudletOutputSize(),
 								inputTuple.getUtilizationModelCpu(), inputTuple.getUtilizationModelRam(),
 								inputTuple.getUtilizationModelBw());
@@ -274,8 +296,8 @@ public class Application {
 						tuples.add(tuple);
 						// }
 					} else {
-						Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),
-								(long) (edge.getTupleCpuLength()), inputTuple.getNumberOfPes(),
+						Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(),
+								edge.getDirection(), (long) (edge.getTupleCpuLength()), inputTuple.getNumberOfPes(),
 								(long) (edge.getTupleNwLength()), inputTuple.getCloudletOutputSize(),
 								inputTuple.getUtilizationModelCpu(), inputTuple.getUtilizationModelRam(),
 								inputTuple.getUtilizationModelBw());
@@ -287,7 +309,7 @@ public class Application {
 						tuple.setDirection(edge.getDirection());
 						tuple.setTupleType(edge.getTupleType());
 						tuple.setSourceModuleId(sourceModuleId);
-						tuple.setTraversedMicroservices(inputTuple.getTraversed());
+						tuple.shareTraversedMicroservices(inputTuple);
 
 						tuples.add(tuple);
 					}
@@ -308,9 +330,9 @@ public class Application {
 		AppModule module = getModuleByName(edge.getSource());
 		if (edge.getEdgeType() == AppEdge.ACTUATOR) {
 			for (Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())) {
-				Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),
-						(long) (edge.getTupleCpuLength()), 1, (long) (edge.getTupleNwLength()), 100,
-						new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+				Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(),
+						edge.getDirection(), (long) (edge.getTupleCpuLength()), 1, (long) (edge.getTupleNwLength()), 100,
+						UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE);
 				tuple.setUserId(getUserId());
 				tuple.setAppId(getAppId());
 				tuple.setDestModuleName(edge.getDestination());
@@ -324,9 +346,9 @@ public class Application {
 				return tuple;
 			}
 		} else {
-			Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),
+			Tuple tuple = TuplePool.getInstance().acquire(appId, FogUtils.generateTupleId(), edge.getDirection(),
 					(long) (edge.getTupleCpuLength()), 1, (long) (edge.getTupleNwLength()), 100,
-					new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+					UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE);
 			// tuple.setActualTupleId(inputTuple.getActualTupleId());
 			tuple.setUserId(getUserId());
 			tuple.setAppId(getAppId());
@@ -355,6 +377,7 @@ public class Application {
 
 	public void setModules(List<AppModule> modules) {
 		this.modules = modules;
+		this.modulesByName = null;
 	}
 
 	public List<AppEdge> getEdges() {
@@ -1,5 +1,7 @@
 package org.fog.application.selectivity;
 
+import org.fog.utils.SimulationContext;
+
 /**
  * Generates an output tuple for an incoming input tuple with a fixed probability
  * @author Harshit Gupta
@@ -24,7 +26,7 @@ public class FractionalSelectivity implements SelectivityModel{
 	
 	@Override
 	public boolean canSelect() {
-		if(Math.random() < getSelectivity()) // if the probability condition is satisfied
+		if(SimulationContext.current().getRandom().nextDouble() < getSelectivity()) // if the probability condition is satisfied
 			return true;
 		return false;
 	}
@@ -1,5 +1,6 @@
 package org.fog.entities;
 
+import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
 
@@ -18,9 +19,11 @@ public class FogBroker extends PowerDatacenterBroker {
 
 	@Override
 	public void processEvent(SimEvent ev) {
-		// TODO Auto-generated method stub
 		// System.out.print("_____________ org.fog.entities.FogBroker got event:");
 		// System.out.println(ev);
+		// the devices return the tuples to the broker once executed: nothing refers to them anymore
+		if (ev.getTag() == CloudSimTags.CLOUDLET_RETURN && ev.getData() instanceof Tuple)
+			TuplePool.getInstance().release((Tuple) ev.getData());
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package org.fog.entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -15,6 +16,8 @@ import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -33,12 +36,14 @@ import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
+import org.fog.utils.FogTopologyIndex;
 import org.fog.utils.FogUtils;
 import org.fog.utils.Logger;
 import org.fog.utils.MigrationDelayMonitor;
 import org.fog.utils.ModuleLaunchConfig;
 import org.fog.utils.NetworkUsageMonitor;
 import org.fog.utils.TimeKeeper;
+import org.fog.utils.metrics.MetricsRegistry;
 import org.json.simple.JSONObject;
 
 public class FogDevice extends PowerDatacenter {
@@ -53,6 +58,13 @@ public class FogDevice extends PowerDatacenter {
 
 	protected Map<String, Application> applicationMap;
 	protected Map<String, List<String>> appToModulesMap;
+	/**
+	 * Mirrors {@link #appToModulesMap}: the modules placed on this device, indexed
+	 * by application ID and then by module name, the name being mapped to null if
+	 * several VMs run that module. See
+	 * {@link #getPlacedModule(String, String, boolean)}.
+	 */
+	protected Map<String, Map<String, AppModule>> placedModulesIndex;
 	protected Map<Integer, Double> childToLatencyMap;
 
 	protected Map<Integer, Integer> cloudTrafficMap;
@@ -93,6 +105,22 @@ public class FogDevice extends PowerDatacenter {
 	protected double energyConsumption;
 	protected double lastUtilizationUpdateTime;
 	protected double lastUtilization;
+
+	/**
+	 * MIPS share requested by the VMs which are not running any tuple. MIPS shares
+	 * are never modified by the VM schedulers, so they can be shared.
+	 */
+	protected static final List<Double> IDLE_MIPS_SHARE = Collections.singletonList(0.0);
+	/** MIPS share requested by the VMs running some tuple: the whole host */
+	private List<Double> fullMipsShare;
+
+	/*
+	 * State of the VM scheduler left by the last updateAllocatedMips: the VMs, the
+	 * MIPS share each of them requested and the allocation the scheduler made
+	 */
+	private Vm[] allocatedVms;
+	private List<Double>[] requestedMipsShares;
+	private List<Double>[] allocatedMipsShares;
 	private int level;
 
 	protected double ratePerMips;
@@ -155,6 +183,7 @@ public class FogDevice extends PowerDatacenter {
 
 		applicationMap = new HashMap<String, Application>();
 		appToModulesMap = new HashMap<String, List<String>>();
+		placedModulesIndex = new HashMap<String, Map<String, AppModule>>();
 		northTupleQueue = new LinkedList<Tuple>();
 		southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
 		setNorthLinkBusy(false);
@@ -242,6 +271,7 @@ public class FogDevice extends PowerDatacenter {
 
 		applicationMap = new HashMap<String, Application>();
 		appToModulesMap = new HashMap<String, List<String>>();
+		placedModulesIndex = new HashMap<String, Map<String, AppModule>>();
 		northTupleQueue = new LinkedList<Tuple>();
 		southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
 		setNorthLinkBusy(false);
@@ -277,6 +307,21 @@ public class FogDevice extends PowerDatacenter {
 
 	}
 
+	@Override
+	public void startEntity() {
+		super.startEntity();
+		registerMetrics();
+	}
+
+	/**
+	 * Registers the gauges of this device in the current {@link MetricsRegistry}.
+	 */
+	protected void registerMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.gauge("device.energy", this::getEnergyConsumption, "device", getName());
+		metrics.gauge("device.cost", this::getTotalCost, "device", getName());
+	}
+
 	@Override
 	protected void processOtherEvent(SimEvent ev) {
 		switch (ev.getTag()) {
@@ -387,7 +432,7 @@ public class FogDevice extends PowerDatacenter {
 				+ config.getModule().getName());
 	}
 
-	private AppModule getModuleByName(String moduleName) {
+	protected AppModule getModuleByName(String moduleName) {
 		AppModule module = null;
 		for (Vm vm : getHost().getVmList()) {
 			if (((AppModule) vm).getName().equals(moduleName)) {
@@ -398,6 +443,70 @@ public class FogDevice extends PowerDatacenter {
 		return module;
 	}
 
+	/**
+	 * Returns the last VM of the host running the given module, or null if there
+	 * is none.
+	 */
+	protected AppModule getLastModuleByName(String moduleName) {
+		AppModule module = null;
+		for (Vm vm : getHost().getVmList()) {
+			if (((AppModule) vm).getName().equals(moduleName))
+				module = (AppModule) vm;
+		}
+		return module;
+	}
+
+	/**
+	 * Registers a module as placed on this device, alongside
+	 * {@link #appToModulesMap}.
+	 */
+	protected void addPlacedModule(AppModule module) {
+		Map<String, AppModule> modules = placedModulesIndex.get(module.getAppId());
+		if (modules == null) {
+			modules = new HashMap<String, AppModule>();
+			placedModulesIndex.put(module.getAppId(), modules);
+		}
+		AppModule placed = modules.get(module.getName());
+		if (modules.containsKey(module.getName()) && placed != module
+				&& (placed == null || placed.getHost() == getHost()))
+			modules.put(module.getName(), null); // several VMs: they are scanned
+		else
+			modules.put(module.getName(), module);
+	}
+
+	protected void removePlacedModule(String appId, String moduleName) {
+		Map<String, AppModule> modules = placedModulesIndex.get(appId);
+		if (modules != null) {
+			modules.remove(moduleName);
+		}
+	}
+
+	/**
+	 * Returns whether the given module has been placed on this device, in constant
+	 * time: the same of checking
+	 * <code>appToModulesMap.get(appId).contains(moduleName)</code>.
+	 */
+	protected boolean isModulePlaced(String appId, String moduleName) {
+		Map<String, AppModule> modules = placedModulesIndex.get(appId);
+		return modules != null && modules.containsKey(moduleName);
+	}
+
+	/**
+	 * Returns the VM running the given module on this device, or null if there is
+	 * none. If several VMs of the host run the module, the first or the last one
+	 * is returned, as {@link #getModuleByName(String)} and
+	 * {@link #getLastModuleByName(String)} do. The placed modules are looked up in
+	 * constant time: the VMs are scanned only if the module has not been placed
+	 * here, is run by several VMs, or its VM has been destroyed or migrated away.
+	 */
+	protected AppModule getPlacedModule(String appId, String moduleName, boolean first) {
+		Map<String, AppModule> modules = placedModulesIndex.get(appId);
+		AppModule module = modules == null ? null : modules.get(moduleName);
+		if (module != null && module.getHost() == getHost())
+			return module;
+		return first ? getModuleByName(moduleName) : getLastModuleByName(moduleName);
+	}
+
 	/**
 	 * Sending periodic tuple for an application edge. Note that for multiple
 	 * instances of a single source module, only one tuple is sent DOWN while
@@ -525,15 +634,18 @@ public class FogDevice extends PowerDatacenter {
 
 						cloudletCompleted = true;
 						Tuple tuple = (Tuple) cl;
-						TimeKeeper.getInstance().tupleEndedExecution(tuple);
+						double executionTime = TimeKeeper.getInstance().tupleEndedExecution(tuple);
+						MetricsRegistry metrics = MetricsRegistry.getInstance();
+						if (metrics.isEnabled() && !Double.isNaN(executionTime))
+							metrics.histogram("tuple.cpu_time", "app", tuple.getAppId(), "module",
+									tuple.getDestModuleName(), "device", getName()).record(executionTime);
 						Application application = getApplicationMap().get(tuple.getAppId());
 						Logger.debug(getName(), "Completed execution of tuple " + tuple.getCloudletId() + "on "
 								+ tuple.getDestModuleName());
 						List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple,
 								getId(), vm.getId());
 						for (Tuple resTuple : resultantTuples) {
-							resTuple.setModuleCopyMap(new HashMap<String, Integer>(tuple.getModuleCopyMap()));
-							resTuple.getModuleCopyMap().put(((AppModule) vm).getName(), vm.getId());
+							resTuple.addModuleCopies(tuple, ((AppModule) vm).getName(), vm.getId());
 							updateTimingsOnSending(resTuple);
 							sendToSelf(resTuple);
 						}
@@ -552,14 +664,10 @@ public class FogDevice extends PowerDatacenter {
 		// WILL NEED TO CHECK IF A NEW LOOP STARTS AND INSERT A UNIQUE TUPLE ID TO IT.
 		String srcModule = resTuple.getSrcModuleName();
 		String destModule = resTuple.getDestModuleName();
+		TimeKeeper timeKeeper = TimeKeeper.getInstance();
 		for (AppLoop loop : getApplicationMap().get(resTuple.getAppId()).getLoops()) {
 			if (loop.hasEdge(srcModule, destModule) && loop.isStartModule(srcModule)) {
-				int tupleId = TimeKeeper.getInstance().getUniqueId();
-				resTuple.setActualTupleId(tupleId);
-				if (!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-					TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-				TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-				TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
+				resTuple.setActualTupleId(timeKeeper.loopStarted(loop.getLoopId()));
 
 				// Logger.debug(getName(),
 				// "\tSENDING\t"+tuple.getActualTupleId()+"\tSrc:"+srcModule+"\tDest:"+destModule);
@@ -568,77 +676,188 @@ public class FogDevice extends PowerDatacenter {
 		}
 	}
 
+	/**
+	 * Returns the child whose subtree holds the given device, or -1 if there is
+	 * none. See {@link FogTopologyIndex}.
+	 */
 	protected int getChildIdWithRouteTo(int targetDeviceId) {
-		for (Integer childId : getChildrenIds()) {
-			if (targetDeviceId == childId)
-				return childId;
-			if (((FogDevice) CloudSim.getEntity(childId)).getChildIdWithRouteTo(targetDeviceId) != -1)
-				return childId;
-		}
-		return -1;
+		return FogTopologyIndex.getInstance().getChildIdWithRouteTo(getId(), targetDeviceId);
 	}
 
+	/**
+	 * Returns the child leading to the device a tuple is addressed to: the gateway
+	 * of its actuator, for actuator tuples, or its destination device. Returns -1
+	 * if the tuple is not addressed to a device below this one.
+	 */
 	protected int getChildIdForTuple(Tuple tuple) {
 		if (tuple.getDirection() == Tuple.ACTUATOR) {
+			if (tuple.getActuatorId() < 0 || tuple.getActuatorId() >= CloudSim.getNumEntities()
+					|| !(CloudSim.getEntity(tuple.getActuatorId()) instanceof Actuator))
+				return -1;
 			int gatewayId = ((Actuator) CloudSim.getEntity(tuple.getActuatorId())).getGatewayDeviceId();
 			return getChildIdWithRouteTo(gatewayId);
 		}
+		if (tuple.getDestinationDeviceId() >= 0)
+			return getChildIdWithRouteTo(tuple.getDestinationDeviceId());
 		return -1;
 	}
 
-	protected void updateAllocatedMips(String incomingOperator) {
-		getHost().getVmScheduler().deallocatePesForAllVms();
-		for (final Vm vm : getHost().getVmList()) {
-			if (vm.getCloudletScheduler().runningCloudlets() > 0
-					|| ((AppModule) vm).getName().equals(incomingOperator)) {
-				getHost().getVmScheduler().allocatePesForVm(vm, new ArrayList<Double>() {
-					protected static final long serialVersionUID = 1L;
-
-					{
-						add((double) getHost().getTotalMips());
-					}
-				});
-			} else {
-				getHost().getVmScheduler().allocatePesForVm(vm, new ArrayList<Double>() {
-					protected static final long serialVersionUID = 1L;
+	/**
+	 * Returns the MIPS share requested by a VM running some tuple, that is the
+	 * whole host.
+	 */
+	protected List<Double> getFullMipsShare() {
+		double totalMips = getHost().getTotalMips();
+		if (fullMipsShare == null || fullMipsShare.get(0) != totalMips)
+			fullMipsShare = Collections.singletonList(totalMips);
+		return fullMipsShare;
+	}
 
-					{
-						add(0.0);
-					}
-				});
+	/**
+	 * Gives the whole host to the VMs running some tuple (or about to, the
+	 * incoming operator) and nothing to the others.<br>
+	 * If the VM scheduler has not been touched since the last call, only the VMs
+	 * whose request changed are reallocated, when the scheduler allows it (see
+	 * {@link #isReallocationIncremental()}); if none changed, the reallocation is
+	 * skipped. Otherwise, all the VMs are deallocated and allocated again.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void updateAllocatedMips(String incomingOperator) {
+		List<Vm> vms = getHost().getVmList();
+		VmScheduler scheduler = getHost().getVmScheduler();
+		int size = vms.size();
+		if (isReallocationIncremental() && isMipsAllocationInPlace(vms)) {
+			boolean changed = false;
+			for (int i = 0; i < size; i++) {
+				final Vm vm = vms.get(i);
+				List<Double> requested = getRequestedMipsShare(vm, incomingOperator);
+				if (requested != requestedMipsShares[i]) {
+					scheduler.deallocatePesForVm(vm);
+					scheduler.allocatePesForVm(vm, requested);
+					requestedMipsShares[i] = requested;
+					changed = true;
+				}
 			}
+			// the scheduler redistributes the MIPS of all the VMs
+			for (int i = 0; changed && i < size; i++)
+				allocatedMipsShares[i] = scheduler.getAllocatedMipsForVm(allocatedVms[i]);
+			updateEnergyConsumption();
+			return;
+		}
+		if (isMipsAllocationUnchanged(vms, incomingOperator)) {
+			updateEnergyConsumption();
+			return;
+		}
+
+		scheduler.deallocatePesForAllVms();
+		if (allocatedVms == null || allocatedVms.length != size) {
+			allocatedVms = new Vm[size];
+			requestedMipsShares = new List[size];
+			allocatedMipsShares = new List[size];
+		}
+		for (int i = 0; i < size; i++) {
+			final Vm vm = vms.get(i);
+			allocatedVms[i] = vm;
+			requestedMipsShares[i] = getRequestedMipsShare(vm, incomingOperator);
+			scheduler.allocatePesForVm(vm, requestedMipsShares[i]);
+		}
+		// the scheduler may redistribute the MIPS after each allocation
+		for (int i = 0; i < size; i++) {
+			allocatedMipsShares[i] = scheduler.getAllocatedMipsForVm(allocatedVms[i]);
 		}
 
 		updateEnergyConsumption();
 
 	}
 
+	/**
+	 * Returns whether reallocating only the VMs whose request changed leads to the
+	 * allocation of a full reallocation. It is the case of the time shared
+	 * schedulers allowing over-subscription: a VM gets what it requests while the
+	 * host can provide it, otherwise all the VMs get the same fraction of their
+	 * request, whatever the order of the allocations.
+	 */
+	protected boolean isReallocationIncremental() {
+		return getHost().getVmScheduler() instanceof VmSchedulerTimeSharedOverSubscription;
+	}
+
+	protected List<Double> getRequestedMipsShare(Vm vm, String incomingOperator) {
+		if (vm.getCloudletScheduler().runningCloudlets() > 0 || ((AppModule) vm).getName().equals(incomingOperator))
+			return getFullMipsShare();
+		return IDLE_MIPS_SHARE;
+	}
+
+	/**
+	 * Returns whether the last allocation is still in place (the scheduler
+	 * replaces the MIPS share allocated to each VM whenever it allocates or
+	 * deallocates something) for the same VMs, none of them migrating.
+	 */
+	private boolean isMipsAllocationInPlace(List<Vm> vms) {
+		if (allocatedVms == null || allocatedVms.length != vms.size())
+			return false;
+		for (int i = 0; i < allocatedVms.length; i++) {
+			Vm vm = vms.get(i);
+			if (vm != allocatedVms[i] || vm.isInMigration()
+					|| getHost().getVmScheduler().getAllocatedMipsForVm(vm) != allocatedMipsShares[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the last allocation is still in place and no VM would
+	 * request anything different.
+	 */
+	private boolean isMipsAllocationUnchanged(List<Vm> vms, String incomingOperator) {
+		if (!isMipsAllocationInPlace(vms))
+			return false;
+		for (int i = 0; i < allocatedVms.length; i++) {
+			if (getRequestedMipsShare(vms.get(i), incomingOperator) != requestedMipsShares[i])
+				return false;
+		}
+		return true;
+	}
+
 	private void updateEnergyConsumption() {
 		double totalMipsAllocated = 0;
+		double timeNow = CloudSim.clock();
 		for (final Vm vm : getHost().getVmList()) {
 			AppModule operator = (AppModule) vm;
-			operator.updateVmProcessing(CloudSim.clock(),
-					getVmAllocationPolicy().getHost(operator).getVmScheduler().getAllocatedMipsForVm(operator));
+			List<Double> mipsShare = getVmAllocationPolicy().getHost(operator).getVmScheduler()
+					.getAllocatedMipsForVm(operator);
+			/*
+			 * an idle operator already updated at this time, with the same share, would
+			 * be left as it is
+			 */
+			if (operator.getCloudletScheduler().runningCloudlets() > 0
+					|| operator.getCloudletScheduler().getPreviousTime() != timeNow
+					|| operator.getCloudletScheduler().getCurrentMipsShare() != mipsShare)
+				operator.updateVmProcessing(timeNow, mipsShare);
 			totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
 		}
 
-		double timeNow = CloudSim.clock();
-		double currentEnergyConsumption = getEnergyConsumption();
-		double newEnergyConsumption = currentEnergyConsumption
-				+ (timeNow - lastUtilizationUpdateTime) * getHost().getPowerModel().getPower(lastUtilization);
-		setEnergyConsumption(newEnergyConsumption);
-
 		/*
-		 * if(getName().equals("d-0")){ System.out.println("------------------------");
-		 * System.out.println("Utilization = "+lastUtilization);
-		 * System.out.println("Power = "+getHost().getPowerModel().getPower(
-		 * lastUtilization)); System.out.println(timeNow-lastUtilizationUpdateTime); }
+		 * the energy and the cost are integrated over the time elapsed since the last
+		 * update: nothing to add if no time has elapsed
 		 */
-
-		double currentCost = getTotalCost();
-		double newcost = currentCost
-				+ (timeNow - lastUtilizationUpdateTime) * getRatePerMips() * lastUtilization * getHost().getTotalMips();
-		setTotalCost(newcost);
+		if (timeNow != lastUtilizationUpdateTime) {
+			double currentEnergyConsumption = getEnergyConsumption();
+			double newEnergyConsumption = currentEnergyConsumption
+					+ (timeNow - lastUtilizationUpdateTime) * getHost().getPowerModel().getPower(lastUtilization);
+			setEnergyConsumption(newEnergyConsumption);
+
+			/*
+			 * if(getName().equals("d-0")){ System.out.println("------------------------");
+			 * System.out.println("Utilization = "+lastUtilization);
+			 * System.out.println("Power = "+getHost().getPowerModel().getPower(
+			 * lastUtilization)); System.out.println(timeNow-lastUtilizationUpdateTime); }
+			 */
+
+			double currentCost = getTotalCost();
+			double newcost = currentCost + (timeNow - lastUtilizationUpdateTime) * getRatePerMips() * lastUtilization
+					* getHost().getTotalMips();
+			setTotalCost(newcost);
+		}
 
 		lastUtilization = Math.min(1, totalMipsAllocated / getHost().getTotalMips());
 		lastUtilizationUpdateTime = timeNow;
@@ -652,8 +871,10 @@ public class FogDevice extends PowerDatacenter {
 	public void addChild(int childId) {
 		if (CloudSim.getEntityName(childId).toLowerCase().contains("sensor"))
 			return;
-		if (!getChildrenIds().contains(childId) && childId != getId())
+		if (!getChildrenIds().contains(childId) && childId != getId()) {
 			getChildrenIds().add(childId);
+			FogTopologyIndex.invalidate();
+		}
 		if (!getChildToOperatorsMap().containsKey(childId))
 			getChildToOperatorsMap().put(childId, new ArrayList<String>());
 	}
@@ -683,9 +904,7 @@ public class FogDevice extends PowerDatacenter {
 				return;
 			}
 		}
-		for (int childId : getChildrenIds()) {
-			sendDown(tuple, childId);
-		}
+		sendDownToChildren(tuple);
 	}
 
 	int numClients = 0;
@@ -715,9 +934,9 @@ public class FogDevice extends PowerDatacenter {
 		 * getDestination()));
 		 */
 
-		send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+		sendTupleAck(ev);
 
-		if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+		if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
 		}
 
 		if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -729,13 +948,7 @@ public class FogDevice extends PowerDatacenter {
 			final AppModule operator = (AppModule) getHost().getVmList().get(0);
 			if (CloudSim.clock() > 0) {
 				getHost().getVmScheduler().deallocatePesForVm(operator);
-				getHost().getVmScheduler().allocatePesForVm(operator, new ArrayList<Double>() {
-					protected static final long serialVersionUID = 1L;
-
-					{
-						add((double) getHost().getTotalMips());
-					}
-				});
+				getHost().getVmScheduler().allocatePesForVm(operator, getFullMipsShare());
 			}
 		}
 
@@ -744,14 +957,11 @@ public class FogDevice extends PowerDatacenter {
 		}
 
 		if (appToModulesMap.containsKey(tuple.getAppId())) {
-			if (appToModulesMap.get(tuple.getAppId()).contains(tuple.getDestModuleName())) {
-				int vmId = -1;
-				for (Vm vm : getHost().getVmList()) {
-					if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-						vmId = vm.getId();
-				}
-				if (vmId < 0 || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName())
-						&& tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+			if (isModulePlaced(tuple.getAppId(), tuple.getDestModuleName())) {
+				AppModule destModule = getPlacedModule(tuple.getAppId(), tuple.getDestModuleName(), false);
+				int vmId = destModule == null ? -1 : destModule.getId();
+				int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+				if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
 					return;
 				}
 				tuple.setVmId(vmId);
@@ -764,8 +974,7 @@ public class FogDevice extends PowerDatacenter {
 				if (tuple.getDirection() == Tuple.UP)
 					sendUp(tuple);
 				else if (tuple.getDirection() == Tuple.DOWN) {
-					for (int childId : getChildrenIds())
-						sendDown(tuple, childId);
+					sendDownToChildren(tuple);
 				}
 			} else {
 				sendUp(tuple);
@@ -774,8 +983,7 @@ public class FogDevice extends PowerDatacenter {
 			if (tuple.getDirection() == Tuple.UP)
 				sendUp(tuple);
 			else if (tuple.getDirection() == Tuple.DOWN) {
-				for (int childId : getChildrenIds())
-					sendDown(tuple, childId);
+				sendDownToChildren(tuple);
 			}
 		}
 	}
@@ -785,22 +993,10 @@ public class FogDevice extends PowerDatacenter {
 		String srcModule = tuple.getSrcModuleName();
 		String destModule = tuple.getDestModuleName();
 		List<AppLoop> loops = app.getLoops();
+		TimeKeeper timeKeeper = TimeKeeper.getInstance();
 		for (AppLoop loop : loops) {
 			if (loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)) {
-				Double startTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-				if (startTime == null)
-					break;
-				if (!TimeKeeper.getInstance().getLoopIdToCurrentAverage().containsKey(loop.getLoopId())) {
-					TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), 0.0);
-					TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), 0);
-				}
-				double currentAverage = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
-				int currentCount = TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loop.getLoopId());
-				double delay = CloudSim.clock() - TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-				TimeKeeper.getInstance().getEmitTimes().remove(tuple.getActualTupleId());
-				double newAverage = (currentAverage * currentCount + delay) / (currentCount + 1);
-				TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), newAverage);
-				TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), currentCount + 1);
+				timeKeeper.loopEnded(loop.getLoopId(), tuple.getActualTupleId());
 				break;
 			}
 		}
@@ -814,7 +1010,7 @@ public class FogDevice extends PowerDatacenter {
 		Logger.debug(getName(), "Executing tuple on module " + moduleName);
 		Tuple tuple = (Tuple) ev.getData();
 
-		AppModule module = getModuleByName(moduleName);
+		AppModule module = getPlacedModule(tuple.getAppId(), moduleName, true);
 
 		if (tuple.getDirection() == Tuple.UP) {
 			String srcModule = tuple.getSrcModuleName();
@@ -848,6 +1044,7 @@ public class FogDevice extends PowerDatacenter {
 			appToModulesMap.put(appId, new ArrayList<String>());
 		}
 		appToModulesMap.get(appId).add(module.getName());
+		addPlacedModule(module);
 		processVmCreate(ev, false);
 		if (module.isBeingInstantiated()) {
 			module.setBeingInstantiated(false);
@@ -880,8 +1077,12 @@ public class FogDevice extends PowerDatacenter {
 
 	protected void updateNorthTupleQueue() {
 		if (!getNorthTupleQueue().isEmpty()) {
-			Tuple tuple = getNorthTupleQueue().poll();
-			sendUpFreeLink(tuple);
+			if (Config.BATCHED_LINK_TRANSMISSION) {
+				sendUpQueuedTuples();
+			} else {
+				Tuple tuple = getNorthTupleQueue().poll();
+				sendUpFreeLink(tuple);
+			}
 		} else {
 			setNorthLinkBusy(false);
 		}
@@ -891,7 +1092,32 @@ public class FogDevice extends PowerDatacenter {
 		double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
 		setNorthLinkBusy(true);
 		send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-		send(parentId, networkDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
+		transmitUp(tuple, networkDelay);
+	}
+
+	/**
+	 * Batched link transmission (see {@link Config#BATCHED_LINK_TRANSMISSION}):
+	 * sends all the queued tuples back-to-back, each one starting when the
+	 * previous one has been transmitted, and frees the link after the last one.
+	 */
+	protected void sendUpQueuedTuples() {
+		double departureDelay = 0;
+		Tuple tuple;
+		setNorthLinkBusy(true);
+		while ((tuple = getNorthTupleQueue().poll()) != null) {
+			double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
+			transmitUp(tuple, departureDelay + networkDelay);
+			departureDelay += networkDelay;
+		}
+		send(getId(), departureDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
+	}
+
+	/**
+	 * Delivers a tuple to the parent once it has been transmitted, that is after
+	 * the given delay, plus the uplink latency.
+	 */
+	protected void transmitUp(Tuple tuple, double transmissionDelay) {
+		send(parentId, transmissionDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
 		NetworkUsageMonitor.sendingTuple(getUplinkLatency(), tuple.getCloudletFileSize());
 	}
 
@@ -907,8 +1133,12 @@ public class FogDevice extends PowerDatacenter {
 
 	protected void updateSouthTupleQueue() {
 		if (!getSouthTupleQueue().isEmpty()) {
-			Pair<Tuple, Integer> pair = getSouthTupleQueue().poll();
-			sendDownFreeLink(pair.getFirst(), pair.getSecond());
+			if (Config.BATCHED_LINK_TRANSMISSION) {
+				sendDownQueuedTuples();
+			} else {
+				Pair<Tuple, Integer> pair = getSouthTupleQueue().poll();
+				sendDownFreeLink(pair.getFirst(), pair.getSecond());
+			}
 		} else {
 			setSouthLinkBusy(false);
 		}
@@ -921,9 +1151,32 @@ public class FogDevice extends PowerDatacenter {
 		setSouthLinkBusy(true);
 		// System.out.println(getName()+" Sending tuple with tupleType =
 		// "+tuple.getTupleType()+" to "+childId);
-		double latency = getChildToLatencyMap().get(childId);
 		send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-		send(childId, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
+		transmitDown(tuple, childId, networkDelay);
+	}
+
+	/**
+	 * The downlink counterpart of {@link #sendUpQueuedTuples()}.
+	 */
+	protected void sendDownQueuedTuples() {
+		double departureDelay = 0;
+		Pair<Tuple, Integer> pair;
+		setSouthLinkBusy(true);
+		while ((pair = getSouthTupleQueue().poll()) != null) {
+			double networkDelay = pair.getFirst().getCloudletFileSize() / getDownlinkBandwidth();
+			transmitDown(pair.getFirst(), pair.getSecond(), departureDelay + networkDelay);
+			departureDelay += networkDelay;
+		}
+		send(getId(), departureDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+	}
+
+	/**
+	 * Delivers a tuple to a child once it has been transmitted, that is after the
+	 * given delay, plus the latency of the link to that child.
+	 */
+	protected void transmitDown(Tuple tuple, int childId, double transmissionDelay) {
+		double latency = getChildToLatencyMap().get(childId);
+		send(childId, transmissionDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
 		NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
 	}
 
@@ -937,6 +1190,35 @@ public class FogDevice extends PowerDatacenter {
 		}
 	}
 
+	/**
+	 * Acknowledges the receipt of a tuple, unless the links are batched (see
+	 * {@link Config#BATCHED_LINK_TRANSMISSION}).
+	 */
+	protected void sendTupleAck(SimEvent ev) {
+		if (!Config.BATCHED_LINK_TRANSMISSION)
+			send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+	}
+
+	/**
+	 * Sends a tuple to all the children, or just to the one leading to the device
+	 * it is addressed to, if known (see {@link Config#ROUTE_ADDRESSED_TUPLES}). In a parallel simulation, children of another partition may
+	 * execute it concurrently with this device, so each one of them receives its own copy. The other children share
+	 * it, so that it is not recycled by the {@link TuplePool}.
+	 */
+	protected void sendDownToChildren(Tuple tuple) {
+		if (Config.ROUTE_ADDRESSED_TUPLES) {
+			int childId = getChildIdForTuple(tuple);
+			if (childId != -1) {
+				sendDown(tuple, childId);
+				return;
+			}
+		}
+		if (getChildrenIds().size() > 1)
+			tuple.setShared();
+		for (int childId : getChildrenIds())
+			sendDown(CloudSim.inSamePartition(getId(), childId) ? tuple : tuple.copy(), childId);
+	}
+
 	protected void sendToSelf(Tuple tuple) {
 		send(getId(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ARRIVAL, tuple);
 	}
@@ -959,6 +1241,7 @@ public class FogDevice extends PowerDatacenter {
 
 	public void setChildrenIds(List<Integer> childrenIds) {
 		this.childrenIds = childrenIds;
+		FogTopologyIndex.invalidate();
 	}
 
 	public double getUplinkBandwidth() {
@@ -1128,8 +1411,10 @@ public class FogDevice extends PowerDatacenter {
 		// TODO Auto-generated method stub
 		@SuppressWarnings("deprecation")
 		Integer childIDobject = new Integer(childId);
-		if (getChildrenIds().contains(childId) && childId != getId())
+		if (getChildrenIds().contains(childId) && childId != getId()) {
 			getChildrenIds().remove(childIDobject);
+			FogTopologyIndex.invalidate();
+		}
 		if (getChildToOperatorsMap().containsKey(childId)) {
 			List<String> operatorName = getChildToOperatorsMap().get(childId);
 			getChildToOperatorsMap().remove(childId, operatorName);
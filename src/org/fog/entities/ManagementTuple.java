@@ -32,12 +32,12 @@ public class ManagementTuple extends Tuple {
 
     //todo cloudlet data hard coded
     public ManagementTuple(String appId, int cloudletId, int direction, int tupleType) {
-        super(appId, cloudletId, direction, 5, 1, 50, 50, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super(appId, cloudletId, direction, 5, 1, 50, 50, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE);
         managementTupleType = tupleType;
     }
 
     public ManagementTuple(int cloudletId, int direction, int tupleType) {
-        super("Management Tuple", cloudletId, direction, 5, 1, 50, 50, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        super("Management Tuple", cloudletId, direction, 5, 1, 50, 50, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE);
         managementTupleType = tupleType;
     }
 
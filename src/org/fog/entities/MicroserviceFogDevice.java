@@ -2,7 +2,6 @@ package org.fog.entities;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.Storage;
-import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -163,9 +162,9 @@ public class MicroserviceFogDevice extends FogDevice {
             updateCloudTraffic();
         }
 
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        sendTupleAck(ev);
 
-        if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+        if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
         }
 
         if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -177,13 +176,7 @@ public class MicroserviceFogDevice extends FogDevice {
             final AppModule operator = (AppModule) getHost().getVmList().get(0);
             if (CloudSim.clock() > 0) {
                 getHost().getVmScheduler().deallocatePesForVm(operator);
-                getHost().getVmScheduler().allocatePesForVm(operator, new ArrayList<Double>() {
-                    protected static final long serialVersionUID = 1L;
-
-                    {
-                        add((double) getHost().getTotalMips());
-                    }
-                });
+                getHost().getVmScheduler().allocatePesForVm(operator, getFullMipsShare());
             }
         }
 
@@ -210,14 +203,10 @@ public class MicroserviceFogDevice extends FogDevice {
         }
 
         if (tuple.getDestinationDeviceId() == getId()) {
-            int vmId = -1;
-            for (Vm vm : getHost().getVmList()) {
-                if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-                    vmId = vm.getId();
-            }
-            if (vmId < 0
-                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+            AppModule destModule = getPlacedModule(tuple.getAppId(), tuple.getDestModuleName(), false);
+            int vmId = destModule == null ? -1 : destModule.getId();
+            int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+            if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
                 return;
             }
             tuple.setVmId(vmId);
@@ -242,15 +231,11 @@ public class MicroserviceFogDevice extends FogDevice {
             } else {
                 if (tuple.getDirection() == Tuple.DOWN) {
                     if (appToModulesMap.containsKey(tuple.getAppId())) {
-                        if (appToModulesMap.get(tuple.getAppId()).contains(tuple.getDestModuleName())) {
-                            int vmId = -1;
-                            for (Vm vm : getHost().getVmList()) {
-                                if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-                                    vmId = vm.getId();
-                            }
-                            if (vmId < 0
-                                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                        if (isModulePlaced(tuple.getAppId(), tuple.getDestModuleName())) {
+                            AppModule destModule = getPlacedModule(tuple.getAppId(), tuple.getDestModuleName(), false);
+                            int vmId = destModule == null ? -1 : destModule.getId();
+                            int moduleCopy = tuple.getModuleCopy(tuple.getDestModuleName());
+                            if (vmId < 0 || (moduleCopy != -1 && moduleCopy != vmId)) {
                                 return;
                             }
                             tuple.setVmId(vmId);
@@ -265,8 +250,7 @@ public class MicroserviceFogDevice extends FogDevice {
                     }
 
 
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
+                    sendDownToChildren(tuple);
 
                 } else {
                     Logger.error("Routing error", "Destination id -1 for UP tuple");
@@ -439,8 +423,9 @@ public class MicroserviceFogDevice extends FogDevice {
         if (!appToModulesMap.containsKey(appId)) {
             appToModulesMap.put(appId, new ArrayList<String>());
         }
-        if (!appToModulesMap.get(appId).contains(module.getName())) {
+        if (!isModulePlaced(appId, module.getName())) {
             appToModulesMap.get(appId).add(module.getName());
+            addPlacedModule(module);
             processVmCreate(ev, false);
             boolean result = getVmAllocationPolicy().allocateHostForVm(module);
             if (result) {
@@ -495,6 +480,7 @@ public class MicroserviceFogDevice extends FogDevice {
             else {
                 moduleInstanceCount.get(appModule.getAppId()).remove(appModule.getName());
                 appToModulesMap.get(appModule.getAppId()).remove(appModule.getName());
+                removePlacedModule(appModule.getAppId(), appModule.getName());
                 sendNow(getId(), FogEvents.RELEASE_MODULE, appModule);
             }
         }
@@ -627,31 +613,25 @@ public class MicroserviceFogDevice extends FogDevice {
         }
     }
 
-    protected void sendDownFreeLink(Tuple tuple, int childId) {
+    protected void transmitDown(Tuple tuple, int childId, double transmissionDelay) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
-            setSouthLinkBusy(true);
             double latency = getChildToLatencyMap().get(childId);
-            send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-            send(childId, networkDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            send(childId, transmissionDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(latency, tuple.getCloudletFileSize());
         } else
-            super.sendDownFreeLink(tuple, childId);
+            super.transmitDown(tuple, childId, transmissionDelay);
     }
 
-    protected void sendUpFreeLink(Tuple tuple) {
+    protected void transmitUp(Tuple tuple, double transmissionDelay) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
-            setNorthLinkBusy(true);
-            send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-            send(parentId, networkDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            send(parentId, transmissionDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(getUplinkLatency(), tuple.getCloudletFileSize());
         } else {
-            super.sendUpFreeLink(tuple);
+            super.transmitUp(tuple, transmissionDelay);
         }
 
     }
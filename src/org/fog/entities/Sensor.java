@@ -1,7 +1,5 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
-
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
@@ -85,8 +83,9 @@ public class Sensor extends SimEntity{
 		long cpuLength = (long) _edge.getTupleCpuLength();
 		long nwLength = (long) _edge.getTupleNwLength();
 		
-		Tuple tuple = new Tuple(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
-				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		Tuple tuple = TuplePool.getInstance().acquire(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1,
+				nwLength, outputSize, UtilizationModelFull.INSTANCE, UtilizationModelFull.INSTANCE,
+				UtilizationModelFull.INSTANCE);
 		tuple.setUserId(getUserId());
 		tuple.setTupleType(getTupleType());
 		
@@ -106,13 +105,7 @@ public class Sensor extends SimEntity{
 		Application application = getApp();
 		for(AppLoop loop : application.getLoops()){
 			if(loop.hasEdge(src, dest)){
-				
-				int tupleId = TimeKeeper.getInstance().getUniqueId();
-				if(!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-					TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-				TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-				TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
-				return tupleId;
+				return TimeKeeper.getInstance().loopStarted(loop.getLoopId());
 			}
 		}
 		return -1;
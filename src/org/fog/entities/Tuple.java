@@ -1,7 +1,11 @@
 package org.fog.entities;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
@@ -23,19 +27,25 @@ public class Tuple extends Cloudlet{
 	private int sourceDeviceId;
 	private int sourceModuleId;
 	/**
-	 * Map to keep track of which module instances has a tuple traversed.
-	 * 
-	 * Map from moduleName to vmId of a module instance
+	 * Keeps track of which module instances has a tuple traversed: the last one, linked to the
+	 * previous ones. The links never change, so that the tuples resulting from a tuple share its
+	 * ones rather than copying them.
 	 */
-	private Map<String, Integer> moduleCopyMap;
+	private ModuleCopy moduleCopies;
 
 	/**
 	 * For device id based routing used
 	 */
 	protected int destinationDeviceId;
 	/* keep track of traversed microservices by tuples of type UP in microservices architecture UP -> tuple travelling towards service
-	 DOWN -> tuple travelling from service to client microservice.*/
-	protected Map<String, Integer> traversedMicroservices = new HashMap<>();
+	 DOWN -> tuple travelling from service to client microservice. Shared by the tuples resulting from one another,
+	 created when first needed.*/
+	protected TraversedMicroservices traversedMicroservices;
+
+	/** Whether the tuple comes from the {@link TuplePool} and has not been given back yet */
+	private boolean pooled;
+	/** Whether the tuple has been sent to several devices, so that it cannot be recycled */
+	private boolean shared;
 	
 	public Tuple(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize,
@@ -48,10 +58,34 @@ public class Tuple extends Cloudlet{
 		setAppId(appId);
 		setDirection(direction);
 		setSourceDeviceId(-1);
-		setModuleCopyMap(new HashMap<String, Integer>());
 		setDestinationDeviceId(-1);
 	}
 
+	/**
+	 * Reinitialises a tuple taken from the {@link TuplePool}, as if it had just been created.
+	 */
+	void reset(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		reset(cloudletId, cloudletLength, pesNumber, cloudletFileSize, cloudletOutputSize, utilizationModelCpu,
+				utilizationModelRam, utilizationModelBw);
+		setAppId(appId);
+		setDirection(direction);
+		tupleType = null;
+		destModuleName = null;
+		srcModuleName = null;
+		actualTupleId = 0;
+		actuatorId = 0;
+		setSourceDeviceId(-1);
+		sourceModuleId = 0;
+		moduleCopies = null;
+		setDestinationDeviceId(-1);
+		traversedMicroservices = null;
+		shared = false;
+	}
+
 	public int getActualTupleId() {
 		return actualTupleId;
 	}
@@ -116,12 +150,59 @@ public class Tuple extends Cloudlet{
 		this.sourceDeviceId = sourceDeviceId;
 	}
 
+	/**
+	 * Returns the id of the instance of the given module this tuple has traversed, -1 if none.
+	 */
+	public int getModuleCopy(String moduleName) {
+		for (ModuleCopy copy = moduleCopies; copy != null; copy = copy.previous) {
+			if (Objects.equals(copy.moduleName, moduleName))
+				return copy.vmId;
+		}
+		return -1;
+	}
+
+	/**
+	 * Records that this tuple has traversed the given instance of a module.
+	 */
+	public void addModuleCopy(String moduleName, int vmId) {
+		moduleCopies = new ModuleCopy(moduleName, vmId, moduleCopies);
+	}
+
+	/**
+	 * Records that this tuple, resulting from the given one, has traversed the same module
+	 * instances, and then the given one.
+	 */
+	public void addModuleCopies(Tuple tuple, String moduleName, int vmId) {
+		moduleCopies = new ModuleCopy(moduleName, vmId, tuple.moduleCopies);
+	}
+
+	/**
+	 * Returns a copy of the module instances this tuple has traversed, from moduleName to vmId.
+	 * 
+	 * @deprecated use {@link #getModuleCopy(String)}, which does not copy them
+	 */
+	@Deprecated
 	public Map<String, Integer> getModuleCopyMap() {
-		return moduleCopyMap;
+		Map<String, Integer> moduleCopyMap = new LinkedHashMap<String, Integer>();
+		ModuleCopy[] copies = new ModuleCopy[ModuleCopy.length(moduleCopies)];
+		int i = copies.length;
+		for (ModuleCopy copy = moduleCopies; copy != null; copy = copy.previous)
+			copies[--i] = copy;
+		for (ModuleCopy copy : copies)
+			moduleCopyMap.put(copy.moduleName, copy.vmId);
+		return Collections.unmodifiableMap(moduleCopyMap);
 	}
 
+	/**
+	 * Replaces the module instances this tuple has traversed, from moduleName to vmId.
+	 * 
+	 * @deprecated use {@link #addModuleCopy(String, int)}
+	 */
+	@Deprecated
 	public void setModuleCopyMap(Map<String, Integer> moduleCopyMap) {
-		this.moduleCopyMap = moduleCopyMap;
+		moduleCopies = null;
+		for (Map.Entry<String, Integer> copy : moduleCopyMap.entrySet())
+			addModuleCopy(copy.getKey(), copy.getValue());
 	}
 
 	public int getSourceModuleId() {
@@ -141,23 +222,166 @@ public class Tuple extends Cloudlet{
 	}
 
 	public void addToTraversedMicroservices(Integer deviceID, String microserviceName) {
+		if (traversedMicroservices == null)
+			traversedMicroservices = new TraversedMicroservices();
 		traversedMicroservices.put(microserviceName, deviceID);
 	}
 
 	public int getDeviceForMicroservice(String microserviceName) {
-		if (!traversedMicroservices.containsKey(microserviceName))
+		if (traversedMicroservices == null)
 			return -1;
-		else {
-			return traversedMicroservices.get(microserviceName);
-		}
+		return traversedMicroservices.get(microserviceName);
 	}
 
+	/**
+	 * Makes this tuple, resulting from the given one, share the microservices it has traversed:
+	 * the ones traversed afterwards by either of them are known to both.
+	 */
+	public void shareTraversedMicroservices(Tuple tuple) {
+		if (tuple.traversedMicroservices == null)
+			tuple.traversedMicroservices = new TraversedMicroservices();
+		traversedMicroservices = tuple.traversedMicroservices;
+	}
+
+	/**
+	 * Returns a copy of the traversed microservices, from their name to the id of their device.
+	 * 
+	 * @deprecated use {@link #getDeviceForMicroservice(String)}, which does not copy them
+	 */
+	@Deprecated
 	public Map<String, Integer> getTraversed() {
-		return traversedMicroservices;
+		Map<String, Integer> traversed = new HashMap<String, Integer>();
+		if (traversedMicroservices != null) {
+			for (int i = 0; i < traversedMicroservices.size; i++)
+				traversed.put(traversedMicroservices.names[i], traversedMicroservices.deviceIds[i]);
+		}
+		return traversed;
 	}
 
+	/**
+	 * Replaces the traversed microservices, from their name to the id of their device.
+	 * 
+	 * @deprecated use {@link #shareTraversedMicroservices(Tuple)}
+	 */
+	@Deprecated
 	public void setTraversedMicroservices(Map<String, Integer> traversed) {
-		traversedMicroservices = traversed;
+		traversedMicroservices = null;
+		for (Map.Entry<String, Integer> microservice : traversed.entrySet())
+			addToTraversedMicroservices(microservice.getValue(), microservice.getKey());
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
+
+	boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Marks this tuple as sent to several devices, each one of which may still use it once
+	 * another one has executed it: it is then never recycled by the {@link TuplePool}.
+	 */
+	void setShared() {
+		shared = true;
+	}
+
+	/**
+	 * Creates a copy of this tuple, with its routing information but without its execution state.
+	 * In a parallel simulation each device receiving a broadcast tuple gets its own copy, since
+	 * devices of different partitions may execute it at the same time.
+	 */
+	public Tuple copy() {
+		Tuple copy = new Tuple(getAppId(), getCloudletId(), getDirection(), getCloudletLength(), getNumberOfPes(),
+				getCloudletFileSize(), getCloudletOutputSize(), getUtilizationModelCpu(), getUtilizationModelRam(),
+				getUtilizationModelBw());
+		copy.setUserId(getUserId());
+		copy.setTupleType(getTupleType());
+		copy.setDestModuleName(getDestModuleName());
+		copy.setSrcModuleName(getSrcModuleName());
+		copy.setActualTupleId(getActualTupleId());
+		copy.setActuatorId(getActuatorId());
+		copy.setSourceDeviceId(getSourceDeviceId());
+		copy.setSourceModuleId(getSourceModuleId());
+		copy.moduleCopies = moduleCopies;
+		copy.setDestinationDeviceId(getDestinationDeviceId());
+		if (traversedMicroservices != null)
+			copy.traversedMicroservices = traversedMicroservices.copy();
+		return copy;
+	}
+
+	/**
+	 * An instance of a module a tuple has traversed, linked to the previous one.
+	 */
+	private static final class ModuleCopy {
+
+		final String moduleName;
+		final int vmId;
+		final ModuleCopy previous;
+
+		ModuleCopy(String moduleName, int vmId, ModuleCopy previous) {
+			this.moduleName = moduleName;
+			this.vmId = vmId;
+			this.previous = previous;
+		}
+
+		static int length(ModuleCopy copy) {
+			int length = 0;
+			for (; copy != null; copy = copy.previous)
+				length++;
+			return length;
+		}
+	}
+
+	/**
+	 * The microservices traversed by a tuple and by the ones resulting from it, with the ids of
+	 * their devices: a few ones at most, looked up in order.
+	 */
+	protected static final class TraversedMicroservices {
+
+		private String[] names;
+		private int[] deviceIds;
+		private int size;
+
+		void put(String name, int deviceId) {
+			for (int i = 0; i < size; i++) {
+				if (Objects.equals(names[i], name)) {
+					deviceIds[i] = deviceId;
+					return;
+				}
+			}
+			if (names == null) {
+				names = new String[2];
+				deviceIds = new int[2];
+			} else if (size == names.length) {
+				names = Arrays.copyOf(names, size << 1);
+				deviceIds = Arrays.copyOf(deviceIds, size << 1);
+			}
+			names[size] = name;
+			deviceIds[size++] = deviceId;
+		}
+
+		int get(String name) {
+			for (int i = 0; i < size; i++) {
+				if (Objects.equals(names[i], name))
+					return deviceIds[i];
+			}
+			return -1;
+		}
+
+		TraversedMicroservices copy() {
+			TraversedMicroservices copy = new TraversedMicroservices();
+			if (size > 0) {
+				copy.names = Arrays.copyOf(names, size);
+				copy.deviceIds = Arrays.copyOf(deviceIds, size);
+				copy.size = size;
+			}
+			return copy;
+		}
 	}
 
 }
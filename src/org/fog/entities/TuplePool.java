@@ -0,0 +1,131 @@
+package org.fog.entities;
+
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.fog.utils.SimulationContext;
+
+/**
+ * Recycles the tuples of a simulation, and counts the ones it allocates. When
+ * the pool is enabled (see {@link #setEnabled(boolean)}), a tuple executed by a
+ * module is given back to the pool once its {@link CloudSimTags#CLOUDLET_RETURN}
+ * has been processed by the {@link FogBroker}, and the tuples then created by
+ * the sensors and the applications are taken from the pool instead of being
+ * allocated. The tuples sent to several devices at once are never recycled,
+ * since each one of them may still use it.
+ * <p>
+ * Each {@link SimulationContext} has its own pool, disabled by default. The
+ * pool is not thread safe: it is bypassed by the parallel execution mode, whose
+ * tuples are always allocated and are not counted.
+ */
+public final class TuplePool {
+
+	/** The maximum number of free tuples kept by the pool. */
+	private static final int MAX_FREE_TUPLES = 1 << 14;
+
+	private Tuple[] free = new Tuple[64];
+	private int freeCount = 0;
+	private boolean enabled = false;
+
+	private long allocatedTuples = 0;
+	private long reusedTuples = 0;
+	private long recycledTuples = 0;
+
+	/**
+	 * Returns the pool of the simulation of the current thread, see
+	 * {@link SimulationContext#getTuplePool()}.
+	 */
+	public static TuplePool getInstance() {
+		return SimulationContext.current().getTuplePool();
+	}
+
+	/**
+	 * Enables or disables the recycling of the tuples, emptying the pool when
+	 * disabled. Entities keeping references to the tuples they have executed must
+	 * not enable it.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			Arrays.fill(free, 0, freeCount, null);
+			freeCount = 0;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns a new tuple, taken from the pool if possible, with the arguments of
+	 * {@link Tuple#Tuple(String, int, int, long, int, long, long, UtilizationModel, UtilizationModel, UtilizationModel)}.
+	 */
+	public Tuple acquire(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize, UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam, UtilizationModel utilizationModelBw) {
+		if (!enabled || CloudSim.isParallelExecution())
+			return new Tuple(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize,
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		Tuple tuple;
+		if (freeCount == 0) {
+			allocatedTuples++;
+			tuple = new Tuple(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize,
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		} else {
+			reusedTuples++;
+			tuple = free[--freeCount];
+			free[freeCount] = null;
+			tuple.reset(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize,
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		}
+		tuple.setPooled(true);
+		return tuple;
+	}
+
+	/**
+	 * Gives a tuple back to the pool. Tuples not taken from the pool, already
+	 * given back, or sent to several devices, are ignored.
+	 *
+	 * @param tuple the tuple, which must not be referenced anymore
+	 */
+	public void release(Tuple tuple) {
+		if (!enabled || !tuple.isPooled() || tuple.isShared())
+			return;
+		tuple.setPooled(false);
+		recycledTuples++;
+		if (freeCount == MAX_FREE_TUPLES)
+			return;
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, free.length << 1);
+		free[freeCount++] = tuple;
+	}
+
+	/**
+	 * Returns the number of tuples allocated by the pool while enabled.
+	 */
+	public long getAllocatedTuples() {
+		return allocatedTuples;
+	}
+
+	/**
+	 * Returns the number of tuples taken from the pool instead of being allocated.
+	 */
+	public long getReusedTuples() {
+		return reusedTuples;
+	}
+
+	/**
+	 * Returns the number of tuples given back to the pool once executed.
+	 */
+	public long getRecycledTuples() {
+		return recycledTuples;
+	}
+
+	@Override
+	public String toString() {
+		return "Tuples: " + allocatedTuples + " allocated, " + reusedTuples + " reused, " + recycledTuples
+				+ " recycled";
+	}
+}
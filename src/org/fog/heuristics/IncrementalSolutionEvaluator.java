@@ -0,0 +1,395 @@
+package org.fog.heuristics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.fog.application.AppModule;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDevice.DeviceNodeType;
+import org.fog.heuristics.fogImplementations.CompactSolution;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.PieceOfSolution;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+
+/**
+ * Incremental version of
+ * {@link SolutionsProducerEvaluator#evaluateSolution(SolutionModulesDeployed, ModulePlacementAdditionalInformationFog)}.
+ * <p>
+ * The evaluation of a solution is the sum of:
+ * <ul>
+ * <li>the response time of each {@link PieceOfSolution}, which depends on its
+ * module and device only;</li>
+ * <li>the deployment time of each {@link Application}, which depends on which
+ * modules are deployed, not on where;</li>
+ * <li>the energy consumed by each {@link FogDevice}, which depends on the
+ * cumulative million of instructions of the modules placed on it.</li>
+ * </ul>
+ * This class keeps those addends for a reference solution (a snapshot of it is
+ * taken on construction), so that moving a piece to another device (see
+ * {@link #movePiece(int, FogDevice)}) or evaluating a solution that differs
+ * from the reference one in a few pieces (see
+ * {@link #evaluateVariant(SolutionModulesDeployed)}) costs O(changed pieces)
+ * instead of a full evaluation.
+ * <p>
+ * The read-only methods ({@link #getEvaluation()},
+ * {@link #evaluateMove(int, FogDevice)} and
+ * {@link #evaluateVariant(SolutionModulesDeployed)}) can be invoked
+ * concurrently. Since the addends are updated by differences, the result may
+ * differ from the full evaluation in the last decimal digits.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ */
+public class IncrementalSolutionEvaluator {
+
+	protected final ModulePlacementAdditionalInformationFog additionalInfo;
+	protected final AppModule[] modules;
+	protected final FogDevice[] devices;
+	/** Response time of each piece, see {@link #modules} and {@link #devices}. */
+	protected final double[] responseTimes;
+	/**
+	 * Million of instructions to execute for each module, cached because
+	 * computing it requires a scan of all the edges of its application.
+	 */
+	protected final Map<AppModule, Double> millionInstructionsEachModule;
+	/** The load of each device hosting at least a module, by device name. */
+	protected final Map<String, DeviceLoad> loads;
+	protected double responseTimeTotal, deploymentTimeTotal, energyTotal;
+
+	/**
+	 * Takes a snapshot of the given solution and computes its evaluation.
+	 *
+	 * @param solution       the reference solution, non null
+	 * @param additionalInfo context of the evaluation
+	 */
+	public IncrementalSolutionEvaluator(SolutionModulesDeployed solution,
+			ModulePlacementAdditionalInformationFog additionalInfo) {
+		int size;
+		List<PieceOfSolution> pieces;
+		Map<String, Application> appsByID;
+
+		this.additionalInfo = additionalInfo;
+		appsByID = additionalInfo.getApplicationsByID();
+		pieces = solution.getPieces();
+		size = pieces.size();
+		this.modules = new AppModule[size];
+		this.devices = new FogDevice[size];
+		this.responseTimes = new double[size];
+		this.millionInstructionsEachModule = new IdentityHashMap<>(size);
+		this.loads = new HashMap<>();
+
+		this.responseTimeTotal = 0.0;
+		for (int i = 0; i < size; i++) {
+			PieceOfSolution pos;
+			pos = pieces.get(i);
+			this.modules[i] = pos.getModule();
+			this.devices[i] = pos.getDevice();
+			this.responseTimes[i] = responseTimeOf(this.modules[i], this.devices[i]);
+			this.responseTimeTotal += this.responseTimes[i];
+			this.millionInstructionsEachModule.put(this.modules[i], SolutionsProducerEvaluator
+					.getExpectedModuleMillionOfIstructionsToExec(this.modules[i], appsByID.get(this.modules[i].getAppId())));
+			this.loadOf(this.devices[i]).add(this.millionInstructionsOf(this.modules[i]), 1);
+		}
+		this.deploymentTimeTotal = deploymentTime();
+		this.energyTotal = 0.0;
+		for (Entry<String, DeviceLoad> e : this.loads.entrySet()) {
+			e.getValue().energy = energyOf(e.getValue().device, e.getValue().millionInstructions);
+			this.energyTotal += e.getValue().energy;
+		}
+	}
+
+	//
+
+	public int size() {
+		return this.modules.length;
+	}
+
+	public FogDevice getDevice(int index) {
+		return this.devices[index];
+	}
+
+	/**
+	 * Returns the evaluation of the reference solution, as modified through
+	 * {@link #movePiece(int, FogDevice)}.
+	 */
+	public double getEvaluation() {
+		return (this.responseTimeTotal + this.deploymentTimeTotal) + this.energyTotal;
+	}
+
+	/**
+	 * Moves the module at the given index of the reference solution to another
+	 * device, updating the evaluation.
+	 */
+	public void movePiece(int index, FogDevice newDevice) {
+		double mi;
+		FogDevice oldDevice;
+		DeviceLoad load;
+		oldDevice = this.devices[index];
+		if (oldDevice == newDevice) {
+			return;
+		}
+		mi = this.millionInstructionsOf(this.modules[index]);
+
+		this.responseTimeTotal -= this.responseTimes[index];
+		this.responseTimes[index] = responseTimeOf(this.modules[index], newDevice);
+		this.responseTimeTotal += this.responseTimes[index];
+		this.devices[index] = newDevice;
+
+		load = this.loads.get(oldDevice.getName());
+		load.add(-mi, -1);
+		this.energyTotal -= load.energy;
+		if (load.modulesCount == 0) {
+			this.loads.remove(oldDevice.getName());
+		} else {
+			load.energy = energyOf(oldDevice, load.millionInstructions);
+			this.energyTotal += load.energy;
+		}
+
+		load = this.loadOf(newDevice);
+		this.energyTotal -= load.energy;
+		load.add(mi, 1);
+		load.energy = energyOf(newDevice, load.millionInstructions);
+		this.energyTotal += load.energy;
+	}
+
+	/**
+	 * Returns the evaluation the reference solution would have if the module at
+	 * the given index were moved to the given device, without modifying anything.
+	 */
+	public double evaluateMove(int index, FogDevice newDevice) {
+		double mi, response, energy;
+		FogDevice oldDevice;
+		DeviceLoad load;
+		oldDevice = this.devices[index];
+		if (oldDevice == newDevice) {
+			return this.getEvaluation();
+		}
+		mi = this.millionInstructionsOf(this.modules[index]);
+		response = this.responseTimeTotal - this.responseTimes[index] + responseTimeOf(this.modules[index], newDevice);
+
+		load = this.loads.get(oldDevice.getName());
+		energy = this.energyTotal - load.energy;
+		if (load.modulesCount > 1) {
+			energy += energyOf(oldDevice, load.millionInstructions - mi);
+		}
+		load = this.loads.get(newDevice.getName());
+		if (load == null) {
+			energy += energyOf(newDevice, mi);
+		} else {
+			energy += energyOf(newDevice, load.millionInstructions + mi) - load.energy;
+		}
+		return (response + this.deploymentTimeTotal) + energy;
+	}
+
+	/**
+	 * Counts the pieces whose device differs from the reference solution, or
+	 * {@code -1} if the given solution deploys other modules (or in another
+	 * order).
+	 */
+	public int countDifferences(SolutionModulesDeployed variant) {
+		int differences;
+		List<PieceOfSolution> pieces;
+		CompactSolution compact;
+		pieces = variant.getPieces();
+		if (pieces == null || pieces.size() != this.modules.length) {
+			return -1;
+		}
+		differences = 0;
+		compact = variant.getCompactSolution();
+		if (compact != null) {
+			// no piece to create
+			for (int i = 0; i < this.modules.length; i++) {
+				if (compact.getModule(i) != this.modules[i]) {
+					return -1;
+				}
+				if (compact.getDevice(i) != this.devices[i]) {
+					differences++;
+				}
+			}
+			return differences;
+		}
+		for (int i = 0; i < this.modules.length; i++) {
+			PieceOfSolution pos;
+			pos = pieces.get(i);
+			if (pos.getModule() != this.modules[i]) {
+				return -1;
+			}
+			if (pos.getDevice() != this.devices[i]) {
+				differences++;
+			}
+		}
+		return differences;
+	}
+
+	/**
+	 * Evaluates a solution deploying the same modules, in the same order, of the
+	 * reference one, considering only the pieces placed on a different device. If
+	 * the modules differ, a full evaluation is performed.
+	 */
+	public double evaluateVariant(SolutionModulesDeployed variant) {
+		double response, energy;
+		List<PieceOfSolution> pieces;
+		CompactSolution compact;
+		Map<String, DeviceLoad> changedLoads;
+
+		if (variant == null || variant.getPieces() == null) {
+			return 0.0;
+		}
+		if (this.countDifferences(variant) < 0) {
+			return SolutionsProducerEvaluator.evaluateSolution(variant, this.additionalInfo);
+		}
+		pieces = variant.getPieces();
+		compact = variant.getCompactSolution();
+		response = this.responseTimeTotal;
+		changedLoads = null;
+		for (int i = 0; i < this.modules.length; i++) {
+			double mi;
+			FogDevice oldDevice, newDevice;
+			newDevice = compact != null ? compact.getDevice(i) : pieces.get(i).getDevice();
+			oldDevice = this.devices[i];
+			if (newDevice == oldDevice) {
+				continue;
+			}
+			if (changedLoads == null) {
+				changedLoads = new HashMap<>();
+			}
+			response += responseTimeOf(this.modules[i], newDevice) - this.responseTimes[i];
+			mi = this.millionInstructionsOf(this.modules[i]);
+			this.changedLoadOf(changedLoads, oldDevice).add(-mi, -1);
+			this.changedLoadOf(changedLoads, newDevice).add(mi, 1);
+		}
+		if (changedLoads == null) {
+			return this.getEvaluation();
+		}
+		energy = this.energyTotal;
+		for (DeviceLoad changed : changedLoads.values()) {
+			energy -= changed.energy; // the original one, see changedLoadOf
+			if (changed.modulesCount > 0) {
+				energy += energyOf(changed.device, changed.millionInstructions);
+			}
+		}
+		return (response + this.deploymentTimeTotal) + energy;
+	}
+
+	//
+
+	protected double millionInstructionsOf(AppModule module) {
+		return this.millionInstructionsEachModule.get(module);
+	}
+
+	protected DeviceLoad loadOf(FogDevice device) {
+		DeviceLoad load;
+		load = this.loads.get(device.getName());
+		if (load == null) {
+			load = new DeviceLoad(device);
+			this.loads.put(device.getName(), load);
+		}
+		return load;
+	}
+
+	/**
+	 * Returns a copy of the current load of the device, to be modified by
+	 * {@link #evaluateVariant(SolutionModulesDeployed)}.
+	 */
+	protected DeviceLoad changedLoadOf(Map<String, DeviceLoad> changedLoads, FogDevice device) {
+		DeviceLoad load, original;
+		load = changedLoads.get(device.getName());
+		if (load == null) {
+			load = new DeviceLoad(device);
+			original = this.loads.get(device.getName());
+			if (original != null) {
+				load.add(original.millionInstructions, original.modulesCount);
+				load.energy = original.energy;
+			}
+			changedLoads.put(device.getName(), load);
+		}
+		return load;
+	}
+
+	/**
+	 * See
+	 * {@link SolutionsProducerEvaluator#responseTimeModule(AppModule, FogDevice, Application, SolutionModulesDeployed, Map, ModulePlacementAdditionalInformationFog)}:
+	 * it's zero if the module's application is missing.
+	 */
+	protected double responseTimeOf(AppModule module, FogDevice device) {
+		Application app;
+		app = this.additionalInfo.getApplicationsByID().get(module.getAppId());
+		if (app == null) {
+			return 0.0;
+		}
+		return SolutionsProducerEvaluator.responseTimeModule(module, device, app, null, null, this.additionalInfo);
+	}
+
+	/**
+	 * The deployment part of
+	 * {@link SolutionsProducerEvaluator#responseTime(SolutionModulesDeployed, Map, ModulePlacementAdditionalInformationFog)}.
+	 */
+	protected double deploymentTime() {
+		double totalDept, totalDeployment;
+		final Set<String> deployedModules;
+
+		deployedModules = new HashSet<>();
+		for (AppModule m : this.modules) {
+			deployedModules.add(m.getName());
+		}
+		totalDeployment = 0.0;
+		for (Application app : this.additionalInfo.getApplicationsByID().values()) {
+			boolean hasModuleOnDevice;
+			totalDept = this.additionalInfo.getLatencyBetweenDevices(DeviceNodeType.FogNode,
+					DeviceNodeType.FogControllerNode);
+			hasModuleOnDevice = false;
+			for (String moduleName : app.getModuleNames()) {
+				if (hasModuleOnDevice = deployedModules.contains(moduleName)) {
+					break;
+				}
+			}
+			if (hasModuleOnDevice) {
+				double delayPropagation;
+				delayPropagation = this.additionalInfo.getLatencyBetweenDevices(DeviceNodeType.FogControllerNode,
+						DeviceNodeType.NeighboringFogControllerNode) //
+						* app.getModules().size();
+				totalDept += delayPropagation + app.getDeploymentTimeMilliseconds();
+			}
+			totalDeployment += totalDept;
+		}
+		return totalDeployment;
+	}
+
+	/**
+	 * The energy consumed by a device, as computed by
+	 * {@link SolutionsProducerEvaluator#energyConsumptionWholeSolution(SolutionModulesDeployed, Map)}.
+	 */
+	protected static double energyOf(FogDevice device, double totalMips) {
+		PowerHost ph;
+		ph = device.getHost();
+		return ph.getPowerModel().getPower(Math.min(ph.getAvailableMips(), totalMips) / ph.getAvailableMips()) //
+				* (totalMips / ph.getAvailableMips());
+	}
+
+	//
+
+	protected static class DeviceLoad {
+		public final FogDevice device;
+		public double millionInstructions, energy;
+		public int modulesCount;
+
+		public DeviceLoad(FogDevice device) {
+			super();
+			this.device = device;
+			this.millionInstructions = 0.0;
+			this.energy = 0.0;
+			this.modulesCount = 0;
+		}
+
+		public void add(double millionInstructions, int modulesCount) {
+			this.millionInstructions += millionInstructions;
+			this.modulesCount += modulesCount;
+		}
+	}
+}
@@ -21,6 +21,8 @@ import org.fog.application.Application;
 import org.fog.entities.FogDevice;
 import org.fog.entities.FogDevice.DeviceNodeType;
 import org.fog.heuristics.Utils.EditCosts;
+import org.fog.heuristics.fogImplementations.CandidateDevicesIndex;
+import org.fog.heuristics.fogImplementations.CompactSolution;
 import org.fog.heuristics.fogImplementations.ListDevices;
 import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
 import org.fog.heuristics.fogImplementations.PieceOfSolution;
@@ -64,6 +66,37 @@ public class SolutionsProducerEvaluator {
 		}
 	};
 
+	/**
+	 * Groups the modules by device name, as
+	 * {@link #evaluateDifference(SolutionModulesDeployed, SolutionModulesDeployed)}
+	 * does, but without any lookup: devices' indexes are already ordered by name.
+	 */
+	protected static ListAppMod[] modulesEachDevice(CompactSolution solution) {
+		int count;
+		ListAppMod[] byDevice, nonEmpty;
+		final ModulePlacementAdditionalInformationFog additionalInfo;
+		additionalInfo = solution.getAdditionalInfo();
+		byDevice = new ListAppMod[additionalInfo.getDevicesCount()];
+		count = 0;
+		for (int i = 0, size = solution.size(); i < size; i++) {
+			int d;
+			d = additionalInfo.getDeviceNameIndex(solution.getDeviceIndex(i));
+			if (byDevice[d] == null) {
+				byDevice[d] = new ListAppMod();
+				count++;
+			}
+			byDevice[d].add(solution.getModule(i));
+		}
+		nonEmpty = new ListAppMod[count];
+		count = 0;
+		for (ListAppMod l : byDevice) {
+			if (l != null) {
+				nonEmpty[count++] = l;
+			}
+		}
+		return nonEmpty;
+	}
+
 	public static long evaluateDifference(SolutionModulesDeployed solution1, SolutionModulesDeployed solution2) {
 		int i;
 		ListAppMod l, a1[], a2[];
@@ -78,6 +111,11 @@ public class SolutionsProducerEvaluator {
 		if (solution2 == null) {
 			return solution1.getPieces().size(); // the amount of AppModules
 		}
+		if (solution1.getCompactSolution() != null && solution2.getCompactSolution() != null && solution1
+				.getCompactSolution().getAdditionalInfo() == solution2.getCompactSolution().getAdditionalInfo()) {
+			return Utils.editDistance(modulesEachDevice(solution1.getCompactSolution()),
+					modulesEachDevice(solution2.getCompactSolution()), EDIT_COST_LIST_APP_MODULE);
+		}
 
 		modulesEachDevice1 = new TreeMap<>();
 		for (PieceOfSolution p : solution1.getPieces()) {
@@ -564,6 +602,72 @@ public class SolutionsProducerEvaluator {
 		return new Pair<>(solution, cumulatedCostsEachDevice);
 	}
 
+	/**
+	 * Same as
+	 * {@link #newRandomSolution(Map, List, List, Random, ListDevices[], Function)},
+	 * for the modules and devices of the given {@link ModulePlacementAdditionalInformationFog},
+	 * but picking the devices from its {@link CandidateDevicesIndex} (see
+	 * {@link #newRandomPieceOfSolution(ModulePlacementAdditionalInformationFog, AppModule, Random, SolutionDeployCosts)}).
+	 */
+	public static <S extends SolutionModulesDeployed> Pair<S, SolutionDeployCosts<S>> newRandomSolution(
+			ModulePlacementAdditionalInformationFog additionalInfo, Random r,
+			Function<List<PieceOfSolution>, S> solutionFactory) {
+		boolean isOk;
+		int iterationsLeft;
+		PieceOfSolution pieceOfSolution;
+		List<PieceOfSolution> pieces;
+		final List<AppModule> modules;
+		final Map<String, Application> applicationsSubmitted;
+		final SolutionDeployCosts<S> cumulatedCostsEachDevice; // on each device
+		S solution;
+
+		Objects.requireNonNull(additionalInfo);
+		Objects.requireNonNull(r);
+		Objects.requireNonNull(solutionFactory);
+		modules = Objects.requireNonNull(additionalInfo.getModules());
+		applicationsSubmitted = Objects.requireNonNull(additionalInfo.getApplicationsByID());
+
+		pieces = new ArrayList<>(modules.size());
+		cumulatedCostsEachDevice = new SolutionDeployCosts<S>();
+
+		iterationsLeft = 10; // Arbitrarily chosen
+		try {
+			do {
+				// reset
+				cumulatedCostsEachDevice.clear();
+				pieces.clear();
+
+				for (AppModule module : modules) {
+					if (applicationsSubmitted.get(module.getAppId()) == null) {
+						return null; // brutal interruption: constraint 1 can't be met
+					}
+
+					pieceOfSolution = newRandomPieceOfSolution(additionalInfo, module, r, cumulatedCostsEachDevice);
+
+					if (pieceOfSolution == null) {
+						// no suitable devices
+						pieces.clear();
+						break;
+					}
+					pieces.add(pieceOfSolution);
+				}
+				isOk = (!pieces.isEmpty()) && isAcceptableSolution(pieces, applicationsSubmitted);
+			} while ((!isOk) && (iterationsLeft-- > 0));
+		} catch (ParameterException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		if (pieces.isEmpty()) {
+			throw new RuntimeException("can't create a suitable random solution");
+		}
+
+		solution = solutionFactory.apply(pieces);
+		cumulatedCostsEachDevice.setSolution(solution);
+		cumulatedCostsEachDevice.resetCosts(solution, applicationsSubmitted);
+		return new Pair<>(solution, cumulatedCostsEachDevice);
+	}
+
 	public static ListDevices[] partitionateDevicesByType(List<FogDevice> devices) {
 		ListDevices[] devicesPartitions;
 		DeviceNodeType[] types;
@@ -695,6 +799,61 @@ public class SolutionsProducerEvaluator {
 		return new PieceOfSolution(module, d);
 	}
 
+	/**
+	 * Same as
+	 * {@link #newRandomPieceOfSolution(Map, AppModule, ListDevices[], List, Random, SolutionDeployCosts, List)},
+	 * but the devices are taken from the
+	 * {@link ModulePlacementAdditionalInformationFog#getCandidateDevicesIndex()}:
+	 * only the devices already loaded by the given costs are checked, the others
+	 * being known to be able to host the module.<br>
+	 * Given the same {@link Random}, the same device is chosen.
+	 */
+	public static <S extends SolutionModulesDeployed> PieceOfSolution newRandomPieceOfSolution(
+			ModulePlacementAdditionalInformationFog additionalInfo, AppModule module, Random r,
+			// optional
+			final SolutionDeployCosts<S> cumulatedCostsEachDevice) {
+		FogDevice d;
+		CandidateDevicesIndex.ModuleCandidates candidates;
+		List<FogDevice> availableDevices;
+
+		candidates = additionalInfo.getCandidateDevicesIndex().getCandidates(module);
+		if (candidates == null) {
+			return null; // brutal interruption: constraint 1 can't be met
+		}
+		if (candidates.suitableDevicesCount == 0) {
+			throw new IllegalStateException("module \"" + module.getName() + "\" of type "
+					+ module.getModuleType().name() + " maps to an empty set if devuces");
+		}
+
+		availableDevices = new ArrayList<>(candidates.size());
+		for (int i = 0, n = candidates.size(); i < n; i++) {
+			d = candidates.get(i);
+			if (cumulatedCostsEachDevice == null || (!cumulatedCostsEachDevice.contains(d))
+					|| candidates.fits(cumulatedCostsEachDevice.getCumulatedCosts(d))) {
+				availableDevices.add(d);
+			}
+		}
+		if (availableDevices.isEmpty()) {
+			// no suitable devices
+			return null;
+		}
+
+		d = availableDevices.get(r.nextInt(availableDevices.size()));
+
+		if (cumulatedCostsEachDevice != null) {
+			CumulatedCostsOnDevice cc;
+			if (cumulatedCostsEachDevice.contains(d)) {
+				cc = cumulatedCostsEachDevice.getCumulatedCosts(d);
+				cc.removeCostsOf(module, candidates.application);
+			} else {
+				cc = new CumulatedCostsOnDevice(d);
+				cumulatedCostsEachDevice.addCumulatedCosts(cc);
+			}
+			cc.accumulateCostsOf(module, candidates.application);
+		}
+		return new PieceOfSolution(module, d);
+	}
+
 	/**
 	 * Returns {@code true} if the given {@link AppModule} can be assigned to the
 	 * given {@link FogDevice} by checking the constraints. The {@link Application}
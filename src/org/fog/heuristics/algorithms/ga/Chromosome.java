@@ -36,13 +36,25 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 	//
 
 	public void swapGeneAt(Chromosome<T> c, int index) {
-		T temp;
 		List<T> genes, cGenes;
 		genes = this.getGenes();
 		cGenes = c.getGenes();
 		if (c == null || this == c || cGenes.size() != genes.size()) {
 			return;
 		}
+		swapGene(c, index);
+	}
+
+	/**
+	 * Swaps the gene at the given index with the other chromosome, without any
+	 * check. Used by the crossovers, subclasses may provide a faster
+	 * implementation.
+	 */
+	protected void swapGene(Chromosome<T> c, int index) {
+		T temp;
+		List<T> genes, cGenes;
+		genes = this.getGenes();
+		cGenes = c.getGenes();
 		temp = genes.get(index);
 		genes.set(index, cGenes.get(index));
 		cGenes.set(index, temp);
@@ -79,19 +91,13 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 		}
 		if (r.nextBoolean()) {
 			// upper - indexCrossover index is excluded
-			T temp;
 			while (--indexCrossover >= 0) {
-				temp = genes.get(indexCrossover);
-				genes.set(indexCrossover, cGenes.get(indexCrossover));
-				cGenes.set(indexCrossover, temp);
+				swapGene(c, indexCrossover);
 			}
 		} else {
 			// lower - indexCrossover index is included
-			T temp;
 			while (indexCrossover <= --size) {
-				temp = genes.get(size);
-				genes.set(size, cGenes.get(size));
-				cGenes.set(size, temp);
+				swapGene(c, size);
 			}
 		}
 	}
@@ -111,7 +117,6 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 	 */
 	public void crossoverKPoint(Chromosome<T> c, int k, Random r) {
 		int size, indexCrossover, indexes[];
-		T temp;
 		List<T> genes, cGenes;
 		if (k <= 0) {
 			return;
@@ -134,9 +139,7 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 			// random flip
 			while (--size >= 0) {
 				if (r.nextBoolean()) {
-					temp = genes.get(size);
-					genes.set(size, cGenes.get(size));
-					cGenes.set(size, temp);
+					swapGene(c, size);
 				}
 			}
 			return;
@@ -151,9 +154,11 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 					;
 				setIndexes.add(indexCrossover);
 			}
+			k = 0;
 			for (Integer i : setIndexes) {
 				indexes[k++] = i;
 			}
+			k--; // the last section
 			setIndexes = null;
 		}
 
@@ -176,9 +181,7 @@ public abstract class Chromosome<T> implements Cloneable, Supplier<List<T>> {
 			// recycle the "size" variable as a "start of the section"
 			size = (k == 0) ? -1 : indexes[k - 1];
 			while (indexCrossover > size) {
-				temp = genes.get(indexCrossover);
-				genes.set(indexCrossover, cGenes.get(indexCrossover));
-				cGenes.set(indexCrossover, temp);
+				swapGene(c, indexCrossover);
 				indexCrossover--;
 			}
 		} while ((k -= 2) >= 0);
@@ -0,0 +1,286 @@
+package org.fog.heuristics.algorithms.ga;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import org.fog.heuristics.Heuristic;
+import org.fog.heuristics.algorithms.ga.GeneticAlgorithm.EvaluatedChromosome;
+
+/**
+ * Generational variant of the {@link GeneticAlgorithm}: at each generation the
+ * whole population is replaced by a new one, made by the best chromosomes (the
+ * "elite", see {@link #getElitism()}) and by the children of parents chosen
+ * through a {@link SelectionType}. Children are produced by a k-point crossover
+ * ({@link Chromosome#crossoverKPoint(Chromosome, int, Random)}) applied with a
+ * given probability, followed by the mutation. As in {@link GeneticAlgorithm},
+ * the children with a non-positive fitness (the unfeasible placements) are
+ * discarded: the population shrinks, and is filled again by the children of
+ * the next generation.
+ * <p>
+ * The population sampling, the fitness function, the mutation and the
+ * parallelism (see {@link GeneticAlgorithm#getExecutor()}) are the ones of the
+ * given {@link GeneticAlgorithm}, which is used as a provider of genetic
+ * operators: the fitness is maximized, as it is there. In parallel, only the
+ * evaluation of each generation runs concurrently.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ */
+public class GenerationalGeneticAlgorithm<T, C extends Chromosome<T>> implements Heuristic<C> {
+
+	public static enum SelectionType {
+		/**
+		 * The fittest of {@link GenerationalGeneticAlgorithm#getTournamentSize()}
+		 * chromosomes picked at random.
+		 */
+		Tournament,
+		/** A chromosome picked with a probability proportional to its fitness. */
+		Roulette;
+	}
+
+	public GenerationalGeneticAlgorithm(GeneticAlgorithm<T, C> operators) {
+		super();
+		this.operators = Objects.requireNonNull(operators);
+		this.selectionType = SelectionType.Tournament;
+		this.tournamentSize = 3;
+		this.elitism = 0.2;
+		this.crossoverRate = 0.5;
+		this.crossoverPoints = 2;
+		this.maxStagnantGenerations = 5;
+	}
+
+	protected final GeneticAlgorithm<T, C> operators;
+	protected SelectionType selectionType;
+	protected int tournamentSize, crossoverPoints, maxStagnantGenerations;
+	protected double elitism, crossoverRate;
+
+	/**
+	 * The {@link GeneticAlgorithm} providing the population, the fitness function
+	 * and the mutation.
+	 */
+	public GeneticAlgorithm<T, C> getOperators() {
+		return operators;
+	}
+
+	public SelectionType getSelectionType() {
+		return selectionType;
+	}
+
+	public int getTournamentSize() {
+		return tournamentSize;
+	}
+
+	/**
+	 * Fraction (from 0.0 to 1.0 excluded) of the population, the fittest, that is
+	 * kept as it is in the next generation.
+	 */
+	public double getElitism() {
+		return elitism;
+	}
+
+	/**
+	 * Probability of performing the crossover between two selected parents: if
+	 * not performed, the children are just mutated copies of the parents.
+	 */
+	public double getCrossoverRate() {
+		return crossoverRate;
+	}
+
+	/**
+	 * The "k" of {@link Chromosome#crossoverKPoint(Chromosome, int, Random)}.
+	 */
+	public int getCrossoverPoints() {
+		return crossoverPoints;
+	}
+
+	/**
+	 * The evolution stops when the best fitness does not improve more than
+	 * {@link GeneticAlgorithm#getThresholdPercentageFitnessImprovement()} (as a
+	 * relative value) for this amount of consecutive generations.
+	 */
+	public int getMaxStagnantGenerations() {
+		return maxStagnantGenerations;
+	}
+
+	@Override
+	public HeuristicType getHeuristicType() {
+		return HeuristicType.PopulationBased;
+	}
+
+	//
+
+	public void setSelectionType(SelectionType selectionType) {
+		this.selectionType = Objects.requireNonNull(selectionType);
+	}
+
+	public void setTournamentSize(int tournamentSize) {
+		if (tournamentSize < 1) {
+			throw new IllegalArgumentException("The tournament size should be positive: " + tournamentSize);
+		}
+		this.tournamentSize = tournamentSize;
+	}
+
+	public void setElitism(double elitism) {
+		if (elitism < 0.0 || elitism >= 1.0) {
+			throw new IllegalArgumentException("The elitism should be in [0.0 ; 1.0[ : " + elitism);
+		}
+		this.elitism = elitism;
+	}
+
+	public void setCrossoverRate(double crossoverRate) {
+		this.crossoverRate = crossoverRate;
+	}
+
+	public void setCrossoverPoints(int crossoverPoints) {
+		this.crossoverPoints = crossoverPoints;
+	}
+
+	public void setMaxStagnantGenerations(int maxStagnantGenerations) {
+		this.maxStagnantGenerations = maxStagnantGenerations;
+	}
+
+	//
+
+	@Override
+	public double evaluateSolution(C solution) {
+		return this.operators.evaluateSolution(solution);
+	}
+
+	@Override
+	public C optimize(C initialGuess, int maxIterations, Random r) {
+		return this.optimize(this.operators.samplePopulation(initialGuess, r), maxIterations, r);
+	}
+
+	/**
+	 * Evolves the given population for at most {@code maxIterations} generations
+	 * (at least one), returning the fittest chromosome ever found.
+	 */
+	@SuppressWarnings("unchecked")
+	public C optimize(List<C> population, int maxIterations, Random r) {
+		int size, eliteSize, elites, alive, generation, stagnantGenerations;
+		double bestFitness, threshold;
+		final double[] fitnesses;
+		final List<C> children;
+		EvaluatedChromosome<T, C>[] current;
+		EvaluatedChromosome<T, C> best;
+
+		Objects.requireNonNull(r);
+		size = population.size();
+		if (size == 0) {
+			return null;
+		}
+		for (int i = 0; i < size; i++) {
+			if (population.get(i).getGenes().isEmpty()) {
+				throw new RuntimeException("empty set of genes of an original population element (index " + i + ")");
+			}
+		}
+		{
+			@SuppressWarnings("rawtypes")
+			EvaluatedChromosome[] evaluated = new EvaluatedChromosome[size];
+			current = evaluated;
+		}
+		fitnesses = new double[size];
+		this.operators.runInParallel(size, i -> fitnesses[i] = evaluateSolution(population.get(i)));
+		for (int i = 0; i < size; i++) {
+			current[i] = new EvaluatedChromosome<>(fitnesses[i], population.get(i));
+		}
+		Arrays.sort(current, GeneticAlgorithm::compareForMinHeap);
+		// a copy, since the instances in "current" are recycled
+		best = new EvaluatedChromosome<>(current[0].fitness, current[0].chromosome);
+
+		eliteSize = Math.min(size, (int) Math.ceil(this.elitism * size));
+		children = new ArrayList<>(size);
+		threshold = this.operators.getThresholdPercentageFitnessImprovement();
+		generation = 0;
+		stagnantGenerations = 0;
+		alive = size;
+		do {
+			// elitism: the fittest are kept as they are
+			elites = Math.min(eliteSize, alive);
+			children.clear();
+			while (children.size() < size - elites) {
+				C childFirst, childSecond;
+				// on this thread, since the mutator may keep some state
+				childFirst = (C) select(current, alive, r).chromosome.clone();
+				childSecond = (C) select(current, alive, r).chromosome.clone();
+				if (this.crossoverRate > r.nextDouble()) {
+					childFirst.crossoverKPoint(childSecond, this.crossoverPoints, r);
+				}
+				this.operators.mutate(childFirst, r);
+				this.operators.mutate(childSecond, r);
+				children.add(childFirst);
+				if (children.size() < size - elites) {
+					children.add(childSecond);
+				}
+			}
+			this.operators.runInParallel(children.size(), i -> fitnesses[i] = evaluateSolution(children.get(i)));
+
+			// replacement: recycle the instances of the non-elite ones, discarding the
+			// unfeasible children
+			alive = elites;
+			for (int i = 0, n = children.size(); i < n; i++) {
+				if (fitnesses[i] > 0.0) {
+					current[alive].chromosome = children.get(i);
+					current[alive].fitness = fitnesses[i];
+					alive++;
+				}
+			}
+			Arrays.sort(current, 0, alive, GeneticAlgorithm::compareForMinHeap);
+
+			bestFitness = best.fitness;
+			if (alive > 0 && GeneticAlgorithm.compareForMinHeap(current[0], best) < 0) {
+				best = new EvaluatedChromosome<>(current[0].fitness, current[0].chromosome);
+			}
+			if (bestFitness != 0.0 && threshold < ((best.fitness - bestFitness) / Math.abs(bestFitness))) {
+				stagnantGenerations = 0;
+			} else {
+				stagnantGenerations++;
+			}
+			generation++;
+		} while (alive > 0 && generation < maxIterations && stagnantGenerations < this.maxStagnantGenerations);
+
+		return best.fitness > 0.0 ? best.chromosome : null;
+	}
+
+	/**
+	 * Selects a parent among the first {@code size} chromosomes of the given
+	 * population.
+	 */
+	protected EvaluatedChromosome<T, C> select(EvaluatedChromosome<T, C>[] population, int size, Random r) {
+		switch (this.selectionType) {
+		case Roulette: {
+			double total, pick;
+			total = 0.0;
+			for (int i = 0; i < size; i++) {
+				if (population[i].fitness > 0.0) {
+					total += population[i].fitness;
+				}
+			}
+			if (total <= 0.0) {
+				return population[r.nextInt(size)];
+			}
+			pick = r.nextDouble() * total;
+			for (int i = 0; i < size; i++) {
+				if (population[i].fitness > 0.0 && (pick -= population[i].fitness) < 0.0) {
+					return population[i];
+				}
+			}
+			return population[0];
+		}
+		case Tournament:
+		default: {
+			EvaluatedChromosome<T, C> winner, candidate;
+			winner = population[r.nextInt(size)];
+			for (int i = 1; i < this.tournamentSize; i++) {
+				candidate = population[r.nextInt(size)];
+				if (GeneticAlgorithm.compareForMinHeap(candidate, winner) < 0) {
+					winner = candidate;
+				}
+			}
+			return winner;
+		}
+		}
+	}
+}
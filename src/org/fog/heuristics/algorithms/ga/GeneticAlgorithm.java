@@ -1,11 +1,19 @@
 package org.fog.heuristics.algorithms.ga;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
 import java.util.SortedSet;
+import java.util.SplittableRandom;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 import org.apache.commons.math3.util.Pair;
 import org.fog.heuristics.Heuristic;
@@ -22,6 +30,8 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 	protected GeneticAlgorithm() {
 		super();
 		this.thresholdPercentageFitnessImprovement = 0.0125;
+		this.executor = null;
+		this.offspringBatchSize = 8;
 	}
 
 	public GeneticAlgorithm(SolutionMutator<T, C> mutationProvider) {
@@ -38,6 +48,16 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 	 * */
 	protected SolutionMutator<T, C> mutator;
 
+	/**
+	 * See {@link #getExecutor()}
+	 */
+	protected Executor executor;
+
+	/**
+	 * See {@link #getOffspringBatchSize()}
+	 */
+	protected int offspringBatchSize;
+
 	/**
 	 * If the maximum fitness does not improves by this relative (percentage from
 	 * 0.0 to 1.0 excluded) then the evolution cycle stops.
@@ -55,6 +75,34 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 
 	public abstract double getProbabilityMutation();
 
+	/**
+	 * The {@link Executor} (usually a {@link java.util.concurrent.ForkJoinPool})
+	 * used to sample and evaluate the population concurrently, or {@code null} if
+	 * the algorithm runs on the calling thread only.
+	 * <p>
+	 * When it's set, {@link #evaluateSolution(Object)} must not modify any shared
+	 * state, since it's invoked concurrently. Each task gets its own
+	 * {@link Random}, split from the given one, so a seeded run gives the same
+	 * result whatever the number of threads is (but a different one from the
+	 * sequential run).
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Amount of pairs of children produced (and then evaluated concurrently) in
+	 * each iteration, when the algorithm runs in parallel (see
+	 * {@link #getExecutor()}). Each pair counts as an iteration.
+	 */
+	public int getOffspringBatchSize() {
+		return offspringBatchSize;
+	}
+
+	public boolean isParallel() {
+		return executor != null;
+	}
+
 	//
 
 	public void setThresholdPercentageFitnessImprovement(double thresholdPercentageFitnessImprovement) {
@@ -63,6 +111,27 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 
 	public abstract void setProbabilityMutation(double probabilityMutation);
 
+	/**
+	 * See {@link #getExecutor()}.
+	 * 
+	 * @param executor the executor, {@code null} to run sequentially
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * See {@link #getOffspringBatchSize()}.
+	 * 
+	 * @param offspringBatchSize a positive amount of pairs of children
+	 */
+	public void setOffspringBatchSize(int offspringBatchSize) {
+		if (offspringBatchSize < 1) {
+			throw new IllegalArgumentException("The offspring batch size should be positive: " + offspringBatchSize);
+		}
+		this.offspringBatchSize = offspringBatchSize;
+	}
+
 	/**
 	 * See {@link #getMutationProvider()}.
 	 * 
@@ -101,6 +170,10 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 
 		Objects.requireNonNull(r);
 
+		if (this.executor != null) {
+			return this.optimizeInParallel(population, maxIterations, r);
+		}
+
 		fitnessSortedChromosomes = new TreeSet<>(GeneticAlgorithm::compareForMinHeap);
 		{
 			final int[] i = { 0 };
@@ -177,6 +250,149 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 		return fitnessSortedChromosomes.first().chromosome;
 	}
 
+	/**
+	 * Parallel version of {@link #optimize(List, int, Random)}: the population is
+	 * evaluated concurrently and, at each iteration, a batch of
+	 * {@link #getOffspringBatchSize()} pairs of children of the two fittest
+	 * chromosomes replaces the worst ones. Children are produced on the calling
+	 * thread, each pair with its own random source, and then evaluated
+	 * concurrently. The evolution stops once the best fitness of an iteration
+	 * improves the previous one by less than
+	 * {@link #getThresholdPercentageFitnessImprovement()}.
+	 */
+	@SuppressWarnings("unchecked")
+	protected C optimizeInParallel(List<C> population, int maxIterations, Random r) {
+		int minIterations, iteration, pairs;
+		double lastBestFitness, bestFitness;
+		final SplittableRandom splitter;
+		final SortedSet<EvaluatedChromosome<T, C>> fitnessSortedChromosomes;
+		final List<EvaluatedChromosome<T, C>> replaced;
+		final double[] fitnesses;
+		final Object[] children;
+		Iterator<EvaluatedChromosome<T, C>> ranking;
+		EvaluatedChromosome<T, C> fittest, secondFittest;
+
+		splitter = new SplittableRandom(r.nextLong());
+		fitnessSortedChromosomes = new TreeSet<>(GeneticAlgorithm::compareForMinHeap);
+		for (int i = 0, n = population.size(); i < n; i++) {
+			if (population.get(i).getGenes().isEmpty()) {
+				throw new RuntimeException("empty set of genes of an original population element (index " + i + ")");
+			}
+		}
+		{
+			final double[] populationFitnesses = new double[population.size()];
+			runInParallel(population.size(), i -> populationFitnesses[i] = evaluateSolution(population.get(i)));
+			for (int i = 0, n = population.size(); i < n; i++) {
+				fitnessSortedChromosomes.add(new EvaluatedChromosome<>(populationFitnesses[i], population.get(i)));
+			}
+		}
+		iteration = 0;
+		minIterations = Math.min(16, (int) Math.ceil(Math.log(maxIterations) / log_2));
+		replaced = new ArrayList<>(offspringBatchSize << 1);
+		fitnesses = new double[offspringBatchSize << 1];
+		children = new Object[offspringBatchSize << 1];
+
+		// evolve
+		do {
+			// selection
+			ranking = fitnessSortedChromosomes.iterator();
+			fittest = ranking.next();
+			secondFittest = ranking.hasNext() ? ranking.next() : fittest;
+			if (fittest.chromosome.getGenes().isEmpty()) {
+				throw new RuntimeException("empty fittest genes");
+			}
+			if (secondFittest.chromosome.getGenes().isEmpty()) {
+				throw new RuntimeException("empty secondFittest genes");
+			}
+			lastBestFitness = fittest.fitness;
+			pairs = Math.min(offspringBatchSize, fitnessSortedChromosomes.size() >> 1);
+			if (maxIterations > iteration) {
+				pairs = Math.min(pairs, maxIterations - iteration);
+			}
+			// remove the worst ones
+			replaced.clear();
+			for (int i = pairs << 1; i > 0; i--) {
+				EvaluatedChromosome<T, C> last;
+				fitnessSortedChromosomes.remove(last = fitnessSortedChromosomes.last());
+				replaced.add(last);
+			}
+			// crossover & mutation, on this thread since the mutator may keep some state;
+			// each pair has its own random source
+			for (int i = 0; i < pairs; i++) {
+				C childChromosomeFirst, childChromosomeSecond;
+				Random pairRandom;
+				pairRandom = new Random(splitter.split().nextLong());
+				// ELITIST approach: the crossover modifies the genes, so a clone is required to
+				// preserve the original ones
+				childChromosomeFirst = (C) fittest.chromosome.clone();
+				childChromosomeSecond = (C) secondFittest.chromosome.clone();
+				childChromosomeFirst.crossoverOnePoint(childChromosomeSecond, pairRandom);
+				mutate(childChromosomeFirst, pairRandom);
+				mutate(childChromosomeSecond, pairRandom);
+				children[i << 1] = childChromosomeFirst;
+				children[(i << 1) + 1] = childChromosomeSecond;
+			}
+
+			// compute fitness
+			runInParallel(pairs << 1, i -> fitnesses[i] = evaluateSolution((C) children[i]));
+
+			// addition: recycle the instances
+			for (int i = 0, n = pairs << 1; i < n; i++) {
+				EvaluatedChromosome<T, C> child;
+				child = replaced.get(i);
+				child.chromosome = (C) children[i];
+				child.fitness = fitnesses[i];
+				children[i] = null;
+				if (child.fitness > 0.0) {
+					fitnessSortedChromosomes.add(child);
+				}
+			}
+
+			bestFitness = fitnessSortedChromosomes.isEmpty() ? 0.0 : fitnessSortedChromosomes.first().fitness;
+			iteration += Math.max(pairs, 1);
+		} while ((fitnessSortedChromosomes.size() >= 2) && iteration < maxIterations && (iteration < minIterations || //
+				(thresholdPercentageFitnessImprovement < ((bestFitness - lastBestFitness) / lastBestFitness))));
+
+		if (fitnessSortedChromosomes.isEmpty()) {
+			return null; // ERROR
+		}
+		return fitnessSortedChromosomes.first().chromosome;
+	}
+
+	/**
+	 * Runs the given task for each index from 0 (included) to the given amount
+	 * (excluded) through the {@link #getExecutor()}, waiting for all of them to
+	 * complete. The runtime exceptions thrown by the tasks are thrown again.
+	 */
+	protected void runInParallel(int amount, IntConsumer task) {
+		CompletableFuture<?>[] tasks;
+		if (amount <= 0) {
+			return;
+		}
+		if (this.executor == null || amount == 1) {
+			for (int i = 0; i < amount; i++) {
+				task.accept(i);
+			}
+			return;
+		}
+		tasks = new CompletableFuture<?>[amount];
+		for (int i = 0; i < amount; i++) {
+			final int index = i;
+			tasks[i] = CompletableFuture.runAsync(() -> task.accept(index), this.executor);
+		}
+		try {
+			CompletableFuture.allOf(tasks).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
 	protected void mutate(C chromosome, Random r) {
 		int i;
 		LinkedList<Pair<Integer, T>> mutations;
@@ -199,13 +415,14 @@ public abstract class GeneticAlgorithm<T, C extends Chromosome<T>> implements He
 
 	protected static class EvaluatedChromosome<Tt, Cc extends Chromosome<Tt>>
 			implements Comparable<EvaluatedChromosome<Tt, Cc>> {
-		protected static int idProg = 0;
+		/** Shared by the algorithms running concurrently, see the island model */
+		protected static final AtomicInteger idProg = new AtomicInteger(0);
 
 		public EvaluatedChromosome(double fitness, Cc chromosome) {
 			super();
 			this.fitness = fitness;
 			this.chromosome = chromosome;
-			this.ID = idProg++;
+			this.ID = idProg.getAndIncrement();
 		}
 
 		protected final int ID;
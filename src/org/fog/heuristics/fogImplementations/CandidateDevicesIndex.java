@@ -0,0 +1,189 @@
+package org.fog.heuristics.fogImplementations;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.application.AppModule;
+import org.fog.application.AppModule.ModuleType;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDevice.DeviceNodeType;
+import org.fog.heuristics.SolutionsProducerEvaluator;
+import org.fog.heuristics.SolutionsProducerEvaluator.CumulatedCostsOnDevice;
+
+/**
+ * Precomputed index of the devices that can host each module, used to generate
+ * random {@link PieceOfSolution}s (see
+ * {@link SolutionsProducerEvaluator#newRandomPieceOfSolution(ModulePlacementAdditionalInformationFog, AppModule, java.util.Random, org.fog.heuristics.SolutionsProducerEvaluator.SolutionDeployCosts)}).
+ * <p>
+ * The devices suitable for a module depend on its type and on the delay
+ * tolerance of its application:
+ * <ul>
+ * <li>physical modules go to the cloud;</li>
+ * <li>modules of delay-sensitive applications go to the fog nodes (or to the
+ * fog controllers, if there are no fog nodes);</li>
+ * <li>the others go to any non fog node.</li>
+ * </ul>
+ * Among them, the devices that can't host the module even when empty (not
+ * enough RAM, MIPS or storage, or a deadline too short) are discarded once and
+ * for all, so that only the devices already loaded by a solution have to be
+ * checked again. The costs of each module (RAM, storage and million of
+ * instructions, which require a scan of the application's edges) are
+ * precomputed too.<br>
+ * The order of the devices is the one of
+ * {@link ModulePlacementAdditionalInformationFog#getDevicesPartitions()}, so
+ * that the random extractions are the same of the ones performed by scanning
+ * the partitions.
+ * <p>
+ * Instances are immutable: it's safe to share them between threads.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ */
+public class CandidateDevicesIndex {
+
+	public CandidateDevicesIndex(ModulePlacementAdditionalInformationFog additionalInfo) {
+		super();
+		final ListDevices[] partitions;
+		List<FogDevice> nonFogNodes;
+
+		this.applicationsByID = additionalInfo.getApplicationsByID();
+		this.devicesPartitions = partitions = additionalInfo.getDevicesPartitions();
+		this.cloudNodes = toArray(partitions[DeviceNodeType.CloudNode.ordinal()]);
+		this.delaySensitiveNodes = partitions[DeviceNodeType.FogNode.ordinal()].isEmpty()
+				? toArray(partitions[DeviceNodeType.FogControllerNode.ordinal()])
+				: toArray(partitions[DeviceNodeType.FogNode.ordinal()]);
+		nonFogNodes = new ArrayList<>();
+		for (DeviceNodeType dnt : DeviceNodeType.values()) {
+			if (dnt != DeviceNodeType.FogNode) {
+				nonFogNodes.addAll(partitions[dnt.ordinal()]);
+			}
+		}
+		this.delayTolerantNodes = toArray(nonFogNodes);
+
+		this.candidatesEachModule = new IdentityHashMap<>();
+		if (additionalInfo.getModules() != null) {
+			for (AppModule module : additionalInfo.getModules()) {
+				ModuleCandidates mc;
+				mc = newModuleCandidates(module);
+				if (mc != null) {
+					this.candidatesEachModule.put(module, mc);
+				}
+			}
+		}
+	}
+
+	protected final ListDevices[] devicesPartitions;
+	protected final Map<String, Application> applicationsByID;
+	protected final FogDevice[] cloudNodes, delaySensitiveNodes, delayTolerantNodes;
+	protected final Map<AppModule, ModuleCandidates> candidatesEachModule;
+
+	//
+
+	/**
+	 * @return the partitions the devices were taken from, used to detect whether
+	 *         the index is outdated
+	 */
+	public ListDevices[] getDevicesPartitions() {
+		return devicesPartitions;
+	}
+
+	/**
+	 * @return the devices suitable for the given module, regardless of their
+	 *         capabilities (see the class documentation)
+	 */
+	public FogDevice[] getSuitableDevices(AppModule module, Application app) {
+		if (module.getModuleType() == ModuleType.Physical) {
+			return cloudNodes;
+		}
+		return app.isDelayTolerable() ? delayTolerantNodes : delaySensitiveNodes;
+	}
+
+	/**
+	 * @return the candidates for the given module, or {@code null} if its
+	 *         application is unknown
+	 */
+	public ModuleCandidates getCandidates(AppModule module) {
+		ModuleCandidates mc;
+		mc = this.candidatesEachModule.get(module);
+		// modules not known in advance are not cached, so that this is immutable
+		return mc != null ? mc : newModuleCandidates(module);
+	}
+
+	//
+
+	protected ModuleCandidates newModuleCandidates(AppModule module) {
+		int amount;
+		double mi;
+		Application app;
+		FogDevice[] suitable, feasible;
+
+		app = this.applicationsByID.get(module.getAppId());
+		if (app == null) {
+			return null;
+		}
+		mi = SolutionsProducerEvaluator.getExpectedModuleMillionOfIstructionsToExec(module, app);
+		suitable = this.getSuitableDevices(module, app);
+		feasible = new FogDevice[suitable.length];
+		amount = 0;
+		for (FogDevice d : suitable) {
+			if (new CumulatedCostsOnDevice(d).areNewCostsWithinLimits(module.getRam(), mi, module.getSize(), app)) {
+				feasible[amount++] = d;
+			}
+		}
+		if (amount < feasible.length) {
+			FogDevice[] f;
+			f = new FogDevice[amount];
+			System.arraycopy(feasible, 0, f, 0, amount);
+			feasible = f;
+		}
+		return new ModuleCandidates(module, app, mi, suitable.length, feasible);
+	}
+
+	protected static FogDevice[] toArray(List<FogDevice> devices) {
+		return devices.toArray(new FogDevice[devices.size()]);
+	}
+
+	//
+
+	/**
+	 * The devices able to host a module when they are empty, and the module's
+	 * costs.
+	 */
+	public static class ModuleCandidates {
+		public final AppModule module;
+		public final Application application;
+		public final double millionInstructions;
+		/** Amount of suitable devices, regardless of their capabilities */
+		public final int suitableDevicesCount;
+		protected final FogDevice[] devices;
+
+		protected ModuleCandidates(AppModule module, Application application, double millionInstructions,
+				int suitableDevicesCount, FogDevice[] devices) {
+			super();
+			this.module = module;
+			this.application = application;
+			this.millionInstructions = millionInstructions;
+			this.suitableDevicesCount = suitableDevicesCount;
+			this.devices = devices;
+		}
+
+		public int size() {
+			return devices.length;
+		}
+
+		public FogDevice get(int index) {
+			return devices[index];
+		}
+
+		/**
+		 * @return {@code true} if the module can be added to the given costs, already
+		 *         accumulated on a candidate device
+		 */
+		public boolean fits(CumulatedCostsOnDevice costs) {
+			return costs.areNewCostsWithinLimits(module.getRam(), millionInstructions, module.getSize(),
+					application);
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package org.fog.heuristics.fogImplementations;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import org.fog.application.AppModule;
+import org.fog.entities.FogDevice;
+
+/**
+ * Primitive encoding of a {@link SolutionModulesDeployed}: the i-th piece is
+ * the pair of the i-th module index and the i-th device index, both referring
+ * to the dense tables of a {@link ModulePlacementAdditionalInformationFog} (see
+ * {@link ModulePlacementAdditionalInformationFog#getModuleIndex(AppModule)} and
+ * {@link ModulePlacementAdditionalInformationFog#getDeviceIndex(FogDevice)}).
+ * <p>
+ * The array of modules is shared between copies (see {@link #copy()}) and never
+ * modified, so a copy costs just an array of integers instead of a list of
+ * {@link PieceOfSolution}.<br>
+ * {@link #getPieces()} is a view: each {@link PieceOfSolution} it provides is
+ * created on the fly and setting a piece changes the device of that position.
+ * Its hash code and its equality are computed without creating any piece,
+ * comparing the arrays of indexes with the views of other solutions.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ *
+ */
+public class CompactSolution implements SolutionModulesDeployed {
+	private static final long serialVersionUID = -4018870357216902461L;
+
+	protected CompactSolution(ModulePlacementAdditionalInformationFog additionalInfo, int[] modules,
+			int[] devices) {
+		super();
+		this.additionalInfo = additionalInfo;
+		this.modules = modules;
+		this.devices = devices;
+		this.piecesView = null;
+	}
+
+	protected transient ModulePlacementAdditionalInformationFog additionalInfo;
+	/** Index of the module of each piece, shared between copies */
+	protected final int[] modules;
+	/** Index of the device of each piece */
+	protected final int[] devices;
+	protected transient List<PieceOfSolution> piecesView;
+
+	/**
+	 * Encodes the given solution.
+	 *
+	 * @return the encoded solution, or {@code null} if some module or device is not
+	 *         held by the dense tables of the given additional information
+	 */
+	public static CompactSolution encode(SolutionModulesDeployed solution,
+			ModulePlacementAdditionalInformationFog additionalInfo) {
+		int size, indexModule, indexDevice, modules[], devices[];
+		List<PieceOfSolution> pieces;
+		if (solution == null || (pieces = solution.getPieces()) == null) {
+			return null;
+		}
+		if (solution.getCompactSolution() != null
+				&& solution.getCompactSolution().getAdditionalInfo() == additionalInfo) {
+			return solution.getCompactSolution().copy();
+		}
+		size = pieces.size();
+		modules = new int[size];
+		devices = new int[size];
+		for (int i = 0; i < size; i++) {
+			PieceOfSolution pos;
+			pos = pieces.get(i);
+			indexModule = additionalInfo.getModuleIndex(pos.getModule());
+			indexDevice = additionalInfo.getDeviceIndex(pos.getDevice());
+			if (indexModule < 0 || indexDevice < 0) {
+				return null;
+			}
+			modules[i] = indexModule;
+			devices[i] = indexDevice;
+		}
+		return new CompactSolution(additionalInfo, modules, devices);
+	}
+
+	//
+
+	public ModulePlacementAdditionalInformationFog getAdditionalInfo() {
+		return additionalInfo;
+	}
+
+	public int size() {
+		return devices.length;
+	}
+
+	public int getModuleIndex(int index) {
+		return modules[index];
+	}
+
+	public int getDeviceIndex(int index) {
+		return devices[index];
+	}
+
+	public AppModule getModule(int index) {
+		return additionalInfo.getModule(modules[index]);
+	}
+
+	public FogDevice getDevice(int index) {
+		return additionalInfo.getDevice(devices[index]);
+	}
+
+	/**
+	 * A view of this solution, see the class documentation.
+	 */
+	@Override
+	public List<PieceOfSolution> getPieces() {
+		if (piecesView == null) {
+			piecesView = new PiecesView();
+		}
+		return piecesView;
+	}
+
+	@Override
+	public CompactSolution getCompactSolution() {
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if the given solution deploys the same modules in the
+	 *         same order
+	 */
+	public boolean hasSameModules(CompactSolution other) {
+		return other != null && (this.modules == other.modules || Arrays.equals(this.modules, other.modules));
+	}
+
+	//
+
+	public void setDeviceIndex(int index, int deviceIndex) {
+		if (deviceIndex < 0 || deviceIndex >= additionalInfo.getDevicesCount()) {
+			throw new IllegalArgumentException("Invalid device index: " + deviceIndex);
+		}
+		devices[index] = deviceIndex;
+	}
+
+	/**
+	 * Replaces the whole set of pieces; the modules must be the same, in the same
+	 * order.
+	 */
+	@Override
+	public void setPieces(List<PieceOfSolution> pieces) {
+		if (pieces == piecesView) {
+			return;
+		}
+		if (pieces.size() != modules.length) {
+			throw new IllegalArgumentException(
+					"Different amount of pieces: " + pieces.size() + ", expected: " + modules.length);
+		}
+		for (int i = 0; i < modules.length; i++) {
+			this.getPieces().set(i, pieces.get(i));
+		}
+	}
+
+	/**
+	 * Swaps the device of the given position with the other solution, which must
+	 * deploy the same modules (see {@link #hasSameModules(CompactSolution)}).
+	 */
+	public void swapDevice(CompactSolution other, int index) {
+		int temp;
+		temp = this.devices[index];
+		this.devices[index] = other.devices[index];
+		other.devices[index] = temp;
+	}
+
+	//
+
+	/**
+	 * @return a copy of this solution, sharing the array of modules
+	 */
+	public CompactSolution copy() {
+		return new CompactSolution(additionalInfo, modules, devices.clone());
+	}
+
+	/**
+	 * @return the "object" form of this solution: a new list of new pieces
+	 */
+	public List<PieceOfSolution> toPieces() {
+		List<PieceOfSolution> pieces;
+		pieces = new ArrayList<>(devices.length);
+		for (int i = 0; i < devices.length; i++) {
+			pieces.add(new PieceOfSolution(getModule(i), getDevice(i)));
+		}
+		return pieces;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.hashCode(devices);
+		result = prime * result + Arrays.hashCode(modules);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CompactSolution))
+			return false;
+		CompactSolution other = (CompactSolution) obj;
+		return additionalInfo == other.additionalInfo && hasSameModules(other)
+				&& Arrays.equals(devices, other.devices);
+	}
+
+	@Override
+	public String toString() {
+		return "CompactSolution [modules=" + Arrays.toString(modules) + ", devices=" + Arrays.toString(devices)
+				+ "]";
+	}
+
+	//
+
+	protected class PiecesView extends AbstractList<PieceOfSolution> implements RandomAccess {
+
+		@Override
+		public PieceOfSolution get(int index) {
+			return new PieceOfSolution(getModule(index), getDevice(index));
+		}
+
+		@Override
+		public int size() {
+			return devices.length;
+		}
+
+		@Override
+		public PieceOfSolution set(int index, PieceOfSolution element) {
+			int deviceIndex;
+			PieceOfSolution previous;
+			if (element.getModule() != getModule(index)) {
+				throw new IllegalArgumentException("The module of the piece at index " + index
+						+ " can't be changed, from: " + getModule(index).getName() + ", to: "
+						+ (element.getModule() == null ? null : element.getModule().getName()));
+			}
+			deviceIndex = additionalInfo.getDeviceIndex(element.getDevice());
+			if (deviceIndex < 0) {
+				throw new IllegalArgumentException("Unknown device: "
+						+ (element.getDevice() == null ? null : element.getDevice().getName()));
+			}
+			previous = get(index);
+			devices[index] = deviceIndex;
+			return previous;
+		}
+
+		/** As {@link List#hashCode()}, without creating the pieces. */
+		@Override
+		public int hashCode() {
+			int hash;
+			hash = 1;
+			for (int i = 0; i < devices.length; i++) {
+				hash = 31 * hash + PieceOfSolution.hashCode(getModule(i), getDevice(i));
+			}
+			return hash;
+		}
+
+		/** As {@link List#equals(Object)}, without creating the pieces. */
+		@Override
+		public boolean equals(Object o) {
+			List<?> others;
+			CompactSolution other;
+			if (o == this) {
+				return true;
+			}
+			if (o instanceof CompactSolution.PiecesView) {
+				other = ((PiecesView) o).getSolution();
+				if (other.additionalInfo == additionalInfo) {
+					return hasSameModules(other) && Arrays.equals(devices, other.devices);
+				}
+			}
+			if (!(o instanceof List)) {
+				return false;
+			}
+			others = (List<?>) o;
+			if (others.size() != devices.length) {
+				return false;
+			}
+			for (int i = 0; i < devices.length; i++) {
+				Object e;
+				PieceOfSolution piece;
+				e = others.get(i);
+				if (!(e instanceof PieceOfSolution)) {
+					return false;
+				}
+				piece = (PieceOfSolution) e;
+				if (!Objects.equals(piece.getModule(), getModule(i)) || !Objects.equals(piece.getDevice(), getDevice(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		protected CompactSolution getSolution() {
+			return CompactSolution.this;
+		}
+	}
+}
@@ -0,0 +1,408 @@
+package org.fog.heuristics.fogImplementations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.fog.heuristics.SolutionsProducerEvaluator;
+
+/**
+ * Island model: several {@link HeuristicFog}s (the "islands", each one created
+ * by a {@link HeuristicFogFactory}, for instance a genetic algorithm or a
+ * simulated annealing) optimize the placement concurrently, each one with its
+ * own {@link Random} (seeded by the one given to
+ * {@link #optimize(SolutionModulesDeployed, int, Random)}).
+ * <p>
+ * The optimization proceeds by epochs of {@link #getMigrationInterval()}
+ * iterations: at the end of each epoch, each island receives the best
+ * solutions of its neighbours (see {@link MigrationTopology}) and starts the
+ * next epoch from the best one between them and its own. The best solution is
+ * the one having the lowest
+ * {@link SolutionsProducerEvaluator#evaluateSolution(SolutionModulesDeployed, ModulePlacementAdditionalInformationFog)},
+ * as it measures times and energy.<br>
+ * Since the migrations happen only at the end of the epochs and each island has
+ * its own random source, the result does not depend on the scheduling of the
+ * threads.
+ * <p>
+ * The statistics of each island about the last optimization are provided by
+ * {@link #getIslandsStatistics()}.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ */
+public class IslandModelFog implements HeuristicFog {
+
+	public static enum MigrationTopology {
+		/** Each island receives the best solution of the previous one. */
+		Ring,
+		/** Each island receives the best solution of every other one. */
+		AllToAll;
+	}
+
+	public IslandModelFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo,
+			List<? extends HeuristicFogFactory> islandsFactories) {
+		super();
+		Objects.requireNonNull(islandsFactories);
+		if (islandsFactories.isEmpty()) {
+			throw new IllegalArgumentException("At least an island is required");
+		}
+		this.modPlacementAdditionalInfo = modPlacementAdditionalInfo;
+		this.islandsFactories = new ArrayList<>(islandsFactories);
+		this.topology = MigrationTopology.Ring;
+		this.migrationInterval = 10;
+		this.executor = null;
+		this.islandsStatistics = Collections.emptyList();
+	}
+
+	protected ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo;
+	protected final List<HeuristicFogFactory> islandsFactories;
+	protected MigrationTopology topology;
+	protected int migrationInterval;
+	protected Executor executor;
+	protected List<IslandStatistics> islandsStatistics;
+
+	//
+
+	@Override
+	public ModulePlacementAdditionalInformationFog getModPlacementAdditionalInfo() {
+		return modPlacementAdditionalInfo;
+	}
+
+	public List<HeuristicFogFactory> getIslandsFactories() {
+		return Collections.unmodifiableList(islandsFactories);
+	}
+
+	public MigrationTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Amount of iterations each island performs between two migrations.
+	 */
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	/**
+	 * The executor running the islands. If {@code null} (the default), a pool of
+	 * at most one thread per island and per available processor is created for
+	 * each optimization.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @return the statistics of each island, about the last optimization
+	 */
+	public List<IslandStatistics> getIslandsStatistics() {
+		return islandsStatistics;
+	}
+
+	@Override
+	public HeuristicType getHeuristicType() {
+		return HeuristicType.PopulationBased;
+	}
+
+	//
+
+	@Override
+	public void setModPlacementAdditionalInfo(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo) {
+		this.modPlacementAdditionalInfo = modPlacementAdditionalInfo;
+	}
+
+	public void setTopology(MigrationTopology topology) {
+		this.topology = Objects.requireNonNull(topology);
+	}
+
+	public void setMigrationInterval(int migrationInterval) {
+		if (migrationInterval < 1) {
+			throw new IllegalArgumentException("The migration interval should be positive: " + migrationInterval);
+		}
+		this.migrationInterval = migrationInterval;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	//
+
+	@Override
+	public double evaluateSolution(SolutionModulesDeployed solution) {
+		return SolutionsProducerEvaluator.evaluateSolution(solution, this.modPlacementAdditionalInfo);
+	}
+
+	/**
+	 * Runs the islands for {@code maxIterations} iterations (at least one epoch),
+	 * returning the best solution found by any of them.
+	 */
+	@Override
+	public SolutionModulesDeployed optimize(SolutionModulesDeployed initialGuess, int maxIterations, Random r) {
+		int epochs;
+		Executor ex;
+		ExecutorService ownPool;
+		final Island[] islands;
+		Island best;
+
+		Objects.requireNonNull(r);
+		islands = new Island[this.islandsFactories.size()];
+		for (int i = 0; i < islands.length; i++) {
+			islands[i] = new Island(i, this.islandsFactories.get(i).newInstance(this.modPlacementAdditionalInfo),
+					r.nextLong());
+			if (initialGuess != null && initialGuess.getPieces() != null && !initialGuess.getPieces().isEmpty()) {
+				islands[i].start = copyOf(initialGuess);
+			}
+		}
+		epochs = Math.max(1, (maxIterations + this.migrationInterval - 1) / this.migrationInterval);
+
+		ownPool = null;
+		ex = this.executor;
+		if (ex == null && islands.length > 1) {
+			ex = ownPool = Executors.newFixedThreadPool(
+					Math.min(islands.length, Runtime.getRuntime().availableProcessors()), runnable -> {
+						Thread t;
+						t = new Thread(runnable, "island");
+						t.setDaemon(true);
+						return t;
+					});
+		}
+		try {
+			for (int epoch = 0; epoch < epochs; epoch++) {
+				runIslands(islands, ex);
+				if (epoch < epochs - 1) {
+					migrate(islands);
+				}
+			}
+		} finally {
+			if (ownPool != null) {
+				ownPool.shutdown();
+			}
+		}
+
+		best = null;
+		this.islandsStatistics = new ArrayList<>(islands.length);
+		for (Island island : islands) {
+			island.statistics.epochs = epochs;
+			this.islandsStatistics.add(island.statistics);
+			if (island.best != null && (best == null || island.bestEvaluation < best.bestEvaluation)) {
+				best = island;
+			}
+		}
+		this.islandsStatistics = Collections.unmodifiableList(this.islandsStatistics);
+		return best == null ? initialGuess : best.best;
+	}
+
+	protected void runIslands(Island[] islands, Executor ex) {
+		CompletableFuture<?>[] tasks;
+		if (ex == null) {
+			for (Island island : islands) {
+				island.evolve(this.migrationInterval);
+			}
+			return;
+		}
+		tasks = new CompletableFuture<?>[islands.length];
+		for (int i = 0; i < islands.length; i++) {
+			final Island island = islands[i];
+			tasks[i] = CompletableFuture.runAsync(() -> island.evolve(this.migrationInterval), ex);
+		}
+		try {
+			CompletableFuture.allOf(tasks).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Each island starts the next epoch from the best solution between its own
+	 * and the ones of its neighbours, which becomes its own best. Migrants are
+	 * copied, since the heuristics may modify their initial guess.
+	 */
+	protected void migrate(Island[] islands) {
+		int n, fittest;
+		final double[] evaluations;
+		final SolutionModulesDeployed[] bests;
+		// snapshot, so that the order of the islands does not matter
+		n = islands.length;
+		evaluations = new double[n];
+		bests = new SolutionModulesDeployed[n];
+		for (int i = 0; i < n; i++) {
+			bests[i] = islands[i].best;
+			evaluations[i] = islands[i].bestEvaluation;
+		}
+		for (int i = 0; i < n; i++) {
+			Island island;
+			island = islands[i];
+			fittest = -1;
+			if (this.topology == MigrationTopology.Ring) {
+				fittest = (i + n - 1) % n;
+			} else {
+				for (int j = 0; j < n; j++) {
+					if (j != i && bests[j] != null && (fittest < 0 || evaluations[j] < evaluations[fittest])) {
+						fittest = j;
+					}
+				}
+			}
+			if (fittest >= 0 && fittest != i && bests[fittest] != null
+					&& (island.best == null || evaluations[fittest] < island.bestEvaluation)) {
+				island.start = island.best = copyOf(bests[fittest]);
+				island.bestEvaluation = evaluations[fittest];
+				island.statistics.bestEvaluation = island.bestEvaluation;
+				island.statistics.migrantsAccepted++;
+			} else {
+				island.start = island.best;
+			}
+		}
+	}
+
+	protected SolutionModulesDeployed copyOf(SolutionModulesDeployed solution) {
+		List<PieceOfSolution> pieces;
+		CompactSolution compact;
+		compact = CompactSolution.encode(solution, this.modPlacementAdditionalInfo);
+		if (compact != null) {
+			return compact;
+		}
+		pieces = new ArrayList<>(solution.getPieces().size());
+		for (PieceOfSolution pos : solution.getPieces()) {
+			pieces.add((PieceOfSolution) pos.clone());
+		}
+		return new MigrantSolution(pieces);
+	}
+
+	//
+
+	protected class Island {
+		protected final HeuristicFog heuristic;
+		protected final Random random;
+		protected final IslandStatistics statistics;
+		/** The solution the next epoch starts from */
+		protected SolutionModulesDeployed start;
+		protected SolutionModulesDeployed best;
+		protected double bestEvaluation;
+
+		protected Island(int index, HeuristicFog heuristic, long seed) {
+			this.heuristic = heuristic;
+			this.random = new Random(seed);
+			this.statistics = new IslandStatistics(index, heuristic.getClass().getSimpleName(), seed);
+			this.start = null;
+			this.best = null;
+			this.bestEvaluation = Double.POSITIVE_INFINITY;
+		}
+
+		protected void evolve(int iterations) {
+			long startTime;
+			double evaluation;
+			SolutionModulesDeployed solution;
+			startTime = System.nanoTime();
+			solution = this.heuristic.optimize(this.start, iterations, this.random);
+			if (solution != null && solution.getPieces() != null && !solution.getPieces().isEmpty()) {
+				evaluation = evaluateSolution(solution);
+				if (this.best == null || evaluation < this.bestEvaluation) {
+					this.best = solution;
+					this.bestEvaluation = evaluation;
+					this.statistics.improvements++;
+				}
+			}
+			this.statistics.bestEvaluation = this.bestEvaluation;
+			this.statistics.elapsedNanoseconds += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * What an island has done during an optimization.
+	 */
+	public static class IslandStatistics {
+		protected final int index;
+		protected final String heuristicName;
+		protected final long seed;
+		protected int epochs, improvements, migrantsAccepted;
+		protected double bestEvaluation;
+		protected long elapsedNanoseconds;
+
+		public IslandStatistics(int index, String heuristicName, long seed) {
+			super();
+			this.index = index;
+			this.heuristicName = heuristicName;
+			this.seed = seed;
+			this.epochs = this.improvements = this.migrantsAccepted = 0;
+			this.bestEvaluation = Double.POSITIVE_INFINITY;
+			this.elapsedNanoseconds = 0;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public String getHeuristicName() {
+			return heuristicName;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public int getEpochs() {
+			return epochs;
+		}
+
+		/** Amount of epochs that improved the island's best solution */
+		public int getImprovements() {
+			return improvements;
+		}
+
+		/** Amount of epochs started from a neighbour's solution */
+		public int getMigrantsAccepted() {
+			return migrantsAccepted;
+		}
+
+		public double getBestEvaluation() {
+			return bestEvaluation;
+		}
+
+		/** Time spent by the heuristic, summed over the epochs */
+		public long getElapsedNanoseconds() {
+			return elapsedNanoseconds;
+		}
+
+		@Override
+		public String toString() {
+			return "IslandStatistics [index=" + index + ", heuristic=" + heuristicName + ", seed=" + seed + ", epochs="
+					+ epochs + ", improvements=" + improvements + ", migrantsAccepted=" + migrantsAccepted
+					+ ", bestEvaluation=" + bestEvaluation + ", elapsedMilliseconds="
+					+ (elapsedNanoseconds / 1000000) + "]";
+		}
+	}
+
+	/** A plain copy of a solution that can't be encoded as a {@link CompactSolution} */
+	protected static class MigrantSolution implements SolutionModulesDeployed {
+		private static final long serialVersionUID = 4305121066738419853L;
+		protected List<PieceOfSolution> pieces;
+
+		public MigrantSolution(List<PieceOfSolution> pieces) {
+			super();
+			this.pieces = pieces;
+		}
+
+		@Override
+		public List<PieceOfSolution> getPieces() {
+			return pieces;
+		}
+
+		@Override
+		public void setPieces(List<PieceOfSolution> pieces) {
+			this.pieces = pieces;
+		}
+	}
+}
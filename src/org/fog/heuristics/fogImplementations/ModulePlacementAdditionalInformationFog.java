@@ -1,11 +1,14 @@
 package org.fog.heuristics.fogImplementations;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.apache.commons.math3.util.Pair;
 import org.fog.application.AppModule;
@@ -54,6 +57,15 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 	protected ListDevices[] devicesPartitions;
 	protected ModuleMapping allowedModulesOnDeviceAssociation;
 	protected DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes;
+	/**
+	 * Dense tables of the modules (in the same order of {@link #modules}) and of
+	 * the devices (ordered by name), used by {@link CompactSolution}. Built
+	 * lazily, since the lists may be filled after the construction of this
+	 * instance, and built again if the lists are replaced or resized.
+	 */
+	protected volatile IndexTable<AppModule> modulesTable;
+	protected volatile IndexTable<FogDevice> devicesTable;
+	protected volatile CandidateDevicesIndex candidateDevicesIndex;
 
 	/**
 	 * The key is the AppModule's name
@@ -149,6 +161,96 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 		return devicesByName;
 	}
 
+	/**
+	 * @return the index of the devices that can host each module, rebuilt when the
+	 *         devices, the modules or the applications change
+	 */
+	public CandidateDevicesIndex getCandidateDevicesIndex() {
+		CandidateDevicesIndex index;
+		index = this.candidateDevicesIndex;
+		if (index == null || index.getDevicesPartitions() != this.devicesPartitions) {
+			this.candidateDevicesIndex = index = new CandidateDevicesIndex(this);
+		}
+		return index;
+	}
+
+	public int getModulesCount() {
+		return getModulesTable().elements.length;
+	}
+
+	public int getDevicesCount() {
+		return getDevicesTable().elements.length;
+	}
+
+	/**
+	 * @return the index of the given module in the dense table of modules (the
+	 *         same of {@link #getModules()}), or {@code -1} if it's unknown
+	 */
+	public int getModuleIndex(AppModule module) {
+		return getModulesTable().indexOf(module);
+	}
+
+	/**
+	 * @return the index of the given device in the dense table of devices (ordered
+	 *         by name), or {@code -1} if it's unknown
+	 */
+	public int getDeviceIndex(FogDevice device) {
+		return getDevicesTable().indexOf(device);
+	}
+
+	/**
+	 * @return the module having the given index, see
+	 *         {@link #getModuleIndex(AppModule)}
+	 */
+	public AppModule getModule(int index) {
+		return getModulesTable().elements[index];
+	}
+
+	/**
+	 * @return the device having the given index, see
+	 *         {@link #getDeviceIndex(FogDevice)}
+	 */
+	public FogDevice getDevice(int index) {
+		return getDevicesTable().elements[index];
+	}
+
+	/**
+	 * Devices sharing the same name are considered as the same one by the
+	 * evaluations keyed by name (like
+	 * {@link SolutionsProducerEvaluator#evaluateDifference(SolutionModulesDeployed, SolutionModulesDeployed)}):
+	 * being ordered by name, they have adjacent indexes.
+	 * 
+	 * @return the lowest index of the devices having the same name of the device
+	 *         at the given index
+	 */
+	public int getDeviceNameIndex(int index) {
+		return getDevicesTable().nameIndexes[index];
+	}
+
+	protected IndexTable<AppModule> getModulesTable() {
+		IndexTable<AppModule> t;
+		t = this.modulesTable;
+		if (t == null || t.source != modules || t.elements.length != (modules == null ? 0 : modules.size())) {
+			this.modulesTable = t = new IndexTable<>(modules,
+					modules == null ? new AppModule[0] : modules.toArray(new AppModule[modules.size()]),
+					AppModule::getName);
+		}
+		return t;
+	}
+
+	protected IndexTable<FogDevice> getDevicesTable() {
+		FogDevice[] d;
+		IndexTable<FogDevice> t;
+		t = this.devicesTable;
+		if (t == null || t.source != devices || t.elements.length != (devices == null ? 0 : devices.size())) {
+			d = devices == null ? new FogDevice[0] : devices.toArray(new FogDevice[devices.size()]);
+			// by name, as the maps of modules of each device built by the evaluations
+			Arrays.sort(d, (d1, d2) -> d1.getName().compareTo(d2.getName()));
+			this.devicesTable = t = new IndexTable<>(devices, d, FogDevice::getName);
+		}
+		return t;
+	}
+
 //
 
 	/**
@@ -156,6 +258,8 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 	 */
 	public void setModules(List<AppModule> modules) {
 		this.modules = modules;
+		this.modulesTable = null;
+		this.candidateDevicesIndex = null;
 	}
 
 	/**
@@ -163,6 +267,7 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 	 */
 	public void setApplicationsByID(Map<String, Application> applicationsByID) {
 		this.applicationsByID = applicationsByID;
+		this.candidateDevicesIndex = null;
 	}
 
 	/**
@@ -170,6 +275,8 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 	 */
 	public void setDevices(List<FogDevice> devices) {
 		this.devices = devices;
+		this.devicesTable = null;
+		this.candidateDevicesIndex = null;
 		if (this.devicesPartitions != null && devices == null) {
 			for (ListDevices ld : this.devicesPartitions) {
 				ld.clear();
@@ -287,6 +394,44 @@ public class ModulePlacementAdditionalInformationFog implements ModulePlacementA
 
 	//
 
+	/**
+	 * Immutable dense table: each element has an index, its position in the
+	 * array. Names may be shared by different elements.
+	 */
+	protected static class IndexTable<T> {
+		/** The list the table has been built from, by identity */
+		protected final List<T> source;
+		protected final T[] elements;
+		/** The key is the element itself, by identity */
+		protected final Map<T, Integer> indexes;
+		/** For each element, the index of the first one having its name */
+		protected final int[] nameIndexes;
+
+		protected IndexTable(List<T> source, T[] elements, Function<T, String> namer) {
+			Map<String, Integer> firstByName;
+			this.source = source;
+			this.elements = elements;
+			this.indexes = new IdentityHashMap<>(elements.length);
+			this.nameIndexes = new int[elements.length];
+			firstByName = new HashMap<>();
+			for (int i = 0; i < elements.length; i++) {
+				this.indexes.put(elements[i], i);
+				firstByName.putIfAbsent(namer.apply(elements[i]), i);
+				this.nameIndexes[i] = firstByName.get(namer.apply(elements[i]));
+			}
+		}
+
+		/** @return the index of the given element, {@code -1} if not held */
+		protected int indexOf(T element) {
+			Integer index;
+			if (element == null) {
+				return -1;
+			}
+			index = indexes.get(element);
+			return index == null ? -1 : index;
+		}
+	}
+
 	/**
 	 * Defines a map storing the latency information (in milliseconds): the latency
 	 * between an ordered pair of {@link FogDevice}
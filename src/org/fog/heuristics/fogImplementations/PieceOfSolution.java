@@ -46,6 +46,14 @@ public class PieceOfSolution implements Cloneable {
 
 	@Override
 	public int hashCode() {
+		return hashCode(module, device);
+	}
+
+	/**
+	 * @return the hash code of a piece deploying the given module on the given
+	 *         device, without creating it
+	 */
+	public static int hashCode(AppModule module, FogDevice device) {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((device == null) ? 0 : device.hashCode());
@@ -34,5 +34,13 @@ public interface SolutionModulesDeployed extends Serializable, Supplier<List<Pie
 
 	public List<PieceOfSolution> getPieces();
 
+	/**
+	 * @return the primitive encoding of this solution, if it's backed by one,
+	 *         {@code null} otherwise
+	 */
+	public default CompactSolution getCompactSolution() {
+		return null;
+	}
+
 	public void setPieces(List<PieceOfSolution> pieces);
 }
\ No newline at end of file
@@ -32,9 +32,8 @@ public class SolutionMutatorFog<S extends SolutionModulesDeployed> implements So
 	@Override
 	public PieceOfSolution mutateFragmentOfSolution(PieceOfSolution originalFragment, S solutionContext,
 			Heuristic<S> heuristicContext, Random r) {
-		return SolutionsProducerEvaluator.newRandomPieceOfSolution(getApplicationsSubmitted(),
-				originalFragment.getModule(), getDevicesPartitions(), getDevices(), r,
-				this.costsSolutions.get(solutionContext), null);
+		return SolutionsProducerEvaluator.newRandomPieceOfSolution(this.modPlacementAdditionalInfo,
+				originalFragment.getModule(), r, this.costsSolutions.get(solutionContext));
 	}
 
 	protected ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo;
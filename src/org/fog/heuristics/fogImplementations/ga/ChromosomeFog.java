@@ -2,7 +2,10 @@ package org.fog.heuristics.fogImplementations.ga;
 
 import java.util.List;
 
+import org.fog.heuristics.IncrementalSolutionEvaluator;
 import org.fog.heuristics.algorithms.ga.Chromosome;
+import org.fog.heuristics.fogImplementations.CompactSolution;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
 import org.fog.heuristics.fogImplementations.PieceOfSolution;
 import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
 
@@ -18,6 +21,16 @@ public class ChromosomeFog extends Chromosome<PieceOfSolution> implements Soluti
 	}
 
 	protected List<PieceOfSolution> pieces;
+	/**
+	 * The primitive encoding backing {@link #pieces} (which is then its view), if
+	 * any: see {@link #compact(ModulePlacementAdditionalInformationFog)}.
+	 */
+	protected CompactSolution compact;
+	/**
+	 * The evaluator of this chromosome or of one of its ancestors, used to
+	 * evaluate it incrementally
+	 */
+	protected transient IncrementalSolutionEvaluator evaluator;
 
 	//
 
@@ -25,6 +38,14 @@ public class ChromosomeFog extends Chromosome<PieceOfSolution> implements Soluti
 		return this;
 	}
 
+	public IncrementalSolutionEvaluator getEvaluator() {
+		return evaluator;
+	}
+
+	public void setEvaluator(IncrementalSolutionEvaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
 	@Override
 	public List<PieceOfSolution> getGenes() {
 		return this.pieces;
@@ -35,11 +56,36 @@ public class ChromosomeFog extends Chromosome<PieceOfSolution> implements Soluti
 		return pieces;
 	}
 
+	@Override
+	public CompactSolution getCompactSolution() {
+		return compact;
+	}
+
+	/**
+	 * Replaces the genes with their primitive encoding (see
+	 * {@link CompactSolution}), making the clones and the crossovers cheaper. The
+	 * genes are then a view of it.
+	 *
+	 * @return {@code true} if this chromosome is backed by a primitive encoding
+	 */
+	public boolean compact(ModulePlacementAdditionalInformationFog additionalInfo) {
+		CompactSolution c;
+		if (this.compact == null && this.pieces != null) {
+			c = CompactSolution.encode(this, additionalInfo);
+			if (c != null) {
+				this.compact = c;
+				this.pieces = c.getPieces();
+			}
+		}
+		return this.compact != null;
+	}
+
 	//
 
 	public void setSolution(SolutionModulesDeployed solution) {
 		if (solution != null) {
 			this.pieces = solution.getPieces();
+			this.compact = solution.getCompactSolution();
 		}
 	}
 
@@ -50,8 +96,9 @@ public class ChromosomeFog extends Chromosome<PieceOfSolution> implements Soluti
 
 	@Override
 	public void setPieces(List<PieceOfSolution> pieces) {
-		if (pieces != null) {
+		if (pieces != null && pieces != this.pieces) {
 			this.pieces = pieces;
+			this.compact = null;
 		}
 	}
 
@@ -65,6 +112,31 @@ public class ChromosomeFog extends Chromosome<PieceOfSolution> implements Soluti
 		return c;
 	}
 
+	@Override
+	protected void swapGene(Chromosome<PieceOfSolution> c, int index) {
+		CompactSolution other;
+		other = ((ChromosomeFog) c).compact;
+		if (this.compact != null && this.compact.hasSameModules(other)) {
+			this.compact.swapDevice(other, index);
+		} else {
+			super.swapGene(c, index);
+		}
+	}
+
+	@Override
+	public Object clone() {
+		ChromosomeFog c;
+		if (this.compact != null) {
+			c = new ChromosomeFog();
+			c.compact = this.compact.copy();
+			c.pieces = c.compact.getPieces();
+		} else {
+			c = (ChromosomeFog) super.clone();
+		}
+		c.evaluator = this.evaluator;
+		return c;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder(1024);
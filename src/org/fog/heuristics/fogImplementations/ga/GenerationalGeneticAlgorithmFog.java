@@ -0,0 +1,66 @@
+package org.fog.heuristics.fogImplementations.ga;
+
+import java.util.Random;
+
+import org.fog.heuristics.SolutionsProducerEvaluator;
+import org.fog.heuristics.algorithms.ga.GenerationalGeneticAlgorithm;
+import org.fog.heuristics.algorithms.ga.GenerationalGeneticAlgorithm.SelectionType;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.PieceOfSolution;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+import org.fog.heuristics.fogImplementations.SolutionMutatorFog;
+
+/**
+ * {@link GeneticAlgorithmFog} evolving the whole population at each generation
+ * (see {@link GenerationalGeneticAlgorithm}), using {@link #elitism} and
+ * {@link #crossoverRate}.
+ *
+ * @author marcoottina (marco.1995.ottina@gmail.com )
+ *
+ */
+public class GenerationalGeneticAlgorithmFog extends GeneticAlgorithmFog {
+
+	protected final GenerationalGeneticAlgorithm<PieceOfSolution, ChromosomeFog> generational;
+
+	public GenerationalGeneticAlgorithmFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo) {
+		super(modPlacementAdditionalInfo);
+		this.generational = new GenerationalGeneticAlgorithm<>(this.ga);
+		this.generational.setElitism(this.elitism);
+		this.generational.setCrossoverRate(this.crossoverRate);
+	}
+
+	public GenerationalGeneticAlgorithmFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo,
+			SolutionMutatorFog<ChromosomeFog> mutationProvider) {
+		this(modPlacementAdditionalInfo);
+		if (mutationProvider != null) {
+			this.setMutationProvider(mutationProvider);
+		}
+	}
+
+	//
+
+	public GenerationalGeneticAlgorithm<PieceOfSolution, ChromosomeFog> getGenerationalAlgorithm() {
+		return generational;
+	}
+
+	public void setSelectionType(SelectionType selectionType) {
+		this.generational.setSelectionType(selectionType);
+	}
+
+	//
+
+	@Override
+	public SolutionModulesDeployed optimize(SolutionModulesDeployed initialGuess, int maxIterations, Random r) {
+		ChromosomeFog best;
+		if (initialGuess == null || initialGuess.getPieces().isEmpty()) {
+			best = SolutionsProducerEvaluator
+					.newRandomSolution(getApplicationsSubmitted(), getModules(), getDevices(), r, ChromosomeFog::new)
+					.getFirst();
+		} else {
+			best = new ChromosomeFog();
+			best.setSolution(initialGuess);
+		}
+		best = this.generational.optimize(best, maxIterations, r);
+		return best == null ? initialGuess : best.getSolution();
+	}
+}
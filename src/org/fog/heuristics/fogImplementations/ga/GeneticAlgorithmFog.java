@@ -4,11 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.math3.util.Pair;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.FogDevice;
+import org.fog.heuristics.IncrementalSolutionEvaluator;
 import org.fog.heuristics.SolutionMutator;
 import org.fog.heuristics.SolutionsProducerEvaluator;
 import org.fog.heuristics.SolutionsProducerEvaluator.SolutionDeployCosts;
@@ -70,6 +73,13 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 		return this.ga.getApplicationsSubmitted();
 	}
 
+	/**
+	 * See {@link GeneticAlgorithm#getExecutor()}
+	 */
+	public Executor getExecutor() {
+		return this.ga.getExecutor();
+	}
+
 	@Override
 	public HeuristicType getHeuristicType() {
 		return this.ga.getHeuristicType();
@@ -97,6 +107,17 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 		this.ga.setMutationProvider(mutator);
 	}
 
+	/**
+	 * Samples and evaluates the population concurrently, through the given
+	 * {@link Executor} (for instance, a {@link java.util.concurrent.ForkJoinPool}).
+	 * See {@link GeneticAlgorithm#setExecutor(Executor)}.
+	 * 
+	 * @param executor the executor, {@code null} to run sequentially
+	 */
+	public void setExecutor(Executor executor) {
+		this.ga.setExecutor(executor);
+	}
+
 	/**
 	 * @param modPlacementAdditionalInfo the modPlacementAdditionalInfo to set
 	 */
@@ -219,9 +240,27 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 			this.modPlacementAdditionalInfo = modPlacementAdditionalInfo;
 		}
 
+		/**
+		 * Children differing from an ancestor in a few genes are evaluated
+		 * incrementally, through the ancestor's {@link IncrementalSolutionEvaluator}.
+		 */
 		@Override
 		public double evaluateSolution(ChromosomeFog solution) {
-			return SolutionsProducerEvaluator.evaluateSolution(solution, this.getModPlacementAdditionalInfo());
+			int differences;
+			IncrementalSolutionEvaluator evaluator;
+			if (solution == null || solution.getPieces() == null) {
+				return 0.0;
+			}
+			evaluator = solution.getEvaluator();
+			if (evaluator != null) {
+				differences = evaluator.countDifferences(solution);
+				if (differences >= 0 && differences <= (evaluator.size() >> 2)) {
+					return evaluator.evaluateVariant(solution);
+				}
+			}
+			evaluator = new IncrementalSolutionEvaluator(solution, this.getModPlacementAdditionalInfo());
+			solution.setEvaluator(evaluator);
+			return evaluator.getEvaluation();
 		}
 
 		@Override
@@ -233,7 +272,7 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 
 		@Override
 		public List<ChromosomeFog> samplePopulation(ChromosomeFog initialGuess, Random r) {
-			int chrToGenerate, attemptsLeft;
+			int chrToGenerate;
 			List<ChromosomeFog> population;
 
 			population = new ArrayList<ChromosomeFog>(this.populationSize);
@@ -242,17 +281,37 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 				chrToGenerate = this.populationSize;
 			} else {
 				chrToGenerate = (this.populationSize - 1);
+				initialGuess.compact(this.modPlacementAdditionalInfo);
 				population.add(initialGuess);
 			}
 
+			if (this.isParallel() && chrToGenerate > 1) {
+				final Random[] randoms;
+				final List<Pair<ChromosomeFog, SolutionDeployCosts<ChromosomeFog>>> sampled;
+				final SplittableRandom splitter;
+
+				// each chromosome has its own random source, to be independent of the scheduling
+				splitter = new SplittableRandom(r.nextLong());
+				randoms = new Random[chrToGenerate];
+				sampled = new ArrayList<>(chrToGenerate);
+				for (int i = 0; i < chrToGenerate; i++) {
+					randoms[i] = new Random(splitter.split().nextLong());
+					sampled.add(null);
+				}
+				this.runInParallel(chrToGenerate, i -> sampled.set(i, newRandomChromosome(randoms[i])));
+				// the mutator's cache is not synchronized
+				for (Pair<ChromosomeFog, SolutionDeployCosts<ChromosomeFog>> p : sampled) {
+					if (p != null) {
+						population.add(p.getFirst());
+						this.getSolutionMutatorFog().saveSolutionCostsInCache(p.getFirst(), p.getSecond());
+					}
+				}
+				return population;
+			}
+
 			while (--chrToGenerate >= 0) {
 				Pair<ChromosomeFog, SolutionDeployCosts<ChromosomeFog>> p;
-				attemptsLeft = 16;
-				do {
-					p = SolutionsProducerEvaluator.newRandomSolution(getApplicationsSubmitted(), this.getModules(),
-							this.getDevices(), r, modPlacementAdditionalInfo.getDevicesPartitions(),
-							ChromosomeFog::new);
-				} while (p == null && (attemptsLeft-- > 0));
+				p = newRandomChromosome(r);
 				if (p != null) {
 					population.add(p.getFirst());
 					this.getSolutionMutatorFog().saveSolutionCostsInCache(p.getFirst(), p.getSecond());
@@ -262,6 +321,20 @@ public class GeneticAlgorithmFog implements HeuristicFog {
 			return population;
 		}
 
+		protected Pair<ChromosomeFog, SolutionDeployCosts<ChromosomeFog>> newRandomChromosome(Random r) {
+			int attemptsLeft;
+			Pair<ChromosomeFog, SolutionDeployCosts<ChromosomeFog>> p;
+			attemptsLeft = 16;
+			do {
+				p = SolutionsProducerEvaluator.newRandomSolution(this.modPlacementAdditionalInfo, r,
+						ChromosomeFog::new);
+			} while (p == null && (attemptsLeft-- > 0));
+			if (p != null) {
+				p.getFirst().compact(this.modPlacementAdditionalInfo);
+			}
+			return p;
+		}
+
 		@Override
 		public HeuristicType getHeuristicType() {
 			return HeuristicType.PopulationBased;
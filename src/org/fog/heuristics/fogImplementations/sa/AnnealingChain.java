@@ -0,0 +1,289 @@
+package org.fog.heuristics.fogImplementations.sa;
+
+import java.util.Random;
+
+import org.apache.commons.math3.util.Pair;
+import org.fog.entities.FogDevice;
+import org.fog.heuristics.IncrementalSolutionEvaluator;
+import org.fog.heuristics.SolutionsProducerEvaluator;
+import org.fog.heuristics.SolutionsProducerEvaluator.CumulatedCostsOnDevice;
+import org.fog.heuristics.SolutionsProducerEvaluator.SolutionDeployCosts;
+import org.fog.heuristics.fogImplementations.CandidateDevicesIndex;
+import org.fog.heuristics.fogImplementations.CandidateDevicesIndex.ModuleCandidates;
+import org.fog.heuristics.fogImplementations.CompactSolution;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+
+/**
+ * The state of an annealing: a {@link CompactSolution} modified in place, one
+ * move at a time, and its {@link IncrementalSolutionEvaluator}.
+ * <p>
+ * A neighbour is a move of a single module to another random device among its
+ * candidates (see {@link CandidateDevicesIndex}), as the ones produced by
+ * {@link SASolutionFog#randomWalk(Random, org.fog.heuristics.fogImplementations.SolutionMutatorFog, ModulePlacementAdditionalInformationFog)}:
+ * it is evaluated without being applied (see
+ * {@link IncrementalSolutionEvaluator#evaluateMove(int, FogDevice)}), so that
+ * no solution is cloned to explore a neighbourhood, and is applied only once
+ * accepted.<br>
+ * As the mutations of {@link SASolutionFog}, a move must keep the cumulated
+ * costs of the target device within its capabilities and the deadline of the
+ * application (see {@link ModuleCandidates#fits(CumulatedCostsOnDevice)}): the
+ * chain keeps the {@link CumulatedCostsOnDevice} of each device, and the moves
+ * that don't fit are discarded.<br>
+ * {@link #bestOfNeighbourhood(int, Random)} only reads the state: it can be
+ * invoked concurrently, each thread with its own {@link Random}, while
+ * {@link #anneal(Move, double, Random)} must not.
+ * <p>
+ * The best solution reached is tracked, see {@link #getBest()}.
+ */
+public class AnnealingChain {
+
+	/**
+	 * @param solution the initial solution, modified in place afterwards
+	 */
+	public AnnealingChain(CompactSolution solution) {
+		super();
+		int movables;
+		CandidateDevicesIndex index;
+
+		this.additionalInfo = solution.getAdditionalInfo();
+		this.current = solution;
+		this.evaluator = new IncrementalSolutionEvaluator(solution, this.additionalInfo);
+		this.energy = this.evaluator.getEvaluation();
+
+		index = this.additionalInfo.getCandidateDevicesIndex();
+		this.candidates = new ModuleCandidates[solution.size()];
+		this.movablePositions = new int[solution.size()];
+		movables = 0;
+		for (int i = 0; i < this.candidates.length; i++) {
+			this.candidates[i] = index.getCandidates(solution.getModule(i));
+			if (this.candidates[i] != null && this.candidates[i].size() > 0) {
+				this.movablePositions[movables++] = i;
+			}
+		}
+		this.movablesCount = movables;
+
+		this.costsEachDevice = new CumulatedCostsOnDevice[this.additionalInfo.getDevicesCount()];
+		for (int d = 0; d < this.costsEachDevice.length; d++) {
+			this.costsEachDevice[d] = newCumulatedCosts(d);
+		}
+		for (int i = 0; i < this.candidates.length; i++) {
+			if (this.candidates[i] != null) {
+				this.costsEachDevice[solution.getDeviceIndex(i)].accumulateCostsOf(this.candidates[i].module,
+						this.candidates[i].application);
+			}
+		}
+
+		this.best = solution.copy();
+		this.bestEnergy = this.energy;
+		this.acceptedMoves = 0;
+	}
+
+	protected final ModulePlacementAdditionalInformationFog additionalInfo;
+	protected final CompactSolution current;
+	protected final IncrementalSolutionEvaluator evaluator;
+	/** The candidates of the module of each position */
+	protected final ModuleCandidates[] candidates;
+	/** The positions whose module has at least a candidate device */
+	protected final int[] movablePositions;
+	protected final int movablesCount;
+	/** The costs cumulated on each device, by device index */
+	protected final CumulatedCostsOnDevice[] costsEachDevice;
+	protected double energy;
+	protected CompactSolution best;
+	protected double bestEnergy;
+	protected long acceptedMoves;
+
+	/**
+	 * Creates the chain annealing a copy of the given solution, or a random one if
+	 * {@code null} or empty.
+	 *
+	 * @return the chain, or {@code null} if the solution can't be encoded as a
+	 *         {@link CompactSolution}
+	 */
+	public static AnnealingChain newChain(SolutionModulesDeployed initialGuess,
+			ModulePlacementAdditionalInformationFog additionalInfo, Random r) {
+		CompactSolution compact;
+		if (initialGuess == null || initialGuess.getPieces() == null || initialGuess.getPieces().isEmpty()) {
+			Pair<SASolutionFog, SolutionDeployCosts<SASolutionFog>> p;
+			p = SolutionsProducerEvaluator.newRandomSolution(additionalInfo, r, SASolutionFog::new);
+			if (p == null) {
+				return null;
+			}
+			initialGuess = p.getFirst();
+		}
+		compact = CompactSolution.encode(initialGuess, additionalInfo);
+		return compact == null || compact.size() == 0 ? null : new AnnealingChain(compact);
+	}
+
+	//
+
+	/**
+	 * @return the energy (the evaluation) of the current solution
+	 */
+	public double getEnergy() {
+		return energy;
+	}
+
+	/**
+	 * @return a copy of the best solution reached so far
+	 */
+	public CompactSolution getBest() {
+		return best.copy();
+	}
+
+	public double getBestEnergy() {
+		return bestEnergy;
+	}
+
+	/**
+	 * @return {@code true} if at least a module has a candidate device
+	 */
+	public boolean hasMovableModules() {
+		return movablesCount > 0;
+	}
+
+	/**
+	 * @return the amount of moves applied by {@link #anneal(Move, double, Random)}
+	 */
+	public long getAcceptedMoves() {
+		return acceptedMoves;
+	}
+
+	//
+
+	/**
+	 * Draws the given amount of random neighbours of the current solution and
+	 * returns the one having the lowest energy (the first one, among equals), or
+	 * {@code null} if no module can be moved or none of the drawn moves fits its
+	 * target device.
+	 */
+	public Move bestOfNeighbourhood(int amount, Random r) {
+		int position;
+		double moveEnergy;
+		FogDevice device;
+		Move move;
+		if (this.movablesCount == 0) {
+			return null;
+		}
+		move = null;
+		while (amount-- > 0) {
+			position = this.movablePositions[r.nextInt(this.movablesCount)];
+			device = this.candidates[position].get(r.nextInt(this.candidates[position].size()));
+			if (!this.fits(position, device)) {
+				continue;
+			}
+			moveEnergy = this.evaluator.evaluateMove(position, device);
+			if (move == null) {
+				move = new Move(position, device, moveEnergy);
+			} else if (moveEnergy < move.energy) {
+				move.position = position;
+				move.device = device;
+				move.energy = moveEnergy;
+			}
+		}
+		return move;
+	}
+
+	/**
+	 * Applies the given move if it lowers the energy or, otherwise, with the
+	 * probability {@code exp(-delta / temperature)} (the Metropolis criterion).
+	 *
+	 * @return {@code true} if the move has been applied
+	 */
+	public boolean anneal(Move move, double temperature, Random r) {
+		int from, to;
+		double delta;
+		if (move == null) {
+			return false;
+		}
+		delta = move.energy - this.energy;
+		if (delta > 0.0 && (temperature <= 0.0 || r.nextDouble() >= Math.exp(-delta / temperature))) {
+			return false;
+		}
+		from = this.current.getDeviceIndex(move.position);
+		to = this.additionalInfo.getDeviceIndex(move.device);
+		this.evaluator.movePiece(move.position, move.device);
+		this.current.setDeviceIndex(move.position, to);
+		if (from != to) {
+			this.costsEachDevice[to].accumulateCostsOf(this.candidates[move.position].module,
+					this.candidates[move.position].application);
+			this.costsEachDevice[from] = this.cumulateCostsOn(from);
+		}
+		this.energy = this.evaluator.getEvaluation();
+		this.acceptedMoves++;
+		if (this.energy < this.bestEnergy) {
+			this.best = this.current.copy();
+			this.bestEnergy = this.energy;
+		}
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if the module at the given position can be moved to the
+	 *         given device, given the costs already cumulated on it
+	 */
+	protected boolean fits(int position, FogDevice device) {
+		int deviceIndex;
+		deviceIndex = this.additionalInfo.getDeviceIndex(device);
+		return deviceIndex == this.current.getDeviceIndex(position)
+				|| this.candidates[position].fits(this.costsEachDevice[deviceIndex]);
+	}
+
+	/**
+	 * @return the costs of the modules currently placed on the device having the
+	 *         given index.<br>
+	 *         Rebuilt, rather than updated, since
+	 *         {@link CumulatedCostsOnDevice#removeCostsOf(org.fog.application.AppModule, org.fog.application.Application)}
+	 *         only removes the costs it tracks by module.
+	 */
+	protected CumulatedCostsOnDevice cumulateCostsOn(int deviceIndex) {
+		CumulatedCostsOnDevice costs;
+		costs = newCumulatedCosts(deviceIndex);
+		for (int i = 0; i < this.candidates.length; i++) {
+			if (this.candidates[i] != null && this.current.getDeviceIndex(i) == deviceIndex) {
+				costs.accumulateCostsOf(this.candidates[i].module, this.candidates[i].application);
+			}
+		}
+		return costs;
+	}
+
+	protected CumulatedCostsOnDevice newCumulatedCosts(int deviceIndex) {
+		CumulatedCostsOnDevice costs;
+		costs = new CumulatedCostsOnDevice(this.additionalInfo.getDevice(deviceIndex));
+		// created now, not lazily by the concurrent neighbourhood explorations
+		costs.getApplicationModulesTimeTracker();
+		return costs;
+	}
+
+	//
+
+	/**
+	 * The move of the module at a position of the solution to another device, and
+	 * the energy it would lead to.
+	 */
+	public static class Move {
+		protected int position;
+		protected FogDevice device;
+		protected double energy;
+
+		public Move(int position, FogDevice device, double energy) {
+			super();
+			this.position = position;
+			this.device = device;
+			this.energy = energy;
+		}
+
+		public int getPosition() {
+			return position;
+		}
+
+		public FogDevice getDevice() {
+			return device;
+		}
+
+		public double getEnergy() {
+			return energy;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package org.fog.heuristics.fogImplementations.sa;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.fog.heuristics.fogImplementations.CompactSolution;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+import org.fog.heuristics.fogImplementations.SolutionMutatorFog;
+import org.fog.heuristics.fogImplementations.sa.AnnealingChain.Move;
+
+/**
+ * Simulated annealing exploring the neighbourhood of the current solution
+ * concurrently: at each iteration, the {@link #getMaxAmountNeighbour()}
+ * neighbours are split among {@link #getParallelism()} tasks, each one drawing
+ * and evaluating its share with its own {@link Random} (seeded by the one given
+ * to {@link #optimize(SolutionModulesDeployed, int, Random)}). The best
+ * neighbour is then accepted by the Metropolis criterion at the current
+ * temperature, cooled as in {@link SimulatedAnnealingFog}.
+ * <p>
+ * Neighbours are evaluated without being built, then applied to the current
+ * solution in place (see {@link AnnealingChain}), which requires a solution
+ * that can be encoded as a {@link CompactSolution}: otherwise, the sequential
+ * annealing of {@link SimulatedAnnealingFog} is performed.<br>
+ * Since each task has its own random source and the best neighbours of the
+ * tasks are compared in a fixed order, the result does not depend on the
+ * scheduling of the threads, but only on the seed and on the parallelism.
+ */
+public class ParallelSimulatedAnnealingFog extends SimulatedAnnealingFog {
+
+	public ParallelSimulatedAnnealingFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo) {
+		super(modPlacementAdditionalInfo);
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+		this.executor = null;
+	}
+
+	public ParallelSimulatedAnnealingFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo,
+			SolutionMutatorFog<SASolutionFog> mutationProvider) {
+		this(modPlacementAdditionalInfo);
+		if (mutationProvider != null) {
+			this.setMutationProvider(mutationProvider);
+		}
+	}
+
+	protected int parallelism;
+	protected Executor executor;
+
+	//
+
+	/**
+	 * Amount of tasks the neighbourhood of each iteration is split into, by
+	 * default the amount of available processors.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * The executor running the tasks. If {@code null} (the default), a pool of at
+	 * most one thread per task is created for each optimization.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	//
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism should be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	//
+
+	@Override
+	public SolutionModulesDeployed optimize(SolutionModulesDeployed initialGuess, int maxIterations, Random r) {
+		int tasks, currentIteration;
+		double temperature;
+		Executor ex;
+		ExecutorService ownPool;
+		AnnealingChain chain;
+		final Random[] randoms;
+		final Move[] bests;
+		final Runnable[] explorations;
+
+		Objects.requireNonNull(r);
+		chain = AnnealingChain.newChain(initialGuess, this.getModPlacementAdditionalInfo(), r);
+		if (chain == null) {
+			return super.optimize(initialGuess, maxIterations, r);
+		}
+
+		tasks = Math.max(1, Math.min(this.parallelism, this.maxAmountNeighbour));
+		randoms = new Random[tasks];
+		bests = new Move[tasks];
+		explorations = new Runnable[tasks];
+		for (int i = 0; i < tasks; i++) {
+			final int task = i;
+			// the first tasks take one more neighbour, if they can't be split evenly
+			final int amount = this.maxAmountNeighbour / tasks + (i < this.maxAmountNeighbour % tasks ? 1 : 0);
+			final AnnealingChain c = chain;
+			randoms[i] = new Random(r.nextLong());
+			explorations[i] = () -> bests[task] = c.bestOfNeighbourhood(amount, randoms[task]);
+		}
+
+		ownPool = null;
+		ex = this.executor;
+		if (ex == null && tasks > 1) {
+			ex = ownPool = newPool(tasks, "annealing");
+		}
+		try {
+			temperature = this.startingTemperature;
+			currentIteration = 0;
+			while ((currentIteration++ < maxIterations) && temperature > this.lowerBoundTemperature
+					&& chain.getEnergy() > this.lowerBoundEnergy) {
+				Move best;
+				runAll(explorations, ex);
+				best = null;
+				for (Move m : bests) {
+					if (m != null && (best == null || m.getEnergy() < best.getEnergy())) {
+						best = m;
+					}
+				}
+				if (!chain.hasMovableModules()) {
+					break; // nothing can be moved
+				}
+				// no move, if none of the neighbours fits its device
+				chain.anneal(best, temperature, r);
+				temperature = this.decreaseTemperature(temperature, currentIteration, maxIterations);
+			}
+		} finally {
+			if (ownPool != null) {
+				ownPool.shutdown();
+			}
+		}
+		return chain.getBest();
+	}
+
+	/**
+	 * Creates a pool of daemon threads, at most one per task and per available
+	 * processor.
+	 */
+	protected static ExecutorService newPool(int tasks, String threadsName) {
+		return Executors.newFixedThreadPool(Math.min(tasks, Runtime.getRuntime().availableProcessors()),
+				runnable -> {
+					Thread t;
+					t = new Thread(runnable, threadsName);
+					t.setDaemon(true);
+					return t;
+				});
+	}
+
+	/**
+	 * Runs the given tasks on the given executor, or on the current thread if
+	 * {@code null}, and waits for all of them.
+	 */
+	protected static void runAll(Runnable[] tasks, Executor ex) {
+		CompletableFuture<?>[] futures;
+		if (ex == null) {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+			return;
+		}
+		futures = new CompletableFuture<?>[tasks.length];
+		for (int i = 0; i < tasks.length; i++) {
+			futures[i] = CompletableFuture.runAsync(tasks[i], ex);
+		}
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
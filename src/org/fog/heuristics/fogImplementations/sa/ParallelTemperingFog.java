@@ -0,0 +1,237 @@
+package org.fog.heuristics.fogImplementations.sa;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.fog.heuristics.fogImplementations.CompactSolution;
+import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
+import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
+import org.fog.heuristics.fogImplementations.SolutionMutatorFog;
+
+/**
+ * Parallel tempering (replica exchange): {@link #getReplicas()} annealings (see
+ * {@link AnnealingChain}) run concurrently, each one at a fixed temperature:
+ * the hottest one at {@link #getStartingTemperature()}, each of the following
+ * ones {@link #getTemperatureRatio()} times the previous one. At each
+ * iteration, a replica moves to the best of {@link #getMaxAmountNeighbour()}
+ * random neighbours according to the Metropolis criterion at its temperature.
+ * <p>
+ * Every {@link #getSwapInterval()} iterations, the solutions of adjacent
+ * temperatures (the even pairs, then the odd ones, alternately) are exchanged
+ * with the probability {@code min(1, exp((e1 - e2) * (1 / t1 - 1 / t2)))}, so
+ * that the good solutions found by the hot replicas, free to climb out of local
+ * minima, are refined by the cold ones.<br>
+ * Each replica has its own {@link Random} (seeded by the one given to
+ * {@link #optimize(SolutionModulesDeployed, int, Random)}) and the exchanges
+ * happen between the epochs, so the result does not depend on the scheduling
+ * of the threads.
+ * <p>
+ * The replicas start from the initial guess or, if {@code null}, each one from
+ * its own random solution. If a solution can't be encoded as a
+ * {@link CompactSolution}, the sequential annealing of
+ * {@link SimulatedAnnealingFog} is performed instead.
+ */
+public class ParallelTemperingFog extends SimulatedAnnealingFog {
+
+	public ParallelTemperingFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo) {
+		super(modPlacementAdditionalInfo);
+		this.replicas = 4;
+		this.temperatureRatio = 0.5;
+		this.swapInterval = 10;
+		this.executor = null;
+		this.swapsAttempted = this.swapsAccepted = 0;
+	}
+
+	public ParallelTemperingFog(ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo,
+			SolutionMutatorFog<SASolutionFog> mutationProvider) {
+		this(modPlacementAdditionalInfo);
+		if (mutationProvider != null) {
+			this.setMutationProvider(mutationProvider);
+		}
+	}
+
+	protected int replicas, swapInterval;
+	protected double temperatureRatio;
+	protected Executor executor;
+	protected int swapsAttempted, swapsAccepted;
+
+	//
+
+	public int getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * Ratio between the temperatures of two adjacent replicas, in the range (0; 1)
+	 * extremes excluded.
+	 */
+	public double getTemperatureRatio() {
+		return temperatureRatio;
+	}
+
+	/**
+	 * Amount of iterations each replica performs between two exchanges.
+	 */
+	public int getSwapInterval() {
+		return swapInterval;
+	}
+
+	/**
+	 * The executor running the replicas. If {@code null} (the default), a pool of
+	 * at most one thread per replica and per available processor is created for
+	 * each optimization.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @return the amount of exchanges attempted during the last optimization
+	 */
+	public int getSwapsAttempted() {
+		return swapsAttempted;
+	}
+
+	/**
+	 * @return the amount of exchanges performed during the last optimization
+	 */
+	public int getSwapsAccepted() {
+		return swapsAccepted;
+	}
+
+	/**
+	 * @return the temperature of each replica, from the hottest one
+	 */
+	public double[] getTemperatures() {
+		double[] temperatures;
+		temperatures = new double[this.replicas];
+		for (int i = 0; i < temperatures.length; i++) {
+			temperatures[i] = i == 0 ? this.startingTemperature : temperatures[i - 1] * this.temperatureRatio;
+		}
+		return temperatures;
+	}
+
+	//
+
+	public void setReplicas(int replicas) {
+		if (replicas < 1) {
+			throw new IllegalArgumentException("At least a replica is required: " + replicas);
+		}
+		this.replicas = replicas;
+	}
+
+	public void setTemperatureRatio(double temperatureRatio) {
+		if (0.0 < temperatureRatio && temperatureRatio < 1.0) {
+			this.temperatureRatio = temperatureRatio;
+		}
+	}
+
+	public void setSwapInterval(int swapInterval) {
+		if (swapInterval < 1) {
+			throw new IllegalArgumentException("The swap interval should be positive: " + swapInterval);
+		}
+		this.swapInterval = swapInterval;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	//
+
+	@Override
+	public SolutionModulesDeployed optimize(SolutionModulesDeployed initialGuess, int maxIterations, Random r) {
+		int iterationsDone, epoch;
+		Executor ex;
+		ExecutorService ownPool;
+		AnnealingChain best;
+		final int[] epochIterations;
+		final double[] temperatures;
+		final AnnealingChain[] chains;
+		final Random[] randoms;
+		final Runnable[] epochs;
+
+		Objects.requireNonNull(r);
+		temperatures = this.getTemperatures();
+		chains = new AnnealingChain[temperatures.length];
+		for (int i = 0; i < chains.length; i++) {
+			chains[i] = AnnealingChain.newChain(initialGuess, this.getModPlacementAdditionalInfo(), r);
+			if (chains[i] == null) {
+				return super.optimize(initialGuess, maxIterations, r);
+			}
+		}
+		randoms = new Random[chains.length];
+		epochs = new Runnable[chains.length];
+		epochIterations = new int[1];
+		for (int i = 0; i < chains.length; i++) {
+			final int replica = i;
+			randoms[i] = new Random(r.nextLong());
+			epochs[i] = () -> {
+				AnnealingChain chain;
+				chain = chains[replica];
+				for (int it = 0; it < epochIterations[0] && chain.getBestEnergy() > this.lowerBoundEnergy; it++) {
+					chain.anneal(chain.bestOfNeighbourhood(this.maxAmountNeighbour, randoms[replica]),
+							temperatures[replica], randoms[replica]);
+				}
+			};
+		}
+
+		this.swapsAttempted = this.swapsAccepted = 0;
+		ownPool = null;
+		ex = this.executor;
+		if (ex == null && chains.length > 1) {
+			ex = ownPool = ParallelSimulatedAnnealingFog.newPool(chains.length, "tempering");
+		}
+		try {
+			iterationsDone = 0;
+			epoch = 0;
+			while (iterationsDone < maxIterations && bestOf(chains).getBestEnergy() > this.lowerBoundEnergy) {
+				epochIterations[0] = Math.min(this.swapInterval, maxIterations - iterationsDone);
+				ParallelSimulatedAnnealingFog.runAll(epochs, ex);
+				iterationsDone += epochIterations[0];
+				if (iterationsDone < maxIterations) {
+					this.swap(chains, temperatures, epoch++ & 1, r);
+				}
+			}
+		} finally {
+			if (ownPool != null) {
+				ownPool.shutdown();
+			}
+		}
+		best = bestOf(chains);
+		return best.getBest();
+	}
+
+	/**
+	 * Exchanges the solutions of the adjacent temperatures, starting from the
+	 * given one (0 or 1), according to the class documentation.
+	 */
+	protected void swap(AnnealingChain[] chains, double[] temperatures, int first, Random r) {
+		double exponent;
+		AnnealingChain c;
+		for (int i = first; i + 1 < chains.length; i += 2) {
+			this.swapsAttempted++;
+			exponent = (chains[i].getEnergy() - chains[i + 1].getEnergy())
+					* (1.0 / temperatures[i] - 1.0 / temperatures[i + 1]);
+			if (exponent >= 0.0 || r.nextDouble() < Math.exp(exponent)) {
+				c = chains[i];
+				chains[i] = chains[i + 1];
+				chains[i + 1] = c;
+				this.swapsAccepted++;
+			}
+		}
+	}
+
+	protected static AnnealingChain bestOf(AnnealingChain[] chains) {
+		AnnealingChain best;
+		best = chains[0];
+		for (AnnealingChain c : chains) {
+			if (c.getBestEnergy() < best.getBestEnergy()) {
+				best = c;
+			}
+		}
+		return best;
+	}
+}
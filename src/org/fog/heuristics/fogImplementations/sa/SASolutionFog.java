@@ -6,6 +6,7 @@ import java.util.Random;
 import java.util.function.Supplier;
 
 import org.fog.entities.FogDevice;
+import org.fog.heuristics.IncrementalSolutionEvaluator;
 import org.fog.heuristics.SolutionsProducerEvaluator.CumulatedCostsOnDevice;
 import org.fog.heuristics.SolutionsProducerEvaluator.SolutionDeployCosts;
 import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
@@ -17,6 +18,14 @@ public class SASolutionFog implements Cloneable, Supplier<List<PieceOfSolution>>
 	private static final long serialVersionUID = 34647856001025L;
 	protected List<PieceOfSolution> pieces;
 	protected SolutionDeployCosts<SASolutionFog> costs;
+	/**
+	 * Evaluates this solution and its neighbours (see
+	 * {@link #randomWalk(Random, SolutionMutatorFog, ModulePlacementAdditionalInformationFog)}),
+	 * shared with the clones.
+	 */
+	protected transient IncrementalSolutionEvaluator evaluator;
+	/** The evaluation of this solution, {@link Double#NaN} if not yet computed */
+	protected double evaluation = Double.NaN;
 
 	public SASolutionFog() {
 		super();
@@ -36,6 +45,33 @@ public class SASolutionFog implements Cloneable, Supplier<List<PieceOfSolution>>
 	public void setPieces(List<PieceOfSolution> pieces) {
 		this.pieces = pieces;
 		this.costs = new SolutionDeployCosts<>(this);
+		this.evaluator = null;
+		this.evaluation = Double.NaN;
+	}
+
+	/**
+	 * Returns the evaluator of this solution, creating it if needed. The pieces
+	 * must not be modified in place afterwards.
+	 */
+	public IncrementalSolutionEvaluator getEvaluator(ModulePlacementAdditionalInformationFog additionalInformation) {
+		if (this.evaluator == null) {
+			this.evaluator = new IncrementalSolutionEvaluator(this, additionalInformation);
+		}
+		return evaluator;
+	}
+
+	/**
+	 * Returns the evaluation of this solution (see
+	 * {@link org.fog.heuristics.SolutionsProducerEvaluator#evaluateSolution(SolutionModulesDeployed, ModulePlacementAdditionalInformationFog)}),
+	 * computed once. Neighbours produced by
+	 * {@link #randomWalk(Random, SolutionMutatorFog, ModulePlacementAdditionalInformationFog)}
+	 * are evaluated incrementally.
+	 */
+	public double evaluate(ModulePlacementAdditionalInformationFog additionalInformation) {
+		if (Double.isNaN(this.evaluation)) {
+			this.evaluation = this.getEvaluator(additionalInformation).getEvaluation();
+		}
+		return this.evaluation;
 	}
 
 	/**
@@ -56,6 +92,7 @@ public class SASolutionFog implements Cloneable, Supplier<List<PieceOfSolution>>
 		List<PieceOfSolution> newList;
 		PieceOfSolution posToChange;
 		FogDevice originalDevice;
+		SASolutionFog neighbour;
 
 		if (this.pieces.size() <= 0) {
 			throw new RuntimeException(
@@ -89,15 +126,24 @@ public class SASolutionFog implements Cloneable, Supplier<List<PieceOfSolution>>
 
 		newList.set(indexFlip, posToChange);
 
-		return new SASolutionFog(newList);
+		neighbour = new SASolutionFog(newList);
+		// just a piece has changed
+		neighbour.evaluation = this.getEvaluator(additionalInformation).evaluateMove(indexFlip,
+				posToChange.getDevice());
+		return neighbour;
 	}
 
 	@Override
 	public Object clone() {
 		List<PieceOfSolution> p;
 		p = new ArrayList<>(pieces.size());
+		SASolutionFog c;
 		this.pieces.forEach(pos -> p.add((PieceOfSolution) pos.clone()));
-		return new SASolutionFog(p);
+		c = new SASolutionFog(p);
+		// same modules on the same devices
+		c.evaluator = this.evaluator;
+		c.evaluation = this.evaluation;
+		return c;
 	}
 
 	@Override
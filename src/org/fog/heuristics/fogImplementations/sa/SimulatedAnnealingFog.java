@@ -87,6 +87,10 @@ public class SimulatedAnnealingFog extends SimulatedAnnealing<SolutionModulesDep
 	@Override
 	public double evaluateSolution(SolutionModulesDeployed solution) {
 		// TODO probabilmente la stessa funzione di GeneticAlgorithmFOg
+		if (solution instanceof SASolutionFog && solution.getPieces() != null) {
+			// neighbours are evaluated incrementally
+			return ((SASolutionFog) solution).evaluate(this.getModPlacementAdditionalInfo());
+		}
 		return SolutionsProducerEvaluator.evaluateSolution(solution, this.getModPlacementAdditionalInfo());
 	}
 
@@ -116,10 +120,7 @@ public class SimulatedAnnealingFog extends SimulatedAnnealing<SolutionModulesDep
 
 		if (originalNode == null || originalNode.getPieces().isEmpty()) {
 			Pair<SASolutionFog, SolutionDeployCosts<SASolutionFog>> p = SolutionsProducerEvaluator.newRandomSolution(//
-					this.getModPlacementAdditionalInfo().getApplicationsByID(),
-					this.getModPlacementAdditionalInfo().getModules(),
-					this.getModPlacementAdditionalInfo().getDevices(), r,
-					this.getModPlacementAdditionalInfo().getDevicesPartitions(), SASolutionFog::new);
+					this.getModPlacementAdditionalInfo(), r, SASolutionFog::new);
 			originalNode = p.getFirst();
 			originalSolutionFog = (SASolutionFog) originalNode;
 			costCurrentSolution = p.getSecond();
@@ -146,6 +147,8 @@ public class SimulatedAnnealingFog extends SimulatedAnnealing<SolutionModulesDep
 //		this.getMutationProvider().getCostsSolutions().clear();
 
 		neighs = new ArrayList<>(maxAmount);
+		// shared by the clones, to evaluate each neighbour incrementally
+		originalSolutionFog.getEvaluator(this.getModPlacementAdditionalInfo());
 
 		while (maxAmount-- > 0) {
 
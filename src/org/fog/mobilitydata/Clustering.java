@@ -8,8 +8,10 @@ import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -39,21 +41,25 @@ public class Clustering {
             SiblingsList.add(tempNode);
         }
 
-        double fogNodePositionX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).latitude;
-        double fogNodePositionY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).longitude;
-        Location L1 = new Location(fogNodePositionX, fogNodePositionY, 0);
+        String fogDataId = locatorTemp.instanceToDataId.get(fogId);
+        int fogLevel = locatorTemp.dataObject.resourceAndUserToLevel.get(fogDataId);
+        Location L1 = locatorTemp.dataObject.resourceLocationData.get(fogDataId);
+        // siblings on the same level are looked up in the spatial index of the level
+        Set<String> inRange = new HashSet<>(locatorTemp.getResourcesInRange(fogDataId, Config.Node_Communication_RANGE / 1000));
         for (FogDevice fogdevice : SiblingsList) {
 
             if (fogId == fogdevice.getId()) {
                 continue;
             }
             // To check all siblings except itself
-            double tempX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).latitude;
-            double tempY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).longitude;
-
-            Location L2 = new Location(tempX, tempY, 0);
-
-            boolean clusterCheck = calculateInRange(L1, L2, Config.Node_Communication_RANGE);
+            String siblingDataId = locatorTemp.instanceToDataId.get(fogdevice.getId());
+            boolean clusterCheck;
+            if (locatorTemp.dataObject.resourceAndUserToLevel.get(siblingDataId) == fogLevel) {
+                clusterCheck = inRange.contains(siblingDataId);
+            } else {
+                Location L2 = locatorTemp.dataObject.resourceLocationData.get(siblingDataId);
+                clusterCheck = calculateInRange(L1, L2, Config.Node_Communication_RANGE);
+            }
 
             //Clustering Policy
             //double x = Math.pow((fogNodePositionX - tempX), 2) + Math.pow((fogNodePositionY - tempY), 2);
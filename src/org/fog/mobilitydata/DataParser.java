@@ -6,6 +6,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -17,11 +18,20 @@ public class DataParser {
     public Map<String, Integer> levelID = new HashMap<String, Integer>();
     public Map<Integer, ArrayList<String>> levelwiseResources = new HashMap<Integer, ArrayList<String>>();
     public Map<String, Integer> resourceAndUserToLevel = new HashMap<String, Integer>();
-    public Map<String, Map<Double, Location>> usersLocation = new HashMap<String, Map<Double, Location>>();
+    public Map<String, MobilityTrace> usersTraces = new HashMap<String, MobilityTrace>();
+    private final String datasetDirectory;
 
 
     public DataParser() {
-        File configFile = new File(".\\dataset\\config.properties");
+        this(References.dataset_directory);
+    }
+
+    /**
+     * @param datasetDirectory the directory holding the configuration and the edge resources of the dataset
+     */
+    public DataParser(String datasetDirectory) {
+        this.datasetDirectory = datasetDirectory;
+        File configFile = new File(datasetDirectory, "config.properties");
         try {
             FileReader reader = new FileReader(configFile);
             Properties props = new Properties();
@@ -63,35 +73,67 @@ public class DataParser {
 
         for (int userID : userMobilityPattern.keySet()) {
 
-            Map<Double, Location> tempUserLocationInfo = new HashMap<Double, Location>();
-            BufferedReader csvReader = new BufferedReader(new FileReader(datasetReference + userID + ".csv"));
-            System.out.println("The Mobility dataset used in this simulation for user: " + userID + " is: " + datasetReference + userID + ".csv");
-            String row;
-            double eventTime = References.INIT_TIME;
-            while ((row = csvReader.readLine()) != null) {
-                String[] data = row.split(",");
-                try {
-                    Location rl = new Location(Double.parseDouble(data[0]), Double.parseDouble(data[1]), References.NOT_SET);
-                    if (!tempUserLocationInfo.containsKey(eventTime))
-                        tempUserLocationInfo.put(eventTime, rl);
-                    else {
-                        eventTime = nextMobilisationEvent(eventTime, userMobilityPattern.get(userID));
-                        tempUserLocationInfo.put(eventTime, rl);
-                    }
-
-                } catch (NumberFormatException ex) {
-                    //System.out.println("Given String is not parsable to double");
-                }
+            String fileName = datasetReference + userID + ".csv";
+            System.out.println("The Mobility dataset used in this simulation for user: " + userID + " is: " + fileName);
+            MobilityTrace trace;
+            try (BufferedReader csvReader = new BufferedReader(new FileReader(fileName))) {
+                trace = parseUserTrace(csvReader, userMobilityPattern.get(userID));
             }
-
-            csvReader.close();
-            usersLocation.put("usr_" + userID, tempUserLocationInfo);
+            usersTraces.put("usr_" + userID, trace);
             resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
 
         }
 
     }
 
+    /**
+     * Loads the traces of a binary trace file (see {@link MobilityTraceFile}), keyed by user data id (as
+     * "usr_" followed by the user id), mapping it in memory.
+     */
+    public void parseUserBinaryData(File traceFile) throws IOException {
+        for (Map.Entry<String, MobilityTrace> e : MobilityTraceFile.map(traceFile).entrySet()) {
+            usersTraces.put(e.getKey(), e.getValue());
+            resourceAndUserToLevel.put(e.getKey(), levelID.get("User"));
+        }
+    }
+
+    /**
+     * Reads the positions (latitude and longitude, as the first two columns) of a user, line by line: the first
+     * one is reached at {@link References#INIT_TIME}, the next ones at times given by the mobility pattern.
+     * Lines that are not positions (as the header) are skipped.
+     */
+    private MobilityTrace parseUserTrace(BufferedReader csvReader, int mobilityPattern) throws IOException {
+        double[] times = new double[64], latitudes = new double[64], longitudes = new double[64];
+        int count = 0;
+        String row;
+        double eventTime = References.INIT_TIME;
+        while ((row = csvReader.readLine()) != null) {
+            int comma = row.indexOf(',');
+            if (comma < 0)
+                continue;
+            int end = row.indexOf(',', comma + 1);
+            double latitude, longitude;
+            try {
+                latitude = Double.parseDouble(row.substring(0, comma));
+                longitude = Double.parseDouble(end < 0 ? row.substring(comma + 1) : row.substring(comma + 1, end));
+            } catch (NumberFormatException ex) {
+                //System.out.println("Given String is not parsable to double");
+                continue;
+            }
+            if (count > 0)
+                eventTime = nextMobilisationEvent(eventTime, mobilityPattern);
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                latitudes = Arrays.copyOf(latitudes, count * 2);
+                longitudes = Arrays.copyOf(longitudes, count * 2);
+            }
+            times[count] = eventTime;
+            latitudes[count] = latitude;
+            longitudes[count++] = longitude;
+        }
+        return MobilityTrace.fromRecorded(times, latitudes, longitudes, count);
+    }
+
     @SuppressWarnings("unchecked")
     public void parseResourceData() throws NumberFormatException, IOException {
 
@@ -102,7 +144,7 @@ public class DataParser {
             resouresOnLevels[i] = new ArrayList<String>();
 
 
-        BufferedReader csvReader = new BufferedReader(new FileReader(".\\dataset\\edgeResources-melbCBD.csv"));
+        BufferedReader csvReader = new BufferedReader(new FileReader(new File(datasetDirectory, "edgeResources-melbCBD.csv")));
         String row;
         while ((row = csvReader.readLine()) != null) {
             String[] data = row.split(",");
@@ -0,0 +1,221 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.placement.LocationHandler;
+
+/**
+ * Spatial index (k-d tree) over the locations of a set of resources, typically the ones of a level (see
+ * {@link DataParser#levelwiseResources}), answering nearest-neighbour and radius queries without scanning
+ * all of them.
+ * <p>
+ * The locations are mapped on a sphere of the Earth's radius, so that the straight (chord) distance between
+ * two points grows with their great-circle distance: the tree prunes by chord distance, while the results are
+ * checked with {@link LocationHandler#calculateDistance(Location, Location)}, so they are the same of a scan
+ * of the resources in their given order.
+ * <p>
+ * Instances are immutable: it's safe to share them between threads.
+ */
+public class LocationIndex {
+
+    private static final double EARTH_RADIUS = 6371; // Kilometers
+    /** Relative tolerance on chord distances, covering the rounding of the two distance formulas */
+    private static final double TOLERANCE = 1e-9;
+
+    private final String[] dataIds;
+    private final Location[] locations;
+    /** Coordinates on the sphere of each resource */
+    private final double[][] points;
+    /**
+     * Positions of the resources, arranged as an implicit tree: the median of each range splits it on the
+     * axis given by its depth
+     */
+    private final int[] tree;
+    private final Map<Integer, List<String>> blocks;
+
+    public LocationIndex(List<String> dataIds, Map<String, Location> locationData) {
+        int size = dataIds.size();
+        this.dataIds = dataIds.toArray(new String[size]);
+        locations = new Location[size];
+        points = new double[size][];
+        tree = new int[size];
+        blocks = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            locations[i] = locationData.get(this.dataIds[i]);
+            points[i] = toPoint(locations[i]);
+            tree[i] = i;
+            List<String> block = blocks.get(locations[i].block);
+            if (block == null) {
+                block = new ArrayList<>();
+                blocks.put(locations[i].block, block);
+            }
+            block.add(this.dataIds[i]);
+        }
+        build(0, size, 0);
+    }
+
+    public int size() {
+        return dataIds.length;
+    }
+
+    /**
+     * Returns the resources in the given block, in their given order.
+     */
+    public List<String> getResourcesInBlock(int block) {
+        List<String> resources = blocks.get(block);
+        return resources == null ? Collections.<String>emptyList() : Collections.unmodifiableList(resources);
+    }
+
+    /**
+     * Returns the resource nearest to the given location (the first one in the given order among the ones at
+     * the same distance), or {@code null} if there are no resources.
+     */
+    public String getNearest(Location location) {
+        if (dataIds.length == 0)
+            return null;
+        Nearest nearest = new Nearest(location);
+        nearest(0, dataIds.length, 0, nearest);
+        return dataIds[nearest.position];
+    }
+
+    /**
+     * Returns the resources whose distance from the given location is within the given range (in Kilometers),
+     * in their given order.
+     */
+    public List<String> getResourcesInRange(Location location, double range) {
+        List<String> resources = new ArrayList<>();
+        if (dataIds.length == 0 || !(range >= 0))
+            return resources;
+        double chord = range >= Math.PI * EARTH_RADIUS ? 2 * EARTH_RADIUS
+                : 2 * EARTH_RADIUS * Math.sin(range / (2 * EARTH_RADIUS));
+        chord = chord * (1 + TOLERANCE) + TOLERANCE;
+        int[] found = new int[dataIds.length];
+        int count = inRange(0, dataIds.length, 0, toPoint(location), chord * chord, found, 0);
+        Arrays.sort(found, 0, count);
+        for (int k = 0; k < count; k++) {
+            if (LocationHandler.calculateDistance(location, locations[found[k]]) <= range)
+                resources.add(dataIds[found[k]]);
+        }
+        return resources;
+    }
+
+    //
+
+    private static double[] toPoint(Location location) {
+        double latitude = Math.toRadians(location.latitude);
+        double longitude = Math.toRadians(location.longitude);
+        double cosLatitude = Math.cos(latitude);
+        return new double[]{EARTH_RADIUS * cosLatitude * Math.cos(longitude),
+                EARTH_RADIUS * cosLatitude * Math.sin(longitude), EARTH_RADIUS * Math.sin(latitude)};
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0], dy = a[1] - b[1], dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Arranges the range [from, to) of {@link #tree} around its median, then its two halves.
+     */
+    private void build(int from, int to, int depth) {
+        while (to - from > 1) {
+            int median = (from + to) >>> 1;
+            select(from, to - 1, median, depth % 3);
+            build(from, median, depth + 1);
+            from = median + 1;
+            depth++;
+        }
+    }
+
+    /**
+     * Quickselect: moves the k-th position (by the given axis) of the range [low, high] in its place.
+     */
+    private void select(int low, int high, int k, int axis) {
+        while (low < high) {
+            double pivot = points[tree[(low + high) >>> 1]][axis];
+            int i = low, j = high;
+            while (i <= j) {
+                while (points[tree[i]][axis] < pivot)
+                    i++;
+                while (points[tree[j]][axis] > pivot)
+                    j--;
+                if (i <= j) {
+                    int t = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = t;
+                }
+            }
+            if (k <= j)
+                high = j;
+            else if (k >= i)
+                low = i;
+            else
+                return;
+        }
+    }
+
+    private class Nearest {
+        final Location location;
+        final double[] point;
+        int position = -1;
+        double distance, chord;
+
+        Nearest(Location location) {
+            this.location = location;
+            this.point = toPoint(location);
+        }
+
+        void offer(int candidate) {
+            double d = LocationHandler.calculateDistance(location, locations[candidate]);
+            if (position < 0 || d < distance || (d == distance && candidate < position)) {
+                position = candidate;
+                distance = d;
+                chord = Math.sqrt(squaredDistance(point, points[candidate]));
+            }
+        }
+
+        /** Whether a point so far on an axis could be as near as the best one found */
+        boolean mayBeNearer(double axisDistance) {
+            double limit = chord * (1 + TOLERANCE) + TOLERANCE;
+            return axisDistance * axisDistance <= limit * limit;
+        }
+    }
+
+    private void nearest(int from, int to, int depth, Nearest nearest) {
+        if (from >= to)
+            return;
+        int median = (from + to) >>> 1;
+        int axis = depth % 3;
+        double difference = nearest.point[axis] - points[tree[median]][axis];
+        nearest.offer(tree[median]);
+        if (difference < 0) {
+            nearest(from, median, depth + 1, nearest);
+            if (nearest.mayBeNearer(difference))
+                nearest(median + 1, to, depth + 1, nearest);
+        } else {
+            nearest(median + 1, to, depth + 1, nearest);
+            if (nearest.mayBeNearer(difference))
+                nearest(from, median, depth + 1, nearest);
+        }
+    }
+
+    private int inRange(int from, int to, int depth, double[] point, double squaredChord, int[] found, int count) {
+        if (from >= to)
+            return count;
+        int median = (from + to) >>> 1;
+        int axis = depth % 3;
+        double difference = point[axis] - points[tree[median]][axis];
+        if (squaredDistance(point, points[tree[median]]) <= squaredChord)
+            found[count++] = tree[median];
+        if (difference <= 0 || difference * difference <= squaredChord)
+            count = inRange(from, median, depth + 1, point, squaredChord, found, count);
+        if (difference >= 0 || difference * difference <= squaredChord)
+            count = inRange(median + 1, to, depth + 1, point, squaredChord, found, count);
+        return count;
+    }
+}
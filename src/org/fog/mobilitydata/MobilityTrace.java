@@ -0,0 +1,161 @@
+package org.fog.mobilitydata;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trajectory of a mobile user: the positions it reaches, by increasing time, stored as columns of primitive
+ * values (time, latitude and longitude).
+ * <p>
+ * The columns are either arrays loaded from a CSV trace (see {@link DataParser#parseUserData(java.util.Map, String)})
+ * or views of a memory-mapped binary trace (see {@link MobilityTraceFile}), whose pages are loaded only when the
+ * positions are read, as the simulation time advances.
+ * <p>
+ * Instances are immutable: it's safe to share them between threads.
+ */
+public class MobilityTrace {
+
+    private final DoubleBuffer times, latitudes, longitudes;
+
+    /**
+     * @param times the times of the positions, sorted and without duplicates
+     */
+    public MobilityTrace(double[] times, double[] latitudes, double[] longitudes) {
+        this(DoubleBuffer.wrap(times), DoubleBuffer.wrap(latitudes), DoubleBuffer.wrap(longitudes));
+    }
+
+    MobilityTrace(DoubleBuffer times, DoubleBuffer latitudes, DoubleBuffer longitudes) {
+        if (times.limit() != latitudes.limit() || times.limit() != longitudes.limit())
+            throw new IllegalArgumentException("columns of different length");
+        this.times = times;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    /**
+     * Builds a trace from positions in the order they were recorded: they are sorted by time and, among the
+     * ones recorded at the same time, the last one is kept.
+     */
+    public static MobilityTrace fromRecorded(double[] times, double[] latitudes, double[] longitudes, int count) {
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++) {
+            sorted = Double.compare(times[i - 1], times[i]) < 0;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        if (!sorted) {
+            // stable, so that the last recorded position follows the others at the same time
+            Arrays.sort(order, (a, b) -> Double.compare(times[a], times[b]));
+        }
+        double[] t = new double[count], la = new double[count], lo = new double[count];
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            if (size > 0 && Double.compare(t[size - 1], times[i]) == 0)
+                size--;
+            t[size] = times[i];
+            la[size] = latitudes[i];
+            lo[size++] = longitudes[i];
+        }
+        return size == count ? new MobilityTrace(t, la, lo)
+                : new MobilityTrace(Arrays.copyOf(t, size), Arrays.copyOf(la, size),
+                Arrays.copyOf(lo, size));
+    }
+
+    public int size() {
+        return times.limit();
+    }
+
+    public double getTime(int index) {
+        return times.get(index);
+    }
+
+    public double getLatitude(int index) {
+        return latitudes.get(index);
+    }
+
+    public double getLongitude(int index) {
+        return longitudes.get(index);
+    }
+
+    public Location getLocation(int index) {
+        return new Location(latitudes.get(index), longitudes.get(index), References.NOT_SET);
+    }
+
+    /**
+     * Returns the index of the position reached at exactly the given time, or -1.
+     */
+    public int indexOf(double time) {
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int c = Double.compare(times.get(middle), time);
+            if (c < 0)
+                low = middle + 1;
+            else if (c > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position reached at exactly the given time, or {@code null}.
+     */
+    public Location getLocationAt(double time) {
+        int index = indexOf(time);
+        return index < 0 ? null : getLocation(index);
+    }
+
+    /**
+     * Returns the index of the first position reached after the given time, or {@link #size()} if there are
+     * none.
+     */
+    public int nextIndex(double time) {
+        int low = 0, high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times.get(middle) <= time)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the position reached nearest to the given time (the earlier one, if two are equally
+     * near), or -1 if the trace is empty. It's the position reached at that time, if there is one: unlike
+     * {@link #indexOf(double)}, times computed by summing delays to the current time are tolerated.
+     */
+    public int indexNearest(double time) {
+        int next = nextIndex(time);
+        if (next == 0)
+            return size() == 0 ? -1 : 0;
+        if (next == size() || time - times.get(next - 1) <= times.get(next) - time)
+            return next - 1;
+        return next;
+    }
+
+    /**
+     * Returns the times of the positions, by increasing time, as a view of this trace.
+     */
+    public List<Double> getTimeSheet() {
+        return new AbstractList<Double>() {
+            @Override
+            public Double get(int index) {
+                return times.get(index);
+            }
+
+            @Override
+            public int size() {
+                return MobilityTrace.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package org.fog.mobilitydata;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary format of the mobility traces of a set of users, converted once from their CSV traces (see
+ * {@link DataParser#parseUserData(Map, String)}) and then memory-mapped (see {@link #map(File)}), so that large
+ * sets of traces are neither parsed nor loaded in the heap.
+ * <p>
+ * The file holds, as big-endian values:
+ * <ul>
+ * <li>a header: a magic number, the format version and the amount of users;</li>
+ * <li>a directory: the id of each user (as the length of its UTF-8 bytes followed by them) and the amount of
+ * its positions;</li>
+ * <li>padding up to a multiple of 8 bytes;</li>
+ * <li>the columns of each user, in the order of the directory: times, latitudes, longitudes.</li>
+ * </ul>
+ */
+public class MobilityTraceFile {
+
+    private static final int MAGIC = 0x49465452; // "IFTR"
+    private static final int VERSION = 1;
+
+    /**
+     * Writes the given traces, keyed by user id, to the given file.
+     */
+    public static void write(Map<String, MobilityTrace> traces, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(traces.size());
+            for (Map.Entry<String, MobilityTrace> e : traces.entrySet()) {
+                byte[] id = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(id.length);
+                out.write(id);
+                out.writeInt(e.getValue().size());
+            }
+            while (out.size() % Double.BYTES != 0) {
+                out.writeByte(0);
+            }
+            for (MobilityTrace trace : traces.values()) {
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getTime(i));
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getLatitude(i));
+                for (int i = 0; i < trace.size(); i++)
+                    out.writeDouble(trace.getLongitude(i));
+            }
+        }
+    }
+
+    /**
+     * Maps the given file in memory, returning the traces it holds keyed by user id, in the order they were
+     * written. The traces read the mapped file: the positions are loaded only when they are read.
+     */
+    public static Map<String, MobilityTrace> map(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Mobility trace file too large to be mapped: " + file);
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 12 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a mobility trace file: " + file);
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported mobility trace file version " + version + ": " + file);
+
+        int users = buffer.getInt();
+        String[] ids = new String[users];
+        int[] counts = new int[users];
+        for (int u = 0; u < users; u++) {
+            byte[] id = new byte[buffer.getInt()];
+            buffer.get(id);
+            ids[u] = new String(id, StandardCharsets.UTF_8);
+            counts[u] = buffer.getInt();
+        }
+        buffer.position((buffer.position() + Double.BYTES - 1) / Double.BYTES * Double.BYTES);
+
+        DoubleBuffer columns = buffer.slice().asDoubleBuffer();
+        Map<String, MobilityTrace> traces = new LinkedHashMap<>();
+        int offset = 0;
+        for (int u = 0; u < users; u++) {
+            int count = counts[u];
+            traces.put(ids[u], new MobilityTrace(column(columns, offset, count),
+                    column(columns, offset + count, count), column(columns, offset + 2 * count, count)));
+            offset += 3 * count;
+        }
+        return traces;
+    }
+
+    private static DoubleBuffer column(DoubleBuffer columns, int offset, int count) {
+        DoubleBuffer c = columns.duplicate();
+        c.position(offset);
+        c.limit(offset + count);
+        return c.slice();
+    }
+
+    /**
+     * Converts the CSV traces of the given users (see {@link DataParser#parseUserData(Map, String)}) into a
+     * binary trace file.
+     */
+    public static void convert(Map<Integer, Integer> userMobilityPattern, String datasetReference, File file)
+            throws IOException {
+        DataParser parser = new DataParser();
+        parser.parseUserData(userMobilityPattern, datasetReference);
+        write(parser.usersTraces, file);
+    }
+}
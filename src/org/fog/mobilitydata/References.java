@@ -1,5 +1,7 @@
 package org.fog.mobilitydata;
 
+import java.io.File;
+
 public class References {
 	
 	public static final int NOT_SET = -1;
@@ -13,11 +15,13 @@ public class References {
 	public static final double lat_reference = -37.81349283433532;
 	public static final double long_reference = 144.952370512958;
 
+	// Directory of the dataset (configuration, edge resources and users positions), relative to the working directory
+	public static final String dataset_directory = "." + File.separator + "dataset";
 	// Reference dataset filename to store and retrieve users positions
 	// ".\\dataset\\usersLocation-melbCBD_"
 	// ".\\dataset\\usersLocation-melbCBD-random_
-	public static final String dataset_reference = ".\\dataset\\usersLocation-melbCBD_";
-	public static final String dataset_random = ".\\dataset\\random_usersLocation-melbCBD_";
+	public static final String dataset_reference = dataset_directory + File.separator + "usersLocation-melbCBD_";
+	public static final String dataset_random = dataset_directory + File.separator + "random_usersLocation-melbCBD_";
 	public static final int random_walk_mobility_model = 1;
 	public static final int random_waypoint_mobility_model = 2;
 	public static double MinMobilitySpeed = 1; //
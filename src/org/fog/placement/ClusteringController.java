@@ -11,10 +11,10 @@ import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
 import org.fog.mobilitydata.References;
 import org.fog.utils.*;
+import org.fog.utils.metrics.MetricsRegistry;
 import org.json.simple.JSONObject;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 public class ClusteringController extends SimEntity {
@@ -26,6 +26,8 @@ public class ClusteringController extends SimEntity {
     private List<Actuator> actuators;
     private LocationHandler locator;
     private Map<Integer, Integer> parentReference;
+    private DeviceHierarchy deviceHierarchy;
+    private MobilityEventScheduler mobilityScheduler;
 
 
     private Map<String, Application> applications;
@@ -36,6 +38,7 @@ public class ClusteringController extends SimEntity {
 
 
     private Map<String, ModulePlacement> appModulePlacementPolicy;
+    private SimulationResults results;
 
     public ClusteringController(String name, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators, LocationHandler locator) {
         super(name);
@@ -77,11 +80,13 @@ public class ClusteringController extends SimEntity {
     }
 
     private FogDevice getFogDeviceById(int id) {
-        for (FogDevice fogDevice : getFogDevices()) {
-            if (id == fogDevice.getId())
-                return fogDevice;
-        }
-        return null;
+        return getDeviceHierarchy().getDevice(id);
+    }
+
+    private DeviceHierarchy getDeviceHierarchy() {
+        if (deviceHierarchy == null || deviceHierarchy.getFogDevices() != getFogDevices())
+            deviceHierarchy = new DeviceHierarchy(getFogDevices());
+        return deviceHierarchy;
     }
 
     private void connectWithLatencies() {
@@ -128,7 +133,7 @@ public class ClusteringController extends SimEntity {
 
         send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 
-        send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+        send(getId(), SimulationContext.current().getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 
         sendNow(getId(), FogEvents.MOBILITY_SUBMIT);
 
@@ -164,7 +169,7 @@ public class ClusteringController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                results = SimulationResults.endSimulation(applications, getFogDevices());
                 break;
 
         }
@@ -204,6 +209,7 @@ public class ClusteringController extends SimEntity {
     private void processMobility(SimEvent ev) {
         // TODO Auto-generated method stub
         FogDevice fogDevice = (FogDevice) ev.getData();
+        mobilityScheduler.scheduleNext(fogDevice);
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
         FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
@@ -214,9 +220,7 @@ public class ClusteringController extends SimEntity {
             //printFogDeviceChildren(prevParent.getId());
 
             //common ancestor policy
-            List<Integer> newParentPath = getPathsToCloud(newParent.getId());
-            List<Integer> prevParentPath = getPathsToCloud(prevParent.getId());
-            int commonAncestor = determineAncestor(newParentPath, prevParentPath);
+            int commonAncestor = getDeviceHierarchy().getCommonAncestor(newParent.getId(), prevParent.getId());
 
 
             fogDevice.setParentId(newParent.getId());
@@ -287,37 +291,14 @@ public class ClusteringController extends SimEntity {
         return networkDelay;
     }
 
-    private int determineAncestor(List<Integer> newParentPath, List<Integer> prevParentPath) {
-        // TODO Auto-generated method stub
-        List<Integer> common = newParentPath.stream().filter(prevParentPath::contains).collect(Collectors.toList());
-        return common.get(0);
-    }
-
-    private List<Integer> getPathsToCloud(int deviceID) {
-        // TODO Auto-generated method stub
-        List<Integer> path = new ArrayList<Integer>();
-        while (!locator.isCloud(deviceID)) {
-            path.add(deviceID);
-            deviceID = getFogDeviceById(deviceID).getParentId();
-        }
-        path.add(getCloud().getId());
-        return path;
-    }
-
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
-        for (FogDevice fogDevice : getFogDevices()) {
-            if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
-            }
-        }
+        // only the next movement of each device is scheduled
+        mobilityScheduler = new MobilityEventScheduler(getId(), locator);
+        mobilityScheduler.start(getFogDevices());
     }
 
     private void printNetworkUsageDetails() {
-        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / Config.MAX_SIMULATION_TIME);
+        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / SimulationContext.current().getMaxSimulationTime());
     }
 
     private FogDevice getCloud() {
@@ -357,7 +338,7 @@ public class ClusteringController extends SimEntity {
         System.out.println("=========================================");
         //System.out.println("APPLICATION LOOP DELAYS");
         //System.out.println("=========================================");
-        //for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+        //for(Integer loopId : TimeKeeper.getInstance().getLoopIds()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -382,9 +363,17 @@ public class ClusteringController extends SimEntity {
     }
 
     protected void manageResources() {
+        MetricsRegistry.getInstance().publish(CloudSim.clock());
         send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
     }
 
+    /**
+     * Returns the results of the simulation, or {@code null} if it didn't stop yet.
+     */
+    public SimulationResults getResults() {
+        return results;
+    }
+
     private void processTupleFinished(SimEvent ev) {
     }
 
@@ -393,7 +382,7 @@ public class ClusteringController extends SimEntity {
     }
 
     public void submitApplication(Application application, int delay, ModulePlacement modulePlacement) {
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
         getAppLaunchDelays().put(application.getAppId(), delay);
         getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -428,7 +417,7 @@ public class ClusteringController extends SimEntity {
 
     private void processAppSubmit(Application application) {
         System.out.println(CloudSim.clock() + " Submitted application " + application.getAppId());
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
 
         ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
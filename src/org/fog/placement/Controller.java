@@ -19,7 +19,9 @@ import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
 import org.fog.utils.FogUtils;
 import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.SimulationContext;
 import org.fog.utils.TimeKeeper;
+import org.fog.utils.metrics.MetricsRegistry;
 
 public class Controller extends SimEntity{
 	
@@ -33,6 +35,7 @@ public class Controller extends SimEntity{
 	private Map<String, Integer> appLaunchDelays;
 
 	private Map<String, ModulePlacement> appModulePlacementPolicy;
+	private SimulationResults results;
 	
 	public Controller(String name, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators) {
 		super(name);
@@ -78,7 +81,7 @@ public class Controller extends SimEntity{
 
 		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 		
-		send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+		send(getId(), SimulationContext.current().getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 		
 		for(FogDevice dev : getFogDevices())
 			sendNow(dev.getId(), FogEvents.RESOURCE_MGMT);
@@ -103,14 +106,14 @@ public class Controller extends SimEntity{
 			printPowerDetails();
 			printCostDetails();
 			printNetworkUsageDetails();
-			System.exit(0);
+			results = SimulationResults.endSimulation(applications, getFogDevices());
 			break;
 			
 		}
 	}
 	
 	private void printNetworkUsageDetails() {
-		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);		
+		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/SimulationContext.current().getMaxSimulationTime());		
 	}
 
 	private FogDevice getCloud(){
@@ -148,7 +151,7 @@ public class Controller extends SimEntity{
 		System.out.println("=========================================");
 		System.out.println("APPLICATION LOOP DELAYS");
 		System.out.println("=========================================");
-		for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+		for(Integer loopId : TimeKeeper.getInstance().getLoopIds()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -173,8 +176,16 @@ public class Controller extends SimEntity{
 	}
 
 	protected void manageResources(){
+		MetricsRegistry.getInstance().publish(CloudSim.clock());
 		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 	}
+
+	/**
+	 * Returns the results of the simulation, or {@code null} if it didn't stop yet.
+	 */
+	public SimulationResults getResults() {
+		return results;
+	}
 	
 	private void processTupleFinished(SimEvent ev) {
 	}
@@ -184,7 +195,7 @@ public class Controller extends SimEntity{
 	}
 	
 	public void submitApplication(Application application, int delay, ModulePlacement modulePlacement){
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		getAppLaunchDelays().put(application.getAppId(), delay);
 		getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -219,7 +230,7 @@ public class Controller extends SimEntity{
 	
 	private void processAppSubmit(Application application){
 		System.out.println(CloudSim.clock()+" Submitted application "+ application.getAppId());
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		
 		ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
@@ -0,0 +1,140 @@
+package org.fog.placement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+
+/**
+ * Lookup of a list of {@link FogDevice}s by id and of the common ancestors of
+ * two devices, as followed through their parents (see
+ * {@link FogDevice#getParentId()}), used by the controllers handling mobility.
+ * <p>
+ * The parent and the depth of each device are kept in arrays indexed by entity
+ * id, so that the common ancestor of two devices is found by climbing from the
+ * deeper one, without building their paths to the root. The parents met while
+ * climbing are checked against the devices: if some device has been moved in
+ * the meantime, the arrays are rebuilt. Devices moved below the common
+ * ancestor, as it happens for mobile devices, never trigger a rebuild.
+ * <p>
+ * The lookup by id follows the list it was created with, and is rebuilt when
+ * the amount of devices of the list changes.
+ */
+public class DeviceHierarchy {
+
+	private static final int STALE = -2;
+
+	private final List<FogDevice> fogDevices;
+	private Map<Integer, FogDevice> devicesById;
+	private int indexedDevices = -1;
+	/** Parent and depth of each entity, -1 for the ones not in the list */
+	private int[] parents, depths;
+
+	public DeviceHierarchy(List<FogDevice> fogDevices) {
+		this.fogDevices = fogDevices;
+	}
+
+	public List<FogDevice> getFogDevices() {
+		return fogDevices;
+	}
+
+	/**
+	 * Returns the device with the given id, or {@code null} if it is not in the
+	 * list.
+	 */
+	public FogDevice getDevice(int id) {
+		if (devicesById == null || indexedDevices != fogDevices.size()) {
+			devicesById = new HashMap<Integer, FogDevice>();
+			for (FogDevice fogDevice : fogDevices) {
+				// the first one wins, as in a scan of the list
+				if (!devicesById.containsKey(fogDevice.getId()))
+					devicesById.put(fogDevice.getId(), fogDevice);
+			}
+			indexedDevices = fogDevices.size();
+		}
+		return devicesById.get(id);
+	}
+
+	/**
+	 * Returns the nearest common ancestor of the two devices (one of them, if it is
+	 * an ancestor of the other one), or -1 if they have no common ancestor.
+	 */
+	public int getCommonAncestor(int first, int second) {
+		int ancestor = parents == null ? STALE : commonAncestor(first, second);
+		if (ancestor == STALE) {
+			build();
+			ancestor = commonAncestor(first, second);
+		}
+		return ancestor == STALE ? -1 : ancestor;
+	}
+
+	private int commonAncestor(int first, int second) {
+		if (!isIndexed(first) || !isIndexed(second))
+			return STALE;
+		while (first != second) {
+			if (depths[first] >= depths[second]) {
+				if (!isUpToDate(first))
+					return STALE;
+				first = parents[first];
+			} else {
+				if (!isUpToDate(second))
+					return STALE;
+				second = parents[second];
+			}
+			if (first < 0 || second < 0)
+				return -1;
+		}
+		return first;
+	}
+
+	private boolean isIndexed(int id) {
+		return id >= 0 && id < depths.length && depths[id] >= 0;
+	}
+
+	private boolean isUpToDate(int id) {
+		FogDevice device = getDevice(id);
+		if (device == null)
+			return false;
+		int parentId = device.getParentId();
+		if (parents[id] < 0) // a root, unless it got a parent in the list
+			return parentId < 0 || getDevice(parentId) == null;
+		return parentId == parents[id] && isIndexed(parentId);
+	}
+
+	private void build() {
+		int n = CloudSim.getNumEntities();
+		for (FogDevice fogDevice : fogDevices)
+			n = Math.max(n, fogDevice.getId() + 1);
+		parents = new int[n];
+		depths = new int[n];
+		Arrays.fill(parents, -1);
+		Arrays.fill(depths, -1);
+		for (FogDevice fogDevice : fogDevices) {
+			int id = fogDevice.getId();
+			if (id >= 0 && getDevice(id) == fogDevice) {
+				int parentId = fogDevice.getParentId();
+				parents[id] = parentId >= 0 && parentId < n && getDevice(parentId) != null ? parentId : -1;
+			}
+		}
+		int[] chain = new int[n];
+		for (FogDevice fogDevice : fogDevices) {
+			// climbs up to a device whose depth is known (or to a root), then goes back
+			int length = 0, id = fogDevice.getId();
+			if (id < 0 || getDevice(id) != fogDevice)
+				continue;
+			while (id >= 0 && depths[id] < 0 && length < n) {
+				chain[length++] = id;
+				depths[id] = Integer.MAX_VALUE; // visiting: a cycle stops here
+				id = parents[id];
+			}
+			int depth = id < 0 || depths[id] == Integer.MAX_VALUE ? -1 : depths[id];
+			if (id >= 0 && depths[id] == Integer.MAX_VALUE)
+				parents[chain[length - 1]] = -1; // breaks the cycle
+			while (length > 0)
+				depths[chain[--length]] = ++depth;
+		}
+	}
+}
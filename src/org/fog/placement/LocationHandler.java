@@ -6,14 +6,20 @@ import java.util.List;
 import java.util.Map;
 
 import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.LocationIndex;
+import org.fog.mobilitydata.MobilityTrace;
 import org.fog.mobilitydata.DataParser;
 import org.fog.mobilitydata.References;
-import org.fog.utils.Config;
 
 public class LocationHandler {
 	
 	public DataParser dataObject;
 	public Map<Integer, String> instanceToDataId;
+	/** Reverse of {@link #instanceToDataId}, rebuilt lazily when that changes */
+	private Map<String, Integer> dataIdToInstanceId;
+	private int reverseIndexedInstances = -1;
+	/** Spatial index of the resources of each level, built lazily */
+	private Map<Integer, LocationIndex> levelIndexes = new HashMap<Integer, LocationIndex>();
 	
 
 	public LocationHandler(DataParser dataObject) {
@@ -62,46 +68,21 @@ public class LocationHandler {
 		else
 			resourceLoc = getUserLocationInfo(dataId,time);
 		
-		int parentInstanceId = References.NOT_SET;	
-		String parentDataId = "";
-				
+		int parentInstanceId = References.NOT_SET;
+		LocationIndex parents = getLevelIndex(parentLevel);
 	
 		if(time<References.INIT_TIME){
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				if(potentialParentLoc.block==resourceLoc.block) {
-					parentDataId = getLevelWiseResources(parentLevel).get(i);
-					for(int parentIdIterator: instanceToDataId.keySet())
-					{
-						if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-						{
-							parentInstanceId = parentIdIterator;
-						}
-					}
-				}	
+			// the last resource of the block having an instance
+			List<String> blockResources = parents.getResourcesInBlock(resourceLoc.block);
+			for(int i=blockResources.size()-1; i>=0 && parentInstanceId==References.NOT_SET; i--){
+				parentInstanceId = getInstanceIdByDataId(blockResources.get(i));
 			}
 		}
 		else
 		{
-			double minmumDistance = Config.MAX_VALUE;
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				
-				double distance = calculateDistance(resourceLoc, potentialParentLoc);
-					if(distance<minmumDistance){
-						parentDataId = getLevelWiseResources(parentLevel).get(i);
-						minmumDistance = distance;
-					}
-			}
-			
-			for(int parentIdIterator: instanceToDataId.keySet())
-			{
-				if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-				{
-					parentInstanceId = parentIdIterator;
-				}
-			}
-			
+			String parentDataId = parents.getNearest(resourceLoc);
+			if(parentDataId!=null)
+				parentInstanceId = getInstanceIdByDataId(parentDataId);
 		}
 		
 		return parentInstanceId;	
@@ -109,7 +90,9 @@ public class LocationHandler {
 
 	private Location getUserLocationInfo(String dataId, double time) {
 		// TODO Auto-generated method stub
-		return getDataObject().usersLocation.get(dataId).get(time);
+		MobilityTrace trace = getDataObject().usersTraces.get(dataId);
+		// the clock of an event may differ from the time of the trace by rounding
+		return trace.getLocation(trace.indexNearest(time));
 	}
 
 	private Location getResourceLocationInfo(String dataId) {
@@ -120,14 +103,59 @@ public class LocationHandler {
 	
 	public List<Double> getTimeSheet(int instanceId) {
 		
-		String dataId = getDataIdByInstanceID(instanceId);
-		List<Double>timeSheet = new ArrayList<Double>(getDataObject().usersLocation.get(dataId).keySet());
-		return timeSheet;
+		return getMobilityTrace(instanceId).getTimeSheet();
+	}
+
+	public MobilityTrace getMobilityTrace(int instanceId) {
+		return getDataObject().usersTraces.get(getDataIdByInstanceID(instanceId));
 	}
 
 	public void linkDataWithInstance(int instanceId, String dataID) {
 		// TODO Auto-generated method stub
 		instanceToDataId.put(instanceId, dataID);
+		dataIdToInstanceId = null;
+	}
+
+	/**
+	 * Returns the instance linked to the given data id (the last one found in {@link #instanceToDataId}, if
+	 * there are more), or {@link References#NOT_SET}.
+	 */
+	public int getInstanceIdByDataId(String dataId) {
+		Integer instanceId = dataIdToInstanceId == null ? null : dataIdToInstanceId.get(dataId);
+		if (dataIdToInstanceId == null || reverseIndexedInstances != instanceToDataId.size()
+				|| (instanceId != null && !dataId.equals(instanceToDataId.get(instanceId)))) {
+			// instanceToDataId is public: it may have been changed directly
+			dataIdToInstanceId = new HashMap<String, Integer>();
+			for (Map.Entry<Integer, String> e : instanceToDataId.entrySet())
+				dataIdToInstanceId.put(e.getValue(), e.getKey());
+			reverseIndexedInstances = instanceToDataId.size();
+			instanceId = dataIdToInstanceId.get(dataId);
+		}
+		return instanceId == null ? References.NOT_SET : instanceId;
+	}
+
+	/**
+	 * Returns the spatial index of the resources of the given level.
+	 */
+	public LocationIndex getLevelIndex(int levelNo) {
+		List<String> resources = getLevelWiseResources(levelNo);
+		if (resources == null)
+			resources = new ArrayList<String>();
+		LocationIndex index = levelIndexes.get(levelNo);
+		if (index == null || index.size() != resources.size()) {
+			index = new LocationIndex(resources, getDataObject().resourceLocationData);
+			levelIndexes.put(levelNo, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the resources on the same level of the given one within the given range (in Kilometers) from it,
+	 * itself included, in the order of {@link #getLevelWiseResources(int)}.
+	 */
+	public List<String> getResourcesInRange(String dataId, double range) {
+		int level = getDataObject().resourceAndUserToLevel.get(dataId);
+		return getLevelIndex(level).getResourcesInRange(getResourceLocationInfo(dataId), range);
 	}
 
 	public int getLevelID(String resourceType) {
@@ -152,7 +180,7 @@ public class LocationHandler {
 
 	public List<String> getMobileUserDataId() {
 		// TODO Auto-generated method stub
-		List<String> userDataIds = new ArrayList<>(getDataObject().usersLocation.keySet());
+		List<String> userDataIds = new ArrayList<>(getDataObject().usersTraces.keySet());
 		return userDataIds;
 		
 	}
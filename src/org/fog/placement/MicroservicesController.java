@@ -9,6 +9,7 @@ import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.*;
 import org.fog.utils.*;
+import org.fog.utils.metrics.MetricsRegistry;
 
 import java.util.*;
 
@@ -25,6 +26,8 @@ public class MicroservicesController extends SimEntity {
     protected int placementLogic;
 
     protected List<Integer> clustering_levels;
+    private DeviceHierarchy deviceHierarchy;
+    private SimulationResults results;
 
     /**
      * @param name
@@ -117,11 +120,13 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected FogDevice getFogDeviceById(int id) {
-        for (FogDevice f : fogDevices) {
-            if (f.getId() == id)
-                return f;
-        }
-        return null;
+        return getDeviceHierarchy().getDevice(id);
+    }
+
+    protected DeviceHierarchy getDeviceHierarchy() {
+        if (deviceHierarchy == null || deviceHierarchy.getFogDevices() != fogDevices)
+            deviceHierarchy = new DeviceHierarchy(fogDevices);
+        return deviceHierarchy;
     }
 
     protected void generateRoutingTable() {
@@ -145,7 +150,7 @@ public class MicroservicesController extends SimEntity {
 
         send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 
-        send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+        send(getId(), SimulationContext.current().getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
     }
 
     protected void shareResourceDataAmongClusterNodes() {
@@ -219,7 +224,7 @@ public class MicroservicesController extends SimEntity {
                 printCostDetails();
                 printNetworkUsageDetails();
                 printQoSDetails();
-                System.exit(0);
+                endSimulation();
                 break;
         }
 
@@ -256,11 +261,26 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected void manageResources() {
+        MetricsRegistry.getInstance().publish(CloudSim.clock());
         send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
     }
 
+    /**
+     * Ends the simulation, see {@link SimulationResults#endSimulation(Map, List)}.
+     */
+    protected void endSimulation() {
+        results = SimulationResults.endSimulation(applications, fogDevices);
+    }
+
+    /**
+     * Returns the results of the simulation, or {@code null} if it didn't stop yet.
+     */
+    public SimulationResults getResults() {
+        return results;
+    }
+
     protected void printNetworkUsageDetails() {
-        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / Config.MAX_SIMULATION_TIME);
+        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / SimulationContext.current().getMaxSimulationTime());
     }
 
     protected FogDevice getCloud() {
@@ -298,7 +318,7 @@ public class MicroservicesController extends SimEntity {
         System.out.println("=========================================");
         System.out.println("APPLICATION LOOP DELAYS");
         System.out.println("=========================================");
-        for (Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()) {
+        for (Integer loopId : TimeKeeper.getInstance().getLoopIds()) {
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
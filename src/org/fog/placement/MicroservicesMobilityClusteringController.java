@@ -15,13 +15,13 @@ import org.fog.mobilitydata.References;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
 import org.fog.utils.MigrationDelayMonitor;
+import org.fog.utils.ShortestPathRoutingGenerator;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Created by Samodha Pallewatta on 7/31/2020.
@@ -30,6 +30,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
     private LocationHandler locator;
     private Map<Integer, Integer> parentReference;
+    private MobilityEventScheduler mobilityScheduler;
 
 
     protected Map<Integer, Map<String, PlacementRequest>> perClientDevicePrs = new HashMap<>();  // clientDevice -> <Application -> PR>
@@ -101,7 +102,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 printCostDetails();
                 printNetworkUsageDetails();
                 printMigrationDelayDetails();
-                System.exit(0);
+                endSimulation();
                 break;
             default:
                 super.processEvent(ev);
@@ -166,6 +167,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
         // TODO Auto-generated method stub
         FogDevice fogDevice = (FogDevice) ev.getData();
+        mobilityScheduler.scheduleNext(fogDevice);
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
         FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
@@ -178,9 +180,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
             //printFogDeviceChildren(prevParent.getId());
 
             //common ancestor policy
-            List<Integer> newParentPath = getPathsToCloud(newParent.getId());
-            List<Integer> prevParentPath = getPathsToCloud(prevParent.getId());
-            int commonAncestor = determineAncestor(newParentPath, prevParentPath);
+            int commonAncestor = getDeviceHierarchy().getCommonAncestor(newParent.getId(), prevParent.getId());
 
 
             fogDevice.setParentId(newParent.getId());
@@ -253,20 +253,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void updateRoutingTable(FogDevice fogDevice) {
-
-        for (FogDevice f : fogDevices) {
-            if (f.getId() != fogDevice.getId()) {
-                // for mobile device update all to parent
-                ((MicroserviceFogDevice) fogDevice).updateRoutingTable(f.getId(), fogDevice.getParentId());
-
-                ////for other update route to mobile based on route to parent
-                int nextId = ((MicroserviceFogDevice) f).getRoutingTable().get(fogDevice.getParentId());
-                if (f.getId() != nextId)
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), nextId);
-                else
-                    ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), fogDevice.getId());
-            }
-        }
+        ShortestPathRoutingGenerator.updateRoutingTables(fogDevices, fogDevice);
     }
 
     private void serviceDiscoveryUpdate(FogDevice fogDevice, Map<String, Integer> migratingModules, String applicationName, int newParent, HashMap<String, Double> upDelays, HashMap<String, Double> downDelays) {
@@ -385,33 +372,10 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
         return networkDelay;
     }
 
-    private int determineAncestor(List<Integer> newParentPath, List<Integer> prevParentPath) {
-        // TODO Auto-generated method stub
-        List<Integer> common = newParentPath.stream().filter(prevParentPath::contains).collect(Collectors.toList());
-        return common.get(0);
-    }
-
-    private List<Integer> getPathsToCloud(int deviceID) {
-        // TODO Auto-generated method stub
-        List<Integer> path = new ArrayList<Integer>();
-        while (!locator.isCloud(deviceID)) {
-            path.add(deviceID);
-            deviceID = getFogDeviceById(deviceID).getParentId();
-        }
-        path.add(getCloud().getId());
-        return path;
-    }
-
     private void processMobilityData() {
-        // TODO Auto-generated method stub
-        List<Double> timeSheet = new ArrayList<Double>();
-        for (FogDevice fogDevice : fogDevices) {
-            if (locator.isAMobileDevice(fogDevice.getId())) {
-                timeSheet = locator.getTimeSheet(fogDevice.getId());
-                for (double timeEntry : timeSheet)
-                    send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT, fogDevice);
-            }
-        }
+        // only the next movement of each device is scheduled
+        mobilityScheduler = new MobilityEventScheduler(getId(), locator);
+        mobilityScheduler.start(fogDevices);
     }
 
 
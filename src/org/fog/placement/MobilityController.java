@@ -5,7 +5,6 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
@@ -22,7 +21,9 @@ import org.fog.utils.FogEvents;
 import org.fog.utils.FogUtils;
 import org.fog.utils.MigrationDelayMonitor;
 import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.SimulationContext;
 import org.fog.utils.TimeKeeper;
+import org.fog.utils.metrics.MetricsRegistry;
 import org.json.simple.JSONObject;
 
 
@@ -35,6 +36,8 @@ public class MobilityController extends SimEntity{
 	private List<Actuator> actuators;
 	private LocationHandler locator;
 	private Map<Integer, Integer> parentReference;
+	private DeviceHierarchy deviceHierarchy;
+	private MobilityEventScheduler mobilityScheduler;
 
 
 	private Map<String, Application> applications;
@@ -42,6 +45,7 @@ public class MobilityController extends SimEntity{
 	
 
 	private Map<String, ModulePlacement> appModulePlacementPolicy;
+	private SimulationResults results;
 	
 	public MobilityController(String name, List<FogDevice> fogDevices, List<Sensor> sensors, List<Actuator> actuators, LocationHandler locator) {
 		super(name);
@@ -64,12 +68,14 @@ public class MobilityController extends SimEntity{
 		this.parentReference = parentReference;
 	}
 
-	private FogDevice getFogDeviceById(int id){
-		for(FogDevice fogDevice : getFogDevices()){
-			if(id==fogDevice.getId())
-				return fogDevice;
-		}
-		return null;
+	private FogDevice getFogDeviceById(int id) {
+		return getDeviceHierarchy().getDevice(id);
+	}
+
+	private DeviceHierarchy getDeviceHierarchy() {
+		if (deviceHierarchy == null || deviceHierarchy.getFogDevices() != getFogDevices())
+			deviceHierarchy = new DeviceHierarchy(getFogDevices());
+		return deviceHierarchy;
 	}
 	
 	private void connectWithLatencies(){
@@ -118,7 +124,7 @@ public class MobilityController extends SimEntity{
 
 		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 		
-		send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+		send(getId(), SimulationContext.current().getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 		
 		sendNow(getId(), FogEvents.MOBILITY_SUBMIT);
 		
@@ -152,7 +158,7 @@ public class MobilityController extends SimEntity{
 			printCostDetails();
 			printNetworkUsageDetails();
 			printMigrationDelayDetails();
-			System.exit(0);
+			results = SimulationResults.endSimulation(applications, getFogDevices());
 			break;
 			
 		}
@@ -175,6 +181,7 @@ public class MobilityController extends SimEntity{
 	private void processMobility(SimEvent ev) {
 		// TODO Auto-generated method stub
 		FogDevice fogDevice = (FogDevice) ev.getData();
+		mobilityScheduler.scheduleNext(fogDevice);
 		FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
 		FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(),CloudSim.clock()));
 		System.out.println(CloudSim.clock()+" Starting Mobility Management for "+fogDevice.getName());
@@ -185,9 +192,7 @@ public class MobilityController extends SimEntity{
 			//printFogDeviceChildren(prevParent.getId());
 			
 			//common ancestor policy
-			List<Integer>newParentPath = getPathsToCloud(newParent.getId());
-			List<Integer>prevParentPath = getPathsToCloud(prevParent.getId());
-			int commonAncestor = determineAncestor(newParentPath,prevParentPath);
+			int commonAncestor = getDeviceHierarchy().getCommonAncestor(newParent.getId(), prevParent.getId());
 			
 			
 			fogDevice.setParentId(newParent.getId());
@@ -246,37 +251,14 @@ public class MobilityController extends SimEntity{
 		return networkDelay;
 	}
 
-	private int determineAncestor(List<Integer> newParentPath, List<Integer> prevParentPath) {
-		// TODO Auto-generated method stub
-		List<Integer> common = newParentPath.stream().filter(prevParentPath::contains).collect(Collectors.toList());
-		return common.get(0);
-	}
-
-	private List<Integer> getPathsToCloud(int deviceID) {
-		// TODO Auto-generated method stub
-		List<Integer>path = new ArrayList<Integer>();
-		while(!locator.isCloud(deviceID)){
-			path.add(deviceID);
-			deviceID = getFogDeviceById(deviceID).getParentId();
-		}
-		path.add(getCloud().getId());
-		return path;
-	}
-
 	private void processMobilityData() {
-		// TODO Auto-generated method stub
-		List<Double>timeSheet = new ArrayList<Double>();
-		for(FogDevice fogDevice : getFogDevices()){
-			if(locator.isAMobileDevice(fogDevice.getId())) {
-				timeSheet = locator.getTimeSheet(fogDevice.getId());
-				for(double timeEntry:timeSheet)
-					send(getId(), timeEntry, FogEvents.MOBILITY_MANAGEMENT,fogDevice);
-			}
-		}
+		// only the next movement of each device is scheduled
+		mobilityScheduler = new MobilityEventScheduler(getId(), locator);
+		mobilityScheduler.start(getFogDevices());
 	}
 
 	private void printNetworkUsageDetails() {
-		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);		
+		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/SimulationContext.current().getMaxSimulationTime());		
 	}
 
 	private FogDevice getCloud(){
@@ -316,7 +298,7 @@ public class MobilityController extends SimEntity{
 		System.out.println("=========================================");
 		//System.out.println("APPLICATION LOOP DELAYS");
 		//System.out.println("=========================================");
-		//for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+		//for(Integer loopId : TimeKeeper.getInstance().getLoopIds()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -341,8 +323,16 @@ public class MobilityController extends SimEntity{
 	}
 
 	protected void manageResources(){
+		MetricsRegistry.getInstance().publish(CloudSim.clock());
 		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
 	}
+
+	/**
+	 * Returns the results of the simulation, or {@code null} if it didn't stop yet.
+	 */
+	public SimulationResults getResults() {
+		return results;
+	}
 	
 	private void processTupleFinished(SimEvent ev) {
 	}
@@ -352,7 +342,7 @@ public class MobilityController extends SimEntity{
 	}
 	
 	public void submitApplication(Application application, int delay, ModulePlacement modulePlacement){
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		getAppLaunchDelays().put(application.getAppId(), delay);
 		getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -387,7 +377,7 @@ public class MobilityController extends SimEntity{
 	
 	private void processAppSubmit(Application application){
 		System.out.println(CloudSim.clock()+" Submitted application "+ application.getAppId());
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		
 		ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
@@ -0,0 +1,55 @@
+package org.fog.placement;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+import org.fog.mobilitydata.MobilityTrace;
+import org.fog.utils.FogEvents;
+
+/**
+ * Schedules the {@link FogEvents#MOBILITY_MANAGEMENT} events of the mobile
+ * devices, one at a time: only the next movement of each device is in the
+ * event queue, and the following one is read from its trace (see
+ * {@link LocationHandler#getMobilityTrace(int)}) when that fires. The queue
+ * grows with the amount of mobile devices, instead of the length of their
+ * traces.
+ * <p>
+ * The events are sent to the controller, carrying the moving device as data.
+ */
+public class MobilityEventScheduler {
+
+	private final int controllerId;
+	private final LocationHandler locator;
+
+	public MobilityEventScheduler(int controllerId, LocationHandler locator) {
+		this.controllerId = controllerId;
+		this.locator = locator;
+	}
+
+	/**
+	 * Schedules the first movement of each mobile device of the list.
+	 */
+	public void start(List<FogDevice> fogDevices) {
+		for (FogDevice fogDevice : fogDevices) {
+			if (locator.isAMobileDevice(fogDevice.getId()))
+				schedule(fogDevice, 0);
+		}
+	}
+
+	/**
+	 * Schedules the movement following the one of the given device happening
+	 * now, if any.
+	 */
+	public void scheduleNext(FogDevice fogDevice) {
+		MobilityTrace trace = locator.getMobilityTrace(fogDevice.getId());
+		schedule(fogDevice, trace.indexNearest(CloudSim.clock()) + 1);
+	}
+
+	private void schedule(FogDevice fogDevice, int index) {
+		MobilityTrace trace = locator.getMobilityTrace(fogDevice.getId());
+		if (index < trace.size())
+			CloudSim.send(controllerId, controllerId, Math.max(0, trace.getTime(index) - CloudSim.clock()),
+					FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+	}
+}
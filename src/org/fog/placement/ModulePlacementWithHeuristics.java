@@ -20,14 +20,20 @@ import org.fog.heuristics.Heuristic.HeuristicType;
 import org.fog.heuristics.SolutionsProducerEvaluator;
 import org.fog.heuristics.fogImplementations.HeuristicFog;
 import org.fog.heuristics.fogImplementations.HeuristicFogFactory;
+import org.fog.heuristics.fogImplementations.IslandModelFog;
+import org.fog.heuristics.fogImplementations.IslandModelFog.IslandStatistics;
 import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog;
 import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformationFog.DeviceNodeTypesLatencyMap;
 import org.fog.heuristics.fogImplementations.SolutionModulesDeployed;
 import org.fog.heuristics.fogImplementations.SolutionMutatorFog;
 import org.fog.heuristics.fogImplementations.ga.ChromosomeFog;
+import org.fog.heuristics.fogImplementations.ga.GenerationalGeneticAlgorithmFog;
 import org.fog.heuristics.fogImplementations.ga.GeneticAlgorithmFog;
+import org.fog.heuristics.fogImplementations.sa.ParallelSimulatedAnnealingFog;
+import org.fog.heuristics.fogImplementations.sa.ParallelTemperingFog;
 import org.fog.heuristics.fogImplementations.sa.SASolutionFog;
 import org.fog.heuristics.fogImplementations.sa.SimulatedAnnealingFog;
+import org.fog.utils.SimulationContext;
 
 /**
  * DISCLAIMER: <br>
@@ -74,6 +80,18 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 						return new GeneticAlgorithmFog(modPlacementAdditionalInfo, mut);
 					}
 				}), //
+		GenerationalGeneticAlgorithm( //
+				new HeuristicFogFactory() {
+					@Override
+					public <S extends SolutionModulesDeployed> HeuristicFog newInstance(
+							ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo,
+							SolutionMutatorFog<S> mutator) {
+						SolutionMutatorFog<ChromosomeFog> mut;
+						mut = new SolutionMutatorFog<ChromosomeFog>();
+						mut.setModPlacementAdditionalInfo(modPlacementAdditionalInfo);
+						return new GenerationalGeneticAlgorithmFog(modPlacementAdditionalInfo, mut);
+					}
+				}), //
 		SimulatedAnnealing(new HeuristicFogFactory() {
 			@Override
 			public <S extends SolutionModulesDeployed> HeuristicFog newInstance(
@@ -83,6 +101,26 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 				mut.setModPlacementAdditionalInfo(modPlacementAdditionalInfo);
 				return new SimulatedAnnealingFog(modPlacementAdditionalInfo, mut);
 			}
+		}), //
+		ParallelSimulatedAnnealing(new HeuristicFogFactory() {
+			@Override
+			public <S extends SolutionModulesDeployed> HeuristicFog newInstance(
+					ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo, SolutionMutatorFog<S> mutator) {
+				SolutionMutatorFog<SASolutionFog> mut;
+				mut = new SolutionMutatorFog<SASolutionFog>();
+				mut.setModPlacementAdditionalInfo(modPlacementAdditionalInfo);
+				return new ParallelSimulatedAnnealingFog(modPlacementAdditionalInfo, mut);
+			}
+		}), //
+		ParallelTempering(new HeuristicFogFactory() {
+			@Override
+			public <S extends SolutionModulesDeployed> HeuristicFog newInstance(
+					ModulePlacementAdditionalInformationFog modPlacementAdditionalInfo, SolutionMutatorFog<S> mutator) {
+				SolutionMutatorFog<SASolutionFog> mut;
+				mut = new SolutionMutatorFog<SASolutionFog>();
+				mut.setModPlacementAdditionalInfo(modPlacementAdditionalInfo);
+				return new ParallelTemperingFog(modPlacementAdditionalInfo, mut);
+			}
 		});
 
 		HeuristicAccepted(HeuristicFogFactory factory) {
@@ -100,7 +138,12 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 		}
 	}
 
-	private static final HeuristicAccepted[] ALL_HEURISTICS = HeuristicAccepted.values();
+	/**
+	 * The heuristics alternated by {@link #alternatingHeuristicsPlacement(int, ModulePlacementAdditionalInformationFog)}:
+	 * the sequential ones, the parallel variants being chosen explicitly (for instance as islands).
+	 */
+	private static final HeuristicAccepted[] ALL_HEURISTICS = { HeuristicAccepted.GeneticAlgorith,
+			HeuristicAccepted.GenerationalGeneticAlgorithm, HeuristicAccepted.SimulatedAnnealing };
 
 	public static final Comparator<Application> APP_COMPARATOR = (a1, a2) -> {
 		double priority1, priority2;
@@ -131,7 +174,24 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 			double thresholdDifferenceSolutions, ModuleMapping moduleMapping, List<FogDevice> fogDevices,
 			List<Sensor> sensors, List<Actuator> actuators, List<Application> applications,
 			DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes) {
+		this(thresholdProcessPower, thresholdSolutionEvaluationImprovement, thresholdDifferenceSolutions,
+				moduleMapping, fogDevices, sensors, actuators, applications, latenciesBetweenDeviceTypes, 0);
+	}
+
+	/**
+	 * @param islandsCount if positive, the placement is optimized by an
+	 *                     {@link IslandModelFog} of this amount of islands,
+	 *                     alternating genetic algorithms and simulated annealings,
+	 *                     instead of a single heuristic at a time (see
+	 *                     {@link #getIslandsCount()})
+	 */
+	public ModulePlacementWithHeuristics(//
+			double thresholdProcessPower, double thresholdSolutionEvaluationImprovement,
+			double thresholdDifferenceSolutions, ModuleMapping moduleMapping, List<FogDevice> fogDevices,
+			List<Sensor> sensors, List<Actuator> actuators, List<Application> applications,
+			DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes, int islandsCount) {
 		super();
+		this.islandsCount = islandsCount;
 		this.setModuleToDeviceMap(new HashMap<>());
 		this.setDeviceToModuleMap(new HashMap<>());
 		this.setModuleMapping(moduleMapping);
@@ -158,6 +218,8 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 	protected List<AppModule> modules;
 	protected List<Application> applications;
 	protected DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes;
+	protected int islandsCount;
+	protected List<IslandStatistics> islandsStatistics;
 
 	protected Map<String, AppModule> modulesByName;
 	protected Map<String, Application> applicationsByID;
@@ -232,6 +294,23 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 		return latenciesBetweenDeviceTypes;
 	}
 
+	/**
+	 * Amount of islands of the {@link IslandModelFog} running concurrently to
+	 * optimize the placement; if non-positive, a single randomly chosen heuristic
+	 * runs at a time.
+	 */
+	public int getIslandsCount() {
+		return islandsCount;
+	}
+
+	/**
+	 * @return the statistics of the islands (see {@link #getIslandsCount()}), null
+	 *         if not used
+	 */
+	public List<IslandStatistics> getIslandsStatistics() {
+		return islandsStatistics;
+	}
+
 	//
 
 	public void setApplications(List<Application> applications) {
@@ -406,6 +485,39 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 
 	protected SolutionModulesDeployed modulePlacement(int maxIterations,
 			ModulePlacementAdditionalInformationFog additionalInformation) {
+		if (this.islandsCount > 0) {
+			return islandsPlacement(maxIterations, additionalInformation);
+		}
+		return alternatingHeuristicsPlacement(maxIterations, additionalInformation);
+	}
+
+	/**
+	 * Runs an {@link IslandModelFog}: even islands run a genetic algorithm, odd
+	 * ones a simulated annealing.
+	 */
+	protected SolutionModulesDeployed islandsPlacement(int maxIterations,
+			ModulePlacementAdditionalInformationFog additionalInformation) {
+		List<HeuristicAccepted> factories;
+		IslandModelFog islands;
+		SolutionModulesDeployed solution;
+
+		factories = new ArrayList<>(this.islandsCount);
+		for (int i = 0; i < this.islandsCount; i++) {
+			factories.add((i & 1) == 0 ? HeuristicAccepted.GeneticAlgorith : HeuristicAccepted.SimulatedAnnealing);
+		}
+		islands = new IslandModelFog(additionalInformation, factories);
+		solution = islands.optimize(null, maxIterations, SimulationContext.current().newRandom());
+		this.islandsStatistics = islands.getIslandsStatistics();
+
+		System.out.println(this.getClass().getName() + ", islands:");
+		this.islandsStatistics.forEach(System.out::println);
+		System.out.println(this.getClass().getName() + ", solution:");
+		System.out.println(solution);
+		return solution;
+	}
+
+	protected SolutionModulesDeployed alternatingHeuristicsPlacement(int maxIterations,
+			ModulePlacementAdditionalInformationFog additionalInformation) {
 		boolean improvedEnough, diverseEnought;
 		double lastEvaluation, evaluation;
 		long difference, maxDifference;
@@ -414,7 +526,7 @@ public class ModulePlacementWithHeuristics extends ModulePlacement {
 		SolutionMutatorFog<SolutionModulesDeployed> mutator;
 		SolutionModulesDeployed solution, prevSolution;
 
-		r = new Random();
+		r = SimulationContext.current().newRandom();
 
 		mutator = new SolutionMutatorFog<>();
 		solution = prevSolution = null;
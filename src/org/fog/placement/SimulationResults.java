@@ -0,0 +1,166 @@
+package org.fog.placement;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+import org.fog.utils.MigrationDelayMonitor;
+import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.TimeKeeper;
+import org.fog.utils.metrics.MetricsRegistry;
+import org.fog.utils.metrics.MetricsSnapshot;
+
+/**
+ * Results of a simulation, collected by its controller when the simulation
+ * stops: the same values the controllers print, so that a simulation can be
+ * run and inspected without exiting the JVM.
+ */
+public class SimulationResults {
+
+	private final double simulationTime;
+	private final long executionTime;
+	private final Map<String, Double> loopDelays;
+	private final Map<String, Double> tupleCpuTimes;
+	private final Map<String, Double> energyConsumptions;
+	private final double cloudCost;
+	private final double networkUsage;
+	private final double migrationDelay;
+	private final MetricsSnapshot metrics;
+
+	private SimulationResults(double simulationTime, long executionTime, Map<String, Double> loopDelays,
+			Map<String, Double> tupleCpuTimes, Map<String, Double> energyConsumptions, double cloudCost,
+			double networkUsage, double migrationDelay, MetricsSnapshot metrics) {
+		this.simulationTime = simulationTime;
+		this.executionTime = executionTime;
+		this.loopDelays = Collections.unmodifiableMap(loopDelays);
+		this.tupleCpuTimes = Collections.unmodifiableMap(tupleCpuTimes);
+		this.energyConsumptions = Collections.unmodifiableMap(energyConsumptions);
+		this.cloudCost = cloudCost;
+		this.networkUsage = networkUsage;
+		this.migrationDelay = migrationDelay;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Collects the results of the current simulation, whose applications and
+	 * devices are given.
+	 */
+	public static SimulationResults collect(Map<String, Application> applications, List<FogDevice> fogDevices) {
+		TimeKeeper timeKeeper = TimeKeeper.getInstance();
+		Map<String, Double> loopDelays = new LinkedHashMap<String, Double>();
+		for (Integer loopId : timeKeeper.getLoopIds()) {
+			String loop = getStringForLoopId(applications, loopId);
+			loopDelays.put(loop, timeKeeper.getLoopIdToCurrentAverage().get(loopId));
+		}
+		Map<String, Double> tupleCpuTimes = new LinkedHashMap<String, Double>(
+				timeKeeper.getTupleTypeToAverageCpuTime());
+		Map<String, Double> energyConsumptions = new LinkedHashMap<String, Double>();
+		double cloudCost = Double.NaN;
+		for (FogDevice fogDevice : fogDevices) {
+			energyConsumptions.put(fogDevice.getName(), fogDevice.getEnergyConsumption());
+			if (Double.isNaN(cloudCost) && fogDevice.getName().equals("cloud"))
+				cloudCost = fogDevice.getTotalCost();
+		}
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		return new SimulationResults(CloudSim.clock(),
+				Calendar.getInstance().getTimeInMillis() - timeKeeper.getSimulationStartTime(), loopDelays,
+				tupleCpuTimes, energyConsumptions, cloudCost, NetworkUsageMonitor.getNetworkUsage(),
+				MigrationDelayMonitor.getMigrationDelay(),
+				registry.isEnabled() ? registry.snapshot(CloudSim.clock()) : null);
+	}
+
+	/**
+	 * Publishes the last metrics of the current simulation, collects its results
+	 * and terminates it, so that {@link CloudSim#startSimulation()} returns.
+	 * Called by the controllers when the simulation time is over.
+	 */
+	public static SimulationResults endSimulation(Map<String, Application> applications,
+			List<FogDevice> fogDevices) {
+		MetricsRegistry.getInstance().publish(CloudSim.clock());
+		SimulationResults results = collect(applications, fogDevices);
+		CloudSim.abruptallyTerminate();
+		return results;
+	}
+
+	private static String getStringForLoopId(Map<String, Application> applications, int loopId) {
+		for (Application app : applications.values()) {
+			for (AppLoop loop : app.getLoops()) {
+				if (loop.getLoopId() == loopId)
+					return loop.getModules().toString();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the simulation time at which the simulation stopped.
+	 */
+	public double getSimulationTime() {
+		return simulationTime;
+	}
+
+	/**
+	 * Returns the wall-clock time of the simulation, in milliseconds.
+	 */
+	public long getExecutionTime() {
+		return executionTime;
+	}
+
+	/**
+	 * Returns the average delay of each application loop, keyed by its modules.
+	 */
+	public Map<String, Double> getLoopDelays() {
+		return loopDelays;
+	}
+
+	/**
+	 * Returns the average CPU time of each tuple type.
+	 */
+	public Map<String, Double> getTupleCpuTimes() {
+		return tupleCpuTimes;
+	}
+
+	/**
+	 * Returns the energy consumed by each device, keyed by its name.
+	 */
+	public Map<String, Double> getEnergyConsumptions() {
+		return energyConsumptions;
+	}
+
+	/**
+	 * Returns the cost of the execution in the cloud, or {@code NaN} if there is
+	 * no device named "cloud".
+	 */
+	public double getCloudCost() {
+		return cloudCost;
+	}
+
+	/**
+	 * Returns the total network usage (see {@link NetworkUsageMonitor}).
+	 */
+	public double getNetworkUsage() {
+		return networkUsage;
+	}
+
+	/**
+	 * Returns the total time spent migrating modules (see
+	 * {@link MigrationDelayMonitor}).
+	 */
+	public double getMigrationDelay() {
+		return migrationDelay;
+	}
+
+	/**
+	 * Returns the metrics of the simulation when it stopped, or {@code null} if
+	 * its registry was disabled.
+	 */
+	public MetricsSnapshot getMetrics() {
+		return metrics;
+	}
+}
@@ -28,27 +28,38 @@ import org.fog.placement.Controller;
 import org.fog.placement.ModuleMapping;
 import org.fog.placement.ModulePlacementEdgewards;
 import org.fog.placement.ModulePlacementMapping;
+import org.fog.placement.SimulationResults;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogTopologyPartitioner;
 import org.fog.utils.FogUtils;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.sweep.SweepConfiguration;
+import org.fog.utils.sweep.SweepScenario;
 
 /**
  * Simulation setup for case study 2 - Intelligent Surveillance
+ * <p>
+ * As a {@link SweepScenario}, it reads the parameters areas, camerasPerArea,
+ * placement (edgewards or cloud), sensorInterval (inter-transmission time of
+ * the cameras) and partitions (if positive, the areas are simulated in parallel
+ * by as many threads, see {@link FogTopologyPartitioner}).
  * 
  * @author Harshit Gupta
  *
  */
-public class DCNSFog {
-	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static List<Sensor> sensors = new ArrayList<Sensor>();
-	static List<Actuator> actuators = new ArrayList<Actuator>();
-	static int numOfAreas = 1;
-	static int numOfCamerasPerArea = 4;
+public class DCNSFog implements SweepScenario {
+	List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	List<Sensor> sensors = new ArrayList<Sensor>();
+	List<Actuator> actuators = new ArrayList<Actuator>();
+	int numOfAreas = 1;
+	int numOfCamerasPerArea = 4;
+	double cameraTransmissionTime = 5;
+	int partitions = 0;
 
-	private static boolean CLOUD = false;
+	private boolean CLOUD = false;
 
 	public static void main(String[] args) {
 
@@ -56,58 +67,80 @@ public class DCNSFog {
 
 		try {
 			Log.disable();
-			int num_user = 1; // number of cloud users
-			Calendar calendar = Calendar.getInstance();
-			boolean trace_flag = false; // mean trace events
+			new DCNSFog().simulate();
 
-			CloudSim.init(num_user, calendar, trace_flag);
+			Log.printLine("VRGame finished!");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("Unwanted errors happen");
+		}
+	}
+
+	@Override
+	public SimulationResults run(SweepConfiguration configuration) throws Exception {
+		Log.disable();
+		numOfAreas = configuration.getInt("areas", numOfAreas);
+		numOfCamerasPerArea = configuration.getInt("camerasPerArea", numOfCamerasPerArea);
+		String placement = configuration.getString("placement", CLOUD ? "cloud" : "edgewards");
+		if (!placement.equals("cloud") && !placement.equals("edgewards"))
+			throw new IllegalArgumentException("Unknown placement: " + placement);
+		CLOUD = placement.equals("cloud");
+		cameraTransmissionTime = configuration.getDouble("sensorInterval", cameraTransmissionTime);
+		partitions = configuration.getInt("partitions", partitions);
+		return simulate();
+	}
+
+	private SimulationResults simulate() throws Exception {
+		int num_user = 1; // number of cloud users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
 
-			String appId = "dcns"; // identifier of the application
+		CloudSim.init(num_user, calendar, trace_flag);
+		if (partitions > 0)
+			CloudSim.setParallelExecution(new FogTopologyPartitioner(partitions), partitions);
 
-			FogBroker broker = new FogBroker("broker");
+		String appId = "dcns"; // identifier of the application
 
-			Application application = createApplication(appId, broker.getId());
-			application.setUserId(broker.getId());
+		FogBroker broker = new FogBroker("broker");
 
-			createFogDevices(broker.getId(), appId);
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
 
-			Controller controller = null;
+		createFogDevices(broker.getId(), appId);
 
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			for (FogDevice device : fogDevices) {
-				if (device.getName().startsWith("m")) { // names of all Smart Cameras start with 'm'
-					moduleMapping.addModuleToDevice("motion_detector", device.getName()); // fixing 1 instance of the
-																							// Motion Detector module to
-																							// each Smart Camera
-				}
+		Controller controller = null;
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		for (FogDevice device : fogDevices) {
+			if (device.getName().startsWith("m")) { // names of all Smart Cameras start with 'm'
+				moduleMapping.addModuleToDevice("motion_detector", device.getName()); // fixing 1 instance of the
+																						// Motion Detector module to
+																						// each Smart Camera
 			}
-			moduleMapping.addModuleToDevice("user_interface", "cloud"); // fixing instances of User Interface module in
-																		// the Cloud
-			if (CLOUD) {
-				// if the mode of deployment is cloud-based
-				moduleMapping.addModuleToDevice("object_detector", "cloud"); // placing all instances of Object Detector
-																				// module in the Cloud
-				moduleMapping.addModuleToDevice("object_tracker", "cloud"); // placing all instances of Object Tracker
+		}
+		moduleMapping.addModuleToDevice("user_interface", "cloud"); // fixing instances of User Interface module in
+																	// the Cloud
+		if (CLOUD) {
+			// if the mode of deployment is cloud-based
+			moduleMapping.addModuleToDevice("object_detector", "cloud"); // placing all instances of Object Detector
 																			// module in the Cloud
-			}
+			moduleMapping.addModuleToDevice("object_tracker", "cloud"); // placing all instances of Object Tracker
+																		// module in the Cloud
+		}
 
-			controller = new Controller("master-controller", fogDevices, sensors, actuators);
+		controller = new Controller("master-controller", fogDevices, sensors, actuators);
 
-			controller.submitApplication(application, (CLOUD)
-					? (new ModulePlacementMapping(fogDevices, application, moduleMapping))
-					: (new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+		controller.submitApplication(application, (CLOUD)
+				? (new ModulePlacementMapping(fogDevices, application, moduleMapping))
+				: (new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
 
-			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-			CloudSim.startSimulation();
+		CloudSim.startSimulation();
 
-			CloudSim.stopSimulation();
+		CloudSim.stopSimulation();
 
-			Log.printLine("VRGame finished!");
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("Unwanted errors happen");
-		}
+		return controller.getResults();
 	}
 
 	/**
@@ -116,7 +149,7 @@ public class DCNSFog {
 	 * @param userId
 	 * @param appId
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private void createFogDevices(int userId, String appId) {
 		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16 * 103, 16 * 83.25);
 		cloud.setParentId(-1);
 		fogDevices.add(cloud);
@@ -129,7 +162,7 @@ public class DCNSFog {
 		}
 	}
 
-	private static FogDevice addArea(String id, int userId, String appId, int parentId) {
+	private FogDevice addArea(String id, int userId, String appId, int parentId) {
 		FogDevice router = createFogDevice("d-" + id, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
 		fogDevices.add(router);
 		router.setUplinkLatency(2); // latency of connection between router and proxy server is 2 ms
@@ -146,10 +179,11 @@ public class DCNSFog {
 		return router;
 	}
 
-	private static FogDevice addCamera(String id, int userId, String appId, int parentId) {
+	private FogDevice addCamera(String id, int userId, String appId, int parentId) {
 		FogDevice camera = createFogDevice("m-" + id, 500, 1000, 10000, 10000, 3, 0, 87.53, 82.44);
 		camera.setParentId(parentId);
-		Sensor sensor = new Sensor("s-" + id, "CAMERA", userId, appId, new DeterministicDistribution(5)); // inter-transmission
+		Sensor sensor = new Sensor("s-" + id, "CAMERA", userId, appId,
+				new DeterministicDistribution(cameraTransmissionTime)); // inter-transmission
 																											// time of
 																											// camera
 																											// (sensor)
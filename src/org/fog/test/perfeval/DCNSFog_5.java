@@ -29,27 +29,38 @@ import org.fog.heuristics.fogImplementations.ModulePlacementAdditionalInformatio
 import org.fog.placement.Controller;
 import org.fog.placement.ModuleMapping;
 import org.fog.placement.ModulePlacementWithHeuristics;
+import org.fog.placement.SimulationResults;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.sweep.SweepConfiguration;
+import org.fog.utils.sweep.SweepScenario;
 
 /**
  * Simulation setup for case study 2 - Intelligent Surveillance
+ * <p>
+ * As a {@link SweepScenario}, it reads the parameters mobilesPerProxy,
+ * sensorInterval (inter-transmission time of the sensors) and heuristic:
+ * alternating (a genetic algorithm or a simulated annealing at a time) or
+ * islands (an island model of as many islands as the parameter islands, 4 by
+ * default).
  * 
  * @author Harshit Gupta
  *
  */
-public class DCNSFog_5 {
-	static final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static final List<Sensor> sensors = new ArrayList<Sensor>();
-	static final List<Actuator> actuators = new ArrayList<Actuator>();
-	static final int numOfMobilesPerProxy = 10;
-	private static FogDevice cloud;
+public class DCNSFog_5 implements SweepScenario {
+	final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	final List<Sensor> sensors = new ArrayList<Sensor>();
+	final List<Actuator> actuators = new ArrayList<Actuator>();
+	int numOfMobilesPerProxy = 10;
+	double sensorTransmissionTime = 5;
+	int islandsCount = 0;
+	private FogDevice cloud;
 
-	private static boolean CLOUD = false;
+	private boolean CLOUD = false;
 
 	private static final ApplicationData[] APP_DATA = new ApplicationData[] { //
 			new ApplicationData("motion", 120, 60, false) //
@@ -67,108 +78,128 @@ public class DCNSFog_5 {
 
 		try {
 			Log.disable();
-			int num_user = 1; // number of cloud users
-			Calendar calendar = Calendar.getInstance();
-			boolean trace_flag = false; // mean trace events
-			List<Application> allApplications;
-
-			CloudSim.init(num_user, calendar, trace_flag);
-
-			FogBroker broker = new FogBroker("broker");
-
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			allApplications = new ArrayList<>(APP_DATA.length);
-			for (ApplicationData ad : APP_DATA) {
-				Application application;
-				String appId = ad.appId;
-				application = createApplication(appId, broker.getId());
-				application.setUserId(broker.getId());
-				application.setDeadlineMilliseconds(ad.getDeadline());
-				application.setDeploymentTimeMilliseconds(ad.getDeployTime());
-				application.setDelayTolerable(ad.delayTolerable);
-				allApplications.add(application);
-				createFogDevices(broker.getId(), appId);
-
-				for (FogDevice device : fogDevices) {
-					if (device.getName().startsWith("m")) { // names of all Smart Cameras start with 'm'
-						moduleMapping.addModuleToDevice(appId + "__aggregation_module", device.getName()); // fixing 1
-																											// instance
-																											// of the
-																											// data
-																											// aggregation
-																											// module to
-																											// each
-																											// Smart
-																											// phone
-					}
+			new DCNSFog_5().simulate();
+
+			Log.printLine("VRGame finished!");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("Unwanted errors happen");
+		}
+	}
+
+	@Override
+	public SimulationResults run(SweepConfiguration configuration) throws Exception {
+		Log.disable();
+		numOfMobilesPerProxy = configuration.getInt("mobilesPerProxy", numOfMobilesPerProxy);
+		sensorTransmissionTime = configuration.getDouble("sensorInterval", sensorTransmissionTime);
+		String heuristic = configuration.getString("heuristic", "alternating");
+		if (heuristic.equals("islands"))
+			islandsCount = configuration.getInt("islands", 4);
+		else if (!heuristic.equals("alternating"))
+			throw new IllegalArgumentException("Unknown heuristic: " + heuristic);
+		return simulate();
+	}
+
+	private SimulationResults simulate() throws Exception {
+		int num_user = 1; // number of cloud users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
+		List<Application> allApplications;
+
+		CloudSim.init(num_user, calendar, trace_flag);
+
+		FogBroker broker = new FogBroker("broker");
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		allApplications = new ArrayList<>(APP_DATA.length);
+		for (ApplicationData ad : APP_DATA) {
+			Application application;
+			String appId = ad.appId;
+			application = createApplication(appId, broker.getId());
+			application.setUserId(broker.getId());
+			application.setDeadlineMilliseconds(ad.getDeadline());
+			application.setDeploymentTimeMilliseconds(ad.getDeployTime());
+			application.setDelayTolerable(ad.delayTolerable);
+			allApplications.add(application);
+			createFogDevices(broker.getId(), appId);
+
+			for (FogDevice device : fogDevices) {
+				if (device.getName().startsWith("m")) { // names of all Smart Cameras start with 'm'
+					moduleMapping.addModuleToDevice(appId + "__aggregation_module", device.getName()); // fixing 1
+																										// instance
+																										// of the
+																										// data
+																										// aggregation
+																										// module to
+																										// each
+																										// Smart
+																										// phone
 				}
+			}
 //				moduleMapping.addModuleToDevice(appId + "__user_interface", "cloud"); // fixing instances of User Interface module in the Cloud
-				if (CLOUD) {
-					// if the mode of deployment is cloud-based
-					moduleMapping.addModuleToDevice(appId + "__analysis_module", "cloud"); // placing all instances of
-																							// Object Detector
-					// module in the Cloud
-					moduleMapping.addModuleToDevice(appId + "__decision_making_module", "cloud"); // placing all
-																									// instances of
-					// Object Tracker
-					// module in the Cloud
-				}
+			if (CLOUD) {
+				// if the mode of deployment is cloud-based
+				moduleMapping.addModuleToDevice(appId + "__analysis_module", "cloud"); // placing all instances of
+																						// Object Detector
+				// module in the Cloud
+				moduleMapping.addModuleToDevice(appId + "__decision_making_module", "cloud"); // placing all
+																								// instances of
+				// Object Tracker
+				// module in the Cloud
 			}
+		}
 
-			for (Application app : allApplications) {
-				fogDevices.forEach(d -> {
-					d.getApplicationMap().put(app.getAppId(), app);
-				});
-			}
+		for (Application app : allApplications) {
+			fogDevices.forEach(d -> {
+				d.getApplicationMap().put(app.getAppId(), app);
+			});
+		}
 
-			System.out.println("total number of devices: " + fogDevices.size());
-
-			Controller controller;
-			controller = new Controller("master-controller", fogDevices, sensors, actuators);
-
-			ModulePlacementWithHeuristics modulePlacement;
-			DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes;
-
-			latenciesBetweenDeviceTypes = new DeviceNodeTypesLatencyMap();
-			latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogNode, DeviceNodeType.FogControllerNode, 50);
-			latenciesBetweenDeviceTypes.addPair(DeviceNodeType.NeighboringFogControllerNode,
-					DeviceNodeType.FogControllerNode, 0);
-			latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogControllerNode,
-					DeviceNodeType.NeighboringFogControllerNode, 0);
-			latenciesBetweenDeviceTypes.addPair(DeviceNodeType.NeighboringFogControllerNode, DeviceNodeType.CloudNode,
-					5000);
-			latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogControllerNode, DeviceNodeType.CloudNode, 5000);
-
-			// Sandy: This method should also take module mapping as argument (where we
-			// fixed aggregation module should be placed on mobile device/ fog device only)
-			modulePlacement = new ModulePlacementWithHeuristics(//
-					thresholdProcessPower, thresholdSolutionEvaluationImprovement, thresholdDifferenceSolutions, //
-					moduleMapping, fogDevices, sensors, actuators, allApplications, latenciesBetweenDeviceTypes);
-
-			for (Application application : allApplications) {
-				System.out.println("start submitting appliaction " + application.getAppId());
-				controller.submitApplication(application, modulePlacement
-				/*
-				 * (CLOUD) ? (new ModulePlacementMapping(fogDevices, application,
-				 * moduleMapping)) : (new ModulePlacementEdgewards(fogDevices, sensors,
-				 * actuators, application, moduleMapping))
-				 */
-				);
-			}
+		System.out.println("total number of devices: " + fogDevices.size());
+
+		Controller controller;
+		controller = new Controller("master-controller", fogDevices, sensors, actuators);
+
+		ModulePlacementWithHeuristics modulePlacement;
+		DeviceNodeTypesLatencyMap latenciesBetweenDeviceTypes;
+
+		latenciesBetweenDeviceTypes = new DeviceNodeTypesLatencyMap();
+		latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogNode, DeviceNodeType.FogControllerNode, 50);
+		latenciesBetweenDeviceTypes.addPair(DeviceNodeType.NeighboringFogControllerNode,
+				DeviceNodeType.FogControllerNode, 0);
+		latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogControllerNode,
+				DeviceNodeType.NeighboringFogControllerNode, 0);
+		latenciesBetweenDeviceTypes.addPair(DeviceNodeType.NeighboringFogControllerNode, DeviceNodeType.CloudNode,
+				5000);
+		latenciesBetweenDeviceTypes.addPair(DeviceNodeType.FogControllerNode, DeviceNodeType.CloudNode, 5000);
+
+		// Sandy: This method should also take module mapping as argument (where we
+		// fixed aggregation module should be placed on mobile device/ fog device only)
+		modulePlacement = new ModulePlacementWithHeuristics(//
+				thresholdProcessPower, thresholdSolutionEvaluationImprovement, thresholdDifferenceSolutions, //
+				moduleMapping, fogDevices, sensors, actuators, allApplications, latenciesBetweenDeviceTypes,
+				islandsCount);
+
+		for (Application application : allApplications) {
+			System.out.println("start submitting appliaction " + application.getAppId());
+			controller.submitApplication(application, modulePlacement
+			/*
+			 * (CLOUD) ? (new ModulePlacementMapping(fogDevices, application,
+			 * moduleMapping)) : (new ModulePlacementEdgewards(fogDevices, sensors,
+			 * actuators, application, moduleMapping))
+			 */
+			);
+		}
 
-			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-			System.out.println("starting simulation");
-			CloudSim.startSimulation();
+		System.out.println("starting simulation");
+		CloudSim.startSimulation();
 
-			System.out.println("stopping simulation");
-			CloudSim.stopSimulation();
+		System.out.println("stopping simulation");
+		CloudSim.stopSimulation();
 
-			Log.printLine("VRGame finished!");
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("Unwanted errors happen");
-		}
+		return controller.getResults();
 	}
 
 	/**
@@ -177,7 +208,7 @@ public class DCNSFog_5 {
 	 * @param userId
 	 * @param appId
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private void createFogDevices(int userId, String appId) {
 		System.out.println("reating devices for app " + appId);
 		if (cloud == null) {
 			cloud = createFogDevice("cloud", DeviceNodeType.CloudNode, 10000, 4000, 100, 10000, 0, 0.01, 170.62,
@@ -202,13 +233,13 @@ public class DCNSFog_5 {
 		}
 	}
 
-	private static FogDevice addMobile(String id, int userId, String appId, int parentId) {
+	private FogDevice addMobile(String id, int userId, String appId, int parentId) {
 		FogDevice mobile = createFogDevice("m-" + id, DeviceNodeType.FogNode, 100, 500, 10000, 10000, 3, 0, 88.57,
 				80.24);
 		mobile.setUplinkLatency(200); // latency from proxy to send data to fog device for processing
 		mobile.setParentId(parentId);
 		Sensor mobileSensor = new Sensor("sensor-" + id, "M-SENSOR" + appId, userId, appId,
-				new DeterministicDistribution(5)); // inter-transmission
+				new DeterministicDistribution(sensorTransmissionTime)); // inter-transmission
 		// time of
 		// camera
 		// (sensor)
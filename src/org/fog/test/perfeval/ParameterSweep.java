@@ -0,0 +1,35 @@
+package org.fog.test.perfeval;
+
+import java.io.File;
+
+import org.fog.utils.sweep.SweepGrid;
+import org.fog.utils.sweep.SweepRunner;
+import org.fog.utils.sweep.SweepSummary;
+
+/**
+ * Parameter sweep of case study 2 - Intelligent Surveillance ({@link DCNSFog}):
+ * the size of the topology, the sensing interval of the cameras and the
+ * placement policy, each combination replicated with 5 seeds.
+ * <p>
+ * The runs are cached in sweep/cache and the summary is written to
+ * sweep/DCNSFog.csv; run with the argument {@code forked} to run each
+ * simulation in its own JVM.
+ */
+public class ParameterSweep {
+
+	public static void main(String[] args) throws Exception {
+		SweepGrid grid = new SweepGrid() //
+				.parameter("areas", 1, 2, 4) //
+				.parameter("sensorInterval", 5, 10) //
+				.parameter("placement", "edgewards", "cloud") //
+				.replications(5);
+
+		SweepRunner runner = new SweepRunner(DCNSFog.class, new File("sweep/cache"));
+		runner.setForked(args.length > 0 && args[0].equals("forked"));
+		SweepSummary summary = runner.run(grid);
+		summary.write(new File("sweep/DCNSFog.csv"));
+
+		System.out.println(summary.getRows().size() + " rows written to sweep/DCNSFog.csv, "
+				+ runner.getFailures().size() + " failed runs");
+	}
+}
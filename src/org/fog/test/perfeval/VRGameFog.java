@@ -28,28 +28,35 @@ import org.fog.placement.Controller;
 import org.fog.placement.ModuleMapping;
 import org.fog.placement.ModulePlacementEdgewards;
 import org.fog.placement.ModulePlacementMapping;
+import org.fog.placement.SimulationResults;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.sweep.SweepConfiguration;
+import org.fog.utils.sweep.SweepScenario;
 
 /**
  * Simulation setup for case study 1 - EEG Beam Tractor Game
+ * <p>
+ * As a {@link SweepScenario}, it reads the parameters depts, mobilesPerDept,
+ * placement (edgewards or cloud) and sensorInterval (inter-transmission time of
+ * the EEG sensors).
  * @author Harshit Gupta
  *
  */
-public class VRGameFog {
-	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	static List<Sensor> sensors = new ArrayList<Sensor>();
-	static List<Actuator> actuators = new ArrayList<Actuator>();
+public class VRGameFog implements SweepScenario {
+	List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	List<Sensor> sensors = new ArrayList<Sensor>();
+	List<Actuator> actuators = new ArrayList<Actuator>();
 	
-	static boolean CLOUD = false;
+	boolean CLOUD = false;
 	
-	static int numOfDepts = 2;
-	static int numOfMobilesPerDept = 5;
-	static double EEG_TRANSMISSION_TIME = 5;
+	int numOfDepts = 2;
+	int numOfMobilesPerDept = 5;
+	double EEG_TRANSMISSION_TIME = 5;
 	
 	public static void main(String[] args) {
 
@@ -57,61 +64,80 @@ public class VRGameFog {
 
 		try {
 			Log.disable();
-			int num_user = 1; // number of cloud users
-			Calendar calendar = Calendar.getInstance();
-			boolean trace_flag = false; // mean trace events
+			new VRGameFog().simulate();
 
-			CloudSim.init(num_user, calendar, trace_flag);
+			Log.printLine("VRGame finished!");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("Unwanted errors happen");
+		}
+	}
 
-			String appId = "vr_game"; // identifier of the application
-			
-			FogBroker broker = new FogBroker("broker");
-			
-			Application application = createApplication(appId, broker.getId());
-			application.setUserId(broker.getId());
-			
-			createFogDevices(broker.getId(), appId);
-			
-			ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
-			
-			if(CLOUD){
-				// if the mode of deployment is cloud-based
-				/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
+	@Override
+	public SimulationResults run(SweepConfiguration configuration) throws Exception {
+		Log.disable();
+		numOfDepts = configuration.getInt("depts", numOfDepts);
+		numOfMobilesPerDept = configuration.getInt("mobilesPerDept", numOfMobilesPerDept);
+		String placement = configuration.getString("placement", CLOUD ? "cloud" : "edgewards");
+		if(!placement.equals("cloud") && !placement.equals("edgewards"))
+			throw new IllegalArgumentException("Unknown placement: "+placement);
+		CLOUD = placement.equals("cloud");
+		EEG_TRANSMISSION_TIME = configuration.getDouble("sensorInterval", EEG_TRANSMISSION_TIME);
+		return simulate();
+	}
+
+	private SimulationResults simulate() throws Exception {
+		int num_user = 1; // number of cloud users
+		Calendar calendar = Calendar.getInstance();
+		boolean trace_flag = false; // mean trace events
+
+		CloudSim.init(num_user, calendar, trace_flag);
+
+		String appId = "vr_game"; // identifier of the application
+		
+		FogBroker broker = new FogBroker("broker");
+		
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+		
+		createFogDevices(broker.getId(), appId);
+		
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping(); // initializing a module mapping
+		
+		if(CLOUD){
+			// if the mode of deployment is cloud-based
+			/*moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Concentration Calculator module to the Cloud
 */				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
-				for(FogDevice device : fogDevices){
-					if(device.getName().startsWith("m")){
-						//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
-						moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
-					}
+			moduleMapping.addModuleToDevice("concentration_calculator", "cloud"); // fixing all instances of the Concentration Calculator module to the Cloud
+			for(FogDevice device : fogDevices){
+				if(device.getName().startsWith("m")){
+					//moduleMapping.addModuleToDevice("client", device.getName(), 1);  // fixing all instances of the Client module to the Smartphones
+					moduleMapping.addModuleToDevice("client", device.getName());  // fixing all instances of the Client module to the Smartphones
 				}
-			}else{
-				// if the mode of deployment is cloud-based
-				//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
-				moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
-				// rest of the modules will be placed by the Edge-ward placement policy
 			}
-			
-			
-			Controller controller = new Controller("master-controller", fogDevices, sensors, 
-					actuators);
-			
-			controller.submitApplication(application, 0, 
-					(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
-							:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
+		}else{
+			// if the mode of deployment is cloud-based
+			//moduleMapping.addModuleToDevice("connector", "cloud", numOfDepts*numOfMobilesPerDept); // fixing all instances of the Connector module to the Cloud
+			moduleMapping.addModuleToDevice("connector", "cloud"); // fixing all instances of the Connector module to the Cloud
+			// rest of the modules will be placed by the Edge-ward placement policy
+		}
+		
+		
+		Controller controller = new Controller("master-controller", fogDevices, sensors, 
+				actuators);
+		
+		controller.submitApplication(application, 0, 
+				(CLOUD)?(new ModulePlacementMapping(fogDevices, application, moduleMapping))
+						:(new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping)));
 
-			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
 
-			CloudSim.startSimulation();
+		CloudSim.startSimulation();
 
-			CloudSim.stopSimulation();
+		CloudSim.stopSimulation();
 
-			Log.printLine("VRGame finished!");
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("Unwanted errors happen");
-		}
+		return controller.getResults();
 	}
 
 	/**
@@ -119,7 +145,7 @@ public class VRGameFog {
 	 * @param userId
 	 * @param appId
 	 */
-	private static void createFogDevices(int userId, String appId) {
+	private void createFogDevices(int userId, String appId) {
 		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25); // creates the fog device Cloud at the apex of the hierarchy with level=0
 		cloud.setParentId(-1);
 		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333); // creates the fog device Proxy Server (level=1)
@@ -135,7 +161,7 @@ public class VRGameFog {
 		
 	}
 
-	private static FogDevice addGw(String id, int userId, String appId, int parentId){
+	private FogDevice addGw(String id, int userId, String appId, int parentId){
 		FogDevice dept = createFogDevice("d-"+id, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
 		fogDevices.add(dept);
 		dept.setParentId(parentId);
@@ -149,7 +175,7 @@ public class VRGameFog {
 		return dept;
 	}
 	
-	private static FogDevice addMobile(String id, int userId, String appId, int parentId){
+	private FogDevice addMobile(String id, int userId, String appId, int parentId){
 		FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
 		mobile.setParentId(parentId);
 		Sensor eegSensor = new Sensor("s-"+id, "EEG", userId, appId, new DeterministicDistribution(EEG_TRANSMISSION_TIME)); // inter-transmission time of EEG sensor follows a deterministic distribution
@@ -236,7 +262,7 @@ public class VRGameFog {
 	 * @return
 	 */
 	@SuppressWarnings({"serial" })
-	private static Application createApplication(String appId, int userId){
+	private Application createApplication(String appId, int userId){
 		
 		Application application = Application.createApplication(appId, userId); // creates an empty application model (empty directed graph)
 		
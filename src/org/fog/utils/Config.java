@@ -23,4 +23,13 @@ public class Config {
 	public static double clusteringLatency = 2.0; //milisecond
 
 	public static final int TRANSMISSION_START_DELAY = 50;
+
+	// Batched link transmission: once a link frees up, all the tuples queued on it are sent back-to-back at once,
+	// with a single event marking the link free again, and no TUPLE_ACK is sent back (no entity reacts to them).
+	// The arrival time of each tuple is the same (up to floating point rounding) of the tuple-by-tuple transmission.
+	public static boolean BATCHED_LINK_TRANSMISSION = false;
+
+	// Tuples sent down and addressed to a device (actuator tuples, through the gateway of their actuator, and tuples
+	// with a destination device) go only to the child leading to it, instead of being broadcast to all the children.
+	public static boolean ROUTE_ADDRESSED_TUPLES = false;
 }
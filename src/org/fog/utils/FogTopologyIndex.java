@@ -0,0 +1,178 @@
+package org.fog.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.fog.entities.FogDevice;
+
+/**
+ * Routing index of the tree of {@link FogDevice}s, built from their children
+ * (see {@link FogDevice#getChildrenIds()}).
+ * <p>
+ * Each device gets the interval of the Euler tour (depth-first visit) of the
+ * tree spanned by its subtree: a device is below another one if and only if its
+ * entry time falls in the interval of the other one, so that the child leading
+ * to a device is found by a binary search among the children, without visiting
+ * the subtree.
+ * <p>
+ * The index is shared by the whole simulation (it's kept by its
+ * {@link SimulationContext}) and built lazily: changing the
+ * children of a device through {@link FogDevice#addChild(int)},
+ * {@link FogDevice#removeChild(int)} and
+ * {@link FogDevice#setChildrenIds(List)} invalidates it (see
+ * {@link #invalidate()}), and it is rebuilt on the next lookup. Changes made
+ * directly on the list of children must be followed by {@link #invalidate()}.
+ * Instances are immutable: it's safe to share them between threads.
+ */
+public class FogTopologyIndex {
+
+	/**
+	 * Returns the index of the current topology, building it if the topology has
+	 * been changed (or a new simulation has been set up) since the last call.
+	 */
+	public static FogTopologyIndex getInstance() {
+		SimulationContext context = SimulationContext.current();
+		FogTopologyIndex index = context.topologyIndex;
+		if (index == null || !index.isOfCurrentSimulation()) {
+			synchronized (context) {
+				index = context.topologyIndex;
+				if (index == null || !index.isOfCurrentSimulation()) {
+					index = new FogTopologyIndex();
+					context.topologyIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Discards the current index, since the children of some device have changed.
+	 */
+	public static void invalidate() {
+		SimulationContext.current().topologyIndex = null;
+	}
+
+	private final int entitiesCount;
+	/** The last entity of the simulation the index has been built for */
+	private final SimEntity lastEntity;
+	/** Euler tour interval of each entity, -1 for the ones not in the tree */
+	private final int[] entry, exit;
+	/** Children of each device, as listed by the device */
+	private final int[][] children;
+	/**
+	 * Children entered from each device during the visit (ignoring the ones
+	 * already entered from another device), by increasing entry time
+	 */
+	private final int[][] treeChildren;
+
+	private FogTopologyIndex() {
+		int n = CloudSim.getNumEntities();
+		entitiesCount = n;
+		lastEntity = n == 0 ? null : CloudSim.getEntity(n - 1);
+		entry = new int[n];
+		exit = new int[n];
+		children = new int[n][];
+		treeChildren = new int[n][];
+		Arrays.fill(entry, -1);
+		Arrays.fill(exit, -1);
+
+		boolean[] isChild = new boolean[n];
+		for (int id = 0; id < n; id++) {
+			SimEntity entity = CloudSim.getEntity(id);
+			if (entity instanceof FogDevice) {
+				List<Integer> childrenIds = ((FogDevice) entity).getChildrenIds();
+				int[] c = new int[childrenIds == null ? 0 : childrenIds.size()];
+				for (int i = 0; i < c.length; i++) {
+					c[i] = childrenIds.get(i);
+					if (c[i] >= 0 && c[i] < n)
+						isChild[c[i]] = true;
+				}
+				children[id] = c;
+			}
+		}
+
+		int time = 0;
+		for (int root = 0; root < n; root++) {
+			if (children[root] != null && !isChild[root])
+				time = visit(root, time);
+		}
+		// devices in a cycle of children only
+		for (int id = 0; id < n; id++) {
+			if (children[id] != null && entry[id] < 0)
+				time = visit(id, time);
+		}
+	}
+
+	private boolean isOfCurrentSimulation() {
+		int n = CloudSim.getNumEntities();
+		return entitiesCount == n && (n == 0 || lastEntity == CloudSim.getEntity(n - 1));
+	}
+
+	/**
+	 * Iterative depth-first visit, the topology may be deep. Returns the next
+	 * entry time.
+	 */
+	private int visit(int root, int time) {
+		Deque<int[]> stack = new ArrayDeque<int[]>(); // (device, next child index, tree children count)
+		entry[root] = time++;
+		stack.push(new int[] { root, 0, 0 });
+		while (!stack.isEmpty()) {
+			int[] top = stack.peek();
+			int[] c = children[top[0]];
+			if (c != null && top[1] < c.length) {
+				int child = c[top[1]++];
+				if (child >= 0 && child < entitiesCount && entry[child] < 0) {
+					if (treeChildren[top[0]] == null)
+						treeChildren[top[0]] = new int[c.length];
+					treeChildren[top[0]][top[2]++] = child;
+					entry[child] = time++;
+					stack.push(new int[] { child, 0, 0 });
+				}
+			} else {
+				exit[top[0]] = time - 1;
+				treeChildren[top[0]] = top[2] == 0 ? new int[0] : Arrays.copyOf(treeChildren[top[0]], top[2]);
+				stack.pop();
+			}
+		}
+		return time;
+	}
+
+	/**
+	 * Returns whether the target device is below the given one (itself excluded).
+	 */
+	public boolean isBelow(int targetId, int deviceId) {
+		if (!isIndexed(targetId) || !isIndexed(deviceId))
+			return false;
+		return entry[deviceId] < entry[targetId] && entry[targetId] <= exit[deviceId];
+	}
+
+	/**
+	 * Returns the child of the given device whose subtree holds the target device
+	 * (the target itself, if it is a child), or -1 if the target is not below the
+	 * given device.
+	 */
+	public int getChildIdWithRouteTo(int deviceId, int targetId) {
+		if (!isBelow(targetId, deviceId))
+			return -1;
+		int[] c = treeChildren[deviceId];
+		int targetEntry = entry[targetId];
+		// the subtrees of the children split the interval of the device
+		int low = 0, high = c.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (entry[c[middle]] <= targetEntry)
+				low = middle + 1;
+			else
+				high = middle - 1;
+		}
+		return high >= 0 && targetEntry <= exit[c[high]] ? c[high] : -1;
+	}
+
+	private boolean isIndexed(int id) {
+		return id >= 0 && id < entitiesCount && entry[id] >= 0;
+	}
+}
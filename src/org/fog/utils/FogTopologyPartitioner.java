@@ -0,0 +1,196 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.fog.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.EntityPartitioner;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Sensor;
+
+/**
+ * Partitions a fog topology for the parallel execution of CloudSim, see
+ * {@link CloudSim#setParallelExecution(EntityPartitioner, int)}, as the parameter partitions of
+ * {@link org.fog.test.perfeval.DCNSFog} does.
+ * <p>
+ * The topology is cut at the first level (from the cloud down) having at least two devices: each
+ * device of that level is the root of a subtree holding its descendants, plus the sensors and the
+ * actuators attached to them. Subtrees are then grouped, balancing the number of entities, into at
+ * most the given number of partitions. The devices above the cut, the controllers and any other
+ * entity are synchronizing, so that they can react to the whole topology at once, except the
+ * {@link FogBroker}s, which ignore the tuples returned to them and are sinks.
+ * <p>
+ * The lookahead is the lowest latency of the links between different partitions, and between a
+ * partition and the devices above the cut; it is bounded by
+ * {@link CloudSim#getMinTimeBetweenEvents()}, since devices acknowledge the tuples they receive with
+ * that delay. The partitions are computed when the simulation starts, so devices should not be
+ * moved to another partition afterwards (for instance by mobility).
+ */
+public class FogTopologyPartitioner implements EntityPartitioner {
+
+	private int partitionsCount;
+
+	public FogTopologyPartitioner(int partitionsCount) {
+		if (partitionsCount < 1)
+			throw new IllegalArgumentException("The number of partitions should be at least 1, but is: " + partitionsCount);
+		this.partitionsCount = partitionsCount;
+	}
+
+	@Override
+	public int[] partition(List<SimEntity> entities) {
+		int n = entities.size();
+		int[] partitions = new int[n];
+		Arrays.fill(partitions, SYNCHRONIZING);
+		for (int id = 0; id < n; id++) {
+			if (entities.get(id) instanceof FogBroker)
+				partitions[id] = SINK;
+		}
+
+		// depth of each device in the topology
+		int[] depths = new int[n];
+		Arrays.fill(depths, -1);
+		int maxDepth = -1;
+		for (SimEntity entity : entities) {
+			if (entity instanceof FogDevice) {
+				maxDepth = Math.max(maxDepth, depthOf((FogDevice) entity, entities, depths));
+			}
+		}
+		int[] devicesPerDepth = new int[maxDepth + 1];
+		for (int id = 0; id < n; id++) {
+			if (depths[id] >= 0)
+				devicesPerDepth[depths[id]]++;
+		}
+		int cut = 0;
+		while (cut <= maxDepth && devicesPerDepth[cut] < 2)
+			cut++;
+		if (cut > maxDepth)
+			return partitions;
+
+		// subtrees rooted at the devices of the cut level, by number of entities
+		int[] subtreeOf = new int[n];
+		Arrays.fill(subtreeOf, -1);
+		List<Integer> roots = new ArrayList<Integer>();
+		for (int id = 0; id < n; id++) {
+			if (depths[id] == cut) {
+				subtreeOf[id] = roots.size();
+				roots.add(id);
+			}
+		}
+		for (int id = 0; id < n; id++) {
+			if (depths[id] > cut) {
+				int ancestor = id;
+				while (depths[ancestor] > cut)
+					ancestor = ((FogDevice) entities.get(ancestor)).getParentId();
+				subtreeOf[id] = subtreeOf[ancestor];
+			}
+		}
+		for (int id = 0; id < n; id++) {
+			int gateway = gatewayOf(entities.get(id));
+			if (gateway >= 0 && gateway < n)
+				subtreeOf[id] = subtreeOf[gateway];
+		}
+		int[] sizes = new int[roots.size()];
+		for (int id = 0; id < n; id++) {
+			if (subtreeOf[id] >= 0)
+				sizes[subtreeOf[id]]++;
+		}
+
+		// largest subtrees first, each one to the least loaded partition
+		Integer[] order = new Integer[roots.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (s1, s2) -> sizes[s2] != sizes[s1] ? sizes[s2] - sizes[s1] : s1 - s2);
+		int[] load = new int[Math.min(partitionsCount, roots.size())];
+		int[] partitionOfSubtree = new int[roots.size()];
+		for (Integer subtree : order) {
+			int lightest = 0;
+			for (int p = 1; p < load.length; p++) {
+				if (load[p] < load[lightest])
+					lightest = p;
+			}
+			partitionOfSubtree[subtree] = lightest;
+			load[lightest] += sizes[subtree];
+		}
+		for (int id = 0; id < n; id++) {
+			if (subtreeOf[id] >= 0)
+				partitions[id] = partitionOfSubtree[subtreeOf[id]];
+		}
+		return partitions;
+	}
+
+	@Override
+	public double getLookahead(List<SimEntity> entities, int[] partitions) {
+		double lookahead = Double.POSITIVE_INFINITY;
+		for (SimEntity entity : entities) {
+			int id = entity.getId();
+			if (partitions[id] < 0)
+				continue;
+			if (entity instanceof FogDevice) {
+				FogDevice device = (FogDevice) entity;
+				if (isValid(device.getParentId(), partitions) && partitions[device.getParentId()] != partitions[id])
+					lookahead = Math.min(lookahead, device.getUplinkLatency());
+				lookahead = Math.min(lookahead, crossingLatency(device.getChildToLatencyMap(), id, partitions));
+				if (device.getClusterMembersToLatencyMap() != null)
+					lookahead = Math.min(lookahead, crossingLatency(device.getClusterMembersToLatencyMap(), id, partitions));
+			} else if (entity instanceof Sensor) {
+				Sensor sensor = (Sensor) entity;
+				if (isValid(sensor.getGatewayDeviceId(), partitions) && partitions[sensor.getGatewayDeviceId()] != partitions[id])
+					lookahead = Math.min(lookahead, sensor.getLatency());
+			} else if (entity instanceof Actuator) {
+				Actuator actuator = (Actuator) entity;
+				if (isValid(actuator.getGatewayDeviceId(), partitions) && partitions[actuator.getGatewayDeviceId()] != partitions[id])
+					lookahead = Math.min(lookahead, actuator.getLatency());
+			}
+		}
+		if (lookahead != Double.POSITIVE_INFINITY)
+			lookahead = Math.min(lookahead, CloudSim.getMinTimeBetweenEvents());
+		return lookahead;
+	}
+
+	private double crossingLatency(Map<Integer, Double> latencies, int id, int[] partitions) {
+		double min = Double.POSITIVE_INFINITY;
+		if (latencies == null)
+			return min;
+		for (Map.Entry<Integer, Double> link : latencies.entrySet()) {
+			if (isValid(link.getKey(), partitions) && partitions[link.getKey()] != partitions[id])
+				min = Math.min(min, link.getValue());
+		}
+		return min;
+	}
+
+	private boolean isValid(int id, int[] partitions) {
+		return id >= 0 && id < partitions.length;
+	}
+
+	private int depthOf(FogDevice device, List<SimEntity> entities, int[] depths) {
+		int id = device.getId();
+		if (depths[id] >= 0)
+			return depths[id];
+		int parentId = device.getParentId();
+		depths[id] = 0; // guards against cycles
+		if (parentId >= 0 && parentId < entities.size() && entities.get(parentId) instanceof FogDevice)
+			depths[id] = depthOf((FogDevice) entities.get(parentId), entities, depths) + 1;
+		return depths[id];
+	}
+
+	private int gatewayOf(SimEntity entity) {
+		if (entity instanceof Sensor)
+			return ((Sensor) entity).getGatewayDeviceId();
+		if (entity instanceof Actuator)
+			return ((Actuator) entity).getGatewayDeviceId();
+		return -1;
+	}
+}
@@ -1,15 +1,15 @@
 package org.fog.utils;
 
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * The id generators and the geographic coverages of the applications act on the
+ * current {@link SimulationContext}.
+ */
 public class FogUtils {
-	private static int TUPLE_ID = 1;
-	private static int ENTITY_ID = 1;
-	private static int ACTUAL_TUPLE_ID = 1;
 	
 	public static int generateTupleId(){
-		return TUPLE_ID++;
+		return SimulationContext.current().nextTupleId();
 	}
 	
 	public static String getSensorTypeFromSensorName(String sensorName){
@@ -17,11 +17,11 @@ public class FogUtils {
 	}
 	
 	public static int generateEntityId(){
-		return ENTITY_ID++;
+		return SimulationContext.current().nextEntityId();
 	}
 	
 	public static int generateActualTupleId(){
-		return ACTUAL_TUPLE_ID++;
+		return SimulationContext.current().nextActualTupleId();
 	}
 	
 	public static int USER_ID = 1;
@@ -29,5 +29,7 @@ public class FogUtils {
 	//public static int MAX = 10000000;
 	public static int MAX = 10000000;
 	
-	public static Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+	public static Map<String, GeoCoverage> getAppIdToGeoCoverageMap(){
+		return SimulationContext.current().getAppIdToGeoCoverageMap();
+	}
 }
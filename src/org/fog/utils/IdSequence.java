@@ -0,0 +1,67 @@
+package org.fog.utils;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * Generator of the ids of a simulation, such as the ones of the tuples.
+ * <p>
+ * While a parallel simulation runs, the sequence is split among its partitions
+ * (see {@link org.cloudbus.cloudsim.core.PartitionedState}): out of
+ * {@code n} partitions, counting the one of the synchronizing entities, the
+ * partition {@code p} draws the ids {@code first + p + k * n}, so that the ids
+ * drawn by each partition don't depend on how the others interleave.
+ */
+final class IdSequence {
+
+	private int next;
+	/** The next id of each partition, null unless split */
+	private int[] partitions;
+
+	IdSequence(int first) {
+		next = first;
+	}
+
+	int next() {
+		int[] partitions = this.partitions;
+		if (partitions == null) {
+			synchronized (this) {
+				return next++;
+			}
+		}
+		int partition = CloudSim.getCurrentPartition();
+		int id = partitions[partition];
+		partitions[partition] = id + partitions.length;
+		return id;
+	}
+
+	/**
+	 * Returns the id drawn next, the highest one if split.
+	 */
+	synchronized int peek() {
+		int[] partitions = this.partitions;
+		if (partitions == null)
+			return next;
+		int max = next;
+		for (int id : partitions)
+			max = Math.max(max, id);
+		return max;
+	}
+
+	synchronized void set(int next) {
+		if (partitions != null)
+			throw new IllegalStateException("The ids cannot be set while a parallel simulation runs");
+		this.next = next;
+	}
+
+	synchronized void split(int partitionsCount) {
+		int[] split = new int[partitionsCount + 1];
+		for (int p = 0; p < split.length; p++)
+			split[p] = next + p;
+		partitions = split;
+	}
+
+	synchronized void join() {
+		next = peek();
+		partitions = null;
+	}
+}
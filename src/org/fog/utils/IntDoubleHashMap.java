@@ -0,0 +1,131 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+/**
+ * Map from {@code int} keys to {@code double} values, with open addressing
+ * (linear probing) over primitive arrays: neither keys nor values are boxed, and
+ * no object is allocated per entry.
+ * <p>
+ * Not thread-safe.
+ */
+public class IntDoubleHashMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] keys;
+	private double[] values;
+	private boolean[] used;
+	private int size;
+
+	public IntDoubleHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	public IntDoubleHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 < expectedSize * 4)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new double[capacity];
+		used = new boolean[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return used[slot(key)];
+	}
+
+	/**
+	 * Returns the value of the given key, or the given default value if it's not
+	 * in the map.
+	 */
+	public double get(int key, double defaultValue) {
+		int i = slot(key);
+		return used[i] ? values[i] : defaultValue;
+	}
+
+	public void put(int key, double value) {
+		int i = slot(key);
+		if (!used[i]) {
+			if ((size + 1) * 4 > keys.length * 3) {
+				rehash(keys.length << 1);
+				i = slot(key);
+			}
+			used[i] = true;
+			keys[i] = key;
+			size++;
+		}
+		values[i] = value;
+	}
+
+	/**
+	 * Removes the given key, returning its value, or the given default value if it
+	 * was not in the map.
+	 */
+	public double remove(int key, double defaultValue) {
+		int i = slot(key);
+		if (!used[i])
+			return defaultValue;
+		double value = values[i];
+		size--;
+		// backward shift deletion: moves back the entries of the probing sequence
+		int mask = keys.length - 1;
+		int free = i;
+		for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+			int home = hash(keys[j]) & mask;
+			// whether home is cyclically outside (free, j]
+			if (free <= j ? (home <= free || home > j) : (home <= free && home > j)) {
+				keys[free] = keys[j];
+				values[free] = values[j];
+				free = j;
+			}
+		}
+		used[free] = false;
+		return value;
+	}
+
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	private int slot(int key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (used[i] && keys[i] != key)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int j = slot(oldKeys[i]);
+				used[j] = true;
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package org.fog.utils;
+
+/**
+ * Streaming statistics of a series of non-negative durations: count, mean,
+ * minimum, maximum and percentiles, in constant memory whatever the length of
+ * the series.
+ * <p>
+ * The percentiles are read from a log-linear histogram, as in HDR histograms:
+ * each power of two is split in {@value #SUB_BUCKETS} buckets of equal width,
+ * so that a percentile is reported with a relative error below
+ * 1/{@value #SUB_BUCKETS}, from 2<sup>{@value #MIN_EXPONENT}</sup> up to
+ * 2<sup>{@value #MAX_EXPONENT}</sup>. Smaller values are counted as zero,
+ * larger ones in the last bucket; the minimum and the maximum are exact.
+ * <p>
+ * Not thread-safe.
+ */
+public class LatencyStats {
+
+	private static final int SUB_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int MIN_EXPONENT = -30;
+	private static final int MAX_EXPONENT = 40;
+	/** Bucket 0 holds the zeros, the others follow the exponent and the mantissa */
+	private static final int BUCKETS = 1 + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public void record(double value) {
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+
+	/**
+	 * Adds the values recorded by the given statistics to these ones.
+	 */
+	public void merge(LatencyStats other) {
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] += other.counts[i];
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the recorded values, or {@code NaN} if there are none.
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Returns the value below or at which the given percentage (from 0 to 100)
+	 * of the recorded values falls, or {@code NaN} if there are none.
+	 */
+	public double getPercentile(double percentile) {
+		if (count == 0)
+			return Double.NaN;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+		int bucket = 0;
+		while (bucket < BUCKETS - 1 && (seen += counts[bucket]) < rank)
+			bucket++;
+		return Math.max(min, Math.min(max, upperBoundOf(bucket)));
+	}
+
+	private static int bucketOf(double value) {
+		if (!(value >= Math.scalb(1.0, MIN_EXPONENT)))
+			return 0;
+		int exponent = Math.getExponent(value);
+		if (exponent > MAX_EXPONENT)
+			return BUCKETS - 1;
+		int sub = (int) (Double.doubleToRawLongBits(value) >>> (52 - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+	}
+
+	private static double upperBoundOf(int bucket) {
+		if (bucket == 0)
+			return 0;
+		int exponent = (bucket - 1) / SUB_BUCKETS + MIN_EXPONENT;
+		int sub = (bucket - 1) % SUB_BUCKETS;
+		return Math.scalb(1.0 + (sub + 1) / (double) SUB_BUCKETS, exponent);
+	}
+}
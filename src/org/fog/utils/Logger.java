@@ -10,8 +10,14 @@ public class Logger {
 	public static final int DEBUG = 0;
 	
 	public static int LOG_LEVEL = Logger.DEBUG;
-	private static DecimalFormat df = new DecimalFormat("#.00"); 
+	private static final ThreadLocal<DecimalFormat> df = new ThreadLocal<DecimalFormat>() {
+		@Override
+		protected DecimalFormat initialValue() {
+			return new DecimalFormat("#.00");
+		}
+	};
 
+	/** Whether logging is enabled, unless overridden by the current {@link SimulationContext} */
 	public static boolean ENABLED = false;;
 	
 	public static void setLogLevel(int level){
@@ -19,16 +25,16 @@ public class Logger {
 	}
 	
 	public static void debug(String name, String message){
-		if(!ENABLED)
+		if(!SimulationContext.current().isLoggingEnabled())
 			return;
 		if(Logger.LOG_LEVEL <= Logger.DEBUG)
-			System.out.println(df.format(CloudSim.clock())+" : "+name+" : "+message);
+			System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message);
 	}
 	public static void error(String name, String message){
-		if(!ENABLED)
+		if(!SimulationContext.current().isLoggingEnabled())
 			return;
 		if(Logger.LOG_LEVEL <= Logger.ERROR)
-			System.out.println(df.format(CloudSim.clock())+" : "+name+" : "+message);
+			System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message);
 	}
 	
 }
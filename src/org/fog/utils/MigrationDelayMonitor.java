@@ -1,14 +1,19 @@
 package org.fog.utils;
 
+/**
+ * Time spent migrating modules in the current simulation, kept by its
+ * {@link SimulationContext} and published by its metrics registry as the
+ * {@value #METRIC} gauge.
+ */
 public class MigrationDelayMonitor {
 	
-	private static double migrationDelay = 0.0;
+	public static final String METRIC = "migration.delay";
 	
 	public static double getMigrationDelay() {
-		return migrationDelay;
+		return SimulationContext.current().getMigrationDelay();
 	}
 
 	public static void setMigrationDelay(double migrationDelayReceived) {
-		migrationDelay += migrationDelayReceived;
+		SimulationContext.current().addMigrationDelay(migrationDelayReceived);
 	}
 }
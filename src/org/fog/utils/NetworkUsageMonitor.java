@@ -1,18 +1,23 @@
 package org.fog.utils;
 
+/**
+ * Network usage of the current simulation, kept by its
+ * {@link SimulationContext} and published by its metrics registry as the
+ * {@value #METRIC} gauge.
+ */
 public class NetworkUsageMonitor {
 
-	private static double networkUsage = 0.0;
+	public static final String METRIC = "network.usage";
 	
 	public static void sendingTuple(double latency, double tupleNwSize){
-		networkUsage += latency*tupleNwSize;
+		SimulationContext.current().addNetworkUsage(latency*tupleNwSize);
 	}
 	
 	public static void sendingModule(double latency, long moduleSize){
-		networkUsage += latency*moduleSize;
+		SimulationContext.current().addNetworkUsage(latency*moduleSize);
 	}
 	
 	public static double getNetworkUsage(){
-		return networkUsage;
+		return SimulationContext.current().getNetworkUsage();
 	}
 }
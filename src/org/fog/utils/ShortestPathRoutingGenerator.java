@@ -1,16 +1,24 @@
 package org.fog.utils;
 
-import org.apache.commons.math3.util.Pair;
 import org.fog.entities.FogDevice;
 import org.fog.entities.MicroserviceFogDevice;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
 
 /**
  * Created by Samodha Pallewatta on 6/18/2021.
  * Creates a routing table considering shortest path between devices.
+ * <p>
+ * Devices are connected to their parent, their children and their cluster members, with the latency of
+ * those links as distance. The shortest paths from each device are computed by a Dijkstra visit, the
+ * visits of different devices running in parallel.
  */
 public class ShortestPathRoutingGenerator {
 
@@ -20,82 +28,24 @@ public class ShortestPathRoutingGenerator {
         Map<String, Map<String, String>> routingString = new HashMap<>();
         int size = fogDevices.size();
 
-        int[][] routingMatrix = new int[size][size];
-        double[][] distanceMatrix = new double[size][size];
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                routingMatrix[row][column] = -1;
-                distanceMatrix[row][column] = -1;
-            }
-        }
-
-        boolean change = true;
-        boolean firstIteration = true;
-        while (change || firstIteration) {
-            change = false;
-            for (int row = 0; row < size; row++) {
-                for (int column = 0; column < size; column++) {
-                    double dist = distanceMatrix[row][column];
-                    FogDevice rFog = fogDevices.get(row);
-                    FogDevice cFog = fogDevices.get(column);
-                    if (firstIteration && dist < 0) {
-                        if (row == column) {
-                            dist = 0;
-                        } else {
-                            dist = directlyConnectedDist(rFog, cFog);
-                        }
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            distanceMatrix[column][row] = dist;
-
-                            // directly connected
-                            routingMatrix[row][column] = cFog.getId();
-                            routingMatrix[column][row] = rFog.getId();
-                        }
-                    }
-                    if (dist < 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        dist = result.getFirst();
-                        int mid = result.getSecond();
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                    if (dist > 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        double distNew = result.getFirst();
-                        int mid = result.getSecond();
-                        if (distNew < dist) {
-                            change = true;
-                            distanceMatrix[row][column] = distNew;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                }
-            }
-            firstIteration = false;
+        int[][] routingMatrix = generateNextHops(fogDevices);
+        Map<Integer, FogDevice> devicesById = new HashMap<>();
+        for (FogDevice f : fogDevices) {
+            devicesById.put(f.getId(), f);
         }
 
         for (int row = 0; row < size; row++) {
+            int sourceId = fogDevices.get(row).getId();
+            Map<Integer, Integer> route = new HashMap<>();
+            Map<String, String> routeS = new HashMap<>();
             for (int column = 0; column < size; column++) {
-                int sourceId = fogDevices.get(row).getId();
                 int destId = fogDevices.get(column).getId();
-                if (routing.containsKey(sourceId)) {
-                    routing.get(sourceId).put(destId, routingMatrix[row][column]);
-                    routingString.get(fogDevices.get(row).getName()).put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                } else {
-                    Map<Integer, Integer> route = new HashMap<>();
-                    route.put(destId, routingMatrix[row][column]);
-                    routing.put(sourceId, route);
-
-                    Map<String, String> routeS = new HashMap<>();
-                    routeS.put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                    routingString.put(fogDevices.get(row).getName(), routeS);
-                }
+                route.put(destId, routingMatrix[row][column]);
+                FogDevice next = devicesById.get(routingMatrix[row][column]);
+                routeS.put(fogDevices.get(column).getName(), next == null ? null : next.getName());
             }
+            routing.put(sourceId, route);
+            routingString.put(fogDevices.get(row).getName(), routeS);
         }
 
         System.out.println("Routing Table : ");
@@ -107,44 +57,175 @@ public class ShortestPathRoutingGenerator {
         return routing;
     }
 
+    /**
+     * Computes the next hop of the shortest path between each pair of devices.
+     *
+     * @return a matrix whose cell [i][j] holds the id of the device to route to, from the i-th device of the
+     * given list towards the j-th one (the id of the i-th device itself if i == j), or -1 if there is no path
+     */
+    public static int[][] generateNextHops(List<FogDevice> fogDevices) {
+        final Links links = new Links(fogDevices);
+        final int[][] nextHops = new int[links.size][];
+        IntStream.range(0, links.size).parallel().forEach(source -> {
+            int[] hops = new int[links.size];
+            links.shortestPaths(source, hops, null);
+            nextHops[source] = hops;
+        });
+        return nextHops;
+    }
+
+    /**
+     * Repairs the routing tables (see {@link MicroserviceFogDevice#getRoutingTable()}) after the links of the given
+     * device have changed, for instance because it moved to another parent or joined a cluster: the routes from
+     * that device to any other one, and from any other device to it, are recomputed.<br>
+     * Routes between other devices are left as they are: they are still valid as long as they did not pass
+     * through the changed device, as it happens for a mobile device, which has no children.
+     */
+    public static void updateRoutingTables(List<FogDevice> fogDevices, FogDevice changed) {
+        Links links = new Links(fogDevices);
+        Integer source = links.indexes.get(changed.getId());
+        if (source == null)
+            return;
+        int[] hops = new int[links.size];
+        int[] previous = new int[links.size];
+        links.shortestPaths(source, hops, previous);
+        for (int i = 0; i < links.size; i++) {
+            if (links.ids[i] == changed.getId() || hops[i] < 0)
+                continue;
+            // from the changed device, and back along the same path (the links are symmetric)
+            int back = previous[links.indexes.get(links.ids[i])];
+            ((MicroserviceFogDevice) changed).updateRoutingTable(links.ids[i], hops[i]);
+            ((MicroserviceFogDevice) fogDevices.get(i)).updateRoutingTable(changed.getId(), links.ids[back]);
+        }
+    }
+
+    /**
+     * The links between the devices, as adjacency lists of positions in the list of devices.
+     */
+    private static class Links {
+        final int size;
+        final int[] ids;
+        /** Position of each device id (the first one, if a device is listed more than once) */
+        final Map<Integer, Integer> indexes;
+        final int[][] neighbours;
+        final double[][] latencies;
+
+        Links(List<FogDevice> fogDevices) {
+            size = fogDevices.size();
+            ids = new int[size];
+            indexes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                ids[i] = fogDevices.get(i).getId();
+                if (!indexes.containsKey(ids[i]))
+                    indexes.put(ids[i], i);
+            }
 
-    private static Pair<Double, Integer> indirectDist(int row, int dest, int size, double[][] distanceMatrix) {
-        double minDistFromDirectConn = distanceMatrix[row][dest];
-        int midPoint = -1;
-        for (int column = 0; column < size; column++) {
-            if (distanceMatrix[row][column] >= 0 && distanceMatrix[column][dest] >= 0) {
-                double totalDist = distanceMatrix[row][column] + distanceMatrix[column][dest];
-                if (minDistFromDirectConn >= 0 && totalDist < minDistFromDirectConn) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                } else if (minDistFromDirectConn < 0) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
+            // the links as seen by each device
+            List<Map<Integer, Double>> directLinks = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                directLinks.add(indexes.get(ids[i]) == i ? directlyConnected(fogDevices.get(i))
+                        : new HashMap<Integer, Double>());
+            }
+            // a link seen by both devices gets the latency seen by the first one in the list
+            int[] degrees = new int[size];
+            int[][] n = new int[size][];
+            double[][] l = new double[size][];
+            for (int i = 0; i < size; i++) {
+                n[i] = new int[4];
+                l[i] = new double[4];
+            }
+            for (int i = 0; i < size; i++) {
+                for (Map.Entry<Integer, Double> link : directLinks.get(i).entrySet()) {
+                    int j = link.getKey();
+                    if (i < j || !directLinks.get(j).containsKey(i)) {
+                        add(n, l, degrees, i, j, link.getValue());
+                        add(n, l, degrees, j, i, link.getValue());
+                    }
                 }
             }
+            for (int i = 0; i < size; i++) {
+                n[i] = Arrays.copyOf(n[i], degrees[i]);
+                l[i] = Arrays.copyOf(l[i], degrees[i]);
+            }
+            neighbours = n;
+            latencies = l;
         }
-        return new Pair<>(minDistFromDirectConn, midPoint);
-    }
 
-    private static double directlyConnectedDist(FogDevice rFog, FogDevice cFog) {
-        int parent = rFog.getParentId();
-        List<Integer> children = rFog.getChildrenIds();
-        List<Integer> cluster = (rFog).getClusterMembers();
-        if (cFog.getId() == parent) {
-            return rFog.getUplinkLatency();
-        } else if (children != null && children.contains(cFog.getId())) {
-            return rFog.getChildToLatencyMap().get(cFog.getId());
-        } else if (cluster != null && cluster.contains(cFog.getId())) {
-            return ((MicroserviceFogDevice) rFog).getClusterMembersToLatencyMap().get(cFog.getId());
+        private static void add(int[][] n, double[][] l, int[] degrees, int from, int to, double latency) {
+            if (degrees[from] == n[from].length) {
+                n[from] = Arrays.copyOf(n[from], degrees[from] * 2);
+                l[from] = Arrays.copyOf(l[from], degrees[from] * 2);
+            }
+            n[from][degrees[from]] = to;
+            l[from][degrees[from]++] = latency;
         }
-        return -1;
-    }
 
-    private static FogDevice getFogDeviceById(int id, List<FogDevice> fogDevices) {
-        for (FogDevice f : fogDevices) {
-            if (f.getId() == id)
-                return f;
+        /**
+         * The links of a device to its parent, children and cluster members, keyed by the position of the other
+         * device; the first kind of link found wins, as for the distance of two devices.
+         */
+        private Map<Integer, Double> directlyConnected(FogDevice rFog) {
+            Map<Integer, Double> links = new LinkedHashMap<>();
+            Integer parent = indexes.get(rFog.getParentId());
+            if (parent != null)
+                links.put(parent, rFog.getUplinkLatency());
+            if (rFog.getChildrenIds() != null) {
+                for (int childId : rFog.getChildrenIds()) {
+                    Integer child = indexes.get(childId);
+                    Double latency = rFog.getChildToLatencyMap().get(childId);
+                    if (child != null && latency != null && !links.containsKey(child))
+                        links.put(child, latency);
+                }
+            }
+            if (rFog.getClusterMembers() != null) {
+                for (int memberId : rFog.getClusterMembers()) {
+                    Integer member = indexes.get(memberId);
+                    Double latency = rFog.getClusterMembersToLatencyMap().get(memberId);
+                    if (member != null && latency != null && !links.containsKey(member))
+                        links.put(member, latency);
+                }
+            }
+            links.remove(indexes.get(rFog.getId()));
+            return links;
+        }
+
+        /**
+         * Dijkstra visit from the given device: fills the id of the next hop towards each device (-1 if not
+         * reachable) and, if not null, the position of the device preceding each one along its path.
+         */
+        void shortestPaths(int source, int[] hops, int[] previous) {
+            source = indexes.get(ids[source]);
+            double[] distances = new double[size];
+            int[] firstHops = new int[size];
+            boolean[] settled = new boolean[size];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(firstHops, -1);
+            distances[source] = 0;
+            firstHops[source] = source;
+            PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0])
+                    : Double.compare(a[1], b[1])); // (distance, position)
+            queue.add(new double[]{0, source});
+            while (!queue.isEmpty()) {
+                int u = (int) queue.poll()[1];
+                if (settled[u])
+                    continue;
+                settled[u] = true;
+                for (int k = 0; k < neighbours[u].length; k++) {
+                    int v = neighbours[u][k];
+                    double distance = distances[u] + latencies[u][k];
+                    if (!settled[v] && distance < distances[v]) {
+                        distances[v] = distance;
+                        firstHops[v] = u == source ? v : firstHops[u];
+                        if (previous != null)
+                            previous[v] = u;
+                        queue.add(new double[]{distance, v});
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                int first = firstHops[indexes.get(ids[i])];
+                hops[i] = first < 0 ? -1 : ids[first];
+            }
         }
-        return null;
     }
 }
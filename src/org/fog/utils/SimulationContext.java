@@ -0,0 +1,309 @@
+package org.fog.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.PartitionedState;
+import org.cloudbus.cloudsim.core.SimulationKernel;
+import org.fog.entities.TuplePool;
+import org.fog.utils.metrics.MetricsRegistry;
+
+/**
+ * State of a simulation: its {@link SimulationKernel kernel}, its id generators
+ * (see {@link FogUtils}), its {@link TimeKeeper}, its {@link MetricsRegistry},
+ * its monitors (see {@link NetworkUsageMonitor} and
+ * {@link MigrationDelayMonitor}), its {@link TuplePool} and its settings.
+ * <p>
+ * The static APIs ({@link CloudSim}, {@link TimeKeeper#getInstance()},
+ * {@link FogUtils}...) act on the context bound to the current thread (see
+ * {@link #bind()}) and inherited by the threads it starts, or on a global one
+ * shared by the threads not bound to any: several simulations can run
+ * concurrently in the same JVM, each on its own thread bound to its own context,
+ * for instance through {@link #call(Callable)}.
+ * <p>
+ * A context holds a single simulation: a new one is needed for each run. The
+ * other settings of {@link Config} and of {@link Logger} stay shared by the whole
+ * JVM, unless overridden by the context (see {@link #setMaxSimulationTime(int)}
+ * and {@link #setLoggingEnabled(boolean)}).
+ * <p>
+ * In a parallel simulation (see
+ * {@link CloudSim#setParallelExecution(org.cloudbus.cloudsim.core.EntityPartitioner, int)}),
+ * the ids of the tuples, the random numbers, the timings, the metrics and the
+ * monitors are split among the partitions, as a {@link PartitionedState}
+ * registered in the kernel: they are read by the synchronizing entities (the
+ * controllers) or once the simulation is over.
+ */
+public class SimulationContext {
+
+	/** The context of the threads not bound to another one, acting on the default kernel */
+	private static final SimulationContext GLOBAL = new SimulationContext(null, MetricsRegistry.create(true));
+	private static final InheritableThreadLocal<SimulationContext> BOUND = new InheritableThreadLocal<SimulationContext>();
+
+	private final SimulationKernel kernel;
+	private final TimeKeeper timeKeeper = new TimeKeeper();
+	private final MetricsRegistry metricsRegistry;
+	private final TuplePool tuplePool = new TuplePool();
+
+	private final IdSequence tupleIds = new IdSequence(1);
+	private int entityId = 1;
+	private final IdSequence actualTupleIds = new IdSequence(1);
+	private final Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+
+	private double networkUsage;
+	private double migrationDelay;
+	/** The network usage and the migration delay added by each partition, null unless split */
+	private double[] partitionNetworkUsages;
+	private double[] partitionMigrationDelays;
+
+	/** The routing index of the topology, see {@link FogTopologyIndex#getInstance()} */
+	volatile FogTopologyIndex topologyIndex;
+
+	private volatile Random random = new Random();
+	/** The random numbers drawn by each partition, null unless split */
+	private Random[] partitionRandoms;
+
+	/** -1 to follow {@link Config#MAX_SIMULATION_TIME} */
+	private int maxSimulationTime = -1;
+	/** {@code null} to follow {@link Logger#ENABLED} */
+	private Boolean loggingEnabled;
+
+	/**
+	 * Creates the context of a new simulation, whose metrics are recorded.
+	 */
+	public SimulationContext() {
+		this(MetricsRegistry.create(true));
+	}
+
+	/**
+	 * Creates the context of a new simulation, with the given metrics registry.
+	 */
+	public SimulationContext(MetricsRegistry metricsRegistry) {
+		this(new SimulationKernel(), metricsRegistry);
+	}
+
+	private SimulationContext(SimulationKernel kernel, MetricsRegistry metricsRegistry) {
+		this.kernel = kernel;
+		this.metricsRegistry = metricsRegistry;
+		if (metricsRegistry.isEnabled()) {
+			metricsRegistry.gauge(NetworkUsageMonitor.METRIC, this::getNetworkUsage);
+			metricsRegistry.gauge(MigrationDelayMonitor.METRIC, this::getMigrationDelay);
+		}
+		(kernel != null ? kernel : CloudSim.getDefaultKernel()).addPartitionedState(new PartitionedState() {
+			@Override
+			public void split(int partitions) {
+				SimulationContext.this.split(partitions);
+			}
+
+			@Override
+			public void synchronize() {
+				timeKeeper.synchronize();
+			}
+
+			@Override
+			public void join() {
+				SimulationContext.this.join();
+			}
+		});
+	}
+
+	/**
+	 * Returns the context bound to the current thread, or the global one if it is
+	 * not bound to any.
+	 */
+	public static SimulationContext current() {
+		SimulationContext bound = BOUND.get();
+		return bound != null ? bound : GLOBAL;
+	}
+
+	/**
+	 * Binds this context, and its kernel, to the current thread and to the threads
+	 * it will start, until {@link #unbind()} is called. Binding the global context
+	 * unbinds the thread.
+	 */
+	public void bind() {
+		if (kernel == null) {
+			unbind();
+			return;
+		}
+		BOUND.set(this);
+		CloudSim.bindKernel(kernel);
+	}
+
+	/**
+	 * Unbinds the current thread from its context, back to the global one.
+	 */
+	public static void unbind() {
+		BOUND.remove();
+		CloudSim.unbindKernel();
+	}
+
+	/**
+	 * Runs the given task (typically, sets up and runs a simulation) in this
+	 * context, then binds the current thread back to its previous context.
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		SimulationContext previous = current();
+		bind();
+		try {
+			return task.call();
+		} finally {
+			previous.bind();
+		}
+	}
+
+	public TimeKeeper getTimeKeeper() {
+		return timeKeeper;
+	}
+
+	public MetricsRegistry getMetricsRegistry() {
+		return metricsRegistry;
+	}
+
+	/**
+	 * Returns the pool recycling the tuples of the simulation, disabled unless
+	 * {@link TuplePool#setEnabled(boolean)} is called.
+	 */
+	public TuplePool getTuplePool() {
+		return tuplePool;
+	}
+
+	int nextTupleId() {
+		return tupleIds.next();
+	}
+
+	synchronized int nextEntityId() {
+		return entityId++;
+	}
+
+	int nextActualTupleId() {
+		return actualTupleIds.next();
+	}
+
+	Map<String, GeoCoverage> getAppIdToGeoCoverageMap() {
+		return appIdToGeoCoverageMap;
+	}
+
+	void addNetworkUsage(double usage) {
+		double[] partitions = partitionNetworkUsages;
+		if (partitions != null) {
+			partitions[CloudSim.getCurrentPartition()] += usage;
+			return;
+		}
+		synchronized (this) {
+			networkUsage += usage;
+		}
+	}
+
+	public synchronized double getNetworkUsage() {
+		return sum(networkUsage, partitionNetworkUsages);
+	}
+
+	void addMigrationDelay(double delay) {
+		double[] partitions = partitionMigrationDelays;
+		if (partitions != null) {
+			partitions[CloudSim.getCurrentPartition()] += delay;
+			return;
+		}
+		synchronized (this) {
+			migrationDelay += delay;
+		}
+	}
+
+	public synchronized double getMigrationDelay() {
+		return sum(migrationDelay, partitionMigrationDelays);
+	}
+
+	/**
+	 * Adds the amounts of the partitions to the total, in partition order.
+	 */
+	private static double sum(double total, double[] partitions) {
+		if (partitions != null)
+			for (double amount : partitions)
+				total += amount;
+		return total;
+	}
+
+	private synchronized void split(int partitions) {
+		tupleIds.split(partitions);
+		actualTupleIds.split(partitions);
+		Random[] randoms = new Random[partitions + 1];
+		for (int p = 0; p < randoms.length; p++)
+			randoms[p] = new Random(random.nextLong());
+		partitionRandoms = randoms;
+		partitionNetworkUsages = new double[partitions + 1];
+		partitionMigrationDelays = new double[partitions + 1];
+		timeKeeper.split(partitions);
+		metricsRegistry.split(partitions);
+	}
+
+	private synchronized void join() {
+		tupleIds.join();
+		actualTupleIds.join();
+		partitionRandoms = null;
+		networkUsage = sum(networkUsage, partitionNetworkUsages);
+		partitionNetworkUsages = null;
+		migrationDelay = sum(migrationDelay, partitionMigrationDelays);
+		partitionMigrationDelays = null;
+		timeKeeper.join();
+		metricsRegistry.join();
+	}
+
+	/**
+	 * Returns the time at which the controllers stop the simulation.
+	 */
+	public int getMaxSimulationTime() {
+		return maxSimulationTime >= 0 ? maxSimulationTime : Config.MAX_SIMULATION_TIME;
+	}
+
+	/**
+	 * Sets the time at which the controllers stop the simulation, instead of
+	 * {@link Config#MAX_SIMULATION_TIME}.
+	 */
+	public void setMaxSimulationTime(int maxSimulationTime) {
+		this.maxSimulationTime = maxSimulationTime;
+	}
+
+	/**
+	 * Returns the source of the random numbers drawn by the simulation (such as
+	 * the selectivities of the tuples), see {@link #setSeed(long)}. In a parallel
+	 * simulation, each partition draws from its own source, seeded by this one
+	 * when the simulation starts.
+	 */
+	public Random getRandom() {
+		Random[] partitions = partitionRandoms;
+		return partitions == null ? random : partitions[CloudSim.getCurrentPartition()];
+	}
+
+	/**
+	 * Returns a new generator seeded by the one of the context, for the
+	 * components drawing their own sequence of numbers (such as the
+	 * distributions of the sensors).
+	 */
+	public Random newRandom() {
+		return new Random(getRandom().nextLong());
+	}
+
+	/**
+	 * Seeds the random numbers drawn by the simulation, so that its runs with the
+	 * same seed draw the same numbers.
+	 */
+	public void setSeed(long seed) {
+		random = new Random(seed);
+	}
+
+	public boolean isLoggingEnabled() {
+		Boolean enabled = loggingEnabled;
+		return enabled != null ? enabled : Logger.ENABLED;
+	}
+
+	/**
+	 * Enables or disables the {@link Logger} in this context, whatever
+	 * {@link Logger#ENABLED} says.
+	 */
+	public void setLoggingEnabled(boolean loggingEnabled) {
+		this.loggingEnabled = loggingEnabled;
+	}
+}
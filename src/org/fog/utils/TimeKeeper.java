@@ -1,25 +1,52 @@
 package org.fog.utils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.fog.entities.Tuple;
 
+/**
+ * Timings of the application loops and of the execution of the tuples.
+ * <p>
+ * The runs of the loops in flight are tracked in primitive maps, and forgotten
+ * as soon as they complete: the delays of each loop and the CPU times of each
+ * tuple type are kept as streaming statistics (see {@link LatencyStats}), instead
+ * of the ids of every tuple ever emitted.
+ * <p>
+ * {@link #getInstance()} returns the instance of the current
+ * {@link SimulationContext}: simulations run in parallel, each in its own
+ * context, neither mix their timings nor contend on the same instance.
+ * <p>
+ * In a parallel simulation, each partition tracks the executions of its own
+ * tuples, and records the ends of the loops and the CPU times apart from the
+ * others: the records are merged in time order, then partition order, when the
+ * partitions synchronize or before the timings are read.
+ */
 public class TimeKeeper {
 
-	private static TimeKeeper instance;
-	
+	private static final Comparator<Record> BY_TIME = new Comparator<Record>() {
+		@Override
+		public int compare(Record a, Record b) {
+			return Double.compare(a.time, b.time);
+		}
+	};
+
 	private long simulationStartTime;
-	private int count; 
-	private Map<Integer, Double> emitTimes;
-	private Map<Integer, Double> endTimes;
-	private Map<Integer, List<Integer>> loopIdToTupleIds;
-	private Map<Integer, Double> tupleIdToCpuStartTime;
+	private final IdSequence ids = new IdSequence(1);
+	private IntDoubleHashMap emitTimes;
+	private Map<Integer, LatencyStats> loopIdToDelayStats;
+	private IntDoubleHashMap tupleIdToCpuStartTime;
+	private IntDoubleHashMap tupleIdToRunningExecutions;
 	private Map<String, Double> tupleTypeToAverageCpuTime;
 	private Map<String, Integer> tupleTypeToExecutedTupleCount;
+	private Map<String, LatencyStats> tupleTypeToCpuTimeStats;
 	
 	private Map<Integer, Double> loopIdToCurrentAverage;
 	private Map<Integer, Integer> loopIdToCurrentNum;
@@ -28,86 +55,267 @@ public class TimeKeeper {
 
 	// loopID -> < Microservice -> < deviceID, <requestCount,totalExecutionTime > >
 	private Map<Integer, Map<String, Map<Integer, Pair<Integer, Double>>>> costCalcData = new HashMap<>();
-	// last execution time
-	private Map<Integer, Double> tupleIdToExecutionTime = new HashMap<>();
+
+	/** The timings of each partition of a parallel simulation, null otherwise */
+	private Partition[] partitions;
+
+	/**
+	 * The executions in progress and the timings recorded by a partition, not
+	 * merged yet.
+	 */
+	private static final class Partition {
+		final IntDoubleHashMap tupleIdToCpuStartTime = new IntDoubleHashMap();
+		final IntDoubleHashMap tupleIdToRunningExecutions = new IntDoubleHashMap();
+		final List<Record> records = new ArrayList<Record>();
+	}
+
+	/**
+	 * The end of a loop run, or the CPU time of a tuple type if
+	 * {@link #tupleType} is set, recorded at the given time.
+	 */
+	private static final class Record {
+		final double time;
+		final int loopId;
+		final int tupleId;
+		final String tupleType;
+		final double executionTime;
+
+		Record(double time, int loopId, int tupleId, String tupleType, double executionTime) {
+			this.time = time;
+			this.loopId = loopId;
+			this.tupleId = tupleId;
+			this.tupleType = tupleType;
+			this.executionTime = executionTime;
+		}
+	}
 	
 	public static TimeKeeper getInstance(){
-		if(instance == null)
-			instance = new TimeKeeper();
-		return instance;
+		return SimulationContext.current().getTimeKeeper();
 	}
 	
 	public int getUniqueId(){
-		return count++;
+		return ids.next();
+	}
+
+	/**
+	 * Starts a new run of the given loop now, returning the id of the tuple
+	 * tracking it (see {@link Tuple#setActualTupleId(int)}).
+	 */
+	public int loopStarted(int loopId){
+		int tupleId = ids.next();
+		synchronized(this){
+			if(!loopIdToDelayStats.containsKey(loopId))
+				loopIdToDelayStats.put(loopId, new LatencyStats());
+			emitTimes.put(tupleId, CloudSim.clock());
+		}
+		return tupleId;
+	}
+
+	/**
+	 * Ends now the run of the given loop tracked by the given tuple id, returning
+	 * {@code false} if that run isn't in flight. In a parallel simulation, the
+	 * end is recorded when the partitions synchronize: the run may still be ended
+	 * first by another partition in the meantime.
+	 */
+	public boolean loopEnded(int loopId, int tupleId){
+		Partition partition = currentPartition();
+		if(partition == null)
+			return endLoop(loopId, tupleId, CloudSim.clock());
+		partition.records.add(new Record(CloudSim.clock(), loopId, tupleId, null, 0));
+		synchronized(this){
+			return emitTimes.containsKey(tupleId);
+		}
+	}
+
+	private synchronized boolean endLoop(int loopId, int tupleId, double time){
+		double startTime = emitTimes.remove(tupleId, Double.NaN);
+		if(Double.isNaN(startTime))
+			return false;
+		double delay = time - startTime;
+		Double currentAverage = loopIdToCurrentAverage.get(loopId);
+		int currentCount = currentAverage == null ? 0 : loopIdToCurrentNum.get(loopId);
+		double average = currentAverage == null ? 0.0 : currentAverage;
+		loopIdToCurrentAverage.put(loopId, (average*currentCount + delay)/(currentCount+1));
+		loopIdToCurrentNum.put(loopId, currentCount+1);
+		LatencyStats stats = loopIdToDelayStats.get(loopId);
+		if(stats != null)
+			stats.record(delay);
+		return true;
 	}
 	
+	/**
+	 * Starts now an execution of the given tuple. The same tuple may run on more
+	 * than one device at once (the tuples sent down to all the children): its
+	 * executions all end with the start time of the last one.
+	 */
 	public void tupleStartedExecution(Tuple tuple){
-		tupleIdToCpuStartTime.put(tuple.getCloudletId(), CloudSim.clock());
+		Partition partition = currentPartition();
+		if(partition == null){
+			synchronized(this){
+				startExecution(tupleIdToCpuStartTime, tupleIdToRunningExecutions, tuple.getCloudletId());
+			}
+		} else
+			startExecution(partition.tupleIdToCpuStartTime, partition.tupleIdToRunningExecutions, tuple.getCloudletId());
+	}
+
+	private static void startExecution(IntDoubleHashMap tupleIdToCpuStartTime,
+			IntDoubleHashMap tupleIdToRunningExecutions, int tupleId){
+		tupleIdToCpuStartTime.put(tupleId, CloudSim.clock());
+		tupleIdToRunningExecutions.put(tupleId, tupleIdToRunningExecutions.get(tupleId, 0) + 1);
 	}
 	
-	public void tupleEndedExecution(Tuple tuple){
-		if(!tupleIdToCpuStartTime.containsKey(tuple.getCloudletId()))
-			return;
-		double executionTime = CloudSim.clock() - tupleIdToCpuStartTime.get(tuple.getCloudletId());
-		if(!tupleTypeToAverageCpuTime.containsKey(tuple.getTupleType())){
-			tupleTypeToAverageCpuTime.put(tuple.getTupleType(), executionTime);
-			tupleTypeToExecutedTupleCount.put(tuple.getTupleType(), 1);
+	/**
+	 * Ends now an execution of the given tuple, returning its CPU time, or
+	 * {@code NaN} if it didn't start. The start time is forgotten when the last
+	 * execution of the tuple ends.
+	 */
+	public double tupleEndedExecution(Tuple tuple){
+		Partition partition = currentPartition();
+		if(partition == null){
+			synchronized(this){
+				double executionTime = endExecution(tupleIdToCpuStartTime, tupleIdToRunningExecutions,
+						tuple.getCloudletId());
+				if(!Double.isNaN(executionTime))
+					recordCpuTime(tuple.getTupleType(), executionTime);
+				return executionTime;
+			}
+		}
+		double executionTime = endExecution(partition.tupleIdToCpuStartTime, partition.tupleIdToRunningExecutions,
+				tuple.getCloudletId());
+		if(!Double.isNaN(executionTime))
+			partition.records.add(new Record(CloudSim.clock(), 0, 0, tuple.getTupleType(), executionTime));
+		return executionTime;
+	}
+
+	private static double endExecution(IntDoubleHashMap tupleIdToCpuStartTime,
+			IntDoubleHashMap tupleIdToRunningExecutions, int tupleId){
+		double startTime = tupleIdToCpuStartTime.get(tupleId, Double.NaN);
+		if(Double.isNaN(startTime))
+			return Double.NaN;
+		double running = tupleIdToRunningExecutions.remove(tupleId, 1) - 1;
+		if(running > 0)
+			tupleIdToRunningExecutions.put(tupleId, running);
+		else
+			tupleIdToCpuStartTime.remove(tupleId, Double.NaN);
+		return CloudSim.clock() - startTime;
+	}
+
+	private synchronized void recordCpuTime(String tupleType, double executionTime){
+		if(!tupleTypeToAverageCpuTime.containsKey(tupleType)){
+			tupleTypeToAverageCpuTime.put(tupleType, executionTime);
+			tupleTypeToExecutedTupleCount.put(tupleType, 1);
+			tupleTypeToCpuTimeStats.put(tupleType, new LatencyStats());
 		} else{
-			double currentAverage = tupleTypeToAverageCpuTime.get(tuple.getTupleType());
-			int currentCount = tupleTypeToExecutedTupleCount.get(tuple.getTupleType());
-			tupleTypeToAverageCpuTime.put(tuple.getTupleType(), (currentAverage*currentCount+executionTime)/(currentCount+1));
+			double currentAverage = tupleTypeToAverageCpuTime.get(tupleType);
+			int currentCount = tupleTypeToExecutedTupleCount.get(tupleType);
+			tupleTypeToAverageCpuTime.put(tupleType, (currentAverage*currentCount+executionTime)/(currentCount+1));
 		}
+		tupleTypeToCpuTimeStats.get(tupleType).record(executionTime);
 	}
-	
-	public Map<Integer, List<Integer>> loopIdToTupleIds(){
-		return getInstance().getLoopIdToTupleIds();
+
+	private Partition currentPartition(){
+		Partition[] partitions = this.partitions;
+		return partitions == null ? null : partitions[CloudSim.getCurrentPartition()];
+	}
+
+	/**
+	 * Splits the timings among the partitions of a parallel simulation starting.
+	 */
+	synchronized void split(int partitionsCount){
+		ids.split(partitionsCount);
+		Partition[] split = new Partition[partitionsCount + 1];
+		for(int p = 0; p < split.length; p++)
+			split[p] = new Partition();
+		partitions = split;
+	}
+
+	/**
+	 * Merges the timings recorded by the partitions since the last merge: in
+	 * time order, then in partition order.
+	 */
+	synchronized void synchronize(){
+		if(partitions == null)
+			return;
+		List<Record> records = new ArrayList<Record>();
+		for(Partition partition : partitions){
+			records.addAll(partition.records);
+			partition.records.clear();
+		}
+		Collections.sort(records, BY_TIME);
+		for(Record record : records){
+			if(record.tupleType == null)
+				endLoop(record.loopId, record.tupleId, record.time);
+			else
+				recordCpuTime(record.tupleType, record.executionTime);
+		}
+	}
+
+	/**
+	 * Merges the timings of the partitions for good, once the parallel
+	 * simulation is over: the executions still in progress are forgotten.
+	 */
+	synchronized void join(){
+		synchronize();
+		partitions = null;
+		ids.join();
 	}
 	
-	private TimeKeeper(){
-		count = 1;
-		setEmitTimes(new HashMap<Integer, Double>());
-		setEndTimes(new HashMap<Integer, Double>());
-		setLoopIdToTupleIds(new HashMap<Integer, List<Integer>>());
+	TimeKeeper(){
+		emitTimes = new IntDoubleHashMap();
+		loopIdToDelayStats = new HashMap<Integer, LatencyStats>();
 		setTupleTypeToAverageCpuTime(new HashMap<String, Double>());
 		setTupleTypeToExecutedTupleCount(new HashMap<String, Integer>());
-		setTupleIdToCpuStartTime(new HashMap<Integer, Double>());
+		tupleTypeToCpuTimeStats = new HashMap<String, LatencyStats>();
+		tupleIdToCpuStartTime = new IntDoubleHashMap();
+		tupleIdToRunningExecutions = new IntDoubleHashMap();
 		setLoopIdToCurrentAverage(new HashMap<Integer, Double>());
 		setLoopIdToCurrentNum(new HashMap<Integer, Integer>());
 	}
 	
 	public int getCount() {
-		return count;
+		return ids.peek();
 	}
 
 	public void setCount(int count) {
-		this.count = count;
+		ids.set(count);
 	}
 
-	public Map<Integer, Double> getEmitTimes() {
-		return emitTimes;
+	/**
+	 * Returns the ids of the loops that started at least once.
+	 */
+	public Set<Integer> getLoopIds() {
+		synchronize();
+		return Collections.unmodifiableSet(loopIdToDelayStats.keySet());
 	}
 
-	public void setEmitTimes(Map<Integer, Double> emitTimes) {
-		this.emitTimes = emitTimes;
+	/**
+	 * Returns the delays of the completed runs of the given loop, or {@code null}
+	 * if it never started.
+	 */
+	public LatencyStats getLoopDelayStats(int loopId) {
+		synchronize();
+		return loopIdToDelayStats.get(loopId);
 	}
 
-	public Map<Integer, Double> getEndTimes() {
-		return endTimes;
+	/**
+	 * Returns the amount of loop runs started and not ended yet.
+	 */
+	public synchronized int getLoopsInFlight() {
+		synchronize();
+		return emitTimes.size();
 	}
 
-	public void setEndTimes(Map<Integer, Double> endTimes) {
-		this.endTimes = endTimes;
-	}
-
-	public Map<Integer, List<Integer>> getLoopIdToTupleIds() {
-		return loopIdToTupleIds;
-	}
-
-	public void setLoopIdToTupleIds(Map<Integer, List<Integer>> loopIdToTupleIds) {
-		this.loopIdToTupleIds = loopIdToTupleIds;
+	/**
+	 * Returns the CPU times of the tuples of the given type, or {@code null} if
+	 * none was executed.
+	 */
+	public LatencyStats getTupleTypeCpuTimeStats(String tupleType) {
+		synchronize();
+		return tupleTypeToCpuTimeStats.get(tupleType);
 	}
 
 	public Map<String, Double> getTupleTypeToAverageCpuTime() {
+		synchronize();
 		return tupleTypeToAverageCpuTime;
 	}
 
@@ -117,6 +325,7 @@ public class TimeKeeper {
 	}
 
 	public Map<String, Integer> getTupleTypeToExecutedTupleCount() {
+		synchronize();
 		return tupleTypeToExecutedTupleCount;
 	}
 
@@ -125,14 +334,6 @@ public class TimeKeeper {
 		this.tupleTypeToExecutedTupleCount = tupleTypeToExecutedTupleCount;
 	}
 
-	public Map<Integer, Double> getTupleIdToCpuStartTime() {
-		return tupleIdToCpuStartTime;
-	}
-
-	public void setTupleIdToCpuStartTime(Map<Integer, Double> tupleIdToCpuStartTime) {
-		this.tupleIdToCpuStartTime = tupleIdToCpuStartTime;
-	}
-
 	public long getSimulationStartTime() {
 		return simulationStartTime;
 	}
@@ -142,6 +343,7 @@ public class TimeKeeper {
 	}
 
 	public Map<Integer, Double> getLoopIdToCurrentAverage() {
+		synchronize();
 		return loopIdToCurrentAverage;
 	}
 
@@ -150,6 +352,7 @@ public class TimeKeeper {
 	}
 
 	public Map<Integer, Integer> getLoopIdToCurrentNum() {
+		synchronize();
 		return loopIdToCurrentNum;
 	}
 
@@ -1,5 +1,7 @@
 package org.fog.utils.distribution;
 
+import org.fog.utils.SimulationContext;
+
 public class UniformDistribution extends Distribution{
 
 	private double min;
@@ -9,6 +11,7 @@ public class UniformDistribution extends Distribution{
 		super();
 		setMin(min);
 		setMax(max);
+		setRandom(SimulationContext.current().newRandom());
 	}
 	
 	@Override
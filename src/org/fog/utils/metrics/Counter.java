@@ -0,0 +1,86 @@
+package org.fog.utils.metrics;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * Metric accumulating a total, such as the network usage or the time spent
+ * migrating modules.
+ */
+public class Counter extends Metric {
+
+	/** Returned by disabled registries: it records nothing */
+	static final Counter DISABLED = new Counter("disabled") {
+		@Override
+		public void add(double amount) {
+		}
+	};
+
+	private long count;
+	private double total;
+	/** The amounts added by each partition of a parallel simulation, null otherwise */
+	private long[] partitionCounts;
+	private double[] partitionTotals;
+
+	Counter(String name, String... tags) {
+		super(name, tags);
+	}
+
+	public void add(double amount) {
+		double[] totals = partitionTotals;
+		if (totals != null) {
+			int partition = CloudSim.getCurrentPartition();
+			partitionCounts[partition]++;
+			totals[partition] += amount;
+			return;
+		}
+		synchronized (this) {
+			count++;
+			total += amount;
+		}
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * Returns the sum of the amounts added.
+	 */
+	public synchronized double get() {
+		double sum = total;
+		if (partitionTotals != null)
+			for (double amount : partitionTotals)
+				sum += amount;
+		return sum;
+	}
+
+	/**
+	 * Returns how many times an amount was added.
+	 */
+	public synchronized long getCount() {
+		long sum = count;
+		if (partitionCounts != null)
+			for (long added : partitionCounts)
+				sum += added;
+		return sum;
+	}
+
+	@Override
+	synchronized MetricsSnapshot.Sample sample() {
+		return new MetricsSnapshot.Sample(this, "counter", getCount(), get(), null);
+	}
+
+	@Override
+	synchronized void split(int partitions) {
+		partitionCounts = new long[partitions + 1];
+		partitionTotals = new double[partitions + 1];
+	}
+
+	@Override
+	synchronized void join() {
+		count = getCount();
+		total = get();
+		partitionCounts = null;
+		partitionTotals = null;
+	}
+}
@@ -0,0 +1,72 @@
+package org.fog.utils.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Exports the snapshots as CSV, one row per metric and snapshot, with the
+ * columns: time, name, tags (as {@code key=value} pairs separated by
+ * {@code ;}), type, count, value, min, max, p50, p90, p99.
+ */
+public class CsvMetricsExporter implements MetricsExporter {
+
+	public static final String HEADER = "time,name,tags,type,count,value,min,max,p50,p90,p99";
+
+	private final Writer writer;
+	private boolean headerWritten;
+
+	public CsvMetricsExporter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void export(MetricsSnapshot snapshot) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		if (!headerWritten) {
+			sb.append(HEADER).append('\n');
+			headerWritten = true;
+		}
+		for (MetricsSnapshot.Sample s : snapshot.getSamples()) {
+			sb.append(snapshot.getTime()).append(',');
+			appendField(sb, s.getName());
+			sb.append(',');
+			StringBuilder tags = new StringBuilder();
+			for (Map.Entry<String, String> tag : s.getTags().entrySet()) {
+				if (tags.length() > 0)
+					tags.append(';');
+				tags.append(tag.getKey()).append('=').append(tag.getValue());
+			}
+			appendField(sb, tags.toString());
+			sb.append(',').append(s.getType()).append(',').append(s.getCount());
+			appendNumber(sb, s.getValue());
+			appendNumber(sb, s.getMin());
+			appendNumber(sb, s.getMax());
+			appendNumber(sb, s.getP50());
+			appendNumber(sb, s.getP90());
+			appendNumber(sb, s.getP99());
+			sb.append('\n');
+		}
+		writer.write(sb.toString());
+		writer.flush();
+	}
+
+	private static void appendNumber(StringBuilder sb, double value) {
+		sb.append(',');
+		if (!Double.isNaN(value))
+			sb.append(value);
+	}
+
+	private static void appendField(StringBuilder sb, String field) {
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+			sb.append(field);
+			return;
+		}
+		sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,44 @@
+package org.fog.utils.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Metric holding a value that goes up and down, such as the energy consumed by
+ * a device: either set explicitly (see {@link #set(double)}) or read from a
+ * supplier whenever it is sampled.
+ */
+public class Gauge extends Metric {
+
+	/** Returned by disabled registries: it records nothing */
+	static final Gauge DISABLED = new Gauge("disabled", null) {
+		@Override
+		public void set(double value) {
+		}
+	};
+
+	private volatile double value = Double.NaN;
+	private volatile DoubleSupplier supplier;
+
+	Gauge(String name, DoubleSupplier supplier, String... tags) {
+		super(name, tags);
+		this.supplier = supplier;
+	}
+
+	public void set(double value) {
+		this.value = value;
+	}
+
+	void setSupplier(DoubleSupplier supplier) {
+		this.supplier = supplier;
+	}
+
+	public double get() {
+		DoubleSupplier supplier = this.supplier;
+		return supplier != null ? supplier.getAsDouble() : value;
+	}
+
+	@Override
+	MetricsSnapshot.Sample sample() {
+		return new MetricsSnapshot.Sample(this, "gauge", 1, get(), null);
+	}
+}
@@ -0,0 +1,69 @@
+package org.fog.utils.metrics;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.utils.LatencyStats;
+
+/**
+ * Metric recording the distribution of a duration, such as the CPU time of the
+ * tuples of a module, as {@link LatencyStats}.
+ */
+public class Histogram extends Metric {
+
+	/** Returned by disabled registries: it records nothing */
+	static final Histogram DISABLED = new Histogram("disabled") {
+		@Override
+		public void record(double value) {
+		}
+	};
+
+	private final LatencyStats stats = new LatencyStats();
+	/** The values recorded by each partition of a parallel simulation, null otherwise */
+	private LatencyStats[] partitionStats;
+
+	Histogram(String name, String... tags) {
+		super(name, tags);
+	}
+
+	public void record(double value) {
+		LatencyStats[] partitions = partitionStats;
+		if (partitions != null) {
+			partitions[CloudSim.getCurrentPartition()].record(value);
+			return;
+		}
+		synchronized (this) {
+			stats.record(value);
+		}
+	}
+
+	/**
+	 * Returns a copy of the values recorded so far.
+	 */
+	public synchronized LatencyStats getStats() {
+		LatencyStats copy = new LatencyStats();
+		copy.merge(stats);
+		if (partitionStats != null)
+			for (LatencyStats partition : partitionStats)
+				copy.merge(partition);
+		return copy;
+	}
+
+	@Override
+	MetricsSnapshot.Sample sample() {
+		LatencyStats copy = getStats();
+		return new MetricsSnapshot.Sample(this, "histogram", copy.getCount(), copy.getMean(), copy);
+	}
+
+	@Override
+	synchronized void split(int partitions) {
+		partitionStats = new LatencyStats[partitions + 1];
+		for (int p = 0; p < partitionStats.length; p++)
+			partitionStats[p] = new LatencyStats();
+	}
+
+	@Override
+	synchronized void join() {
+		for (LatencyStats partition : partitionStats)
+			stats.merge(partition);
+		partitionStats = null;
+	}
+}
@@ -0,0 +1,64 @@
+package org.fog.utils.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Exports the snapshots as JSON lines, one object per metric and snapshot,
+ * with the fields: time, name, tags (as an object), type, count, value and,
+ * for the histograms, min, max, p50, p90, p99.
+ */
+public class JsonLinesMetricsExporter implements MetricsExporter {
+
+	private final Writer writer;
+
+	public JsonLinesMetricsExporter(Writer writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public void export(MetricsSnapshot snapshot) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (MetricsSnapshot.Sample s : snapshot.getSamples()) {
+			sb.append("{\"time\":").append(snapshot.getTime());
+			sb.append(",\"name\":\"").append(JSONObject.escape(s.getName())).append("\",\"tags\":{");
+			boolean first = true;
+			for (Map.Entry<String, String> tag : s.getTags().entrySet()) {
+				if (!first)
+					sb.append(',');
+				first = false;
+				sb.append('"').append(JSONObject.escape(tag.getKey())).append("\":\"")
+						.append(JSONObject.escape(tag.getValue())).append('"');
+			}
+			sb.append("},\"type\":\"").append(s.getType()).append("\",\"count\":").append(s.getCount());
+			appendNumber(sb, "value", s.getValue());
+			if (!Double.isNaN(s.getMin())) {
+				appendNumber(sb, "min", s.getMin());
+				appendNumber(sb, "max", s.getMax());
+				appendNumber(sb, "p50", s.getP50());
+				appendNumber(sb, "p90", s.getP90());
+				appendNumber(sb, "p99", s.getP99());
+			}
+			sb.append("}\n");
+		}
+		writer.write(sb.toString());
+		writer.flush();
+	}
+
+	private static void appendNumber(StringBuilder sb, String name, double value) {
+		sb.append(",\"").append(name).append("\":");
+		// JSON has no NaN nor infinities
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			sb.append("null");
+		else
+			sb.append(value);
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,57 @@
+package org.fog.utils.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A metric of a {@link MetricsRegistry}, identified by its name and its tags
+ * (for instance, the device, the application or the module it refers to).
+ */
+public abstract class Metric {
+
+	private final String name;
+	private final Map<String, String> tags;
+
+	Metric(String name, String... tags) {
+		this.name = name;
+		this.tags = toMap(tags);
+	}
+
+	static Map<String, String> toMap(String... tags) {
+		if (tags.length % 2 != 0)
+			throw new IllegalArgumentException("Tags must be given as key-value pairs: " + tags.length + " strings");
+		if (tags.length == 0)
+			return Collections.emptyMap();
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		for (int i = 0; i < tags.length; i += 2)
+			map.put(tags[i], tags[i + 1]);
+		return Collections.unmodifiableMap(map);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+	/**
+	 * Returns the current value of this metric.
+	 */
+	abstract MetricsSnapshot.Sample sample();
+
+	/**
+	 * Records the values of each partition of a parallel simulation apart from
+	 * the others, see {@link MetricsRegistry#split(int)}.
+	 */
+	void split(int partitions) {
+	}
+
+	/**
+	 * Merges the values of the partitions, see {@link MetricsRegistry#join()}.
+	 */
+	void join() {
+	}
+}
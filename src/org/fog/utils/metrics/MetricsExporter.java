@@ -0,0 +1,13 @@
+package org.fog.utils.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the snapshots published by a {@link MetricsRegistry} (see
+ * {@link MetricsRegistry#publish(double)}), as they are taken.
+ */
+public interface MetricsExporter extends Closeable {
+
+	void export(MetricsSnapshot snapshot) throws IOException;
+}
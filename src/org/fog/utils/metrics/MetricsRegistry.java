@@ -0,0 +1,197 @@
+package org.fog.utils.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+import org.cloudbus.cloudsim.core.PartitionedState;
+import org.fog.utils.SimulationContext;
+
+/**
+ * Metrics of a simulation: counters, gauges and histograms, identified by a
+ * name and by tags given as key-value pairs, for instance
+ * {@code histogram("tuple.cpu_time", "app", appId, "module", moduleName)}.
+ * <p>
+ * The controllers publish a snapshot of the metrics to the exporters of the
+ * registry (see {@link #addExporter(MetricsExporter)}) at each resource
+ * management tick and when the simulation stops, so that a run can be followed
+ * while it's in progress.
+ * <p>
+ * A disabled registry (see {@link #create(boolean)}) returns metrics that
+ * record nothing and publishes no snapshot: instrumented code that builds tags
+ * for each measure should check {@link #isEnabled()} first.
+ * <p>
+ * As for {@link org.fog.utils.TimeKeeper}, {@link #getInstance()} returns the
+ * registry of the current {@link SimulationContext}.
+ * <p>
+ * In a parallel simulation, the counters and the histograms record the values
+ * of each partition apart from the others, and add them up in partition order
+ * when read.
+ */
+public class MetricsRegistry implements PartitionedState {
+
+	private static final Comparator<Metric> ORDER = new Comparator<Metric>() {
+		@Override
+		public int compare(Metric a, Metric b) {
+			int c = a.getName().compareTo(b.getName());
+			return c != 0 ? c : a.getTags().toString().compareTo(b.getTags().toString());
+		}
+	};
+
+	private final boolean enabled;
+	private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+	private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<MetricsExporter>();
+	/** The partitions of the parallel simulation running, 0 if none */
+	private volatile int partitions;
+
+	private MetricsRegistry(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public static MetricsRegistry getInstance() {
+		return SimulationContext.current().getMetricsRegistry();
+	}
+
+	/**
+	 * Returns a new registry, to be given to the context of a simulation (see
+	 * {@link SimulationContext#SimulationContext(MetricsRegistry)}).
+	 */
+	public static MetricsRegistry create(boolean enabled) {
+		return new MetricsRegistry(enabled);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public Counter counter(String name, String... tags) {
+		if (!enabled)
+			return Counter.DISABLED;
+		String key = key(name, tags);
+		Metric metric = metrics.get(key);
+		if (metric == null)
+			metric = register(key, new Counter(name, tags));
+		return cast(metric, Counter.class, key);
+	}
+
+	/**
+	 * Returns the gauge with the given name and tags, whose value is set
+	 * explicitly.
+	 */
+	public Gauge gauge(String name, String... tags) {
+		return gauge(name, null, tags);
+	}
+
+	/**
+	 * Returns the gauge with the given name and tags, whose value is read from the
+	 * given supplier from now on.
+	 */
+	public Gauge gauge(String name, DoubleSupplier supplier, String... tags) {
+		if (!enabled)
+			return Gauge.DISABLED;
+		String key = key(name, tags);
+		Metric metric = metrics.get(key);
+		if (metric == null)
+			metric = register(key, new Gauge(name, supplier, tags));
+		Gauge gauge = cast(metric, Gauge.class, key);
+		if (supplier != null)
+			gauge.setSupplier(supplier);
+		return gauge;
+	}
+
+	public Histogram histogram(String name, String... tags) {
+		if (!enabled)
+			return Histogram.DISABLED;
+		String key = key(name, tags);
+		Metric metric = metrics.get(key);
+		if (metric == null)
+			metric = register(key, new Histogram(name, tags));
+		return cast(metric, Histogram.class, key);
+	}
+
+	private Metric register(String key, Metric metric) {
+		if (partitions > 0)
+			metric.split(partitions);
+		Metric previous = metrics.putIfAbsent(key, metric);
+		return previous != null ? previous : metric;
+	}
+
+	private static <M extends Metric> M cast(Metric metric, Class<M> type, String key) {
+		if (!type.isInstance(metric))
+			throw new IllegalArgumentException("Metric " + key + " is a " + metric.getClass().getSimpleName()
+					+ ", not a " + type.getSimpleName());
+		return type.cast(metric);
+	}
+
+	private static String key(String name, String... tags) {
+		if (tags.length == 0)
+			return name;
+		StringBuilder sb = new StringBuilder(name).append('{');
+		for (int i = 0; i < tags.length; i++)
+			sb.append(tags[i]).append(i % 2 == 0 ? '=' : ',');
+		sb.setCharAt(sb.length() - 1, '}');
+		return sb.toString();
+	}
+
+	@Override
+	public synchronized void split(int partitions) {
+		this.partitions = partitions;
+		for (Metric metric : metrics.values())
+			metric.split(partitions);
+	}
+
+	@Override
+	public void synchronize() {
+		// the values of the partitions are added up when read
+	}
+
+	@Override
+	public synchronized void join() {
+		partitions = 0;
+		for (Metric metric : metrics.values())
+			metric.join();
+	}
+
+	public void addExporter(MetricsExporter exporter) {
+		exporters.add(exporter);
+	}
+
+	public void removeExporter(MetricsExporter exporter) {
+		exporters.remove(exporter);
+	}
+
+	/**
+	 * Returns the values of the metrics at the given simulation time.
+	 */
+	public MetricsSnapshot snapshot(double time) {
+		List<Metric> sorted = new ArrayList<Metric>(metrics.values());
+		Collections.sort(sorted, ORDER);
+		List<MetricsSnapshot.Sample> samples = new ArrayList<MetricsSnapshot.Sample>(sorted.size());
+		for (Metric metric : sorted)
+			samples.add(metric.sample());
+		return new MetricsSnapshot(time, samples);
+	}
+
+	/**
+	 * Takes a snapshot at the given simulation time and exports it, if there are
+	 * exporters.
+	 */
+	public void publish(double time) {
+		if (!enabled || exporters.isEmpty())
+			return;
+		MetricsSnapshot snapshot = snapshot(time);
+		for (MetricsExporter exporter : exporters) {
+			try {
+				exporter.export(snapshot);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.fog.utils.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.utils.LatencyStats;
+
+/**
+ * Values of the metrics of a {@link MetricsRegistry} at a simulation time,
+ * sorted by name and tags.
+ */
+public class MetricsSnapshot {
+
+	/**
+	 * Value of a metric: the total of a counter, the value of a gauge or the mean
+	 * of a histogram, along with the distribution of the histograms ({@code NaN}
+	 * for the other metrics).
+	 */
+	public static class Sample {
+
+		private final String name;
+		private final Map<String, String> tags;
+		private final String type;
+		private final long count;
+		private final double value;
+		private final double min, max, p50, p90, p99;
+
+		Sample(Metric metric, String type, long count, double value, LatencyStats stats) {
+			this.name = metric.getName();
+			this.tags = metric.getTags();
+			this.type = type;
+			this.count = count;
+			this.value = value;
+			this.min = stats == null ? Double.NaN : stats.getMin();
+			this.max = stats == null ? Double.NaN : stats.getMax();
+			this.p50 = stats == null ? Double.NaN : stats.getPercentile(50);
+			this.p90 = stats == null ? Double.NaN : stats.getPercentile(90);
+			this.p99 = stats == null ? Double.NaN : stats.getPercentile(99);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Map<String, String> getTags() {
+			return tags;
+		}
+
+		/**
+		 * Returns "counter", "gauge" or "histogram".
+		 */
+		public String getType() {
+			return type;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getValue() {
+			return value;
+		}
+
+		public double getMin() {
+			return min;
+		}
+
+		public double getMax() {
+			return max;
+		}
+
+		public double getP50() {
+			return p50;
+		}
+
+		public double getP90() {
+			return p90;
+		}
+
+		public double getP99() {
+			return p99;
+		}
+	}
+
+	private final double time;
+	private final List<Sample> samples;
+
+	MetricsSnapshot(double time, List<Sample> samples) {
+		this.time = time;
+		this.samples = Collections.unmodifiableList(samples);
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	public List<Sample> getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Returns the sample of the metric with the given name and tags (as key-value
+	 * pairs), or {@code null} if there is none.
+	 */
+	public Sample getSample(String name, String... tags) {
+		Map<String, String> map = Metric.toMap(tags);
+		for (Sample sample : samples) {
+			if (sample.getName().equals(name) && sample.getTags().equals(map))
+				return sample;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,86 @@
+package org.fog.utils.sweep;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A point of a {@link SweepGrid}: the value of each parameter, as a string,
+ * and the seed of one of its replications.
+ */
+public class SweepConfiguration {
+
+	private final Map<String, String> parameters;
+	private final long seed;
+
+	public SweepConfiguration(Map<String, String> parameters, long seed) {
+		this.parameters = Collections.unmodifiableMap(new LinkedHashMap<String, String>(parameters));
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the value of each parameter, in the order of the grid.
+	 */
+	public Map<String, String> getParameters() {
+		return parameters;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean hasParameter(String name) {
+		return parameters.containsKey(name);
+	}
+
+	/**
+	 * Returns the value of the given parameter, or the given default value if
+	 * the grid doesn't set it.
+	 */
+	public String getString(String name, String defaultValue) {
+		String value = parameters.get(name);
+		return value != null ? value : defaultValue;
+	}
+
+	public int getInt(String name, int defaultValue) {
+		String value = parameters.get(name);
+		return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+	}
+
+	public double getDouble(String name, double defaultValue) {
+		String value = parameters.get(name);
+		return value != null ? Double.parseDouble(value.trim()) : defaultValue;
+	}
+
+	public boolean getBoolean(String name, boolean defaultValue) {
+		String value = parameters.get(name);
+		return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+	}
+
+	/**
+	 * Returns the configuration as {@code name=value} pairs separated by
+	 * {@code ,}, the seed last: a key identifying the run.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> parameter : parameters.entrySet())
+			sb.append(parameter.getKey()).append('=').append(parameter.getValue()).append(',');
+		return sb.append("seed=").append(seed).toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof SweepConfiguration))
+			return false;
+		SweepConfiguration other = (SweepConfiguration) obj;
+		return seed == other.seed && parameters.equals(other.parameters);
+	}
+
+	@Override
+	public int hashCode() {
+		return parameters.hashCode() * 31 + Long.hashCode(seed);
+	}
+}
@@ -0,0 +1,58 @@
+package org.fog.utils.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CSV format of the sweeps: fields quoted only when they contain a comma, a
+ * quote or a line break, as in {@link org.fog.utils.metrics.CsvMetricsExporter},
+ * and empty numbers for {@code NaN}.
+ */
+class SweepCsv {
+
+	private SweepCsv() {
+	}
+
+	static void appendField(StringBuilder sb, String field) {
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+			sb.append(field);
+			return;
+		}
+		sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+	}
+
+	static void appendNumber(StringBuilder sb, double value) {
+		if (!Double.isNaN(value))
+			sb.append(value);
+	}
+
+	/**
+	 * Splits a line written by {@link #appendField(StringBuilder, String)} into its
+	 * fields.
+	 */
+	static List<String> parseLine(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"')
+					field.append(c);
+				else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+					field.append(line.charAt(++i));
+				else
+					quoted = false;
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+}
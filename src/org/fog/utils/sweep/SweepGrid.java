@@ -0,0 +1,97 @@
+package org.fog.utils.sweep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid of the configurations of a parameter sweep: every combination of the
+ * values of its parameters, each one replicated with each of its seeds, for
+ * instance
+ *
+ * <pre>
+ * new SweepGrid().parameter("areas", 1, 2, 4).parameter("placement", "edgewards", "cloud").replications(5)
+ * </pre>
+ *
+ * The values are kept as strings, read back by the scenarios through the
+ * getters of {@link SweepConfiguration}.
+ */
+public class SweepGrid {
+
+	private final Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+	private long[] seeds = { 0 };
+
+	/**
+	 * Adds a parameter taking the given values: the last parameters change the
+	 * fastest in the order of the configurations.
+	 */
+	public SweepGrid parameter(String name, Object... values) {
+		if (values.length == 0)
+			throw new IllegalArgumentException("The parameter " + name + " has no values");
+		List<String> strings = new ArrayList<String>(values.length);
+		for (Object value : values)
+			strings.add(String.valueOf(value));
+		parameters.put(name, strings);
+		return this;
+	}
+
+	/**
+	 * Replicates each combination of the parameters with the given seeds.
+	 */
+	public SweepGrid seeds(long... seeds) {
+		if (seeds.length == 0)
+			throw new IllegalArgumentException("At least a seed is needed");
+		this.seeds = seeds.clone();
+		return this;
+	}
+
+	/**
+	 * Replicates each combination of the parameters the given amount of times,
+	 * with the seeds from 1 up to that amount.
+	 */
+	public SweepGrid replications(int count) {
+		long[] seeds = new long[count];
+		for (int i = 0; i < count; i++)
+			seeds[i] = i + 1;
+		return seeds(seeds);
+	}
+
+	public Map<String, List<String>> getParameters() {
+		return Collections.unmodifiableMap(parameters);
+	}
+
+	public long[] getSeeds() {
+		return seeds.clone();
+	}
+
+	/**
+	 * Returns all the configurations, the replications of each combination of the
+	 * parameters one after the other.
+	 */
+	public List<SweepConfiguration> getConfigurations() {
+		List<SweepConfiguration> configurations = new ArrayList<SweepConfiguration>();
+		List<String> names = new ArrayList<String>(parameters.keySet());
+		int[] indices = new int[names.size()];
+		while (true) {
+			Map<String, String> values = new LinkedHashMap<String, String>();
+			for (int i = 0; i < indices.length; i++)
+				values.put(names.get(i), parameters.get(names.get(i)).get(indices[i]));
+			for (long seed : seeds)
+				configurations.add(new SweepConfiguration(values, seed));
+			// next combination, as an odometer
+			int i = indices.length - 1;
+			while (i >= 0 && ++indices[i] == parameters.get(names.get(i)).size())
+				indices[i--] = 0;
+			if (i < 0)
+				return configurations;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return parameters + " x seeds " + Arrays.toString(seeds);
+	}
+}
@@ -0,0 +1,155 @@
+package org.fog.utils.sweep;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.fog.placement.SimulationResults;
+
+/**
+ * Results of a run of a {@link SweepConfiguration}, flattened into measures
+ * identified by a metric and a key (the loop, the tuple type or the device
+ * measured, empty for the metrics of the whole simulation).
+ * <p>
+ * The runs are cached on disk as CSV files with the columns metric, key and
+ * value, after a comment line holding the configuration.
+ */
+public class SweepRun {
+
+	public static final String LOOP_DELAY = "loop_delay";
+	public static final String TUPLE_CPU_TIME = "tuple_cpu_time";
+	public static final String ENERGY = "energy";
+	public static final String CLOUD_COST = "cloud_cost";
+	public static final String NETWORK_USAGE = "network_usage";
+	public static final String MIGRATION_DELAY = "migration_delay";
+	public static final String EXECUTION_TIME = "execution_time";
+
+	private static final String CONFIGURATION_LINE = "# configuration=";
+	private static final String HEADER = "metric,key,value";
+
+	/**
+	 * A value measured by a run.
+	 */
+	public static class Measure {
+
+		private final String metric;
+		private final String key;
+		private final double value;
+
+		public Measure(String metric, String key, double value) {
+			this.metric = metric;
+			this.key = key;
+			this.value = value;
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public double getValue() {
+			return value;
+		}
+	}
+
+	private final SweepConfiguration configuration;
+	private final List<Measure> measures;
+
+	public SweepRun(SweepConfiguration configuration, List<Measure> measures) {
+		this.configuration = configuration;
+		this.measures = Collections.unmodifiableList(new ArrayList<Measure>(measures));
+	}
+
+	/**
+	 * Flattens the results of a simulation: the network usage is divided by the
+	 * simulation time, as printed by the controllers.
+	 */
+	public static SweepRun of(SweepConfiguration configuration, SimulationResults results) {
+		List<Measure> measures = new ArrayList<Measure>();
+		for (Map.Entry<String, Double> loop : results.getLoopDelays().entrySet())
+			measures.add(new Measure(LOOP_DELAY, loop.getKey(), loop.getValue()));
+		for (Map.Entry<String, Double> tuple : results.getTupleCpuTimes().entrySet())
+			measures.add(new Measure(TUPLE_CPU_TIME, tuple.getKey(), tuple.getValue()));
+		for (Map.Entry<String, Double> device : results.getEnergyConsumptions().entrySet())
+			measures.add(new Measure(ENERGY, device.getKey(), device.getValue()));
+		measures.add(new Measure(CLOUD_COST, "", results.getCloudCost()));
+		measures.add(new Measure(NETWORK_USAGE, "", results.getNetworkUsage() / results.getSimulationTime()));
+		measures.add(new Measure(MIGRATION_DELAY, "", results.getMigrationDelay()));
+		measures.add(new Measure(EXECUTION_TIME, "", results.getExecutionTime()));
+		return new SweepRun(configuration, measures);
+	}
+
+	public SweepConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	public List<Measure> getMeasures() {
+		return measures;
+	}
+
+	/**
+	 * Writes the run to the given file, atomically: a file is either missing or
+	 * complete, even if the sweep is interrupted.
+	 */
+	public void write(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(CONFIGURATION_LINE + configuration + "\n");
+			writer.write(HEADER + "\n");
+			StringBuilder sb = new StringBuilder();
+			for (Measure measure : measures) {
+				sb.setLength(0);
+				SweepCsv.appendField(sb, measure.metric);
+				sb.append(',');
+				SweepCsv.appendField(sb, measure.key);
+				sb.append(',');
+				SweepCsv.appendNumber(sb, measure.value);
+				writer.write(sb.append('\n').toString());
+			}
+		}
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Reads the run of the given configuration from the given file, or returns
+	 * {@code null} if the file is missing or holds another configuration.
+	 */
+	public static SweepRun read(File file, SweepConfiguration configuration) throws IOException {
+		if (!file.isFile())
+			return null;
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!(CONFIGURATION_LINE + configuration).equals(reader.readLine()) || !HEADER.equals(reader.readLine()))
+				return null;
+			List<Measure> measures = new ArrayList<Measure>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				List<String> fields = SweepCsv.parseLine(line);
+				if (fields.size() != 3)
+					throw new IOException("Malformed line in " + file + ": " + line);
+				String value = fields.get(2);
+				measures.add(new Measure(fields.get(0), fields.get(1),
+						value.isEmpty() ? Double.NaN : Double.parseDouble(value)));
+			}
+			return new SweepRun(configuration, measures);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package org.fog.utils.sweep;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.fog.placement.SimulationResults;
+import org.fog.utils.SimulationContext;
+import org.fog.utils.metrics.MetricsRegistry;
+
+/**
+ * Runs a {@link SweepScenario} for each configuration of a {@link SweepGrid},
+ * and summarizes the results of the replications (see {@link SweepSummary}).
+ * <p>
+ * The runs are spread over a pool of threads, either in this JVM, each one in
+ * its own {@link SimulationContext}, or each one in a forked JVM (see
+ * {@link #setForked(boolean, String...)}), whose output goes to a log file next
+ * to the results of the run. The results of each run are cached in a directory (see
+ * {@link SweepRun}): the runs already cached are not run again, so that an
+ * interrupted sweep can be resumed and a grid can be extended. The cache knows
+ * nothing about the code of the scenario: it must be cleared when the scenario
+ * changes.
+ * <p>
+ * The parameter {@value #SIMULATION_TIME}, if set by the grid, overrides the
+ * time at which the controllers stop the simulation (see
+ * {@link SimulationContext#setMaxSimulationTime(int)}); the other parameters are
+ * read by the scenario.
+ * <p>
+ * A failed run is reported on the standard error and left out of the summary,
+ * and its configuration is reported by {@link #getFailures()}.
+ */
+public class SweepRunner {
+
+	public static final String SIMULATION_TIME = "simulationTime";
+
+	private final Class<? extends SweepScenario> scenario;
+	private final File cacheDirectory;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean forked;
+	private List<String> jvmArguments = new ArrayList<String>();
+	private double confidence = 0.95;
+	private final List<SweepConfiguration> failures = new ArrayList<SweepConfiguration>();
+
+	public SweepRunner(Class<? extends SweepScenario> scenario, File cacheDirectory) {
+		this.scenario = scenario;
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Sets how many runs are in progress at the same time (by default, the amount
+	 * of processors).
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("At least a thread is needed");
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets whether each run is in a new JVM, with the class path of this one and
+	 * the given arguments (such as {@code -Xmx2g}), instead of in this JVM.
+	 */
+	public void setForked(boolean forked, String... jvmArguments) {
+		this.forked = forked;
+		this.jvmArguments = new ArrayList<String>(Arrays.asList(jvmArguments));
+	}
+
+	/**
+	 * Sets the level of the confidence intervals of the summary (0.95 by default).
+	 */
+	public void setConfidence(double confidence) {
+		if (!(confidence > 0 && confidence < 1))
+			throw new IllegalArgumentException("The confidence must be between 0 and 1: " + confidence);
+		this.confidence = confidence;
+	}
+
+	/**
+	 * Returns the configurations whose run failed during the last sweep.
+	 */
+	public List<SweepConfiguration> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Runs the configurations of the given grid that are not cached yet, and
+	 * summarizes the runs of all the configurations.
+	 */
+	public SweepSummary run(SweepGrid grid) throws IOException, InterruptedException {
+		if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs())
+			throw new IOException("Cannot create the directory " + cacheDirectory);
+		failures.clear();
+		List<SweepConfiguration> configurations = grid.getConfigurations();
+		Map<SweepConfiguration, Future<SweepRun>> pending = new LinkedHashMap<SweepConfiguration, Future<SweepRun>>();
+		List<SweepRun> runs = new ArrayList<SweepRun>(configurations.size());
+		int cached = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (final SweepConfiguration configuration : configurations) {
+				final File file = getCacheFile(configuration);
+				SweepRun cachedRun = SweepRun.read(file, configuration);
+				if (cachedRun != null) {
+					pending.put(configuration, CompletableFuture.completedFuture(cachedRun));
+					cached++;
+					continue;
+				}
+				pending.put(configuration, executor.submit(() -> {
+					SweepRun run = forked ? runForked(configuration, file)
+							: runConfiguration(scenario, configuration);
+					if (!forked)
+						run.write(file);
+					return run;
+				}));
+			}
+			System.out.println("Sweep of " + scenario.getSimpleName() + ": " + configurations.size()
+					+ " runs, " + cached + " cached");
+			for (Map.Entry<SweepConfiguration, Future<SweepRun>> entry : pending.entrySet()) {
+				SweepConfiguration configuration = entry.getKey();
+				try {
+					runs.add(entry.getValue().get());
+				} catch (ExecutionException e) {
+					failures.add(configuration);
+					System.err.println("Run " + configuration + " of " + scenario.getSimpleName() + " failed:");
+					e.getCause().printStackTrace();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return new SweepSummary(new ArrayList<String>(grid.getParameters().keySet()), runs, confidence);
+	}
+
+	/**
+	 * Returns the file caching the run of the given configuration.
+	 */
+	public File getCacheFile(SweepConfiguration configuration) {
+		String id = scenario.getName() + "|" + configuration;
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(id.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(scenario.getSimpleName()).append('-');
+			for (int i = 0; i < 8; i++)
+				sb.append(String.format("%02x", digest[i]));
+			return new File(cacheDirectory, sb.append(".csv").toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Runs the given configuration of the scenario from the current thread, in a
+	 * new context.
+	 */
+	public static SweepRun runConfiguration(Class<? extends SweepScenario> scenario,
+			SweepConfiguration configuration) throws Exception {
+		SimulationContext context = new SimulationContext(MetricsRegistry.create(false));
+		context.setSeed(configuration.getSeed());
+		if (configuration.hasParameter(SIMULATION_TIME))
+			context.setMaxSimulationTime(configuration.getInt(SIMULATION_TIME, 0));
+		SimulationResults results = context
+				.call(() -> scenario.getConstructor().newInstance().run(configuration));
+		if (results == null)
+			throw new IllegalStateException("The scenario returned no results: did its simulation stop?");
+		return SweepRun.of(configuration, results);
+	}
+
+	private SweepRun runForked(SweepConfiguration configuration, File file) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		command.addAll(jvmArguments);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(SweepRunner.class.getName());
+		command.add(scenario.getName());
+		command.add(file.getPath());
+		command.add(Long.toString(configuration.getSeed()));
+		for (Map.Entry<String, String> parameter : configuration.getParameters().entrySet())
+			command.add(parameter.getKey() + "=" + parameter.getValue());
+		File log = new File(file.getPath() + ".log");
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+		int exitCode = process.waitFor();
+		SweepRun run = SweepRun.read(file, configuration);
+		if (exitCode != 0 || run == null)
+			throw new IOException("The forked JVM exited with code " + exitCode + ", see " + log);
+		return run;
+	}
+
+	/**
+	 * Entry point of the forked JVMs: runs a configuration and writes its results.
+	 * The arguments are the class of the scenario, the file of the results, the
+	 * seed and the parameters as {@code name=value} pairs.
+	 */
+	public static void main(String[] args) {
+		try {
+			Class<? extends SweepScenario> scenario = Class.forName(args[0]).asSubclass(SweepScenario.class);
+			Map<String, String> parameters = new LinkedHashMap<String, String>();
+			for (int i = 3; i < args.length; i++) {
+				int separator = args[i].indexOf('=');
+				parameters.put(args[i].substring(0, separator), args[i].substring(separator + 1));
+			}
+			SweepConfiguration configuration = new SweepConfiguration(parameters, Long.parseLong(args[2]));
+			runConfiguration(scenario, configuration).write(new File(args[1]));
+		} catch (Throwable e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		// the simulation may leave non-daemon threads behind
+		System.exit(0);
+	}
+}
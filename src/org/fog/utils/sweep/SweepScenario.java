@@ -0,0 +1,20 @@
+package org.fog.utils.sweep;
+
+import org.fog.placement.SimulationResults;
+
+/**
+ * A simulation run by a {@link SweepRunner} for each configuration of a
+ * {@link SweepGrid}, such as the ones of {@code org.fog.test.perfeval}.
+ * <p>
+ * The runner creates a new instance for each run, through the public
+ * constructor without arguments, and calls {@link #run(SweepConfiguration)}
+ * from a thread bound to a new {@link org.fog.utils.SimulationContext},
+ * already seeded with the seed of the configuration: the scenario sets up the
+ * simulation (from {@code CloudSim.init} on), runs it and returns the results
+ * of its controller. It must not keep its state in static fields, since
+ * several runs may be in progress at the same time.
+ */
+public interface SweepScenario {
+
+	SimulationResults run(SweepConfiguration configuration) throws Exception;
+}
@@ -0,0 +1,209 @@
+package org.fog.utils.sweep;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+/**
+ * Table of the results of a sweep: one row for each combination of the
+ * parameters and each measure (see {@link SweepRun.Measure}), with the mean of
+ * the values measured by its replications and the confidence interval of the
+ * mean, from the Student's t-distribution.
+ * <p>
+ * The rows follow the order of the configurations, then the order in which the
+ * measures appear in the runs.
+ */
+public class SweepSummary {
+
+	/**
+	 * Statistics of a measure over the replications of a combination of the
+	 * parameters.
+	 */
+	public static class Row {
+
+		private final Map<String, String> parameters;
+		private final String metric;
+		private final String key;
+		private final int count;
+		private final double mean;
+		private final double stdDev;
+		private final double ciLow;
+		private final double ciHigh;
+
+		Row(Map<String, String> parameters, String metric, String key, int count, double mean, double stdDev,
+				double ciLow, double ciHigh) {
+			this.parameters = parameters;
+			this.metric = metric;
+			this.key = key;
+			this.count = count;
+			this.mean = mean;
+			this.stdDev = stdDev;
+			this.ciLow = ciLow;
+			this.ciHigh = ciHigh;
+		}
+
+		public Map<String, String> getParameters() {
+			return parameters;
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns how many replications measured a value ({@code NaN} values are
+		 * ignored).
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		/**
+		 * Returns the sample standard deviation, or {@code NaN} for less than two
+		 * values.
+		 */
+		public double getStdDev() {
+			return stdDev;
+		}
+
+		/**
+		 * Returns the lower bound of the confidence interval of the mean, or
+		 * {@code NaN} for less than two values.
+		 */
+		public double getCiLow() {
+			return ciLow;
+		}
+
+		public double getCiHigh() {
+			return ciHigh;
+		}
+	}
+
+	private final List<String> parameterNames;
+	private final double confidence;
+	private final List<Row> rows = new ArrayList<Row>();
+
+	/**
+	 * Summarizes the given runs of a grid with the given parameters, with
+	 * confidence intervals at the given level (for instance, 0.95).
+	 */
+	public SweepSummary(List<String> parameterNames, List<SweepRun> runs, double confidence) {
+		this.parameterNames = Collections.unmodifiableList(new ArrayList<String>(parameterNames));
+		this.confidence = confidence;
+		// combination -> metric and key -> values
+		Map<Map<String, String>, Map<List<String>, List<Double>>> values = new LinkedHashMap<Map<String, String>, Map<List<String>, List<Double>>>();
+		for (SweepRun run : runs) {
+			Map<List<String>, List<Double>> measures = values.get(run.getConfiguration().getParameters());
+			if (measures == null) {
+				measures = new LinkedHashMap<List<String>, List<Double>>();
+				values.put(run.getConfiguration().getParameters(), measures);
+			}
+			for (SweepRun.Measure measure : run.getMeasures()) {
+				List<String> id = new ArrayList<String>(2);
+				id.add(measure.getMetric());
+				id.add(measure.getKey());
+				List<Double> measured = measures.get(id);
+				if (measured == null) {
+					measured = new ArrayList<Double>();
+					measures.put(id, measured);
+				}
+				if (!Double.isNaN(measure.getValue()))
+					measured.add(measure.getValue());
+			}
+		}
+		for (Map.Entry<Map<String, String>, Map<List<String>, List<Double>>> combination : values.entrySet()) {
+			for (Map.Entry<List<String>, List<Double>> measure : combination.getValue().entrySet())
+				rows.add(summarize(combination.getKey(), measure.getKey().get(0), measure.getKey().get(1),
+						measure.getValue()));
+		}
+	}
+
+	private Row summarize(Map<String, String> parameters, String metric, String key, List<Double> values) {
+		int n = values.size();
+		double sum = 0;
+		for (double value : values)
+			sum += value;
+		double mean = n > 0 ? sum / n : Double.NaN;
+		if (n < 2)
+			return new Row(parameters, metric, key, n, mean, Double.NaN, Double.NaN, Double.NaN);
+		double squares = 0;
+		for (double value : values)
+			squares += (value - mean) * (value - mean);
+		double stdDev = Math.sqrt(squares / (n - 1));
+		double t = new TDistribution(n - 1).inverseCumulativeProbability((1 + confidence) / 2);
+		double halfWidth = t * stdDev / Math.sqrt(n);
+		return new Row(parameters, metric, key, n, mean, stdDev, mean - halfWidth, mean + halfWidth);
+	}
+
+	public List<String> getParameterNames() {
+		return parameterNames;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	public List<Row> getRows() {
+		return Collections.unmodifiableList(rows);
+	}
+
+	/**
+	 * Writes the table as CSV, with a column for each parameter followed by
+	 * metric, key, n, mean, stddev, ci_low and ci_high.
+	 */
+	public void write(Writer writer) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String name : parameterNames) {
+			SweepCsv.appendField(sb, name);
+			sb.append(',');
+		}
+		sb.append("metric,key,n,mean,stddev,ci_low,ci_high\n");
+		for (Row row : rows) {
+			for (String name : parameterNames) {
+				String value = row.parameters.get(name);
+				SweepCsv.appendField(sb, value != null ? value : "");
+				sb.append(',');
+			}
+			SweepCsv.appendField(sb, row.metric);
+			sb.append(',');
+			SweepCsv.appendField(sb, row.key);
+			sb.append(',').append(row.count).append(',');
+			SweepCsv.appendNumber(sb, row.mean);
+			sb.append(',');
+			SweepCsv.appendNumber(sb, row.stdDev);
+			sb.append(',');
+			SweepCsv.appendNumber(sb, row.ciLow);
+			sb.append(',');
+			SweepCsv.appendNumber(sb, row.ciHigh);
+			sb.append('\n');
+		}
+		writer.write(sb.toString());
+		writer.flush();
+	}
+
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null)
+			parent.mkdirs();
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			write(writer);
+		}
+	}
+}